@@ -347,6 +347,7 @@ intoPath
 specialClause
     : specialLimit #specialLimitStatement
     | orderByTimeClause specialLimit? #orderByTimeStatement
+    | orderByValueClause specialLimit? #orderByValueStatement
     | groupByTimeClause orderByTimeClause? specialLimit? #groupByTimeStatement
     | groupByFillClause orderByTimeClause? specialLimit? #groupByFillStatement
     | groupByLevelClause orderByTimeClause? specialLimit? #groupByLevelStatement
@@ -378,6 +379,10 @@ orderByTimeClause
     : ORDER BY TIME (DESC | ASC)?
     ;
 
+orderByValueClause
+    : ORDER BY suffixPath (DESC | ASC)?
+    ;
+
 groupByTimeClause
     : GROUP BY LR_BRACKET timeRange COMMA DURATION_LITERAL (COMMA DURATION_LITERAL)? RR_BRACKET
     | GROUP BY LR_BRACKET timeRange COMMA DURATION_LITERAL (COMMA DURATION_LITERAL)? RR_BRACKET
@@ -37,6 +37,7 @@ import org.apache.iotdb.rpc.RpcTransportFactory;
 import org.apache.iotdb.rpc.RpcUtils;
 import org.apache.iotdb.tsfile.common.conf.TSFileDescriptor;
 import org.apache.iotdb.tsfile.common.constant.TsFileConstant;
+import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
 import org.apache.iotdb.tsfile.fileSystem.FSType;
@@ -150,6 +151,15 @@ public class IoTDBConfig {
   /** When inserting rejected exceeds this, throw an exception. Unit: millisecond */
   private int maxWaitingTimeWhenInsertBlockedInMs = 10000;
 
+  /** Whether to delay insertions gradually according to the write pressure before rejecting */
+  private boolean enableWriteThrottle = false;
+
+  /** Delay of an insertion when the write pressure reaches the top. Unit: millisecond */
+  private int maxWriteThrottleTimeInMs = 200;
+
+  /** Number of pending flush tasks at which the flush pressure reaches the top */
+  private int writeThrottleFlushTaskThreshold = 10;
+
   /** this variable set timestamp precision as millisecond, microsecond or nanosecond */
   private String timestampPrecision = "ms";
 
@@ -256,6 +266,22 @@ public class IoTDBConfig {
   /** Data directories. It can be settled as dataDirs = {"data1", "data2", "data3"}; */
   private String[] dataDirs = {DEFAULT_BASE_DIR + File.separator + IoTDBConstant.DATA_FOLDER_NAME};
 
+  /**
+   * Directories of the cold storage tier. Sealed TsFiles whose data are older than
+   * hotDataRetentionInMs are migrated from dataDirs to them. Empty means tiered storage is
+   * disabled.
+   */
+  private String[] coldDataDirs = {};
+
+  /** Sealed TsFiles whose max end time is older than this are migrated to coldDataDirs. */
+  private long hotDataRetentionInMs = 30 * 24 * 3600 * 1000L;
+
+  /** The interval of checking TsFiles to be migrated to coldDataDirs. */
+  private long tieredMigrationCheckIntervalInMs = 3600 * 1000L;
+
+  /** The max throughput of copying TsFiles to coldDataDirs, 0 means no limit. */
+  private int tieredMigrationThroughputMbPerSec = 16;
+
   /** Strategy of multiple directories. */
   private String multiDirStrategyClassName = null;
 
@@ -355,8 +381,9 @@ public class IoTDBConfig {
   private boolean enableCrossSpaceCompaction = true;
 
   /**
-   * The strategy of inner space compaction task. There are just one inner space compaction strategy
-   * SIZE_TIRED_COMPACTION:
+   * The strategy of inner sequence space compaction task. SIZE_TIERED: compact the files of the
+   * same level once they reach the target size or num. LEVELED: bound the num of files in each
+   * level.
    */
   private InnerSequenceCompactionSelector innerSequenceCompactionSelector =
       InnerSequenceCompactionSelector.SIZE_TIERED;
@@ -386,6 +413,15 @@ public class IoTDBConfig {
    */
   private CompactionPriority compactionPriority = CompactionPriority.BALANCE;
 
+  /**
+   * Whether to prioritize the compaction tasks whose files are read by more queries recently. The
+   * priority between inner and cross space compaction is still decided by compactionPriority.
+   */
+  private boolean enableQueryHeatAwareCompaction = false;
+
+  /** The query heat of a tsfile decays by half after this time. The unit is ms. */
+  private long compactionQueryHeatHalfLifeInMs = 3_600_000L;
+
   /** The target tsfile size in compaction, 1 GB by default */
   private long targetCompactionFileSize = 1073741824L;
 
@@ -416,6 +452,12 @@ public class IoTDBConfig {
   /** The max candidate file num in inner space compaction */
   private int maxInnerCompactionCandidateFileNum = 30;
 
+  /**
+   * The max num of files that have not reached the target compaction file size in each level of
+   * leveled inner sequence space compaction.
+   */
+  private int leveledCompactionMaxFileNumInLevel = 4;
+
   /** The max candidate file num in cross space compaction */
   private int maxCrossCompactionCandidateFileNum = 1000;
 
@@ -426,11 +468,18 @@ public class IoTDBConfig {
   private long compactionSubmissionIntervalInMs = 60_000L;
 
   /**
-   * The number of sub compaction threads to be set up to perform compaction. Currently only works
-   * for nonAligned data in cross space compaction and unseq inner space compaction.
+   * The number of sub compaction threads to be set up to perform compaction. Cross space compaction
+   * and unseq inner space compaction split nonAligned measurements among them, and seq inner space
+   * compaction splits devices among them.
    */
   private int subCompactionTaskNum = 4;
 
+  /**
+   * How much memory (in byte) can be used to buffer the chunk groups compacted by sub tasks of seq
+   * inner space compaction before they are written into the target file.
+   */
+  private long innerCompactionBufferMemoryBudget = (long) (Runtime.getRuntime().maxMemory() * 0.05);
+
   /** whether to cache meta data(ChunkMetaData and TsFileMetaData) or not. */
   private boolean metaDataCacheEnable = true;
 
@@ -579,6 +628,9 @@ public class IoTDBConfig {
   /** How many threads will be set up to perform settle tasks. */
   private int settleThreadNum = 1;
 
+  /** How many threads will be set up to check and split tsfiles loaded from a directory. */
+  private int loadTsFileThreadNum = Runtime.getRuntime().availableProcessors();
+
   /**
    * If one merge file selection runs for more than this time, it will be ended and its current
    * selection will be used as final selection. When < 0, it means time is unbounded. Unit:
@@ -689,6 +741,12 @@ public class IoTDBConfig {
   /** the default fill interval in LinearFill and PreviousFill, -1 means infinite past time */
   private int defaultFillInterval = -1;
 
+  /**
+   * max number of drivers that a series scan in a data fragment instance can be split into, each
+   * driver scans a disjoint time range of the series. 1 means that a series scan is never split.
+   */
+  private int seriesScanParallelism = 4;
+
   /**
    * default TTL for storage groups that are not set TTL by statements, in ms.
    *
@@ -797,6 +855,12 @@ public class IoTDBConfig {
   /** the interval to log recover progress of each vsg when starting iotdb */
   private long recoveryLogIntervalInMs = 5_000L;
 
+  /**
+   * whether to register sealed TsFiles by their file names only when recovering, and deserialize
+   * their .resource files on first access or by a background warm-up task
+   */
+  private boolean enableLazyLoadTsFileResource = false;
+
   private boolean enableDiscardOutOfOrderData = false;
 
   private String adminName = "root";
@@ -883,6 +947,15 @@ public class IoTDBConfig {
   /** Thread keep alive time in ms of data block manager. */
   private int dataBlockManagerKeepAliveTimeInMs = 1000;
 
+  /**
+   * Compression type of the TsBlocks exchanged between data nodes. A TsBlock is sent uncompressed
+   * if compression doesn't make it smaller.
+   */
+  private CompressionType dataBlockCompressionType = CompressionType.LZ4;
+
+  /** Whether to encode the time columns and constant columns of exchanged TsBlocks compactly. */
+  private boolean enableDataBlockAdaptiveEncoding = true;
+
   /** Thrift socket and connection timeout between data node and config node. */
   private int connectionTimeoutInMS = (int) TimeUnit.SECONDS.toMillis(20);
 
@@ -972,6 +1045,14 @@ public class IoTDBConfig {
     this.defaultFillInterval = defaultFillInterval;
   }
 
+  public int getSeriesScanParallelism() {
+    return seriesScanParallelism;
+  }
+
+  public void setSeriesScanParallelism(int seriesScanParallelism) {
+    this.seriesScanParallelism = seriesScanParallelism;
+  }
+
   public boolean isEnablePartition() {
     return enablePartition;
   }
@@ -1029,6 +1110,9 @@ public class IoTDBConfig {
         dataDirs[i] = addHomeDir(dataDirs[i]);
       }
     }
+    for (int i = 0; i < coldDataDirs.length; i++) {
+      coldDataDirs[i] = addHomeDir(coldDataDirs[i]);
+    }
   }
 
   void reloadDataDirs(String[] dataDirs) throws LoadConfigurationException {
@@ -1096,6 +1180,42 @@ public class IoTDBConfig {
     this.dataDirs = dataDirs;
   }
 
+  public String[] getColdDataDirs() {
+    return coldDataDirs;
+  }
+
+  public void setColdDataDirs(String[] coldDataDirs) {
+    this.coldDataDirs = coldDataDirs;
+  }
+
+  public boolean isEnableTieredStorage() {
+    return coldDataDirs.length > 0;
+  }
+
+  public long getHotDataRetentionInMs() {
+    return hotDataRetentionInMs;
+  }
+
+  public void setHotDataRetentionInMs(long hotDataRetentionInMs) {
+    this.hotDataRetentionInMs = hotDataRetentionInMs;
+  }
+
+  public long getTieredMigrationCheckIntervalInMs() {
+    return tieredMigrationCheckIntervalInMs;
+  }
+
+  public void setTieredMigrationCheckIntervalInMs(long tieredMigrationCheckIntervalInMs) {
+    this.tieredMigrationCheckIntervalInMs = tieredMigrationCheckIntervalInMs;
+  }
+
+  public int getTieredMigrationThroughputMbPerSec() {
+    return tieredMigrationThroughputMbPerSec;
+  }
+
+  public void setTieredMigrationThroughputMbPerSec(int tieredMigrationThroughputMbPerSec) {
+    this.tieredMigrationThroughputMbPerSec = tieredMigrationThroughputMbPerSec;
+  }
+
   public String getRpcAddress() {
     return rpcAddress;
   }
@@ -2106,6 +2226,14 @@ public class IoTDBConfig {
     this.upgradeThreadNum = upgradeThreadNum;
   }
 
+  public int getLoadTsFileThreadNum() {
+    return loadTsFileThreadNum;
+  }
+
+  public void setLoadTsFileThreadNum(int loadTsFileThreadNum) {
+    this.loadTsFileThreadNum = loadTsFileThreadNum;
+  }
+
   String getDfsNameServices() {
     return dfsNameServices;
   }
@@ -2316,6 +2444,30 @@ public class IoTDBConfig {
     this.maxWaitingTimeWhenInsertBlockedInMs = maxWaitingTimeWhenInsertBlocked;
   }
 
+  public boolean isEnableWriteThrottle() {
+    return enableWriteThrottle;
+  }
+
+  public void setEnableWriteThrottle(boolean enableWriteThrottle) {
+    this.enableWriteThrottle = enableWriteThrottle;
+  }
+
+  public int getMaxWriteThrottleTimeInMs() {
+    return maxWriteThrottleTimeInMs;
+  }
+
+  public void setMaxWriteThrottleTimeInMs(int maxWriteThrottleTimeInMs) {
+    this.maxWriteThrottleTimeInMs = maxWriteThrottleTimeInMs;
+  }
+
+  public int getWriteThrottleFlushTaskThreshold() {
+    return writeThrottleFlushTaskThreshold;
+  }
+
+  public void setWriteThrottleFlushTaskThreshold(int writeThrottleFlushTaskThreshold) {
+    this.writeThrottleFlushTaskThreshold = writeThrottleFlushTaskThreshold;
+  }
+
   public int getFrequencyIntervalInMinute() {
     return frequencyIntervalInMinute;
   }
@@ -2380,6 +2532,14 @@ public class IoTDBConfig {
     this.recoveryLogIntervalInMs = recoveryLogIntervalInMs;
   }
 
+  public boolean isEnableLazyLoadTsFileResource() {
+    return enableLazyLoadTsFileResource;
+  }
+
+  public void setEnableLazyLoadTsFileResource(boolean enableLazyLoadTsFileResource) {
+    this.enableLazyLoadTsFileResource = enableLazyLoadTsFileResource;
+  }
+
   public boolean isRpcAdvancedCompressionEnable() {
     return rpcAdvancedCompressionEnable;
   }
@@ -2537,6 +2697,22 @@ public class IoTDBConfig {
     this.compactionPriority = compactionPriority;
   }
 
+  public boolean isEnableQueryHeatAwareCompaction() {
+    return enableQueryHeatAwareCompaction;
+  }
+
+  public void setEnableQueryHeatAwareCompaction(boolean enableQueryHeatAwareCompaction) {
+    this.enableQueryHeatAwareCompaction = enableQueryHeatAwareCompaction;
+  }
+
+  public long getCompactionQueryHeatHalfLifeInMs() {
+    return compactionQueryHeatHalfLifeInMs;
+  }
+
+  public void setCompactionQueryHeatHalfLifeInMs(long compactionQueryHeatHalfLifeInMs) {
+    this.compactionQueryHeatHalfLifeInMs = compactionQueryHeatHalfLifeInMs;
+  }
+
   public long getTargetCompactionFileSize() {
     return targetCompactionFileSize;
   }
@@ -2601,6 +2777,14 @@ public class IoTDBConfig {
     this.maxInnerCompactionCandidateFileNum = maxInnerCompactionCandidateFileNum;
   }
 
+  public int getLeveledCompactionMaxFileNumInLevel() {
+    return leveledCompactionMaxFileNumInLevel;
+  }
+
+  public void setLeveledCompactionMaxFileNumInLevel(int leveledCompactionMaxFileNumInLevel) {
+    this.leveledCompactionMaxFileNumInLevel = leveledCompactionMaxFileNumInLevel;
+  }
+
   public int getMaxCrossCompactionCandidateFileNum() {
     return maxCrossCompactionCandidateFileNum;
   }
@@ -2625,6 +2809,14 @@ public class IoTDBConfig {
     this.subCompactionTaskNum = subCompactionTaskNum;
   }
 
+  public long getInnerCompactionBufferMemoryBudget() {
+    return innerCompactionBufferMemoryBudget;
+  }
+
+  public void setInnerCompactionBufferMemoryBudget(long innerCompactionBufferMemoryBudget) {
+    this.innerCompactionBufferMemoryBudget = innerCompactionBufferMemoryBudget;
+  }
+
   public String getDeviceIDTransformationMethod() {
     return deviceIDTransformationMethod;
   }
@@ -2801,6 +2993,22 @@ public class IoTDBConfig {
     this.dataBlockManagerKeepAliveTimeInMs = dataBlockManagerKeepAliveTimeInMs;
   }
 
+  public CompressionType getDataBlockCompressionType() {
+    return dataBlockCompressionType;
+  }
+
+  public void setDataBlockCompressionType(CompressionType dataBlockCompressionType) {
+    this.dataBlockCompressionType = dataBlockCompressionType;
+  }
+
+  public boolean isEnableDataBlockAdaptiveEncoding() {
+    return enableDataBlockAdaptiveEncoding;
+  }
+
+  public void setEnableDataBlockAdaptiveEncoding(boolean enableDataBlockAdaptiveEncoding) {
+    this.enableDataBlockAdaptiveEncoding = enableDataBlockAdaptiveEncoding;
+  }
+
   public int getConnectionTimeoutInMS() {
     return connectionTimeoutInMS;
   }
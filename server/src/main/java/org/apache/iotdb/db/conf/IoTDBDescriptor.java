@@ -39,6 +39,7 @@ import org.apache.iotdb.metrics.config.MetricConfigDescriptor;
 import org.apache.iotdb.metrics.config.ReloadLevel;
 import org.apache.iotdb.rpc.RpcTransportFactory;
 import org.apache.iotdb.tsfile.common.conf.TSFileDescriptor;
+import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
 import org.apache.iotdb.tsfile.fileSystem.FSType;
@@ -256,6 +257,25 @@ public class IoTDBDescriptor {
 
       conf.setDataDirs(properties.getProperty("data_dirs", conf.getDataDirs()[0]).split(","));
 
+      String coldDataDirs = properties.getProperty("cold_data_dirs", "").trim();
+      if (!coldDataDirs.isEmpty()) {
+        conf.setColdDataDirs(coldDataDirs.split(","));
+      }
+      conf.setHotDataRetentionInMs(
+          Long.parseLong(
+              properties.getProperty(
+                  "hot_data_retention_in_ms", Long.toString(conf.getHotDataRetentionInMs()))));
+      conf.setTieredMigrationCheckIntervalInMs(
+          Long.parseLong(
+              properties.getProperty(
+                  "tiered_migration_check_interval_in_ms",
+                  Long.toString(conf.getTieredMigrationCheckIntervalInMs()))));
+      conf.setTieredMigrationThroughputMbPerSec(
+          Integer.parseInt(
+              properties.getProperty(
+                  "tiered_migration_throughput_mb_per_sec",
+                  Integer.toString(conf.getTieredMigrationThroughputMbPerSec()))));
+
       conf.setSyncDir(properties.getProperty("sync_dir", conf.getSyncDir()));
 
       conf.setConsensusDir(properties.getProperty("consensus_dir", conf.getConsensusDir()));
@@ -335,6 +355,23 @@ public class IoTDBDescriptor {
                   "max_waiting_time_when_insert_blocked",
                   Integer.toString(conf.getMaxWaitingTimeWhenInsertBlocked()))));
 
+      conf.setEnableWriteThrottle(
+          Boolean.parseBoolean(
+              properties.getProperty(
+                  "enable_write_throttle", Boolean.toString(conf.isEnableWriteThrottle()))));
+
+      conf.setMaxWriteThrottleTimeInMs(
+          Integer.parseInt(
+              properties.getProperty(
+                  "max_write_throttle_time_in_ms",
+                  Integer.toString(conf.getMaxWriteThrottleTimeInMs()))));
+
+      conf.setWriteThrottleFlushTaskThreshold(
+          Integer.parseInt(
+              properties.getProperty(
+                  "write_throttle_flush_task_threshold",
+                  Integer.toString(conf.getWriteThrottleFlushTaskThreshold()))));
+
       conf.setIoTaskQueueSizeForFlushing(
           Integer.parseInt(
               properties.getProperty(
@@ -405,6 +442,25 @@ public class IoTDBDescriptor {
           CompactionPriority.valueOf(
               properties.getProperty(
                   "compaction_priority", conf.getCompactionPriority().toString())));
+      conf.setEnableQueryHeatAwareCompaction(
+          Boolean.parseBoolean(
+              properties.getProperty(
+                  "enable_query_heat_aware_compaction",
+                  Boolean.toString(conf.isEnableQueryHeatAwareCompaction()))));
+      long queryHeatHalfLife =
+          Long.parseLong(
+              properties.getProperty(
+                  "compaction_query_heat_half_life_in_ms",
+                  Long.toString(conf.getCompactionQueryHeatHalfLifeInMs())));
+      if (queryHeatHalfLife > 0) {
+        conf.setCompactionQueryHeatHalfLifeInMs(queryHeatHalfLife);
+      } else {
+        logger.warn(
+            "compaction_query_heat_half_life_in_ms should be positive, but it is {}, "
+                + "use the default value {}",
+            queryHeatHalfLife,
+            conf.getCompactionQueryHeatHalfLifeInMs());
+      }
 
       int subtaskNum =
           Integer.parseInt(
@@ -412,6 +468,11 @@ public class IoTDBDescriptor {
                   "sub_compaction_thread_num", Integer.toString(conf.getSubCompactionTaskNum())));
       subtaskNum = subtaskNum <= 0 ? 1 : subtaskNum;
       conf.setSubCompactionTaskNum(subtaskNum);
+      conf.setInnerCompactionBufferMemoryBudget(
+          Long.parseLong(
+              properties.getProperty(
+                  "inner_compaction_buffer_memory_budget",
+                  Long.toString(conf.getInnerCompactionBufferMemoryBudget()))));
 
       conf.setQueryTimeoutThreshold(
           Integer.parseInt(
@@ -530,6 +591,10 @@ public class IoTDBDescriptor {
           Integer.parseInt(
               properties.getProperty(
                   "upgrade_thread_num", Integer.toString(conf.getUpgradeThreadNum()))));
+      conf.setLoadTsFileThreadNum(
+          Integer.parseInt(
+              properties.getProperty(
+                  "load_tsfile_thread_num", Integer.toString(conf.getLoadTsFileThreadNum()))));
       conf.setCrossCompactionMemoryBudget(
           Long.parseLong(
               properties.getProperty(
@@ -577,6 +642,11 @@ public class IoTDBDescriptor {
               properties.getProperty(
                   "max_inner_compaction_candidate_file_num",
                   Integer.toString(conf.getMaxInnerCompactionCandidateFileNum()))));
+      conf.setLeveledCompactionMaxFileNumInLevel(
+          Integer.parseInt(
+              properties.getProperty(
+                  "leveled_compaction_max_file_num_in_level",
+                  Integer.toString(conf.getLeveledCompactionMaxFileNumInLevel()))));
       conf.setMaxCrossCompactionCandidateFileNum(
           Integer.parseInt(
               properties.getProperty(
@@ -668,6 +738,14 @@ public class IoTDBDescriptor {
               properties.getProperty(
                   "default_fill_interval", String.valueOf(conf.getDefaultFillInterval()))));
 
+      conf.setSeriesScanParallelism(
+          Math.max(
+              1,
+              Integer.parseInt(
+                  properties.getProperty(
+                      "series_scan_parallelism",
+                      String.valueOf(conf.getSeriesScanParallelism())))));
+
       conf.setTagAttributeTotalSize(
           Integer.parseInt(
               properties.getProperty(
@@ -719,6 +797,12 @@ public class IoTDBDescriptor {
                   "recovery_log_interval_in_ms",
                   String.valueOf(conf.getRecoveryLogIntervalInMs()))));
 
+      conf.setEnableLazyLoadTsFileResource(
+          Boolean.parseBoolean(
+              properties.getProperty(
+                  "enable_lazy_load_tsfile_resource",
+                  String.valueOf(conf.isEnableLazyLoadTsFileResource()))));
+
       conf.setEnableDiscardOutOfOrderData(
           Boolean.parseBoolean(
               properties.getProperty(
@@ -1598,6 +1682,17 @@ public class IoTDBDescriptor {
             properties.getProperty(
                 "data_block_manager_keep_alive_time_in_ms",
                 Integer.toString(conf.getDataBlockManagerKeepAliveTimeInMs()))));
+    conf.setDataBlockCompressionType(
+        CompressionType.valueOf(
+            properties
+                .getProperty(
+                    "data_block_compression_type", conf.getDataBlockCompressionType().toString())
+                .trim()));
+    conf.setEnableDataBlockAdaptiveEncoding(
+        Boolean.parseBoolean(
+            properties.getProperty(
+                "enable_data_block_adaptive_encoding",
+                Boolean.toString(conf.isEnableDataBlockAdaptiveEncoding()))));
 
     conf.setPartitionCacheSize(
         Integer.parseInt(
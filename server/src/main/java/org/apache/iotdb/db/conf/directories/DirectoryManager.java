@@ -42,6 +42,12 @@ public class DirectoryManager {
   private List<String> unsequenceFileFolders;
   private DirectoryStrategy sequenceStrategy;
   private DirectoryStrategy unsequenceStrategy;
+  /** folders of the cold storage tier, empty if tiered storage is disabled */
+  private List<String> coldSequenceFileFolders;
+
+  private List<String> coldUnsequenceFileFolders;
+  private DirectoryStrategy coldSequenceStrategy;
+  private DirectoryStrategy coldUnsequenceStrategy;
 
   private DirectoryManager() {
     sequenceFileFolders =
@@ -73,6 +79,39 @@ public class DirectoryManager {
     } catch (Exception e) {
       logger.error("Can't find strategy {} for mult-directories.", strategyName, e);
     }
+
+    updateColdFileFolders();
+  }
+
+  /** (re)initialize the folders of the cold storage tier by cold_data_dirs */
+  public void updateColdFileFolders() {
+    List<String> sequenceFolders = new ArrayList<>();
+    List<String> unsequenceFolders = new ArrayList<>();
+    for (String coldDataDir : IoTDBDescriptor.getInstance().getConfig().getColdDataDirs()) {
+      sequenceFolders.add(coldDataDir + File.separator + IoTDBConstant.SEQUENCE_FLODER_NAME);
+      unsequenceFolders.add(coldDataDir + File.separator + IoTDBConstant.UNSEQUENCE_FLODER_NAME);
+    }
+    mkDataDirs(sequenceFolders);
+    mkDataDirs(unsequenceFolders);
+    coldSequenceFileFolders = sequenceFolders;
+    coldUnsequenceFileFolders = unsequenceFolders;
+    if (sequenceFolders.isEmpty()) {
+      return;
+    }
+
+    String strategyName = "";
+    try {
+      strategyName = IoTDBDescriptor.getInstance().getConfig().getMultiDirStrategyClassName();
+      Class<?> clazz = Class.forName(strategyName);
+      coldSequenceStrategy = (DirectoryStrategy) clazz.newInstance();
+      coldSequenceStrategy.setFolders(sequenceFolders);
+      coldUnsequenceStrategy = (DirectoryStrategy) clazz.newInstance();
+      coldUnsequenceStrategy.setFolders(unsequenceFolders);
+    } catch (DiskSpaceInsufficientException e) {
+      logger.error("All disks of cold folders are full.", e);
+    } catch (Exception e) {
+      logger.error("Can't find strategy {} for mult-directories.", strategyName, e);
+    }
   }
 
   public void updateFileFolders() throws LoadConfigurationException {
@@ -148,8 +187,40 @@ public class DirectoryManager {
     return sequenceFileFolders.get(index);
   }
 
+  /** @return folders of both storage tiers, the folders of the hot tier come first */
   public List<String> getAllSequenceFileFolders() {
-    return new ArrayList<>(sequenceFileFolders);
+    List<String> folders = new ArrayList<>(sequenceFileFolders);
+    folders.addAll(coldSequenceFileFolders);
+    return folders;
+  }
+
+  /**
+   * get next folder of the cold storage tier for a migrated TsFile.
+   *
+   * @param sequence whether the TsFile is a sequence file
+   */
+  public String getNextFolderForColdFile(boolean sequence) throws DiskSpaceInsufficientException {
+    if (sequence) {
+      return coldSequenceFileFolders.get(coldSequenceStrategy.nextFolderIndex());
+    } else {
+      return coldUnsequenceFileFolders.get(coldUnsequenceStrategy.nextFolderIndex());
+    }
+  }
+
+  /** @return whether the file is in a folder of the cold storage tier */
+  public boolean isInColdFolder(File file) {
+    String path = file.getAbsolutePath();
+    for (String folder : coldSequenceFileFolders) {
+      if (path.startsWith(new File(folder).getAbsolutePath() + File.separator)) {
+        return true;
+      }
+    }
+    for (String folder : coldUnsequenceFileFolders) {
+      if (path.startsWith(new File(folder).getAbsolutePath() + File.separator)) {
+        return true;
+      }
+    }
+    return false;
   }
 
   private static class DirectoriesHolder {
@@ -182,7 +253,10 @@ public class DirectoryManager {
     return unsequenceFileFolders.indexOf(folder);
   }
 
+  /** @return folders of both storage tiers, the folders of the hot tier come first */
   public List<String> getAllUnSequenceFileFolders() {
-    return new ArrayList<>(unsequenceFileFolders);
+    List<String> folders = new ArrayList<>(unsequenceFileFolders);
+    folders.addAll(coldUnsequenceFileFolders);
+    return folders;
   }
 }
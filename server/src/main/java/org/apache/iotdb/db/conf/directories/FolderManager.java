@@ -22,6 +22,7 @@ import org.apache.iotdb.db.conf.directories.strategy.DirectoryStrategy;
 import org.apache.iotdb.db.conf.directories.strategy.DirectoryStrategyType;
 import org.apache.iotdb.db.conf.directories.strategy.MaxDiskUsableSpaceFirstStrategy;
 import org.apache.iotdb.db.conf.directories.strategy.MinFolderOccupiedSpaceFirstStrategy;
+import org.apache.iotdb.db.conf.directories.strategy.MinIoLoadFirstStrategy;
 import org.apache.iotdb.db.conf.directories.strategy.RandomOnDiskUsableSpaceStrategy;
 import org.apache.iotdb.db.conf.directories.strategy.SequenceStrategy;
 import org.apache.iotdb.db.exception.DiskSpaceInsufficientException;
@@ -53,6 +54,9 @@ public class FolderManager {
       case RANDOM_ON_DISK_USABLE_SPACE_STRATEGY:
         this.selectStrategy = new RandomOnDiskUsableSpaceStrategy();
         break;
+      case MIN_IO_LOAD_FIRST_STRATEGY:
+        this.selectStrategy = new MinIoLoadFirstStrategy();
+        break;
       default:
         throw new RuntimeException();
     }
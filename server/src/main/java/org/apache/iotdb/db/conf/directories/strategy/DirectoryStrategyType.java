@@ -23,4 +23,5 @@ public enum DirectoryStrategyType {
   MAX_DISK_USABLE_SPACE_FIRST_STRATEGY,
   MIN_FOLDER_OCCUPIED_SPACE_FIRST_STRATEGY,
   RANDOM_ON_DISK_USABLE_SPACE_STRATEGY,
+  MIN_IO_LOAD_FIRST_STRATEGY,
 }
@@ -0,0 +1,176 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.conf.directories.strategy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * DiskIoLoadMonitor collects the I/O load of the disks of data folders, including the I/O
+ * utilization and the number of in-progress I/Os of each disk sampled from /proc/diskstats on
+ * Linux, and the number of TsFiles being written by flush and compaction in each folder.
+ */
+public class DiskIoLoadMonitor {
+
+  private static final Logger logger = LoggerFactory.getLogger(DiskIoLoadMonitor.class);
+
+  private static final String DISK_STATS_PATH = "/proc/diskstats";
+
+  /** /proc/diskstats is sampled at most once in this interval */
+  private static final long SAMPLE_INTERVAL_IN_MS = 1000L;
+
+  // indexes of the fields in a line of /proc/diskstats
+  private static final int DEVICE_NAME_INDEX = 2;
+  private static final int IN_PROGRESS_IOS_INDEX = 11;
+  private static final int IO_TICKS_INDEX = 12;
+
+  /** file path -> number of writers of the file */
+  private final Map<String, AtomicInteger> writingFiles = new ConcurrentHashMap<>();
+
+  /** device -> {io ticks in ms, in-progress I/Os} of the last sample */
+  private Map<String, long[]> lastDiskStats = new HashMap<>();
+
+  private long lastSampleTime = 0;
+
+  /** device -> I/O utilization between the last two samples, ranging from 0 to 1 */
+  private Map<String, Double> ioUtilizations = new HashMap<>();
+
+  private DiskIoLoadMonitor() {}
+
+  public static DiskIoLoadMonitor getInstance() {
+    return InstanceHolder.INSTANCE;
+  }
+
+  /** Record that a flush or compaction starts writing the file */
+  public void startWriting(String filePath) {
+    writingFiles.computeIfAbsent(filePath, k -> new AtomicInteger()).incrementAndGet();
+  }
+
+  /** Record that a flush or compaction finishes writing the file */
+  public void finishWriting(String filePath) {
+    writingFiles.computeIfPresent(
+        filePath, (k, count) -> count.decrementAndGet() <= 0 ? null : count);
+  }
+
+  /** @return the number of files being written by flush and compaction in the folder */
+  public int getWritingFileNum(String folder) {
+    String prefix = folder.endsWith(File.separator) ? folder : folder + File.separator;
+    int num = 0;
+    for (Map.Entry<String, AtomicInteger> entry : writingFiles.entrySet()) {
+      if (entry.getKey().startsWith(prefix)) {
+        num += entry.getValue().get();
+      }
+    }
+    return num;
+  }
+
+  /** @return the I/O utilization of the device ranging from 0 to 1, 0 if it is unknown */
+  public synchronized double getIoUtilization(String device) {
+    sampleIfNecessary();
+    return ioUtilizations.getOrDefault(device, 0.0);
+  }
+
+  /** @return the number of in-progress I/Os of the device, 0 if it is unknown */
+  public synchronized long getInProgressIoNum(String device) {
+    sampleIfNecessary();
+    long[] stats = lastDiskStats.get(device);
+    return stats == null ? 0 : stats[1];
+  }
+
+  /**
+   * @return name of the block device that the folder is on as it appears in /proc/diskstats, null
+   *     if it cannot be resolved
+   */
+  public String getDevice(String folder) {
+    try {
+      String name = Files.getFileStore(Paths.get(folder)).name();
+      if (!name.startsWith("/dev/")) {
+        return null;
+      }
+      // resolve the links like /dev/mapper/xxx -> /dev/dm-0
+      Path devicePath = Paths.get(name).toRealPath();
+      return devicePath.getFileName().toString();
+    } catch (IOException | RuntimeException e) {
+      logger.debug("Cannot resolve the device of folder {}", folder, e);
+      return null;
+    }
+  }
+
+  private void sampleIfNecessary() {
+    long currentTime = System.currentTimeMillis();
+    if (currentTime - lastSampleTime < SAMPLE_INTERVAL_IN_MS) {
+      return;
+    }
+    File diskStatsFile = new File(DISK_STATS_PATH);
+    if (!diskStatsFile.exists()) {
+      lastSampleTime = currentTime;
+      return;
+    }
+    Map<String, long[]> diskStats = new HashMap<>();
+    try {
+      List<String> lines = Files.readAllLines(diskStatsFile.toPath());
+      for (String line : lines) {
+        String[] fields = line.trim().split("\\s+");
+        if (fields.length <= IO_TICKS_INDEX) {
+          continue;
+        }
+        diskStats.put(
+            fields[DEVICE_NAME_INDEX],
+            new long[] {
+              Long.parseLong(fields[IO_TICKS_INDEX]), Long.parseLong(fields[IN_PROGRESS_IOS_INDEX])
+            });
+      }
+    } catch (IOException | NumberFormatException e) {
+      logger.warn("Cannot sample the disk stats from {}", DISK_STATS_PATH, e);
+      lastSampleTime = currentTime;
+      return;
+    }
+
+    Map<String, Double> utilizations = new HashMap<>();
+    long elapsedTime = currentTime - lastSampleTime;
+    for (Map.Entry<String, long[]> entry : diskStats.entrySet()) {
+      long[] lastStats = lastDiskStats.get(entry.getKey());
+      if (lastStats != null && elapsedTime > 0) {
+        double busyTime = entry.getValue()[0] - lastStats[0];
+        utilizations.put(entry.getKey(), Math.max(0.0, Math.min(1.0, busyTime / elapsedTime)));
+      }
+    }
+    lastDiskStats = diskStats;
+    ioUtilizations = utilizations;
+    lastSampleTime = currentTime;
+  }
+
+  private static class InstanceHolder {
+
+    private InstanceHolder() {}
+
+    private static final DiskIoLoadMonitor INSTANCE = new DiskIoLoadMonitor();
+  }
+}
@@ -0,0 +1,98 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.conf.directories.strategy;
+
+import org.apache.iotdb.commons.utils.JVMCommonUtils;
+import org.apache.iotdb.db.exception.DiskSpaceInsufficientException;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Choose the folder whose disk has the least I/O load. The load of a disk is the sum of its I/O
+ * utilization (0 to 1), its in-progress I/Os divided by {@link #IN_PROGRESS_IO_NUM_OF_FULL_LOAD},
+ * and the number of TsFiles being written by flush and compaction in all folders on it, each of
+ * which is regarded as a fully loaded disk. Ties are broken by the number of TsFiles being written
+ * in the folder itself and then by the usable space. The disk stats are only available on Linux,
+ * otherwise only the TsFiles being written are considered.
+ */
+public class MinIoLoadFirstStrategy extends DirectoryStrategy {
+
+  private static final double IN_PROGRESS_IO_NUM_OF_FULL_LOAD = 32.0;
+
+  private final DiskIoLoadMonitor monitor = DiskIoLoadMonitor.getInstance();
+
+  /** folder -> device, empty if the device cannot be resolved */
+  private final Map<String, Optional<String>> folderToDevice = new ConcurrentHashMap<>();
+
+  @Override
+  public int nextFolderIndex() throws DiskSpaceInsufficientException {
+    Map<String, Integer> deviceWritingFileNum = new HashMap<>();
+    int[] folderWritingFileNum = new int[folders.size()];
+    for (int i = 0; i < folders.size(); i++) {
+      folderWritingFileNum[i] = monitor.getWritingFileNum(folders.get(i));
+      deviceWritingFileNum.merge(getDeviceKey(i), folderWritingFileNum[i], Integer::sum);
+    }
+
+    int minIndex = -1;
+    double minLoad = Double.MAX_VALUE;
+    long maxSpace = 0;
+    for (int i = 0; i < folders.size(); i++) {
+      String folder = folders.get(i);
+      if (!JVMCommonUtils.hasSpace(folder)) {
+        continue;
+      }
+      double load = deviceWritingFileNum.get(getDeviceKey(i));
+      Optional<String> device = getDevice(folder);
+      if (device.isPresent()) {
+        load +=
+            monitor.getIoUtilization(device.get())
+                + monitor.getInProgressIoNum(device.get()) / IN_PROGRESS_IO_NUM_OF_FULL_LOAD;
+      }
+      long space = JVMCommonUtils.getUsableSpace(folder);
+      if (minIndex == -1
+          || load < minLoad
+          || load == minLoad
+              && (folderWritingFileNum[i] < folderWritingFileNum[minIndex]
+                  || folderWritingFileNum[i] == folderWritingFileNum[minIndex]
+                      && space > maxSpace)) {
+        minIndex = i;
+        minLoad = load;
+        maxSpace = space;
+      }
+    }
+
+    if (minIndex == -1) {
+      throw new DiskSpaceInsufficientException(folders);
+    }
+    return minIndex;
+  }
+
+  private Optional<String> getDevice(String folder) {
+    return folderToDevice.computeIfAbsent(folder, f -> Optional.ofNullable(monitor.getDevice(f)));
+  }
+
+  /** folders whose devices cannot be resolved are regarded as on different disks */
+  private String getDeviceKey(int folderIndex) {
+    String folder = folders.get(folderIndex);
+    return getDevice(folder).orElse(folder);
+  }
+}
@@ -23,6 +23,7 @@ import org.apache.iotdb.commons.concurrent.IoTDBThreadPoolFactory;
 import org.apache.iotdb.commons.concurrent.ThreadName;
 import org.apache.iotdb.commons.exception.ShutdownException;
 import org.apache.iotdb.commons.service.IService;
+import org.apache.iotdb.commons.service.JMXService;
 import org.apache.iotdb.commons.service.ServiceType;
 import org.apache.iotdb.commons.utils.TestOnly;
 import org.apache.iotdb.db.conf.IoTDBConfig;
@@ -33,6 +34,7 @@ import org.apache.iotdb.db.engine.flush.CloseFileListener;
 import org.apache.iotdb.db.engine.flush.FlushListener;
 import org.apache.iotdb.db.engine.flush.TsFileFlushPolicy;
 import org.apache.iotdb.db.engine.flush.TsFileFlushPolicy.DirectFlushPolicy;
+import org.apache.iotdb.db.engine.snapshot.SnapshotManager;
 import org.apache.iotdb.db.engine.storagegroup.DataRegion;
 import org.apache.iotdb.db.engine.storagegroup.DataRegion.TimePartitionFilter;
 import org.apache.iotdb.db.engine.storagegroup.TsFileProcessor;
@@ -59,6 +61,7 @@ import org.apache.iotdb.db.qp.physical.crud.InsertRowPlan;
 import org.apache.iotdb.db.qp.physical.crud.InsertRowsOfOneDevicePlan;
 import org.apache.iotdb.db.qp.physical.crud.InsertTabletPlan;
 import org.apache.iotdb.db.rescon.SystemInfo;
+import org.apache.iotdb.db.rescon.WriteThrottler;
 import org.apache.iotdb.db.service.IoTDB;
 import org.apache.iotdb.db.utils.ThreadUtils;
 import org.apache.iotdb.db.utils.UpgradeUtils;
@@ -83,6 +86,7 @@ import java.util.Comparator;
 import java.util.ConcurrentModificationException;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -128,6 +132,8 @@ public class StorageEngine implements IService {
   private AtomicBoolean isAllSgReady = new AtomicBoolean(false);
 
   private ScheduledExecutorService ttlCheckThread;
+  private final SnapshotManager snapshotManager = new SnapshotManager(this::getAllDataRegions);
+  private ScheduledExecutorService tsFileMigrationThread;
   private ScheduledExecutorService seqMemtableTimedFlushCheckThread;
   private ScheduledExecutorService unseqMemtableTimedFlushCheckThread;
 
@@ -293,7 +299,19 @@ public class StorageEngine implements IService {
         this::checkTTL, TTL_CHECK_INTERVAL, TTL_CHECK_INTERVAL, TimeUnit.MILLISECONDS);
     logger.info("start ttl check thread successfully.");
 
+    if (config.isEnableTieredStorage()) {
+      tsFileMigrationThread =
+          IoTDBThreadPoolFactory.newSingleThreadScheduledExecutor("TsFile-Migration");
+      tsFileMigrationThread.scheduleWithFixedDelay(
+          this::migrateColdFiles,
+          config.getTieredMigrationCheckIntervalInMs(),
+          config.getTieredMigrationCheckIntervalInMs(),
+          TimeUnit.MILLISECONDS);
+      logger.info("start tsfile migration thread successfully.");
+    }
+
     startTimedService();
+    JMXService.registerMBean(snapshotManager, SnapshotManager.MBEAN_NAME);
   }
 
   private void checkTTL() {
@@ -308,6 +326,28 @@ public class StorageEngine implements IService {
     }
   }
 
+  private List<DataRegion> getAllDataRegions() {
+    List<DataRegion> dataRegions = new ArrayList<>();
+    for (StorageGroupManager storageGroupManager : processorMap.values()) {
+      dataRegions.addAll(storageGroupManager.getAllDataRegions());
+    }
+    return dataRegions;
+  }
+
+  public SnapshotManager getSnapshotManager() {
+    return snapshotManager;
+  }
+
+  private void migrateColdFiles() {
+    try {
+      for (StorageGroupManager processor : processorMap.values()) {
+        processor.migrateColdFiles();
+      }
+    } catch (Exception e) {
+      logger.error("An error occurred when migrating TsFiles to the cold storage tier", e);
+    }
+  }
+
   private void startTimedService() {
     // timed flush sequence memtable
     if (config.isEnableTimedFlushSeqMemtable()) {
@@ -357,11 +397,13 @@ public class StorageEngine implements IService {
 
   @Override
   public void stop() {
+    JMXService.deregisterMBean(SnapshotManager.MBEAN_NAME);
     for (StorageGroupManager storageGroupManager : processorMap.values()) {
       storageGroupManager.stopSchedulerPool();
     }
     syncCloseAllProcessor();
     ThreadUtils.stopThreadPool(ttlCheckThread, ThreadName.TTL_CHECK_SERVICE);
+    shutdownTimedService(tsFileMigrationThread, "TsFileMigrationThread");
     ThreadUtils.stopThreadPool(
         seqMemtableTimedFlushCheckThread, ThreadName.TIMED_FlUSH_SEQ_MEMTABLE);
     ThreadUtils.stopThreadPool(
@@ -381,6 +423,7 @@ public class StorageEngine implements IService {
       throw new ShutdownException(e);
     }
     shutdownTimedService(ttlCheckThread, "TTlCheckThread");
+    shutdownTimedService(tsFileMigrationThread, "TsFileMigrationThread");
     shutdownTimedService(seqMemtableTimedFlushCheckThread, "SeqMemtableTimedFlushCheckThread");
     shutdownTimedService(unseqMemtableTimedFlushCheckThread, "UnseqMemtableTimedFlushCheckThread");
     recoveryThreadPool.shutdownNow();
@@ -577,6 +620,7 @@ public class StorageEngine implements IService {
    */
   public void insert(InsertRowPlan insertRowPlan) throws StorageEngineException, MetadataException {
     if (enableMemControl) {
+      WriteThrottler.getInstance().throttle();
       try {
         blockInsertionIfReject(null);
       } catch (WriteProcessException e) {
@@ -602,6 +646,7 @@ public class StorageEngine implements IService {
   public void insert(InsertRowsOfOneDevicePlan insertRowsOfOneDevicePlan)
       throws StorageEngineException, MetadataException {
     if (enableMemControl) {
+      WriteThrottler.getInstance().throttle();
       try {
         blockInsertionIfReject(null);
       } catch (WriteProcessException e) {
@@ -629,6 +674,7 @@ public class StorageEngine implements IService {
   public void insertTablet(InsertTabletPlan insertTabletPlan)
       throws StorageEngineException, BatchProcessException, MetadataException {
     if (enableMemControl) {
+      WriteThrottler.getInstance().throttle();
       try {
         blockInsertionIfReject(null);
       } catch (WriteProcessRejectException e) {
@@ -883,6 +929,45 @@ public class StorageEngine implements IService {
     getProcessorDirectly(storageGroupPath).loadNewTsFile(newTsFileResource, deleteOriginFile);
   }
 
+  /**
+   * Load a batch of new tsfiles, each of which is in one time partition. The files of each storage
+   * group are published to it together. If the files of a storage group fail to be loaded, the
+   * files of the storage groups before it stay loaded, and the LoadFileException lists them.
+   *
+   * @param newTsFileResources tsfile resources sorted by the establish time of the files
+   */
+  public void loadNewTsFiles(List<TsFileResource> newTsFileResources, boolean deleteOriginFile)
+      throws LoadFileException, StorageEngineException, MetadataException {
+    Map<PartialPath, List<TsFileResource>> storageGroupResources = new LinkedHashMap<>();
+    for (TsFileResource newTsFileResource : newTsFileResources) {
+      Set<String> deviceSet = newTsFileResource.getDevices();
+      if (deviceSet == null || deviceSet.isEmpty()) {
+        throw new StorageEngineException("Can not get the corresponding storage group.");
+      }
+      PartialPath storageGroupPath =
+          IoTDB.schemaProcessor.getBelongedStorageGroup(
+              new PartialPath(deviceSet.iterator().next()));
+      storageGroupResources
+          .computeIfAbsent(storageGroupPath, k -> new ArrayList<>())
+          .add(newTsFileResource);
+    }
+    List<PartialPath> loadedStorageGroups = new ArrayList<>();
+    for (Entry<PartialPath, List<TsFileResource>> entry : storageGroupResources.entrySet()) {
+      try {
+        getProcessorDirectly(entry.getKey()).loadNewTsFiles(entry.getValue(), deleteOriginFile);
+      } catch (LoadFileException e) {
+        if (loadedStorageGroups.isEmpty()) {
+          throw e;
+        }
+        throw new LoadFileException(
+            String.format(
+                "%s. The tsfiles of storage groups %s have been loaded and are not rolled back",
+                e.getMessage(), loadedStorageGroups));
+      }
+      loadedStorageGroups.add(entry.getKey());
+    }
+  }
+
   public boolean deleteTsfile(File deletedTsfile)
       throws StorageEngineException, IllegalPathException {
     return getProcessorDirectly(new PartialPath(getSgByEngineFile(deletedTsfile, true)))
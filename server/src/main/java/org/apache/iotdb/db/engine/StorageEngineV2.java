@@ -26,6 +26,7 @@ import org.apache.iotdb.commons.consensus.ConsensusGroupId;
 import org.apache.iotdb.commons.consensus.DataRegionId;
 import org.apache.iotdb.commons.exception.ShutdownException;
 import org.apache.iotdb.commons.service.IService;
+import org.apache.iotdb.commons.service.JMXService;
 import org.apache.iotdb.commons.service.ServiceType;
 import org.apache.iotdb.commons.utils.TestOnly;
 import org.apache.iotdb.db.conf.IoTDBConfig;
@@ -36,6 +37,7 @@ import org.apache.iotdb.db.engine.flush.CloseFileListener;
 import org.apache.iotdb.db.engine.flush.FlushListener;
 import org.apache.iotdb.db.engine.flush.TsFileFlushPolicy;
 import org.apache.iotdb.db.engine.flush.TsFileFlushPolicy.DirectFlushPolicy;
+import org.apache.iotdb.db.engine.snapshot.SnapshotManager;
 import org.apache.iotdb.db.engine.storagegroup.DataRegion;
 import org.apache.iotdb.db.engine.storagegroup.TsFileProcessor;
 import org.apache.iotdb.db.exception.BatchProcessException;
@@ -49,6 +51,7 @@ import org.apache.iotdb.db.exception.runtime.StorageEngineFailureException;
 import org.apache.iotdb.db.mpp.sql.planner.plan.node.write.InsertRowNode;
 import org.apache.iotdb.db.mpp.sql.planner.plan.node.write.InsertTabletNode;
 import org.apache.iotdb.db.rescon.SystemInfo;
+import org.apache.iotdb.db.rescon.WriteThrottler;
 import org.apache.iotdb.db.utils.ThreadUtils;
 import org.apache.iotdb.db.utils.UpgradeUtils;
 import org.apache.iotdb.db.wal.exception.WALException;
@@ -114,6 +117,9 @@ public class StorageEngineV2 implements IService {
   private AtomicBoolean isAllSgReady = new AtomicBoolean(false);
 
   private ScheduledExecutorService ttlCheckThread;
+  private final SnapshotManager snapshotManager =
+      new SnapshotManager(() -> new ArrayList<>(dataRegionMap.values()));
+  private ScheduledExecutorService tsFileMigrationThread;
   private ScheduledExecutorService seqMemtableTimedFlushCheckThread;
   private ScheduledExecutorService unseqMemtableTimedFlushCheckThread;
 
@@ -329,7 +335,19 @@ public class StorageEngineV2 implements IService {
         this::checkTTL, TTL_CHECK_INTERVAL, TTL_CHECK_INTERVAL, TimeUnit.MILLISECONDS);
     logger.info("start ttl check thread successfully.");
 
+    if (config.isEnableTieredStorage()) {
+      tsFileMigrationThread =
+          IoTDBThreadPoolFactory.newSingleThreadScheduledExecutor("TsFile-Migration");
+      tsFileMigrationThread.scheduleWithFixedDelay(
+          this::migrateColdFiles,
+          config.getTieredMigrationCheckIntervalInMs(),
+          config.getTieredMigrationCheckIntervalInMs(),
+          TimeUnit.MILLISECONDS);
+      logger.info("start tsfile migration thread successfully.");
+    }
+
     startTimedService();
+    JMXService.registerMBean(snapshotManager, SnapshotManager.MBEAN_NAME);
   }
 
   private void checkTTL() {
@@ -346,6 +364,22 @@ public class StorageEngineV2 implements IService {
     }
   }
 
+  public SnapshotManager getSnapshotManager() {
+    return snapshotManager;
+  }
+
+  private void migrateColdFiles() {
+    try {
+      for (DataRegion dataRegion : dataRegionMap.values()) {
+        if (dataRegion != null) {
+          dataRegion.migrateColdFiles();
+        }
+      }
+    } catch (Exception e) {
+      logger.error("An error occurred when migrating TsFiles to the cold storage tier", e);
+    }
+  }
+
   private void startTimedService() {
     // timed flush sequence memtable
     if (config.isEnableTimedFlushSeqMemtable()) {
@@ -399,6 +433,7 @@ public class StorageEngineV2 implements IService {
 
   @Override
   public void stop() {
+    JMXService.deregisterMBean(SnapshotManager.MBEAN_NAME);
     for (DataRegion dataRegion : dataRegionMap.values()) {
       if (dataRegion != null) {
         ThreadUtils.stopThreadPool(
@@ -407,6 +442,7 @@ public class StorageEngineV2 implements IService {
     }
     syncCloseAllProcessor();
     ThreadUtils.stopThreadPool(ttlCheckThread, ThreadName.TTL_CHECK_SERVICE);
+    shutdownTimedService(tsFileMigrationThread, "TsFileMigrationThread");
     ThreadUtils.stopThreadPool(
         seqMemtableTimedFlushCheckThread, ThreadName.TIMED_FlUSH_SEQ_MEMTABLE);
     ThreadUtils.stopThreadPool(
@@ -427,6 +463,7 @@ public class StorageEngineV2 implements IService {
       throw new ShutdownException(e);
     }
     shutdownTimedService(ttlCheckThread, "TTlCheckThread");
+    shutdownTimedService(tsFileMigrationThread, "TsFileMigrationThread");
     shutdownTimedService(seqMemtableTimedFlushCheckThread, "SeqMemtableTimedFlushCheckThread");
     shutdownTimedService(unseqMemtableTimedFlushCheckThread, "UnseqMemtableTimedFlushCheckThread");
     recoveryThreadPool.shutdownNow();
@@ -503,6 +540,7 @@ public class StorageEngineV2 implements IService {
   public void insert(ConsensusGroupId dataRegionId, InsertRowNode insertRowNode)
       throws StorageEngineException, MetadataException {
     if (enableMemControl) {
+      WriteThrottler.getInstance().throttle();
       try {
         blockInsertionIfReject(null);
       } catch (WriteProcessException e) {
@@ -524,6 +562,7 @@ public class StorageEngineV2 implements IService {
   public void insertTablet(ConsensusGroupId dataRegionId, InsertTabletNode insertTabletNode)
       throws StorageEngineException, BatchProcessException {
     if (enableMemControl) {
+      WriteThrottler.getInstance().throttle();
       try {
         blockInsertionIfReject(null);
       } catch (WriteProcessRejectException e) {
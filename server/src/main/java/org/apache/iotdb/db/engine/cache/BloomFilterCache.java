@@ -36,6 +36,7 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicLong;
 
 /** This class is used to cache <code>BloomFilter</code> in IoTDB. The caching strategy is LRU. */
@@ -131,6 +132,11 @@ public class BloomFilterCache {
     lruCache.cleanUp();
   }
 
+  /** remove the cached entries of the files, e.g., after they are deleted. */
+  public void removeFiles(Set<String> filePaths) {
+    lruCache.asMap().keySet().removeIf(key -> filePaths.contains(key.filePath));
+  }
+
   @TestOnly
   public void remove(BloomFilterCacheKey key) {
     lruCache.invalidate(key);
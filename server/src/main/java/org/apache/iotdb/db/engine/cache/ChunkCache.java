@@ -40,6 +40,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicLong;
 
 /**
@@ -160,6 +161,11 @@ public class ChunkCache {
     lruCache.cleanUp();
   }
 
+  /** remove the cached entries of the files, e.g., after they are deleted. */
+  public void removeFiles(Set<String> filePaths) {
+    lruCache.asMap().keySet().removeIf(key -> filePaths.contains(key.getFilePath()));
+  }
+
   public void remove(ChunkMetadata chunkMetaData) {
     lruCache.invalidate(chunkMetaData);
   }
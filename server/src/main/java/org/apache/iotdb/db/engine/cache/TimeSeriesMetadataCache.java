@@ -255,6 +255,11 @@ public class TimeSeriesMetadataCache {
     lruCache.cleanUp();
   }
 
+  /** remove the cached entries of the files, e.g., after they are deleted. */
+  public void removeFiles(Set<String> filePaths) {
+    lruCache.asMap().keySet().removeIf(key -> filePaths.contains(key.filePath));
+  }
+
   public void remove(TimeSeriesMetadataCacheKey key) {
     lruCache.invalidate(key);
   }
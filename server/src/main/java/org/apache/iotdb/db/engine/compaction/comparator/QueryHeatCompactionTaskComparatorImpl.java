@@ -0,0 +1,58 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.compaction.comparator;
+
+import org.apache.iotdb.db.conf.IoTDBConfig;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.engine.compaction.constant.CompactionPriority;
+import org.apache.iotdb.db.engine.compaction.cross.CrossSpaceCompactionTask;
+import org.apache.iotdb.db.engine.compaction.inner.InnerSpaceCompactionTask;
+import org.apache.iotdb.db.engine.compaction.task.AbstractCompactionTask;
+
+/**
+ * This comparator prioritizes the compaction tasks that reduce the files read by queries most. The
+ * benefit of a task is the query heat of its selected files multiplied by the num of files it
+ * removes from the read path, i.e. the selected files except the target file in inner space
+ * compaction and the selected unsequence files in cross space compaction. The tasks with the same
+ * benefit, e.g. the tasks whose files are never queried, are compared as the default comparator.
+ */
+public class QueryHeatCompactionTaskComparatorImpl extends DefaultCompactionTaskComparatorImpl {
+  private IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
+
+  @Override
+  public int compare(AbstractCompactionTask o1, AbstractCompactionTask o2) {
+    if ((o1 instanceof InnerSpaceCompactionTask) != (o2 instanceof InnerSpaceCompactionTask)
+        && config.getCompactionPriority() != CompactionPriority.BALANCE) {
+      return super.compare(o1, o2);
+    }
+    int cmp = Double.compare(getQueryBenefit(o2), getQueryBenefit(o1));
+    return cmp != 0 ? cmp : super.compare(o1, o2);
+  }
+
+  private double getQueryBenefit(AbstractCompactionTask task) {
+    if (task instanceof InnerSpaceCompactionTask) {
+      return task.getQueryHeat()
+          * (((InnerSpaceCompactionTask) task).getSelectedTsFileResourceList().size() - 1);
+    } else if (task instanceof CrossSpaceCompactionTask) {
+      return task.getQueryHeat()
+          * ((CrossSpaceCompactionTask) task).getSelectedUnsequenceFiles().size();
+    }
+    return 0;
+  }
+}
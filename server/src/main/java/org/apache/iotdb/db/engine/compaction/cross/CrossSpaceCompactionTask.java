@@ -20,6 +20,7 @@
 package org.apache.iotdb.db.engine.compaction.cross;
 
 import org.apache.iotdb.commons.conf.IoTDBConstant;
+import org.apache.iotdb.db.conf.directories.strategy.DiskIoLoadMonitor;
 import org.apache.iotdb.db.engine.compaction.CompactionExceptionHandler;
 import org.apache.iotdb.db.engine.compaction.CompactionUtils;
 import org.apache.iotdb.db.engine.compaction.log.CompactionLogger;
@@ -74,6 +75,12 @@ public class CrossSpaceCompactionTask extends AbstractCompactionTask {
     this.seqTsFileResourceList = tsFileManager.getSequenceListByTimePartition(timePartition);
     this.unseqTsFileResourceList = tsFileManager.getUnsequenceListByTimePartition(timePartition);
     this.performer = performer;
+    for (TsFileResource resource : selectedSequenceFiles) {
+      queryHeat += resource.getQueryHeat();
+    }
+    for (TsFileResource resource : selectedUnsequenceFiles) {
+      queryHeat += resource.getQueryHeat();
+    }
   }
 
   @Override
@@ -118,7 +125,16 @@ public class CrossSpaceCompactionTask extends AbstractCompactionTask {
 
         performer.setSourceFiles(selectedSequenceFiles, selectedUnsequenceFiles);
         performer.setTargetFiles(targetTsfileResourceList);
-        performer.perform();
+        for (TsFileResource targetResource : targetTsfileResourceList) {
+          DiskIoLoadMonitor.getInstance().startWriting(targetResource.getTsFilePath());
+        }
+        try {
+          performer.perform();
+        } finally {
+          for (TsFileResource targetResource : targetTsfileResourceList) {
+            DiskIoLoadMonitor.getInstance().finishWriting(targetResource.getTsFilePath());
+          }
+        }
 
         CompactionUtils.moveTargetFile(targetTsfileResourceList, false, fullStorageGroupName);
         CompactionUtils.combineModsInCrossCompaction(
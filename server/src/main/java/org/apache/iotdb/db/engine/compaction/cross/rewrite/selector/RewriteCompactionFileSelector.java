@@ -235,6 +235,7 @@ public class RewriteCompactionFileSelector implements ICrossSpaceMergeFileSelect
     for (Integer seqIdx : tmpSelectedSeqFiles) {
       if (resource.getSeqFiles().get(seqIdx).isCompactionCandidate()
           || resource.getSeqFiles().get(seqIdx).isCompacting()
+          || resource.getSeqFiles().get(seqIdx).isMigrating()
           || !resource.getSeqFiles().get(seqIdx).isClosed()) {
         return false;
       }
@@ -20,6 +20,7 @@
 package org.apache.iotdb.db.engine.compaction.inner;
 
 import org.apache.iotdb.commons.conf.IoTDBConstant;
+import org.apache.iotdb.db.conf.directories.strategy.DiskIoLoadMonitor;
 import org.apache.iotdb.db.engine.compaction.CompactionExceptionHandler;
 import org.apache.iotdb.db.engine.compaction.CompactionUtils;
 import org.apache.iotdb.db.engine.compaction.log.CompactionLogger;
@@ -123,7 +124,12 @@ public class InnerSpaceCompactionTask extends AbstractCompactionTask {
       // carry out the compaction
       performer.setSourceFiles(selectedTsFileResourceList);
       performer.setTargetFiles(Collections.singletonList(targetTsFileResource));
-      performer.perform();
+      DiskIoLoadMonitor.getInstance().startWriting(targetTsFileResource.getTsFilePath());
+      try {
+        performer.perform();
+      } finally {
+        DiskIoLoadMonitor.getInstance().finishWriting(targetTsFileResource.getTsFilePath());
+      }
 
       CompactionUtils.moveTargetFile(
           Collections.singletonList(targetTsFileResource), true, fullStorageGroupName);
@@ -258,12 +264,14 @@ public class InnerSpaceCompactionTask extends AbstractCompactionTask {
   private void collectSelectedFilesInfo() {
     selectedFileSize = 0L;
     sumOfCompactionCount = 0;
+    queryHeat = 0;
     maxFileVersion = -1L;
     maxCompactionCount = -1;
     if (selectedTsFileResourceList == null) {
       return;
     }
     for (TsFileResource resource : selectedTsFileResourceList) {
+      queryHeat += resource.getQueryHeat();
       try {
         selectedFileSize += resource.getTsFileSize();
         TsFileNameGenerator.TsFileName fileName =
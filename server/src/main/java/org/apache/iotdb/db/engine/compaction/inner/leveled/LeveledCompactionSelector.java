@@ -0,0 +1,180 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.compaction.inner.leveled;
+
+import org.apache.iotdb.commons.conf.IoTDBConstant;
+import org.apache.iotdb.db.conf.IoTDBConfig;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.engine.compaction.inner.IInnerSeqSpaceSelector;
+import org.apache.iotdb.db.engine.storagegroup.TsFileManager;
+import org.apache.iotdb.db.engine.storagegroup.TsFileNameGenerator;
+import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
+import org.apache.iotdb.db.engine.storagegroup.TsFileResourceStatus;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.TreeMap;
+
+/**
+ * LeveledCompactionSelector bounds the number of files in each level of the sequence space, where
+ * the level of a file is its inner compaction count. Because the sequence files are ordered by time
+ * and do not overlap with each other, the files in each level cover disjoint time ranges, and the
+ * number of files read by a query is bounded by the number of levels multiplied by the file budget
+ * of each level.
+ *
+ * <p>Once the number of files in a level exceeds {@link
+ * IoTDBConfig#getLeveledCompactionMaxFileNumInLevel()}, the selector compacts the consecutive files
+ * of that level, from old to new, into files of the next level, until the level is within its
+ * budget again. Files that have reached the target compaction file size are not counted and never
+ * compacted again. Different from {@link
+ * org.apache.iotdb.db.engine.compaction.inner.sizetiered.SizeTieredCompactionSelector}, a task is
+ * selected even if the selected files are far smaller than the target size, which compacts the data
+ * more times in exchange for fewer files.
+ */
+public class LeveledCompactionSelector implements IInnerSeqSpaceSelector {
+  private static final Logger LOGGER =
+      LoggerFactory.getLogger(IoTDBConstant.COMPACTION_LOGGER_NAME);
+  private static final IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
+  protected String logicalStorageGroupName;
+  protected String dataRegionId;
+  protected long timePartition;
+  protected TsFileManager tsFileManager;
+
+  public LeveledCompactionSelector(
+      String logicalStorageGroupName,
+      String dataRegionId,
+      long timePartition,
+      TsFileManager tsFileManager) {
+    this.logicalStorageGroupName = logicalStorageGroupName;
+    this.dataRegionId = dataRegionId;
+    this.timePartition = timePartition;
+    this.tsFileManager = tsFileManager;
+  }
+
+  /**
+   * Select tasks for each level whose file num exceeds the budget, the tasks of lower levels are
+   * returned first.
+   *
+   * @param tsFileResources the sequence files of a time partition, ordered by time
+   * @return the source files of each compaction task
+   */
+  @Override
+  public List<List<TsFileResource>> selectInnerSpaceTask(List<TsFileResource> tsFileResources) {
+    try {
+      List<List<TsFileResource>> taskList = new LinkedList<>();
+      for (List<List<TsFileResource>> levelRuns : collectLevelRuns(tsFileResources).values()) {
+        selectLevelTask(levelRuns, taskList);
+      }
+      return taskList;
+    } catch (Exception e) {
+      LOGGER.error("Exception occurs while selecting files", e);
+    }
+    return Collections.emptyList();
+  }
+
+  /**
+   * Group the compactable files by level. The files of a level are split into runs, each of which
+   * is a list of consecutive files of that level, because only consecutive sequence files can be
+   * compacted into one file.
+   *
+   * @return level -> runs of the level
+   */
+  private TreeMap<Integer, List<List<TsFileResource>>> collectLevelRuns(
+      List<TsFileResource> tsFileResources) throws IOException {
+    TreeMap<Integer, List<List<TsFileResource>>> levelRuns = new TreeMap<>();
+    List<TsFileResource> currentRun = null;
+    int currentLevel = -1;
+    for (TsFileResource currentFile : tsFileResources) {
+      if (currentFile.getStatus() != TsFileResourceStatus.CLOSED
+          || currentFile.getTsFileSize() >= config.getTargetCompactionFileSize()) {
+        currentRun = null;
+        continue;
+      }
+      int level =
+          TsFileNameGenerator.getTsFileName(currentFile.getTsFile().getName())
+              .getInnerCompactionCnt();
+      if (currentRun == null || level != currentLevel) {
+        currentRun = new ArrayList<>();
+        currentLevel = level;
+        levelRuns.computeIfAbsent(level, l -> new ArrayList<>()).add(currentRun);
+      }
+      currentRun.add(currentFile);
+    }
+    return levelRuns;
+  }
+
+  /**
+   * Select tasks from the runs of a level from old to new, until the file num of this level is
+   * within the budget. A task of n files reduces the file num of this level by n.
+   */
+  private void selectLevelTask(
+      List<List<TsFileResource>> levelRuns, List<List<TsFileResource>> taskList) {
+    int fileNum = 0;
+    for (List<TsFileResource> run : levelRuns) {
+      fileNum += run.size();
+    }
+    int exceededFileNum = fileNum - config.getLeveledCompactionMaxFileNumInLevel();
+    for (List<TsFileResource> run : levelRuns) {
+      List<TsFileResource> selectedFileList = new ArrayList<>();
+      long selectedFileSize = 0L;
+      for (TsFileResource currentFile : run) {
+        if (exceededFileNum <= 0) {
+          return;
+        }
+        selectedFileList.add(currentFile);
+        selectedFileSize += currentFile.getTsFileSize();
+        if (selectedFileSize >= config.getTargetCompactionFileSize()
+            || selectedFileList.size() >= config.getMaxInnerCompactionCandidateFileNum()
+            || selectedFileList.size() >= Math.max(2, exceededFileNum)) {
+          exceededFileNum -= submitTask(selectedFileList, selectedFileSize, taskList);
+          selectedFileList = new ArrayList<>();
+          selectedFileSize = 0L;
+        }
+      }
+      if (exceededFileNum > 0) {
+        exceededFileNum -= submitTask(selectedFileList, selectedFileSize, taskList);
+      }
+    }
+  }
+
+  /** @return the num of files removed from the level, which is 0 if the task is not submitted */
+  private int submitTask(
+      List<TsFileResource> selectedFileList,
+      long selectedFileSize,
+      List<List<TsFileResource>> taskList) {
+    if (selectedFileList.size() < 2) {
+      return 0;
+    }
+    LOGGER.debug(
+        "{}-{} [Compaction] select {} files of size {} in time partition {} by leveled selector",
+        logicalStorageGroupName,
+        dataRegionId,
+        selectedFileList.size(),
+        selectedFileSize,
+        timePartition);
+    taskList.add(selectedFileList);
+    return selectedFileList.size();
+  }
+}
@@ -51,7 +51,8 @@ public class MultiTsFileDeviceIterator implements AutoCloseable {
   private List<TsFileResource> tsFileResources;
   private Map<TsFileResource, TsFileSequenceReader> readerMap = new HashMap<>();
   private Map<TsFileResource, TsFileDeviceIterator> deviceIteratorMap = new HashMap<>();
-  private Map<TsFileResource, List<Modification>> modificationCache = new HashMap<>();
+  // the series of different devices may be compacted by sub tasks concurrently
+  private Map<TsFileResource, List<Modification>> modificationCache = new ConcurrentHashMap<>();
   private Pair<String, Boolean> currentDevice = null;
 
   /** Used for inner space compaction. */
@@ -146,6 +147,26 @@ public class MultiTsFileDeviceIterator implements AutoCloseable {
     return new MeasurementIterator(readerMap, device, derserializeTimeseriesMetadata);
   }
 
+  /**
+   * Estimate the size of uncompressed data of a not aligned device in all the source files, which
+   * is used to bound the memory of buffering the compacted chunk group of this device.
+   *
+   * @param device the full path of the device
+   * @return the estimated size in byte
+   * @throws IOException
+   */
+  public long estimateNotAlignedDeviceSize(String device) throws IOException {
+    long size = 0;
+    for (TsFileSequenceReader reader : readerMap.values()) {
+      for (TimeseriesMetadata timeseriesMetadata : reader.readDeviceMetadata(device).values()) {
+        size +=
+            timeseriesMetadata.getStatistics().getCount()
+                * (Long.BYTES + timeseriesMetadata.getTSDataType().getDataTypeSize());
+      }
+    }
+    return size;
+  }
+
   public AlignedMeasurementIterator iterateAlignedSeries(String device) {
     return new AlignedMeasurementIterator(device, new ArrayList<>(readerMap.values()));
   }
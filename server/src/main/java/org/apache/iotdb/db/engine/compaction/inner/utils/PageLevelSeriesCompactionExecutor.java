@@ -0,0 +1,453 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.compaction.inner.utils;
+
+import org.apache.iotdb.commons.conf.IoTDBConstant;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.engine.compaction.CompactionMetricsManager;
+import org.apache.iotdb.db.engine.compaction.CompactionTaskManager;
+import org.apache.iotdb.db.engine.compaction.constant.CompactionType;
+import org.apache.iotdb.db.engine.compaction.constant.ProcessChunkType;
+import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
+import org.apache.iotdb.db.metadata.path.PartialPath;
+import org.apache.iotdb.tsfile.common.conf.TSFileDescriptor;
+import org.apache.iotdb.tsfile.compress.IUnCompressor;
+import org.apache.iotdb.tsfile.encoding.decoder.Decoder;
+import org.apache.iotdb.tsfile.exception.write.PageException;
+import org.apache.iotdb.tsfile.file.MetaMarker;
+import org.apache.iotdb.tsfile.file.header.ChunkHeader;
+import org.apache.iotdb.tsfile.file.header.PageHeader;
+import org.apache.iotdb.tsfile.file.metadata.ChunkMetadata;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
+import org.apache.iotdb.tsfile.read.TsFileSequenceReader;
+import org.apache.iotdb.tsfile.read.common.BatchData;
+import org.apache.iotdb.tsfile.read.common.Chunk;
+import org.apache.iotdb.tsfile.read.common.TimeRange;
+import org.apache.iotdb.tsfile.read.reader.page.PageReader;
+import org.apache.iotdb.tsfile.utils.Pair;
+import org.apache.iotdb.tsfile.utils.TsPrimitiveType;
+import org.apache.iotdb.tsfile.write.chunk.ChunkWriterImpl;
+import org.apache.iotdb.tsfile.write.schema.IMeasurementSchema;
+import org.apache.iotdb.tsfile.write.writer.TsFileIOWriter;
+
+import com.google.common.util.concurrent.RateLimiter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * This class is used to compact one not aligned series whose chunks may overlap with each other,
+ * e.g. during unseq inner space compaction or cross space compaction into a single target file. A
+ * page that does not overlap with any other page is appended to the target chunk as it is, without
+ * being decompressed or decoded. Only the pages that overlap with each other are deserialized into
+ * points and merged, and the point from the newer file wins if several pages contain the same
+ * timestamp.
+ */
+public class PageLevelSeriesCompactionExecutor {
+  private static final Logger LOGGER =
+      LoggerFactory.getLogger(IoTDBConstant.COMPACTION_LOGGER_NAME);
+
+  private final String device;
+  private final LinkedList<Pair<TsFileSequenceReader, List<ChunkMetadata>>>
+      readerAndChunkMetadataList;
+  private final TsFileIOWriter fileWriter;
+  private final TsFileResource targetResource;
+  private final IMeasurementSchema schema;
+  private final CompactionType compactionType;
+
+  // chunks not loaded yet, sorted by start time
+  private final PriorityQueue<ChunkElement> chunkElements =
+      new PriorityQueue<>(Comparator.comparingLong(c -> c.chunkMetadata.getStartTime()));
+  // pages of loaded chunks which are not compacted yet, sorted by start time
+  private final PriorityQueue<PageElement> pageElements =
+      new PriorityQueue<>(Comparator.comparingLong(p -> p.pageHeader.getStartTime()));
+
+  private ChunkWriterImpl chunkWriter;
+  private final RateLimiter compactionRateLimiter =
+      CompactionTaskManager.getInstance().getMergeWriteRateLimiter();
+  // record the min time and max time to update the target resource
+  private long minStartTimestamp = Long.MAX_VALUE;
+  private long maxEndTimestamp = Long.MIN_VALUE;
+  private long pointCountInChunkWriter = 0;
+
+  private final long targetChunkSize =
+      IoTDBDescriptor.getInstance().getConfig().getTargetChunkSize();
+  private final long targetChunkPointNum =
+      IoTDBDescriptor.getInstance().getConfig().getTargetChunkPointNum();
+  private final TSEncoding timeEncoding =
+      TSEncoding.valueOf(TSFileDescriptor.getInstance().getConfig().getTimeEncoder());
+
+  public PageLevelSeriesCompactionExecutor(
+      PartialPath series,
+      IMeasurementSchema measurementSchema,
+      LinkedList<Pair<TsFileSequenceReader, List<ChunkMetadata>>> readerAndChunkMetadataList,
+      TsFileIOWriter fileWriter,
+      TsFileResource targetResource,
+      CompactionType compactionType) {
+    this.device = series.getDevice();
+    this.schema = measurementSchema;
+    this.readerAndChunkMetadataList = readerAndChunkMetadataList;
+    this.fileWriter = fileWriter;
+    this.targetResource = targetResource;
+    this.compactionType = compactionType;
+    this.chunkWriter = new ChunkWriterImpl(schema);
+  }
+
+  /**
+   * This function execute the compaction of a single time series. Chunks are loaded in the order of
+   * their start time, and a chunk is loaded only when the compaction reaches its start time, so
+   * only the chunks overlapping with the current time are kept in memory, however long the chain of
+   * overlapped chunks is.
+   */
+  public void execute() throws IOException {
+    // the reader list is sorted by file version, so a later chunk has a higher priority
+    int priority = 0;
+    while (!readerAndChunkMetadataList.isEmpty()) {
+      Pair<TsFileSequenceReader, List<ChunkMetadata>> readerListPair =
+          readerAndChunkMetadataList.removeFirst();
+      List<ChunkMetadata> chunkMetadataList = new ArrayList<>(readerListPair.right);
+      chunkMetadataList.sort(Comparator.comparingLong(ChunkMetadata::getOffsetOfChunkHeader));
+      for (ChunkMetadata chunkMetadata : chunkMetadataList) {
+        chunkElements.add(new ChunkElement(readerListPair.left, chunkMetadata, priority++));
+      }
+    }
+
+    while (true) {
+      if (pageElements.isEmpty() && !loadNextChunk()) {
+        break;
+      }
+      if (pageElements.isEmpty()) {
+        continue;
+      }
+      // make sure all the pages that may overlap with the first page are loaded
+      PageElement firstPage;
+      do {
+        firstPage = pageElements.peek();
+        loadChunksStartingNotAfter(firstPage.pageHeader.getEndTime());
+      } while (pageElements.peek() != firstPage);
+      pageElements.poll();
+
+      if ((pageElements.isEmpty()
+              || pageElements.peek().pageHeader.getStartTime() > firstPage.pageHeader.getEndTime())
+          && canBeWrittenDirectly(firstPage)) {
+        writePageDirectly(firstPage);
+      } else {
+        mergeOverlappedPages(firstPage);
+      }
+      flushChunkWriterIfLargeEnough();
+    }
+
+    if (pointCountInChunkWriter != 0L) {
+      flushChunkWriter();
+    }
+    if (minStartTimestamp <= maxEndTimestamp) {
+      targetResource.updateStartTime(device, minStartTimestamp);
+      targetResource.updateEndTime(device, maxEndTimestamp);
+    }
+  }
+
+  /** @return false if there is no more chunk to load */
+  private boolean loadNextChunk() throws IOException {
+    ChunkElement chunkElement = chunkElements.poll();
+    if (chunkElement == null) {
+      return false;
+    }
+    Chunk chunk = chunkElement.reader.readMemChunk(chunkElement.chunkMetadata);
+    CompactionMetricsManager.recordReadInfo(
+        chunk.getHeader().getSerializedSize() + chunk.getHeader().getDataSize());
+    if (chunk.getHeader().getDataType() != schema.getType()) {
+      LOGGER.warn(
+          "Skip a chunk of {}.{} whose data type {} is different from the schema {}",
+          device,
+          schema.getMeasurementId(),
+          chunk.getHeader().getDataType(),
+          schema.getType());
+      return true;
+    }
+    splitChunkIntoPages(chunk, chunkElement.priority);
+    return true;
+  }
+
+  private void loadChunksStartingNotAfter(long time) throws IOException {
+    while (!chunkElements.isEmpty() && chunkElements.peek().chunkMetadata.getStartTime() <= time) {
+      loadNextChunk();
+    }
+  }
+
+  private void splitChunkIntoPages(Chunk chunk, int priority) {
+    ChunkHeader chunkHeader = chunk.getHeader();
+    ByteBuffer chunkDataBuffer = chunk.getData();
+    while (chunkDataBuffer.remaining() > 0) {
+      PageHeader pageHeader;
+      if (((byte) (chunkHeader.getChunkType() & 0x3F)) == MetaMarker.ONLY_ONE_PAGE_CHUNK_HEADER) {
+        pageHeader = PageHeader.deserializeFrom(chunkDataBuffer, chunk.getChunkStatistic());
+      } else {
+        pageHeader = PageHeader.deserializeFrom(chunkDataBuffer, chunkHeader.getDataType());
+      }
+      ByteBuffer compressedPageData = chunkDataBuffer.slice();
+      compressedPageData.limit(pageHeader.getCompressedSize());
+      chunkDataBuffer.position(chunkDataBuffer.position() + pageHeader.getCompressedSize());
+
+      if (isDeleted(pageHeader, chunk.getDeleteIntervalList())) {
+        continue;
+      }
+      pageElements.add(
+          new PageElement(
+              chunkHeader,
+              pageHeader,
+              compressedPageData,
+              chunk.getDeleteIntervalList(),
+              priority));
+    }
+  }
+
+  /** @return true if all the data of the page is deleted, and mark the page modified if partly */
+  private boolean isDeleted(PageHeader pageHeader, List<TimeRange> deleteIntervalList) {
+    if (deleteIntervalList == null) {
+      return false;
+    }
+    TimeRange pageTimeRange = new TimeRange(pageHeader.getStartTime(), pageHeader.getEndTime());
+    for (TimeRange range : deleteIntervalList) {
+      if (range.contains(pageHeader.getStartTime(), pageHeader.getEndTime())) {
+        return true;
+      }
+      if (range.overlaps(pageTimeRange)) {
+        pageHeader.setModified(true);
+      }
+    }
+    return false;
+  }
+
+  /**
+   * A page can be appended to the target chunk as it is only if it is not modified and it is
+   * encoded and compressed in the same way as the target series.
+   */
+  private boolean canBeWrittenDirectly(PageElement pageElement) {
+    return !pageElement.pageHeader.isModified()
+        && pageElement.chunkHeader.getEncodingType() == schema.getEncodingType()
+        && pageElement.chunkHeader.getCompressionType() == schema.getCompressor();
+  }
+
+  private void writePageDirectly(PageElement pageElement) throws IOException {
+    // the points remaining in the page writer must be sealed into a page first to keep the order
+    chunkWriter.sealCurrentPage();
+    try {
+      chunkWriter.writePageHeaderAndDataIntoBuff(
+          pageElement.compressedPageData, pageElement.pageHeader);
+    } catch (PageException e) {
+      throw new IOException(e);
+    }
+    pointCountInChunkWriter += pageElement.pageHeader.getNumOfValues();
+    minStartTimestamp = Math.min(minStartTimestamp, pageElement.pageHeader.getStartTime());
+    maxEndTimestamp = Math.max(maxEndTimestamp, pageElement.pageHeader.getEndTime());
+  }
+
+  /**
+   * Merge the points of the first page with the pages overlapping with it directly or transitively.
+   * A page (and the chunk containing it) is loaded and deserialized only when the merge reaches its
+   * start time, and if several pages contain the same timestamp, the one with the highest priority
+   * wins.
+   */
+  private void mergeOverlappedPages(PageElement firstPage) throws IOException {
+    PriorityQueue<PagePointReader> pointReaders =
+        new PriorityQueue<>(
+            (o1, o2) -> {
+              int timeCompare = Long.compare(o1.currentTime(), o2.currentTime());
+              return timeCompare != 0 ? timeCompare : Integer.compare(o2.priority, o1.priority);
+            });
+    PagePointReader firstReader = new PagePointReader(firstPage);
+    if (firstReader.hasCurrent()) {
+      pointReaders.add(firstReader);
+    }
+    while (!pointReaders.isEmpty() || hasPageStartingNotAfter(firstPage.pageHeader.getEndTime())) {
+      long currentTime =
+          pointReaders.isEmpty()
+              ? firstPage.pageHeader.getEndTime()
+              : pointReaders.peek().currentTime();
+      loadChunksStartingNotAfter(currentTime);
+      while (hasPageStartingNotAfter(currentTime)) {
+        PagePointReader pointReader = new PagePointReader(pageElements.poll());
+        if (pointReader.hasCurrent()) {
+          pointReaders.add(pointReader);
+        }
+      }
+      if (pointReaders.isEmpty()) {
+        continue;
+      }
+
+      PagePointReader pointReader = pointReaders.poll();
+      currentTime = pointReader.currentTime();
+      writeTimeAndValueToChunkWriter(currentTime, pointReader.currentValue());
+      advance(pointReader, pointReaders);
+      // skip the points with the same timestamp in pages of lower priority
+      while (!pointReaders.isEmpty() && pointReaders.peek().currentTime() == currentTime) {
+        advance(pointReaders.poll(), pointReaders);
+      }
+      if (pointCountInChunkWriter >= targetChunkPointNum) {
+        flushChunkWriter();
+      }
+    }
+  }
+
+  private boolean hasPageStartingNotAfter(long time) {
+    return !pageElements.isEmpty() && pageElements.peek().pageHeader.getStartTime() <= time;
+  }
+
+  private void advance(PagePointReader pointReader, PriorityQueue<PagePointReader> pointReaders) {
+    pointReader.next();
+    if (pointReader.hasCurrent()) {
+      pointReaders.add(pointReader);
+    }
+  }
+
+  private void writeTimeAndValueToChunkWriter(long time, TsPrimitiveType value) {
+    switch (chunkWriter.getDataType()) {
+      case TEXT:
+        chunkWriter.write(time, value.getBinary());
+        break;
+      case FLOAT:
+        chunkWriter.write(time, value.getFloat());
+        break;
+      case DOUBLE:
+        chunkWriter.write(time, value.getDouble());
+        break;
+      case BOOLEAN:
+        chunkWriter.write(time, value.getBoolean());
+        break;
+      case INT64:
+        chunkWriter.write(time, value.getLong());
+        break;
+      case INT32:
+        chunkWriter.write(time, value.getInt());
+        break;
+      default:
+        throw new UnsupportedOperationException("Unknown data type " + chunkWriter.getDataType());
+    }
+    pointCountInChunkWriter++;
+    minStartTimestamp = Math.min(minStartTimestamp, time);
+    maxEndTimestamp = Math.max(maxEndTimestamp, time);
+  }
+
+  private void flushChunkWriterIfLargeEnough() throws IOException {
+    if (pointCountInChunkWriter >= targetChunkPointNum
+        || chunkWriter.estimateMaxSeriesMemSize() >= targetChunkSize) {
+      flushChunkWriter();
+    }
+  }
+
+  private void flushChunkWriter() throws IOException {
+    CompactionTaskManager.mergeRateLimiterAcquire(
+        compactionRateLimiter, chunkWriter.estimateMaxSeriesMemSize());
+    CompactionMetricsManager.recordWriteInfo(
+        compactionType,
+        ProcessChunkType.MERGE_CHUNK,
+        false,
+        chunkWriter.estimateMaxSeriesMemSize());
+    chunkWriter.writeToFileWriter(fileWriter);
+    // use a new chunk writer, because the state of the first page is not fully reset after flushing
+    // a chunk whose first page is written by writePageHeaderAndDataIntoBuff
+    chunkWriter = new ChunkWriterImpl(schema);
+    pointCountInChunkWriter = 0L;
+  }
+
+  private static class ChunkElement {
+    private final TsFileSequenceReader reader;
+    private final ChunkMetadata chunkMetadata;
+    private final int priority;
+
+    private ChunkElement(TsFileSequenceReader reader, ChunkMetadata chunkMetadata, int priority) {
+      this.reader = reader;
+      this.chunkMetadata = chunkMetadata;
+      this.priority = priority;
+    }
+  }
+
+  private static class PageElement {
+    private final ChunkHeader chunkHeader;
+    private final PageHeader pageHeader;
+    private final ByteBuffer compressedPageData;
+    private final List<TimeRange> deleteIntervalList;
+    private final int priority;
+
+    private PageElement(
+        ChunkHeader chunkHeader,
+        PageHeader pageHeader,
+        ByteBuffer compressedPageData,
+        List<TimeRange> deleteIntervalList,
+        int priority) {
+      this.chunkHeader = chunkHeader;
+      this.pageHeader = pageHeader;
+      this.compressedPageData = compressedPageData;
+      this.deleteIntervalList = deleteIntervalList;
+      this.priority = priority;
+    }
+  }
+
+  /** Iterate the points of a page, which is deserialized when the reader is constructed. */
+  private class PagePointReader {
+    private final BatchData batchData;
+    private final int priority;
+
+    private PagePointReader(PageElement pageElement) throws IOException {
+      this.priority = pageElement.priority;
+      ChunkHeader chunkHeader = pageElement.chunkHeader;
+      PageHeader pageHeader = pageElement.pageHeader;
+      byte[] compressedPageBody = new byte[pageHeader.getCompressedSize()];
+      pageElement.compressedPageData.duplicate().get(compressedPageBody);
+      byte[] uncompressedPageData = new byte[pageHeader.getUncompressedSize()];
+      IUnCompressor.getUnCompressor(chunkHeader.getCompressionType())
+          .uncompress(compressedPageBody, 0, compressedPageBody.length, uncompressedPageData, 0);
+      TSDataType dataType = chunkHeader.getDataType();
+      PageReader pageReader =
+          new PageReader(
+              pageHeader,
+              ByteBuffer.wrap(uncompressedPageData),
+              dataType,
+              Decoder.getDecoderByType(chunkHeader.getEncodingType(), dataType),
+              Decoder.getDecoderByType(timeEncoding, TSDataType.INT64),
+              null);
+      pageReader.setDeleteIntervalList(pageElement.deleteIntervalList);
+      this.batchData = pageReader.getAllSatisfiedPageData();
+    }
+
+    private boolean hasCurrent() {
+      return batchData.hasCurrent();
+    }
+
+    private long currentTime() {
+      return batchData.currentTime();
+    }
+
+    private TsPrimitiveType currentValue() {
+      return batchData.currentTsPrimitiveType();
+    }
+
+    private void next() {
+      batchData.next();
+    }
+  }
+}
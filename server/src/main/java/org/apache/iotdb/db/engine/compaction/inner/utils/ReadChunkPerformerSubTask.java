@@ -0,0 +1,146 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.compaction.inner.utils;
+
+import org.apache.iotdb.commons.conf.IoTDBConstant;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
+import org.apache.iotdb.db.exception.metadata.MetadataException;
+import org.apache.iotdb.db.exception.metadata.PathNotExistException;
+import org.apache.iotdb.db.metadata.idtable.IDTableManager;
+import org.apache.iotdb.db.metadata.path.PartialPath;
+import org.apache.iotdb.db.service.IoTDB;
+import org.apache.iotdb.tsfile.file.metadata.AlignedChunkMetadata;
+import org.apache.iotdb.tsfile.file.metadata.ChunkMetadata;
+import org.apache.iotdb.tsfile.read.TsFileSequenceReader;
+import org.apache.iotdb.tsfile.utils.Pair;
+import org.apache.iotdb.tsfile.write.schema.IMeasurementSchema;
+import org.apache.iotdb.tsfile.write.writer.TsFileIOWriter;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * This class is used to compact the chunk group of one device during seq inner space compaction by
+ * reading chunks. The chunk group is written into the target file directly, or into a memory buffer
+ * when the devices are compacted in parallel, and then the buffer is appended to the target file in
+ * the order of devices.
+ */
+public class ReadChunkPerformerSubTask implements Callable<Void> {
+  private static final Logger LOGGER =
+      LoggerFactory.getLogger(IoTDBConstant.COMPACTION_LOGGER_NAME);
+  private final String device;
+  // the input of a not aligned device
+  private final MultiTsFileDeviceIterator.MeasurementIterator seriesIterator;
+  // the input of an aligned device
+  private final LinkedList<Pair<TsFileSequenceReader, List<AlignedChunkMetadata>>>
+      alignedReaderAndChunkMetadataList;
+  private final TsFileIOWriter writer;
+  private final TsFileResource targetResource;
+
+  /** Compact a not aligned device, whose series are iterated by the seriesIterator. */
+  public ReadChunkPerformerSubTask(
+      String device,
+      MultiTsFileDeviceIterator.MeasurementIterator seriesIterator,
+      TsFileIOWriter writer,
+      TsFileResource targetResource) {
+    this.device = device;
+    this.seriesIterator = seriesIterator;
+    this.alignedReaderAndChunkMetadataList = null;
+    this.writer = writer;
+    this.targetResource = targetResource;
+  }
+
+  /** Compact an aligned device, whose chunk metadata list is collected in advance. */
+  public ReadChunkPerformerSubTask(
+      String device,
+      LinkedList<Pair<TsFileSequenceReader, List<AlignedChunkMetadata>>>
+          alignedReaderAndChunkMetadataList,
+      TsFileIOWriter writer,
+      TsFileResource targetResource) {
+    this.device = device;
+    this.seriesIterator = null;
+    this.alignedReaderAndChunkMetadataList = alignedReaderAndChunkMetadataList;
+    this.writer = writer;
+    this.targetResource = targetResource;
+  }
+
+  @Override
+  public Void call() throws IOException, MetadataException, InterruptedException {
+    writer.startChunkGroup(device);
+    if (alignedReaderAndChunkMetadataList != null) {
+      compactAlignedSeries();
+    } else {
+      compactNotAlignedSeries();
+    }
+    writer.endChunkGroup();
+    return null;
+  }
+
+  private void compactAlignedSeries() throws IOException, InterruptedException {
+    checkThreadInterrupted();
+    AlignedSeriesCompactionExecutor compactionExecutor =
+        new AlignedSeriesCompactionExecutor(
+            device, targetResource, alignedReaderAndChunkMetadataList, writer);
+    compactionExecutor.execute();
+  }
+
+  private void compactNotAlignedSeries()
+      throws IOException, MetadataException, InterruptedException {
+    while (seriesIterator.hasNextSeries()) {
+      checkThreadInterrupted();
+      // TODO: we can provide a configuration item to enable concurrent between each series
+      PartialPath p = new PartialPath(device, seriesIterator.nextSeries());
+      IMeasurementSchema measurementSchema;
+      // TODO: seriesIterator needs to be refactor.
+      // This statement must be called before next hasNextSeries() called, or it may be trapped in a
+      // dead-loop.
+      LinkedList<Pair<TsFileSequenceReader, List<ChunkMetadata>>> readerAndChunkMetadataList =
+          seriesIterator.getMetadataListForCurrentSeries();
+      try {
+        if (IoTDBDescriptor.getInstance().getConfig().isEnableIDTable()) {
+          measurementSchema =
+              IDTableManager.getInstance().getSeriesSchema(device, p.getMeasurement());
+        } else {
+          measurementSchema = IoTDB.schemaProcessor.getSeriesSchema(p);
+        }
+      } catch (PathNotExistException e) {
+        LOGGER.info("A deleted path is skipped: {}", e.getMessage());
+        continue;
+      }
+      SingleSeriesCompactionExecutor compactionExecutorOfCurrentTimeSeries =
+          new SingleSeriesCompactionExecutor(
+              p, measurementSchema, readerAndChunkMetadataList, writer, targetResource);
+      compactionExecutorOfCurrentTimeSeries.execute();
+    }
+  }
+
+  private void checkThreadInterrupted() throws InterruptedException {
+    if (Thread.interrupted()) {
+      throw new InterruptedException(
+          String.format(
+              "[Compaction] compaction for target file %s abort", targetResource.toString()));
+    }
+  }
+}
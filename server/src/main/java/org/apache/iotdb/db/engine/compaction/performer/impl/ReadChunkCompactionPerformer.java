@@ -20,36 +20,42 @@ package org.apache.iotdb.db.engine.compaction.performer.impl;
 
 import org.apache.iotdb.commons.conf.IoTDBConstant;
 import org.apache.iotdb.db.conf.IoTDBDescriptor;
-import org.apache.iotdb.db.engine.compaction.inner.utils.AlignedSeriesCompactionExecutor;
+import org.apache.iotdb.db.engine.compaction.CompactionTaskManager;
 import org.apache.iotdb.db.engine.compaction.inner.utils.MultiTsFileDeviceIterator;
-import org.apache.iotdb.db.engine.compaction.inner.utils.SingleSeriesCompactionExecutor;
+import org.apache.iotdb.db.engine.compaction.inner.utils.ReadChunkPerformerSubTask;
 import org.apache.iotdb.db.engine.compaction.performer.ISeqCompactionPerformer;
 import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
 import org.apache.iotdb.db.exception.StorageEngineException;
 import org.apache.iotdb.db.exception.metadata.MetadataException;
-import org.apache.iotdb.db.exception.metadata.PathNotExistException;
-import org.apache.iotdb.db.metadata.idtable.IDTableManager;
-import org.apache.iotdb.db.metadata.path.PartialPath;
-import org.apache.iotdb.db.service.IoTDB;
+import org.apache.iotdb.db.rescon.SystemInfo;
 import org.apache.iotdb.tsfile.file.metadata.AlignedChunkMetadata;
-import org.apache.iotdb.tsfile.file.metadata.ChunkMetadata;
+import org.apache.iotdb.tsfile.file.metadata.IChunkMetadata;
 import org.apache.iotdb.tsfile.read.TsFileSequenceReader;
 import org.apache.iotdb.tsfile.utils.Pair;
-import org.apache.iotdb.tsfile.write.schema.IMeasurementSchema;
+import org.apache.iotdb.tsfile.write.writer.MemoryTsFileOutput;
 import org.apache.iotdb.tsfile.write.writer.TsFileIOWriter;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class ReadChunkCompactionPerformer implements ISeqCompactionPerformer {
   private static final Logger LOGGER =
       LoggerFactory.getLogger(IoTDBConstant.COMPACTION_LOGGER_NAME);
   private TsFileResource targetResource;
   private List<TsFileResource> seqFiles;
+  private final int subTaskNum =
+      IoTDBDescriptor.getInstance().getConfig().getSubCompactionTaskNum();
 
   public ReadChunkCompactionPerformer(List<TsFileResource> sourceFiles, TsFileResource targetFile) {
     this.seqFiles = sourceFiles;
@@ -67,26 +73,172 @@ public class ReadChunkCompactionPerformer implements ISeqCompactionPerformer {
       throws IOException, MetadataException, InterruptedException, StorageEngineException {
     try (MultiTsFileDeviceIterator deviceIterator = new MultiTsFileDeviceIterator(seqFiles);
         TsFileIOWriter writer = new TsFileIOWriter(targetResource.getTsFile())) {
+      if (subTaskNum > 1) {
+        compactDevicesInParallel(deviceIterator, writer);
+      } else {
+        while (deviceIterator.hasNextDevice()) {
+          checkThreadInterrupted();
+          Pair<String, Boolean> deviceInfo = deviceIterator.nextDevice();
+          createSubTask(deviceInfo.left, deviceInfo.right, deviceIterator, writer, targetResource)
+              .call();
+        }
+      }
+
+      for (TsFileResource tsFileResource : seqFiles) {
+        targetResource.updatePlanIndexes(tsFileResource);
+      }
+      writer.endFile();
+      targetResource.close();
+    }
+  }
+
+  /**
+   * Compact the devices by at most subTaskNum sub tasks concurrently. Each sub task writes the
+   * chunk group of its device into a memory buffer, and the buffers are appended to the target file
+   * in the order of devices, so the target file is the same as the one compacted serially. A device
+   * is compacted directly into the target file by the current thread if the buffer memory applied
+   * from {@link SystemInfo} is not enough.
+   */
+  private void compactDevicesInParallel(
+      MultiTsFileDeviceIterator deviceIterator, TsFileIOWriter writer)
+      throws IOException, MetadataException, InterruptedException {
+    Deque<BufferedChunkGroup> pendingChunkGroups = new ArrayDeque<>();
+    try {
       while (deviceIterator.hasNextDevice()) {
+        checkThreadInterrupted();
         Pair<String, Boolean> deviceInfo = deviceIterator.nextDevice();
         String device = deviceInfo.left;
         boolean aligned = deviceInfo.right;
-
-        writer.startChunkGroup(device);
+        // the chunk metadata of the device must be fetched before the iterator moves on
+        MultiTsFileDeviceIterator.MeasurementIterator seriesIterator = null;
+        LinkedList<Pair<TsFileSequenceReader, List<AlignedChunkMetadata>>> alignedList = null;
+        long memoryCost;
         if (aligned) {
-          compactAlignedSeries(device, targetResource, writer, deviceIterator);
+          alignedList = deviceIterator.getReaderAndChunkMetadataForCurrentAlignedSeries();
+          memoryCost = estimateAlignedDeviceSize(alignedList);
         } else {
-          compactNotAlignedSeries(device, targetResource, writer, deviceIterator);
+          seriesIterator = deviceIterator.iterateNotAlignedSeries(device, true);
+          memoryCost = deviceIterator.estimateNotAlignedDeviceSize(device);
         }
-        writer.endChunkGroup();
+
+        while (true) {
+          if (pendingChunkGroups.size() < subTaskNum
+              && SystemInfo.getInstance().applyCompactionBufferMemory(memoryCost)) {
+            pendingChunkGroups.addLast(
+                submitBufferedChunkGroup(device, seriesIterator, alignedList, memoryCost));
+            break;
+          } else if (!pendingChunkGroups.isEmpty()) {
+            // wait for the earliest device to release its buffer
+            appendFirstChunkGroup(pendingChunkGroups, writer);
+          } else {
+            // the device is too large to be buffered, compact it into the target file directly
+            ReadChunkPerformerSubTask subTask =
+                aligned
+                    ? new ReadChunkPerformerSubTask(device, alignedList, writer, targetResource)
+                    : new ReadChunkPerformerSubTask(device, seriesIterator, writer, targetResource);
+            subTask.call();
+            break;
+          }
+        }
+      }
+      while (!pendingChunkGroups.isEmpty()) {
+        appendFirstChunkGroup(pendingChunkGroups, writer);
+      }
+    } finally {
+      for (BufferedChunkGroup chunkGroup : pendingChunkGroups) {
+        chunkGroup.future.cancel(true);
       }
+      // a cancelled sub task may still be using the readers and its buffer until it notices the
+      // interruption, so they can only be released after all the sub tasks stop
+      for (BufferedChunkGroup chunkGroup : pendingChunkGroups) {
+        chunkGroup.awaitTermination();
+        SystemInfo.getInstance().releaseCompactionBufferMemory(chunkGroup.memoryCost);
+      }
+    }
+  }
 
-      for (TsFileResource tsFileResource : seqFiles) {
-        targetResource.updatePlanIndexes(tsFileResource);
+  private BufferedChunkGroup submitBufferedChunkGroup(
+      String device,
+      MultiTsFileDeviceIterator.MeasurementIterator seriesIterator,
+      LinkedList<Pair<TsFileSequenceReader, List<AlignedChunkMetadata>>> alignedList,
+      long memoryCost)
+      throws IOException, MetadataException, InterruptedException {
+    BufferedChunkGroup chunkGroup = new BufferedChunkGroup(device, memoryCost);
+    ReadChunkPerformerSubTask subTask =
+        seriesIterator == null
+            ? new ReadChunkPerformerSubTask(
+                device, alignedList, chunkGroup.writer, chunkGroup.resource)
+            : new ReadChunkPerformerSubTask(
+                device, seriesIterator, chunkGroup.writer, chunkGroup.resource);
+    chunkGroup.future =
+        CompactionTaskManager.getInstance().submitSubTask(() -> chunkGroup.run(subTask));
+    if (chunkGroup.future == null) {
+      // the sub compaction thread pool is not available, run it in the current thread
+      subTask.call();
+      chunkGroup.future = CompletableFuture.completedFuture(null);
+    }
+    return chunkGroup;
+  }
+
+  /**
+   * Append the chunk group of the earliest device to the target file. The chunk group is removed
+   * from the deque only if its sub task has finished, otherwise the caller has to stop it.
+   */
+  private void appendFirstChunkGroup(
+      Deque<BufferedChunkGroup> pendingChunkGroups, TsFileIOWriter writer)
+      throws IOException, InterruptedException {
+    BufferedChunkGroup chunkGroup = pendingChunkGroups.peekFirst();
+    try {
+      chunkGroup.future.get();
+      writer.appendChunkGroups(chunkGroup.writer);
+      if (chunkGroup.resource.getDevices().contains(chunkGroup.device)) {
+        targetResource.updateStartTime(
+            chunkGroup.device, chunkGroup.resource.getStartTime(chunkGroup.device));
+        targetResource.updateEndTime(
+            chunkGroup.device, chunkGroup.resource.getEndTime(chunkGroup.device));
+      }
+    } catch (ExecutionException e) {
+      throw new IOException(
+          String.format("[Compaction] failed to compact device %s", chunkGroup.device), e);
+    }
+    pendingChunkGroups.pollFirst();
+    SystemInfo.getInstance().releaseCompactionBufferMemory(chunkGroup.memoryCost);
+  }
+
+  private long estimateAlignedDeviceSize(
+      List<Pair<TsFileSequenceReader, List<AlignedChunkMetadata>>> readerAndChunkMetadataList) {
+    long size = 0;
+    for (Pair<TsFileSequenceReader, List<AlignedChunkMetadata>> pair : readerAndChunkMetadataList) {
+      for (AlignedChunkMetadata alignedChunkMetadata : pair.right) {
+        size += alignedChunkMetadata.getTimeChunkMetadata().getStatistics().getCount() * Long.BYTES;
+        for (IChunkMetadata valueChunkMetadata : alignedChunkMetadata.getValueChunkMetadataList()) {
+          if (valueChunkMetadata != null) {
+            size +=
+                valueChunkMetadata.getStatistics().getCount()
+                    * valueChunkMetadata.getDataType().getDataTypeSize();
+          }
+        }
       }
-      writer.endFile();
-      targetResource.close();
     }
+    return size;
+  }
+
+  private ReadChunkPerformerSubTask createSubTask(
+      String device,
+      boolean aligned,
+      MultiTsFileDeviceIterator deviceIterator,
+      TsFileIOWriter writer,
+      TsFileResource resource)
+      throws IOException {
+    if (aligned) {
+      return new ReadChunkPerformerSubTask(
+          device,
+          deviceIterator.getReaderAndChunkMetadataForCurrentAlignedSeries(),
+          writer,
+          resource);
+    }
+    return new ReadChunkPerformerSubTask(
+        device, deviceIterator.iterateNotAlignedSeries(device, true), writer, resource);
   }
 
   @Override
@@ -100,21 +252,6 @@ public class ReadChunkCompactionPerformer implements ISeqCompactionPerformer {
     this.targetResource = targetFiles.get(0);
   }
 
-  private void compactAlignedSeries(
-      String device,
-      TsFileResource targetResource,
-      TsFileIOWriter writer,
-      MultiTsFileDeviceIterator deviceIterator)
-      throws IOException, InterruptedException {
-    checkThreadInterrupted();
-    LinkedList<Pair<TsFileSequenceReader, List<AlignedChunkMetadata>>> readerAndChunkMetadataList =
-        deviceIterator.getReaderAndChunkMetadataForCurrentAlignedSeries();
-    AlignedSeriesCompactionExecutor compactionExecutor =
-        new AlignedSeriesCompactionExecutor(
-            device, targetResource, readerAndChunkMetadataList, writer);
-    compactionExecutor.execute();
-  }
-
   private void checkThreadInterrupted() throws InterruptedException {
     if (Thread.interrupted()) {
       throw new InterruptedException(
@@ -123,44 +260,58 @@ public class ReadChunkCompactionPerformer implements ISeqCompactionPerformer {
     }
   }
 
-  private void compactNotAlignedSeries(
-      String device,
-      TsFileResource targetResource,
-      TsFileIOWriter writer,
-      MultiTsFileDeviceIterator deviceIterator)
-      throws IOException, MetadataException, InterruptedException {
-    MultiTsFileDeviceIterator.MeasurementIterator seriesIterator =
-        deviceIterator.iterateNotAlignedSeries(device, true);
-    while (seriesIterator.hasNextSeries()) {
-      checkThreadInterrupted();
-      // TODO: we can provide a configuration item to enable concurrent between each series
-      PartialPath p = new PartialPath(device, seriesIterator.nextSeries());
-      IMeasurementSchema measurementSchema;
-      // TODO: seriesIterator needs to be refactor.
-      // This statement must be called before next hasNextSeries() called, or it may be trapped in a
-      // dead-loop.
-      LinkedList<Pair<TsFileSequenceReader, List<ChunkMetadata>>> readerAndChunkMetadataList =
-          seriesIterator.getMetadataListForCurrentSeries();
+  @Override
+  public void setSourceFiles(List<TsFileResource> seqFiles) {
+    this.seqFiles = seqFiles;
+  }
+
+  /** The chunk group of a device compacted by a sub task into memory. */
+  private class BufferedChunkGroup {
+    private final String device;
+    private final long memoryCost;
+    private final TsFileIOWriter writer;
+    // collect the time range of the device, which is merged into the target resource when appended
+    private final TsFileResource resource;
+    private Future<Void> future;
+    // set once the sub task starts running or is cancelled before running
+    private final AtomicBoolean started = new AtomicBoolean(false);
+    private final CountDownLatch finished = new CountDownLatch(1);
+
+    private BufferedChunkGroup(String device, long memoryCost) {
+      this.device = device;
+      this.memoryCost = memoryCost;
+      this.writer = new TsFileIOWriter(new MemoryTsFileOutput(), true);
+      this.resource = new TsFileResource(targetResource.getTsFile());
+    }
+
+    private Void run(ReadChunkPerformerSubTask subTask) throws Exception {
+      if (!started.compareAndSet(false, true)) {
+        return null;
+      }
       try {
-        if (IoTDBDescriptor.getInstance().getConfig().isEnableIDTable()) {
-          measurementSchema =
-              IDTableManager.getInstance().getSeriesSchema(device, p.getMeasurement());
-        } else {
-          measurementSchema = IoTDB.schemaProcessor.getSeriesSchema(p);
-        }
-      } catch (PathNotExistException e) {
-        LOGGER.info("A deleted path is skipped: {}", e.getMessage());
-        continue;
+        return subTask.call();
+      } finally {
+        finished.countDown();
       }
-      SingleSeriesCompactionExecutor compactionExecutorOfCurrentTimeSeries =
-          new SingleSeriesCompactionExecutor(
-              p, measurementSchema, readerAndChunkMetadataList, writer, targetResource);
-      compactionExecutorOfCurrentTimeSeries.execute();
     }
-  }
 
-  @Override
-  public void setSourceFiles(List<TsFileResource> seqFiles) {
-    this.seqFiles = seqFiles;
+    /** Wait until the sub task stops, or make sure it never runs if it has not started yet. */
+    private void awaitTermination() {
+      if (started.compareAndSet(false, true)) {
+        return;
+      }
+      boolean interrupted = false;
+      while (true) {
+        try {
+          finished.await();
+          break;
+        } catch (InterruptedException e) {
+          interrupted = true;
+        }
+      }
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+    }
   }
 }
@@ -0,0 +1,292 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.compaction.performer.impl;
+
+import org.apache.iotdb.commons.conf.IoTDBConstant;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.engine.compaction.CompactionMetricsManager;
+import org.apache.iotdb.db.engine.compaction.CompactionTaskManager;
+import org.apache.iotdb.db.engine.compaction.constant.CompactionType;
+import org.apache.iotdb.db.engine.compaction.constant.ProcessChunkType;
+import org.apache.iotdb.db.engine.compaction.inner.utils.MultiTsFileDeviceIterator;
+import org.apache.iotdb.db.engine.compaction.inner.utils.PageLevelSeriesCompactionExecutor;
+import org.apache.iotdb.db.engine.compaction.performer.ICrossCompactionPerformer;
+import org.apache.iotdb.db.engine.compaction.performer.IUnseqCompactionPerformer;
+import org.apache.iotdb.db.engine.querycontext.QueryDataSource;
+import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
+import org.apache.iotdb.db.exception.StorageEngineException;
+import org.apache.iotdb.db.exception.metadata.MetadataException;
+import org.apache.iotdb.db.exception.metadata.PathNotExistException;
+import org.apache.iotdb.db.metadata.idtable.IDTableManager;
+import org.apache.iotdb.db.metadata.path.PartialPath;
+import org.apache.iotdb.db.query.context.QueryContext;
+import org.apache.iotdb.db.query.control.QueryResourceManager;
+import org.apache.iotdb.db.service.IoTDB;
+import org.apache.iotdb.db.utils.QueryUtils;
+import org.apache.iotdb.tsfile.file.metadata.ChunkMetadata;
+import org.apache.iotdb.tsfile.read.TsFileSequenceReader;
+import org.apache.iotdb.tsfile.read.common.BatchData;
+import org.apache.iotdb.tsfile.read.reader.IBatchReader;
+import org.apache.iotdb.tsfile.utils.Pair;
+import org.apache.iotdb.tsfile.utils.TsPrimitiveType;
+import org.apache.iotdb.tsfile.write.chunk.AlignedChunkWriterImpl;
+import org.apache.iotdb.tsfile.write.schema.IMeasurementSchema;
+import org.apache.iotdb.tsfile.write.writer.TsFileIOWriter;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * This performer compacts files at page level, in inner unsequence compaction and in cross space
+ * compaction into a single target file. For not aligned series, the pages that do not overlap with
+ * any other page, e.g. most pages of the sequence files, are copied into the target file without
+ * being decompressed or decoded, and only the overlapped pages are deserialized and merged. Aligned
+ * series are still compacted by reading points. A cross space compaction with several target files
+ * is delegated to {@link ReadPointCompactionPerformer}, because the points have to be split among
+ * the target files by the end time of the sequence files.
+ */
+public class ReadPageCompactionPerformer
+    implements ICrossCompactionPerformer, IUnseqCompactionPerformer {
+  private static final Logger LOGGER =
+      LoggerFactory.getLogger(IoTDBConstant.COMPACTION_LOGGER_NAME);
+  private List<TsFileResource> targetFiles = Collections.emptyList();
+  private TsFileResource targetResource;
+  private List<TsFileResource> seqFiles = Collections.emptyList();
+  private List<TsFileResource> unseqFiles = Collections.emptyList();
+  private CompactionType compactionType = CompactionType.INNER_UNSEQ_COMPACTION;
+
+  private final long targetChunkSize =
+      IoTDBDescriptor.getInstance().getConfig().getTargetChunkSize();
+
+  public ReadPageCompactionPerformer(List<TsFileResource> sourceFiles, TsFileResource targetFile) {
+    this.unseqFiles = sourceFiles;
+    setTargetFiles(Collections.singletonList(targetFile));
+  }
+
+  public ReadPageCompactionPerformer(
+      List<TsFileResource> seqFiles,
+      List<TsFileResource> unseqFiles,
+      List<TsFileResource> targetFiles) {
+    setSourceFiles(seqFiles, unseqFiles);
+    setTargetFiles(targetFiles);
+  }
+
+  public ReadPageCompactionPerformer(List<TsFileResource> sourceFiles) {
+    this.unseqFiles = sourceFiles;
+  }
+
+  public ReadPageCompactionPerformer() {}
+
+  @Override
+  public void perform()
+      throws IOException, MetadataException, InterruptedException, StorageEngineException {
+    if (targetFiles.size() > 1) {
+      LOGGER.info(
+          "[Compaction] {} target files are compacted by reading points instead of pages",
+          targetFiles.size());
+      new ReadPointCompactionPerformer(seqFiles, unseqFiles, targetFiles).perform();
+      return;
+    }
+    // the chunks of all the source files are merged by the order of file versions, so the data of
+    // a newer file wins on the same timestamp as the query does
+    List<TsFileResource> sourceFiles = new ArrayList<>(seqFiles);
+    sourceFiles.addAll(unseqFiles);
+
+    // aligned series are read by SeriesRawDataBatchReader, which needs a query context
+    long queryId = QueryResourceManager.getInstance().assignCompactionQueryId();
+    QueryContext queryContext = new QueryContext(queryId);
+    QueryDataSource queryDataSource = new QueryDataSource(seqFiles, unseqFiles);
+    QueryResourceManager.getInstance()
+        .getQueryFileManager()
+        .addUsedFilesForQuery(queryId, queryDataSource);
+
+    try (MultiTsFileDeviceIterator deviceIterator = new MultiTsFileDeviceIterator(sourceFiles);
+        TsFileIOWriter writer = new TsFileIOWriter(targetResource.getTsFile())) {
+      while (deviceIterator.hasNextDevice()) {
+        checkThreadInterrupted();
+        Pair<String, Boolean> deviceInfo = deviceIterator.nextDevice();
+        String device = deviceInfo.left;
+        boolean aligned = deviceInfo.right;
+
+        writer.startChunkGroup(device);
+        if (aligned) {
+          QueryUtils.fillOrderIndexes(queryDataSource, device, true);
+          compactAlignedSeries(device, writer, deviceIterator, queryContext, queryDataSource);
+        } else {
+          compactNotAlignedSeries(device, writer, deviceIterator);
+        }
+        writer.endChunkGroup();
+      }
+
+      for (TsFileResource tsFileResource : sourceFiles) {
+        targetResource.updatePlanIndexes(tsFileResource);
+      }
+      writer.endFile();
+      targetResource.close();
+    } finally {
+      QueryResourceManager.getInstance().endQuery(queryId);
+    }
+  }
+
+  @Override
+  public void setTargetFiles(List<TsFileResource> targetFiles) {
+    if (targetFiles.isEmpty()) {
+      throw new RuntimeException("Current performer needs at least one target file");
+    }
+    this.targetFiles = targetFiles;
+    this.targetResource = targetFiles.get(0);
+  }
+
+  @Override
+  public void setSourceFiles(List<TsFileResource> seqFiles, List<TsFileResource> unseqFiles) {
+    this.seqFiles = seqFiles;
+    this.unseqFiles = unseqFiles;
+    this.compactionType = CompactionType.CROSS_COMPACTION;
+  }
+
+  @Override
+  public void setSourceFiles(List<TsFileResource> unseqFiles) {
+    this.unseqFiles = unseqFiles;
+  }
+
+  private void compactNotAlignedSeries(
+      String device, TsFileIOWriter writer, MultiTsFileDeviceIterator deviceIterator)
+      throws IOException, MetadataException, InterruptedException {
+    MultiTsFileDeviceIterator.MeasurementIterator seriesIterator =
+        deviceIterator.iterateNotAlignedSeries(device, true);
+    while (seriesIterator.hasNextSeries()) {
+      checkThreadInterrupted();
+      PartialPath p = new PartialPath(device, seriesIterator.nextSeries());
+      // This statement must be called before next hasNextSeries() called, or it may be trapped in a
+      // dead-loop.
+      LinkedList<Pair<TsFileSequenceReader, List<ChunkMetadata>>> readerAndChunkMetadataList =
+          seriesIterator.getMetadataListForCurrentSeries();
+      IMeasurementSchema measurementSchema;
+      try {
+        measurementSchema = getSeriesSchema(device, p.getMeasurement());
+      } catch (PathNotExistException e) {
+        LOGGER.info("A deleted path is skipped: {}", e.getMessage());
+        continue;
+      }
+      new PageLevelSeriesCompactionExecutor(
+              p,
+              measurementSchema,
+              readerAndChunkMetadataList,
+              writer,
+              targetResource,
+              compactionType)
+          .execute();
+    }
+  }
+
+  private void compactAlignedSeries(
+      String device,
+      TsFileIOWriter writer,
+      MultiTsFileDeviceIterator deviceIterator,
+      QueryContext queryContext,
+      QueryDataSource queryDataSource)
+      throws IOException, MetadataException, InterruptedException {
+    Set<String> allMeasurements = deviceIterator.iterateAlignedSeries(device).getAllMeasurements();
+    List<IMeasurementSchema> measurementSchemas = new ArrayList<>();
+    for (String measurement : allMeasurements) {
+      try {
+        measurementSchemas.add(getSeriesSchema(device, measurement));
+      } catch (PathNotExistException e) {
+        LOGGER.info("A deleted path is skipped: {}", e.getMessage());
+      }
+    }
+    if (measurementSchemas.isEmpty()) {
+      return;
+    }
+    List<String> existedMeasurements =
+        measurementSchemas.stream()
+            .map(IMeasurementSchema::getMeasurementId)
+            .collect(Collectors.toList());
+    IBatchReader dataBatchReader =
+        ReadPointCompactionPerformer.constructReader(
+            device,
+            existedMeasurements,
+            measurementSchemas,
+            allMeasurements,
+            queryContext,
+            queryDataSource,
+            true);
+
+    AlignedChunkWriterImpl chunkWriter = new AlignedChunkWriterImpl(measurementSchemas);
+    long minStartTimestamp = Long.MAX_VALUE;
+    long maxEndTimestamp = Long.MIN_VALUE;
+    while (dataBatchReader.hasNextBatch()) {
+      checkThreadInterrupted();
+      BatchData batchData = dataBatchReader.nextBatch();
+      while (batchData.hasCurrent()) {
+        long time = batchData.currentTime();
+        chunkWriter.write(time, (TsPrimitiveType[]) batchData.currentValue());
+        minStartTimestamp = Math.min(minStartTimestamp, time);
+        maxEndTimestamp = Math.max(maxEndTimestamp, time);
+        batchData.next();
+      }
+      if (chunkWriter.checkIsChunkSizeOverThreshold(targetChunkSize)) {
+        flushAlignedChunkWriter(chunkWriter, writer);
+      }
+    }
+    flushAlignedChunkWriter(chunkWriter, writer);
+    if (minStartTimestamp <= maxEndTimestamp) {
+      targetResource.updateStartTime(device, minStartTimestamp);
+      targetResource.updateEndTime(device, maxEndTimestamp);
+    }
+  }
+
+  private void flushAlignedChunkWriter(AlignedChunkWriterImpl chunkWriter, TsFileIOWriter writer)
+      throws IOException {
+    CompactionTaskManager.mergeRateLimiterAcquire(
+        CompactionTaskManager.getInstance().getMergeWriteRateLimiter(),
+        chunkWriter.estimateMaxSeriesMemSize());
+    CompactionMetricsManager.recordWriteInfo(
+        compactionType,
+        ProcessChunkType.DESERIALIZE_CHUNK,
+        true,
+        chunkWriter.estimateMaxSeriesMemSize());
+    chunkWriter.writeToFileWriter(writer);
+  }
+
+  private IMeasurementSchema getSeriesSchema(String device, String measurement)
+      throws MetadataException {
+    if (IoTDBDescriptor.getInstance().getConfig().isEnableIDTable()) {
+      return IDTableManager.getInstance().getSeriesSchema(device, measurement);
+    } else {
+      return IoTDB.schemaProcessor.getSeriesSchema(new PartialPath(device, measurement));
+    }
+  }
+
+  private void checkThreadInterrupted() throws InterruptedException {
+    if (Thread.interrupted()) {
+      throw new InterruptedException(
+          String.format(
+              "[Compaction] compaction for target file %s abort", targetResource.toString()));
+    }
+  }
+}
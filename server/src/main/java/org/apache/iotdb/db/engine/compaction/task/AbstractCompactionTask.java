@@ -47,6 +47,8 @@ public abstract class AbstractCompactionTask implements Callable<Void> {
   protected volatile boolean ran = false;
   protected volatile boolean finished = false;
   protected ICompactionPerformer performer;
+  // the sum of query heat of the selected files when the task is created
+  protected double queryHeat = 0;
 
   public AbstractCompactionTask(
       String fullStorageGroupName,
@@ -113,6 +115,14 @@ public abstract class AbstractCompactionTask implements Callable<Void> {
 
   public abstract void resetCompactionCandidateStatusForAllSourceFiles();
 
+  /**
+   * @return the sum of query heat of the selected files when the task is created, see {@link
+   *     org.apache.iotdb.db.engine.storagegroup.TsFileResource#getQueryHeat()}
+   */
+  public double getQueryHeat() {
+    return queryHeat;
+  }
+
   public long getTimeCost() {
     return timeCost;
   }
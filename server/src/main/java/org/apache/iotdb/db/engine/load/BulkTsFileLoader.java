@@ -0,0 +1,438 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.load;
+
+import org.apache.iotdb.commons.concurrent.IoTDBThreadPoolFactory;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.engine.StorageEngine;
+import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
+import org.apache.iotdb.db.engine.storagegroup.TsFileResourceStatus;
+import org.apache.iotdb.db.exception.metadata.MetadataException;
+import org.apache.iotdb.db.exception.metadata.StorageGroupAlreadySetException;
+import org.apache.iotdb.db.exception.query.QueryProcessException;
+import org.apache.iotdb.db.metadata.path.PartialPath;
+import org.apache.iotdb.db.metadata.utils.MetaUtils;
+import org.apache.iotdb.db.service.IoTDB;
+import org.apache.iotdb.db.tools.TsFileRewriteTool;
+import org.apache.iotdb.db.utils.UpgradeUtils;
+import org.apache.iotdb.tsfile.common.constant.TsFileConstant;
+import org.apache.iotdb.tsfile.file.metadata.ChunkGroupMetadata;
+import org.apache.iotdb.tsfile.file.metadata.ChunkMetadata;
+import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
+import org.apache.iotdb.tsfile.read.TsFileCheckStatus;
+import org.apache.iotdb.tsfile.read.TsFileSequenceReader;
+import org.apache.iotdb.tsfile.read.common.Path;
+import org.apache.iotdb.tsfile.write.schema.IMeasurementSchema;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * BulkTsFileLoader loads external tsfiles in batches. The files of a batch are checked and split in
+ * parallel, their metadata is verified and their schemas are registered once per device, and then
+ * they are published to the storage groups together.
+ */
+public class BulkTsFileLoader {
+
+  private static final Logger logger = LoggerFactory.getLogger(BulkTsFileLoader.class);
+
+  /** the number of files whose chunk metadata is held in memory at the same time */
+  private static final int BATCH_SIZE = 256;
+
+  private static final String ALIGNED_TIME_MEASUREMENT = "";
+
+  private final int sgLevel;
+  private final boolean verifyMetadata;
+  private final boolean autoCreateSchema;
+
+  public BulkTsFileLoader(int sgLevel, boolean verifyMetadata, boolean autoCreateSchema) {
+    this.sgLevel = sgLevel;
+    this.verifyMetadata = verifyMetadata;
+    this.autoCreateSchema = autoCreateSchema;
+  }
+
+  /**
+   * Load the tsfiles in the given order, in which the files with earlier establish time should be
+   * placed before the others.
+   */
+  public void load(List<File> tsFiles) throws QueryProcessException {
+    if (tsFiles.isEmpty()) {
+      return;
+    }
+    int threadNum =
+        Math.min(
+            tsFiles.size(),
+            Math.max(1, IoTDBDescriptor.getInstance().getConfig().getLoadTsFileThreadNum()));
+    ExecutorService loadThreadPool =
+        IoTDBThreadPoolFactory.newFixedThreadPool(threadNum, "LoadTsFile");
+    try {
+      for (int i = 0; i < tsFiles.size(); i += BATCH_SIZE) {
+        loadBatch(tsFiles.subList(i, Math.min(i + BATCH_SIZE, tsFiles.size())), loadThreadPool);
+      }
+    } finally {
+      loadThreadPool.shutdownNow();
+    }
+  }
+
+  private void loadBatch(List<File> tsFiles, ExecutorService loadThreadPool)
+      throws QueryProcessException {
+    List<LoadingTsFile> loadingTsFiles = new ArrayList<>(tsFiles.size());
+    for (File tsFile : tsFiles) {
+      loadingTsFiles.add(new LoadingTsFile(tsFile));
+    }
+    runInParallel(loadingTsFiles, loadThreadPool, LoadingTsFile::check);
+
+    Map<String, DeviceSchema> deviceSchemaMap = collectDeviceSchemas(loadingTsFiles);
+    try {
+      if (verifyMetadata) {
+        for (DeviceSchema deviceSchema : deviceSchemaMap.values()) {
+          verifyMetadata(deviceSchema);
+        }
+      }
+      if (autoCreateSchema) {
+        Map<Path, IMeasurementSchema> knownSchemas = new HashMap<>();
+        for (LoadingTsFile loadingTsFile : loadingTsFiles) {
+          loadingTsFile.schemaMap.forEach(knownSchemas::putIfAbsent);
+        }
+        List<ChunkGroupMetadata> chunkGroupMetadataList = new ArrayList<>();
+        for (DeviceSchema deviceSchema : deviceSchemaMap.values()) {
+          chunkGroupMetadataList.add(
+              new ChunkGroupMetadata(
+                  deviceSchema.device, new ArrayList<>(deviceSchema.chunkMetadataMap.values())));
+        }
+        createSchemaAutomatically(chunkGroupMetadataList, knownSchemas, sgLevel);
+      }
+    } catch (QueryProcessException | MetadataException e) {
+      logger.error("fail to load files because the metadata is illegal", e);
+      throw new QueryProcessException(
+          String.format("Cannot load files because %s", e.getMessage()));
+    }
+
+    runInParallel(loadingTsFiles, loadThreadPool, LoadingTsFile::split);
+
+    List<TsFileResource> resources = new ArrayList<>();
+    for (LoadingTsFile loadingTsFile : loadingTsFiles) {
+      resources.addAll(loadingTsFile.resources);
+    }
+    try {
+      StorageEngine.getInstance().loadNewTsFiles(resources, true);
+    } catch (Exception e) {
+      logger.error("fail to publish files {}", tsFiles, e);
+      throw new QueryProcessException(
+          String.format("Cannot load files in %s because %s", tsFiles, e.getMessage()));
+    }
+  }
+
+  private interface LoadStep {
+    void run(LoadingTsFile loadingTsFile) throws Exception;
+  }
+
+  /** Run the step of all files by the thread pool and throw the error of the first failed file. */
+  private void runInParallel(
+      List<LoadingTsFile> loadingTsFiles, ExecutorService loadThreadPool, LoadStep step)
+      throws QueryProcessException {
+    List<Future<Void>> futures = new ArrayList<>(loadingTsFiles.size());
+    for (LoadingTsFile loadingTsFile : loadingTsFiles) {
+      Callable<Void> task =
+          () -> {
+            step.run(loadingTsFile);
+            return null;
+          };
+      futures.add(loadThreadPool.submit(task));
+    }
+    QueryProcessException firstException = null;
+    for (int i = 0; i < futures.size(); i++) {
+      File file = loadingTsFiles.get(i).file;
+      try {
+        futures.get(i).get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new QueryProcessException(
+            String.format("Cannot load file %s because it is interrupted", file.getAbsolutePath()));
+      } catch (ExecutionException e) {
+        Throwable cause = e.getCause();
+        logger.error("fail to load file {}", file.getName(), cause);
+        if (firstException == null) {
+          firstException =
+              cause instanceof QueryProcessException
+                  ? (QueryProcessException) cause
+                  : new QueryProcessException(
+                      String.format(
+                          "Cannot load file %s because %s",
+                          file.getAbsolutePath(), cause.getMessage()));
+        }
+      }
+    }
+    if (firstException != null) {
+      throw firstException;
+    }
+  }
+
+  /** Merge the chunk metadata of each device in the files, which is used to check the schemas. */
+  private Map<String, DeviceSchema> collectDeviceSchemas(List<LoadingTsFile> loadingTsFiles)
+      throws QueryProcessException {
+    Map<String, DeviceSchema> deviceSchemaMap = new LinkedHashMap<>();
+    for (LoadingTsFile loadingTsFile : loadingTsFiles) {
+      for (ChunkGroupMetadata chunkGroupMetadata : loadingTsFile.chunkGroupMetadataList) {
+        DeviceSchema deviceSchema =
+            deviceSchemaMap.computeIfAbsent(chunkGroupMetadata.getDevice(), DeviceSchema::new);
+        for (ChunkMetadata chunkMetadata : chunkGroupMetadata.getChunkMetadataList()) {
+          ChunkMetadata knownChunkMetadata =
+              deviceSchema.chunkMetadataMap.putIfAbsent(
+                  chunkMetadata.getMeasurementUid(), chunkMetadata);
+          if (verifyMetadata
+              && knownChunkMetadata != null
+              && knownChunkMetadata.getDataType() != chunkMetadata.getDataType()) {
+            throw new QueryProcessException(
+                String.format(
+                    "Cannot load file %s because %s.%s is %s in it but is %s in another loading TsFile.",
+                    loadingTsFile.file.getAbsolutePath(),
+                    chunkGroupMetadata.getDevice(),
+                    chunkMetadata.getMeasurementUid(),
+                    chunkMetadata.getDataType().name(),
+                    knownChunkMetadata.getDataType().name()));
+          }
+        }
+      }
+    }
+    return deviceSchemaMap;
+  }
+
+  private void verifyMetadata(DeviceSchema deviceSchema)
+      throws MetadataException, QueryProcessException {
+    PartialPath devicePath = new PartialPath(deviceSchema.device);
+    if (!IoTDB.schemaProcessor.isPathExist(devicePath)) {
+      return;
+    }
+    boolean isAlignedInIoTDB =
+        IoTDB.schemaProcessor.getDeviceNode(devicePath).getAsEntityMNode().isAligned();
+    boolean isAlignedInTsFile = false;
+    for (ChunkMetadata chunkMetadata : deviceSchema.chunkMetadataMap.values()) {
+      if (ALIGNED_TIME_MEASUREMENT.equals(chunkMetadata.getMeasurementUid())) {
+        isAlignedInTsFile = true;
+        continue;
+      }
+      PartialPath fullPath =
+          new PartialPath(
+              deviceSchema.device
+                  + TsFileConstant.PATH_SEPARATOR
+                  + chunkMetadata.getMeasurementUid());
+      if (IoTDB.schemaProcessor.isPathExist(fullPath)) {
+        TSDataType dataType = IoTDB.schemaProcessor.getSeriesType(fullPath);
+        if (dataType != chunkMetadata.getDataType()) {
+          throw new QueryProcessException(
+              String.format(
+                  "%s is %s in the loading TsFile but is %s in IoTDB.",
+                  fullPath.getFullPath(), chunkMetadata.getDataType().name(), dataType.name()));
+        }
+      }
+    }
+    if (isAlignedInIoTDB != isAlignedInTsFile) {
+      throw new QueryProcessException(
+          String.format(
+              "%s is%s aligned in the loading TsFile but is%s aligned in IoTDB.",
+              devicePath.getFullPath(),
+              isAlignedInTsFile ? "" : " not",
+              isAlignedInIoTDB ? "" : " not"));
+    }
+  }
+
+  @SuppressWarnings("squid:S3776") // Suppress high Cognitive Complexity warning
+  private static void createSchemaAutomatically(
+      List<ChunkGroupMetadata> chunkGroupMetadataList,
+      Map<Path, IMeasurementSchema> knownSchemas,
+      int sgLevel)
+      throws MetadataException {
+    if (chunkGroupMetadataList.isEmpty()) {
+      return;
+    }
+
+    Set<PartialPath> registeredSeries = new HashSet<>();
+    for (ChunkGroupMetadata chunkGroupMetadata : chunkGroupMetadataList) {
+      String device = chunkGroupMetadata.getDevice();
+      boolean isAligned = false;
+      Set<String> existSeriesSet = new HashSet<>();
+      List<PartialPath> needRegisterSeries = new ArrayList<>();
+      List<IMeasurementSchema> needRegisterSchema = new ArrayList<>();
+      PartialPath devicePath = new PartialPath(device);
+      PartialPath storageGroupPath = MetaUtils.getStorageGroupPathByLevel(devicePath, sgLevel);
+      try {
+        IoTDB.schemaProcessor.setStorageGroup(storageGroupPath);
+      } catch (StorageGroupAlreadySetException alreadySetException) {
+        if (!alreadySetException.getStorageGroupPath().equals(storageGroupPath.getFullPath())) {
+          throw alreadySetException;
+        }
+      }
+      for (PartialPath path : IoTDB.schemaProcessor.getMeasurementPaths(devicePath, true)) {
+        existSeriesSet.add(path.getMeasurement());
+        existSeriesSet.add(path.getMeasurementAlias());
+      }
+      for (ChunkMetadata chunkMetadata : chunkGroupMetadata.getChunkMetadataList()) {
+        if (ALIGNED_TIME_MEASUREMENT.equals(chunkMetadata.getMeasurementUid())) {
+          isAligned = true;
+          continue;
+        }
+        PartialPath series =
+            new PartialPath(
+                chunkGroupMetadata.getDevice()
+                    + TsFileConstant.PATH_SEPARATOR
+                    + chunkMetadata.getMeasurementUid());
+        if (!registeredSeries.contains(series)) {
+          registeredSeries.add(series);
+          IMeasurementSchema schema =
+              knownSchemas.get(new Path(series.getDevice(), series.getMeasurement()));
+          if (schema == null) {
+            throw new MetadataException(
+                String.format(
+                    "Can not get the schema of measurement [%s]",
+                    chunkMetadata.getMeasurementUid()));
+          }
+          if (!existSeriesSet.contains(chunkMetadata.getMeasurementUid())) {
+            needRegisterSeries.add(series);
+            needRegisterSchema.add(schema);
+          }
+        }
+      }
+
+      int size = needRegisterSeries.size();
+      if (size == 0) {
+        continue;
+      }
+      if (isAligned) {
+        List<String> measurements = new ArrayList<>();
+        List<TSDataType> dataTypes = new ArrayList<>();
+        List<TSEncoding> encodings = new ArrayList<>();
+        List<CompressionType> compressors = new ArrayList<>();
+
+        for (int i = 0; i < size; i++) {
+          IMeasurementSchema schema = needRegisterSchema.get(i);
+          measurements.add(needRegisterSeries.get(i).getMeasurement());
+          dataTypes.add(schema.getType());
+          encodings.add(schema.getEncodingType());
+          compressors.add(schema.getCompressor());
+        }
+
+        IoTDB.schemaProcessor.createAlignedTimeSeries(
+            devicePath, measurements, dataTypes, encodings, compressors);
+      } else {
+        for (int i = 0; i < size; i++) {
+          IMeasurementSchema schema = needRegisterSchema.get(i);
+          IoTDB.schemaProcessor.createTimeseries(
+              needRegisterSeries.get(i),
+              schema.getType(),
+              schema.getEncodingType(),
+              schema.getCompressor(),
+              Collections.emptyMap());
+        }
+      }
+    }
+  }
+
+  /** The chunk metadata of a device merged from the loading files, one for each measurement. */
+  private static class DeviceSchema {
+    private final String device;
+    private final Map<String, ChunkMetadata> chunkMetadataMap = new LinkedHashMap<>();
+
+    private DeviceSchema(String device) {
+      this.device = device;
+    }
+  }
+
+  private static class LoadingTsFile {
+    private final File file;
+    private final TsFileResource resource;
+    private final Map<Path, IMeasurementSchema> schemaMap = new HashMap<>();
+    private final List<ChunkGroupMetadata> chunkGroupMetadataList = new ArrayList<>();
+    /** the files to be published, which are split from the file if it spans multi partitions */
+    private final List<TsFileResource> resources = new ArrayList<>();
+
+    private LoadingTsFile(File file) {
+      this.file = file;
+      this.resource = new TsFileResource(file);
+      this.resource.setStatus(TsFileResourceStatus.CLOSED);
+    }
+
+    /**
+     * Check whether the file is complete and collect its chunk metadata, from which the resource is
+     * generated if the .resource file does not exist.
+     */
+    private void check() throws IOException, QueryProcessException {
+      try (TsFileSequenceReader reader = new TsFileSequenceReader(file.getAbsolutePath(), false)) {
+        if (reader.selfCheck(schemaMap, chunkGroupMetadataList, false)
+            != TsFileCheckStatus.COMPLETE_FILE) {
+          throw new QueryProcessException(
+              String.format(
+                  "Cannot load file %s because the file has crashed.", file.getAbsolutePath()));
+        }
+      }
+
+      if (!resource.resourceFileExists()) {
+        for (ChunkGroupMetadata chunkGroupMetadata : chunkGroupMetadataList) {
+          for (ChunkMetadata chunkMetadata : chunkGroupMetadata.getChunkMetadataList()) {
+            resource.updateStartTime(chunkGroupMetadata.getDevice(), chunkMetadata.getStartTime());
+            resource.updateEndTime(chunkGroupMetadata.getDevice(), chunkMetadata.getEndTime());
+          }
+        }
+        resource.serialize();
+      } else {
+        resource.deserialize();
+      }
+      resource.setStatus(TsFileResourceStatus.CLOSED);
+      if (UpgradeUtils.isNeedUpgrade(resource)) {
+        throw new QueryProcessException(
+            String.format(
+                "Cannot load file %s because the file's version is old which needs to be upgraded.",
+                file.getAbsolutePath()));
+      }
+    }
+
+    private void split() throws Exception {
+      if (resource.isSpanMultiTimePartitions()) {
+        logger.info("try to split the tsFile={} du to it spans multi partitions", file.getPath());
+        TsFileRewriteTool.rewriteTsFile(resource, chunkGroupMetadataList, resources);
+        resource.writeLock();
+        resource.removeModFile();
+        resource.writeUnlock();
+        logger.info("after split, the old tsFile was split to {} new tsFiles", resources.size());
+      }
+      if (resources.isEmpty()) {
+        resources.add(resource);
+      }
+      // the chunk metadata is not used any more
+      chunkGroupMetadataList.clear();
+    }
+  }
+}
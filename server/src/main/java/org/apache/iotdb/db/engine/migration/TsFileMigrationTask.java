@@ -0,0 +1,241 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.migration;
+
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.conf.directories.DirectoryManager;
+import org.apache.iotdb.db.engine.compaction.CompactionTaskManager;
+import org.apache.iotdb.db.engine.modification.ModificationFile;
+import org.apache.iotdb.db.engine.storagegroup.DataRegion;
+import org.apache.iotdb.db.engine.storagegroup.TsFileManager;
+import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
+import org.apache.iotdb.db.engine.storagegroup.TsFileResourceStatus;
+import org.apache.iotdb.db.exception.DiskSpaceInsufficientException;
+import org.apache.iotdb.db.query.control.FileReaderManager;
+
+import com.google.common.util.concurrent.RateLimiter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+
+import static org.apache.iotdb.db.engine.storagegroup.TsFileResource.RESOURCE_SUFFIX;
+
+/**
+ * TsFileMigrationTask moves a sealed TsFile, together with its .resource and .mods files, from the
+ * hot storage tier to the cold storage tier. The TsFile is marked as compacting during the
+ * migration so that it is not selected by compaction. It is copied with the throughput limited,
+ * then the new TsFileResource replaces the old one in {@link TsFileManager} while insertions,
+ * deletions and queries of the file are excluded, and the old files are deleted at last.
+ *
+ * <p>The TsFile in the hot tier is deleted only after the copy is complete, so if the system
+ * crashes during the migration, the copy in the cold tier is discarded in recovery.
+ */
+public class TsFileMigrationTask {
+
+  private static final Logger logger = LoggerFactory.getLogger(TsFileMigrationTask.class);
+
+  /** suffix of the TsFile being copied to the cold tier */
+  public static final String MIGRATING_SUFFIX = ".migrating";
+
+  private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+  private static final RateLimiter rateLimiter = RateLimiter.create(Double.MAX_VALUE);
+
+  private final DataRegion dataRegion;
+  private final TsFileResource resource;
+  private final boolean sequence;
+  /** whether the new resource has replaced the old one in TsFileManager */
+  private boolean replaced = false;
+
+  public TsFileMigrationTask(DataRegion dataRegion, TsFileResource resource, boolean sequence) {
+    this.dataRegion = dataRegion;
+    this.resource = resource;
+    this.sequence = sequence;
+  }
+
+  /** @return true if the file is migrated, false if it is skipped and may be tried again later */
+  public boolean migrate() throws IOException, DiskSpaceInsufficientException {
+    if (!markMigrating()) {
+      return false;
+    }
+    File source = resource.getTsFile();
+    File target = getTargetFile(source);
+    File migratingTarget = new File(target.getPath() + MIGRATING_SUFFIX);
+    try {
+      // the TsFile is immutable once sealed, so it is copied without blocking others
+      resource.readLock();
+      try {
+        if (resource.isDeleted()) {
+          return false;
+        }
+        copyWithThrottle(source, migratingTarget);
+      } finally {
+        resource.readUnlock();
+      }
+      replaceResource(source, target, migratingTarget);
+      return replaced;
+    } finally {
+      if (!replaced) {
+        deleteTargetFiles(target, migratingTarget);
+        resource.setStatus(TsFileResourceStatus.CLOSED);
+      }
+    }
+  }
+
+  /** mark the file as migrating so that it is not selected by compaction */
+  private boolean markMigrating() {
+    TsFileManager tsFileManager = dataRegion.getTsFileManager();
+    tsFileManager.writeLock("migrate");
+    try {
+      if (resource.getStatus() != TsFileResourceStatus.CLOSED
+          || !tsFileManager.contains(resource, sequence)) {
+        return false;
+      }
+      resource.setStatus(TsFileResourceStatus.MIGRATING);
+      return true;
+    } finally {
+      tsFileManager.writeUnlock();
+    }
+  }
+
+  private File getTargetFile(File source) throws DiskSpaceInsufficientException {
+    File partitionFolder = source.getParentFile();
+    File regionFolder = partitionFolder.getParentFile();
+    File storageGroupFolder = regionFolder.getParentFile();
+    String targetFolder =
+        DirectoryManager.getInstance().getNextFolderForColdFile(sequence)
+            + File.separator
+            + storageGroupFolder.getName()
+            + File.separator
+            + regionFolder.getName()
+            + File.separator
+            + partitionFolder.getName();
+    return new File(targetFolder, source.getName());
+  }
+
+  /**
+   * Replace the old resource with the one in the cold tier. Insertions and deletions are blocked by
+   * the write lock of the data region, and the migration is given up if any query is still reading
+   * the file.
+   */
+  private void replaceResource(File source, File target, File migratingTarget) throws IOException {
+    dataRegion.writeLock("migrate");
+    try {
+      if (!resource.tryWriteLock()) {
+        logger.info("{} is being read, migrate it later", source);
+        return;
+      }
+      try {
+        if (resource.isDeleted()) {
+          return;
+        }
+        File sourceModFile = new File(source.getPath() + ModificationFile.FILE_SUFFIX);
+        if (sourceModFile.exists()) {
+          Files.copy(
+              sourceModFile.toPath(),
+              new File(target.getPath() + ModificationFile.FILE_SUFFIX).toPath(),
+              StandardCopyOption.REPLACE_EXISTING);
+        }
+        Files.copy(
+            new File(source.getPath() + RESOURCE_SUFFIX).toPath(),
+            new File(target.getPath() + RESOURCE_SUFFIX).toPath(),
+            StandardCopyOption.REPLACE_EXISTING);
+        Files.move(migratingTarget.toPath(), target.toPath(), StandardCopyOption.ATOMIC_MOVE);
+
+        TsFileResource targetResource = new TsFileResource(target);
+        targetResource.deserialize();
+        targetResource.close();
+        dataRegion
+            .getTsFileManager()
+            .replace(
+                sequence ? Collections.singletonList(resource) : Collections.emptyList(),
+                sequence ? Collections.emptyList() : Collections.singletonList(resource),
+                Collections.singletonList(targetResource),
+                resource.getTimePartition(),
+                sequence);
+        replaced = true;
+
+        resource.setStatus(TsFileResourceStatus.DELETED);
+        FileReaderManager.getInstance().closeFileAndRemoveReader(source.getPath());
+        // the migration is done once the TsFile in the hot tier is deleted
+        resource.remove();
+        logger.info("Migrated {} to {}", source, target);
+      } finally {
+        resource.writeUnlock();
+      }
+    } finally {
+      dataRegion.writeUnlock();
+    }
+  }
+
+  private void copyWithThrottle(File source, File target) throws IOException {
+    if (!target.getParentFile().exists() && !target.getParentFile().mkdirs()) {
+      throw new IOException("Cannot create folder " + target.getParent());
+    }
+    RateLimiter limiter = getRateLimiter();
+    ByteBuffer buffer = ByteBuffer.allocate(COPY_BUFFER_SIZE);
+    try (FileChannel in = FileChannel.open(source.toPath(), StandardOpenOption.READ);
+        FileChannel out =
+            FileChannel.open(
+                target.toPath(),
+                StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+      while (in.read(buffer) > 0) {
+        buffer.flip();
+        CompactionTaskManager.mergeRateLimiterAcquire(limiter, buffer.remaining());
+        while (buffer.hasRemaining()) {
+          out.write(buffer);
+        }
+        buffer.clear();
+      }
+      out.force(true);
+    }
+  }
+
+  private void deleteTargetFiles(File target, File migratingTarget) throws IOException {
+    Files.deleteIfExists(migratingTarget.toPath());
+    Files.deleteIfExists(target.toPath());
+    Files.deleteIfExists(new File(target.getPath() + RESOURCE_SUFFIX).toPath());
+    Files.deleteIfExists(new File(target.getPath() + ModificationFile.FILE_SUFFIX).toPath());
+  }
+
+  private static RateLimiter getRateLimiter() {
+    double throughput =
+        IoTDBDescriptor.getInstance().getConfig().getTieredMigrationThroughputMbPerSec()
+            * 1024.0
+            * 1024.0;
+    // if throughput = 0, disable rate limiting
+    if (throughput == 0) {
+      throughput = Double.MAX_VALUE;
+    }
+    if (rateLimiter.getRate() != throughput) {
+      rateLimiter.setRate(throughput);
+    }
+    return rateLimiter;
+  }
+}
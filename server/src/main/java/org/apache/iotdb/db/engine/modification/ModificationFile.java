@@ -23,6 +23,7 @@ import org.apache.iotdb.db.engine.modification.io.LocalTextModificationAccessor;
 import org.apache.iotdb.db.engine.modification.io.ModificationReader;
 import org.apache.iotdb.db.engine.modification.io.ModificationWriter;
 import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
+import org.apache.iotdb.db.metadata.path.PartialPath;
 import org.apache.iotdb.tsfile.common.constant.TsFileConstant;
 import org.apache.iotdb.tsfile.fileSystem.FSFactoryProducer;
 
@@ -51,6 +52,8 @@ public class ModificationFile implements AutoCloseable {
 
   // lazy loaded, set null when closed
   private List<Modification> modifications;
+  // lazy built from modifications, set null when closed or any modification is aborted
+  private ModificationIndex index;
   private ModificationWriter writer;
   private ModificationReader reader;
   private String filePath;
@@ -86,6 +89,7 @@ public class ModificationFile implements AutoCloseable {
     synchronized (this) {
       writer.close();
       modifications = null;
+      index = null;
     }
   }
 
@@ -95,6 +99,7 @@ public class ModificationFile implements AutoCloseable {
       if (modifications != null && !modifications.isEmpty()) {
         modifications.remove(modifications.size() - 1);
       }
+      index = null;
     }
   }
 
@@ -110,6 +115,9 @@ public class ModificationFile implements AutoCloseable {
       writer.write(mod);
       if (modifications != null) {
         modifications.add(mod);
+        if (index != null) {
+          index.add(mod);
+        }
       }
     }
   }
@@ -126,6 +134,24 @@ public class ModificationFile implements AutoCloseable {
     }
   }
 
+  /**
+   * Get the modifications that match the given timeseries. The modifications are indexed by their
+   * paths when this method is called for the first time after the file is loaded, so the later
+   * calls do not need to match all the modifications.
+   *
+   * @param path the full path of a timeseries
+   * @return an ArrayList of modifications in the order they are written.
+   */
+  public List<Modification> getModifications(PartialPath path) {
+    synchronized (this) {
+      checkInit();
+      if (index == null) {
+        index = new ModificationIndex(modifications);
+      }
+      return index.getModifications(path);
+    }
+  }
+
   public String getFilePath() {
     return filePath;
   }
@@ -0,0 +1,125 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.modification;
+
+import org.apache.iotdb.db.metadata.path.PartialPath;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.apache.iotdb.commons.conf.IoTDBConstant.ONE_LEVEL_PATH_WILDCARD;
+
+/**
+ * ModificationIndex organizes the modifications of a {@link ModificationFile} as a trie of the
+ * nodes of their paths before the first wildcard, so that the modifications of a timeseries are
+ * found by walking down its nodes and matching only the modifications on the way, instead of
+ * matching all the modifications in the file. This class is not thread-safe, and it is guarded by
+ * the lock of its ModificationFile.
+ */
+class ModificationIndex {
+
+  private final IndexNode root = new IndexNode();
+
+  // the order of the next added modification in the file
+  private int nextOrder = 0;
+
+  ModificationIndex(Collection<Modification> modifications) {
+    for (Modification modification : modifications) {
+      add(modification);
+    }
+  }
+
+  void add(Modification modification) {
+    IndexNode node = root;
+    boolean hasWildcard = false;
+    for (String pathNode : modification.getPath().getNodes()) {
+      // both * and ** contain ONE_LEVEL_PATH_WILDCARD
+      if (pathNode.contains(ONE_LEVEL_PATH_WILDCARD)) {
+        hasWildcard = true;
+        break;
+      }
+      node = node.children.computeIfAbsent(pathNode, k -> new IndexNode());
+    }
+    List<IndexedModification> modifications =
+        hasWildcard ? node.wildcardModifications : node.exactModifications;
+    modifications.add(new IndexedModification(nextOrder++, modification));
+  }
+
+  /**
+   * @param path the full path of a timeseries
+   * @return the modifications whose path pattern matches the given path, in the order they are
+   *     written into the file
+   */
+  List<Modification> getModifications(PartialPath path) {
+    String[] pathNodes = path.getNodes();
+    List<IndexedModification> matched = new ArrayList<>();
+    IndexNode node = root;
+    collectWildcardModifications(node, path, matched);
+    for (String pathNode : pathNodes) {
+      node = node.children.get(pathNode);
+      if (node == null) {
+        break;
+      }
+      collectWildcardModifications(node, path, matched);
+    }
+    // a modification without wildcard is matched only if all its nodes are equal to the path
+    if (node != null) {
+      matched.addAll(node.exactModifications);
+    }
+    if (matched.size() > 1) {
+      matched.sort(Comparator.comparingInt(m -> m.order));
+    }
+    List<Modification> result = new ArrayList<>(matched.size());
+    for (IndexedModification indexedModification : matched) {
+      result.add(indexedModification.modification);
+    }
+    return result;
+  }
+
+  private void collectWildcardModifications(
+      IndexNode node, PartialPath path, List<IndexedModification> matched) {
+    for (IndexedModification indexedModification : node.wildcardModifications) {
+      if (indexedModification.modification.getPath().matchFullPath(path)) {
+        matched.add(indexedModification);
+      }
+    }
+  }
+
+  private static class IndexNode {
+    private final Map<String, IndexNode> children = new HashMap<>();
+    // the modifications whose path ends at this node
+    private final List<IndexedModification> exactModifications = new ArrayList<>();
+    // the modifications whose path has a wildcard right after this node
+    private final List<IndexedModification> wildcardModifications = new ArrayList<>();
+  }
+
+  private static class IndexedModification {
+    private final int order;
+    private final Modification modification;
+
+    private IndexedModification(int order, Modification modification) {
+      this.order = order;
+      this.modification = modification;
+    }
+  }
+}
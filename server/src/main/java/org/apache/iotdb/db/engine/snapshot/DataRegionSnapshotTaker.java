@@ -0,0 +1,197 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.snapshot;
+
+import org.apache.iotdb.commons.conf.IoTDBConstant;
+import org.apache.iotdb.db.engine.modification.ModificationFile;
+import org.apache.iotdb.db.engine.storagegroup.DataRegion;
+import org.apache.iotdb.db.engine.storagegroup.TsFileManager;
+import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
+
+import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * DataRegionSnapshotTaker takes an online snapshot of a data region. The working memtables are
+ * flushed and sealed first, then each sealed TsFile and its resource file are hard-linked into the
+ * snapshot folder. The read lock of the region blocks deletions, migrations and the removal of
+ * expired time partitions, and the read lock of TsFileManager is held while the files are listed
+ * and linked, so a compaction cannot replace its source files with the target ones in the meantime.
+ * The mods files are copied instead, because they are appended in place by later deletions. An
+ * incremental snapshot only links the files that are not in the manifest of its base snapshot.
+ */
+public class DataRegionSnapshotTaker {
+
+  private static final Logger logger = LoggerFactory.getLogger(DataRegionSnapshotTaker.class);
+
+  private final DataRegion dataRegion;
+  private final File snapshotDir;
+  private final File baseSnapshotDir;
+  private SnapshotManifest baseManifest;
+
+  /**
+   * @param snapshotDir the folder to put the snapshot, which should not exist or be empty
+   * @param baseSnapshotDir the folder of the base snapshot for an incremental snapshot, null for a
+   *     full snapshot
+   */
+  public DataRegionSnapshotTaker(DataRegion dataRegion, File snapshotDir, File baseSnapshotDir) {
+    this.dataRegion = dataRegion;
+    this.snapshotDir = snapshotDir;
+    this.baseSnapshotDir = baseSnapshotDir;
+  }
+
+  public SnapshotManifest take() throws IOException {
+    String[] existingFiles = snapshotDir.list();
+    if (existingFiles != null && existingFiles.length > 0) {
+      throw new IOException(String.format("Snapshot folder %s is not empty", snapshotDir));
+    }
+    if (baseSnapshotDir != null) {
+      baseManifest = SnapshotManifest.deserialize(baseSnapshotDir);
+      if (baseManifest == null) {
+        // the region is newly created after the base snapshot
+        logger.info("No snapshot manifest in {}, take a full snapshot", baseSnapshotDir);
+      }
+    }
+    Files.createDirectories(snapshotDir.toPath());
+
+    dataRegion.syncCloseAllWorkingTsFileProcessors();
+    SnapshotManifest manifest =
+        new SnapshotManifest(baseManifest == null ? null : baseSnapshotDir.getAbsolutePath());
+    int snapshotFileNum = 0;
+    TsFileManager tsFileManager = dataRegion.getTsFileManager();
+    dataRegion.readLock();
+    tsFileManager.readLock();
+    try {
+      for (boolean sequence : new boolean[] {true, false}) {
+        for (TsFileResource resource : tsFileManager.getTsFileList(sequence)) {
+          // the unsealed files only contain the data written after the memtables are flushed
+          if (!resource.isClosed() || resource.isDeleted()) {
+            continue;
+          }
+          try {
+            snapshotFileNum += snapshotTsFile(resource, sequence, manifest);
+          } catch (NoSuchFileException e) {
+            if (!resource.isDeleted()) {
+              throw new IOException(
+                  String.format("%s is missing, abort the snapshot", e.getFile()), e);
+            }
+            // the file is removed by ttl concurrently, and its data is expired
+          }
+        }
+      }
+      manifest.serialize(snapshotDir);
+    } catch (IOException e) {
+      FileUtils.deleteDirectory(snapshotDir);
+      throw e;
+    } finally {
+      tsFileManager.readUnlock();
+      dataRegion.readUnlock();
+    }
+    logger.info(
+        "{}-{}: took {} snapshot in {}, {} of {} files are linked or copied",
+        dataRegion.getLogicalStorageGroupName(),
+        dataRegion.getDataRegionId(),
+        baseManifest == null ? "a full" : "an incremental",
+        snapshotDir,
+        snapshotFileNum,
+        manifest.getFileLengths().size());
+    return manifest;
+  }
+
+  /**
+   * Put a TsFile with its resource file and mods file into the snapshot folder. The files are added
+   * into the manifest only if all of them are put, and the ones already put are removed if any of
+   * them fails.
+   *
+   * @return the number of files put into the snapshot folder
+   */
+  private int snapshotTsFile(TsFileResource resource, boolean sequence, SnapshotManifest manifest)
+      throws IOException {
+    File tsFile = resource.getTsFile();
+    String relativeFolder =
+        (sequence ? IoTDBConstant.SEQUENCE_FLODER_NAME : IoTDBConstant.UNSEQUENCE_FLODER_NAME)
+            + File.separator
+            + resource.getTimePartition();
+    File[] sourceFiles = {
+      tsFile,
+      new File(tsFile.getPath() + TsFileResource.RESOURCE_SUFFIX),
+      new File(tsFile.getPath() + ModificationFile.FILE_SUFFIX)
+    };
+    Map<String, Long> fileLengths = new LinkedHashMap<>();
+    List<File> targetFiles = new ArrayList<>();
+    try {
+      for (File sourceFile : sourceFiles) {
+        boolean isModsFile = sourceFile.getName().endsWith(ModificationFile.FILE_SUFFIX);
+        if (isModsFile && !sourceFile.exists()) {
+          continue;
+        }
+        String relativePath = relativeFolder + File.separator + sourceFile.getName();
+        long length = Files.size(sourceFile.toPath());
+        fileLengths.put(relativePath, length);
+        if (baseManifest != null && baseManifest.containsFile(relativePath, length)) {
+          continue;
+        }
+        File targetFile = new File(snapshotDir, relativePath);
+        Files.createDirectories(targetFile.getParentFile().toPath());
+        if (isModsFile) {
+          Files.copy(sourceFile.toPath(), targetFile.toPath(), StandardCopyOption.COPY_ATTRIBUTES);
+        } else {
+          linkOrCopy(sourceFile, targetFile);
+        }
+        targetFiles.add(targetFile);
+      }
+    } catch (IOException e) {
+      for (File targetFile : targetFiles) {
+        Files.deleteIfExists(targetFile.toPath());
+      }
+      throw e;
+    }
+    for (Map.Entry<String, Long> entry : fileLengths.entrySet()) {
+      manifest.addFile(entry.getKey(), entry.getValue());
+    }
+    return targetFiles.size();
+  }
+
+  private void linkOrCopy(File sourceFile, File targetFile) throws IOException {
+    try {
+      Files.createLink(targetFile.toPath(), sourceFile.toPath());
+    } catch (NoSuchFileException e) {
+      throw e;
+    } catch (IOException | UnsupportedOperationException e) {
+      // e.g., the snapshot folder is on another file system
+      logger.warn(
+          "Cannot create hardlink {} for {}, copy it instead: {}",
+          targetFile,
+          sourceFile,
+          e.getMessage());
+      Files.copy(sourceFile.toPath(), targetFile.toPath(), StandardCopyOption.COPY_ATTRIBUTES);
+    }
+  }
+}
@@ -0,0 +1,70 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.snapshot;
+
+import org.apache.iotdb.commons.conf.IoTDBConstant;
+import org.apache.iotdb.db.engine.storagegroup.DataRegion;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.function.Supplier;
+
+/**
+ * SnapshotManager takes snapshots of all data regions of a storage engine, each region is put into
+ * the sub folder "storage group/data region id" of the snapshot folder. It is exposed by JMX so
+ * that the snapshots can be taken by the backup tools online.
+ */
+public class SnapshotManager implements SnapshotManagerMBean {
+
+  public static final String MBEAN_NAME =
+      String.format(
+          "%s:%s=%s", IoTDBConstant.IOTDB_PACKAGE, IoTDBConstant.JMX_TYPE, "Snapshot Manager");
+
+  private final Supplier<Collection<DataRegion>> dataRegionSupplier;
+
+  public SnapshotManager(Supplier<Collection<DataRegion>> dataRegionSupplier) {
+    this.dataRegionSupplier = dataRegionSupplier;
+  }
+
+  @Override
+  public void takeSnapshot(String snapshotDir) throws IOException {
+    takeSnapshot(new File(snapshotDir), null);
+  }
+
+  @Override
+  public void takeIncrementalSnapshot(String snapshotDir, String baseSnapshotDir)
+      throws IOException {
+    takeSnapshot(new File(snapshotDir), new File(baseSnapshotDir));
+  }
+
+  /**
+   * @param baseSnapshotDir the folder of the base snapshot for an incremental snapshot, null for a
+   *     full snapshot
+   */
+  public void takeSnapshot(File snapshotDir, File baseSnapshotDir) throws IOException {
+    for (DataRegion dataRegion : dataRegionSupplier.get()) {
+      String regionFolder =
+          dataRegion.getLogicalStorageGroupName() + File.separator + dataRegion.getDataRegionId();
+      dataRegion.takeSnapshot(
+          new File(snapshotDir, regionFolder),
+          baseSnapshotDir == null ? null : new File(baseSnapshotDir, regionFolder));
+    }
+  }
+}
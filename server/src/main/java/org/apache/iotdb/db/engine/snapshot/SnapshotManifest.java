@@ -0,0 +1,125 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.snapshot;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * SnapshotManifest records all files of a data region at the time of a snapshot, as the paths
+ * relative to the snapshot folder and their lengths. A full snapshot contains all the files in its
+ * manifest, while an incremental snapshot only contains the files that are new or changed since its
+ * base snapshot, the others can be found in the base snapshot recursively.
+ */
+public class SnapshotManifest {
+
+  public static final String MANIFEST_FILE_NAME = "snapshot.manifest";
+
+  private static final String TEMP_SUFFIX = ".tmp";
+  private static final String BASE_SNAPSHOT_PREFIX = "base=";
+  private static final String SEPARATOR = ",";
+
+  /** the folder of the base snapshot, null if the snapshot is a full one */
+  private final String baseSnapshotDir;
+
+  /** relative path -> length */
+  private final Map<String, Long> fileLengths = new TreeMap<>();
+
+  public SnapshotManifest(String baseSnapshotDir) {
+    this.baseSnapshotDir = baseSnapshotDir;
+  }
+
+  public void addFile(String relativePath, long length) {
+    fileLengths.put(relativePath, length);
+  }
+
+  /** @return whether the file with the same relative path and length is in the manifest */
+  public boolean containsFile(String relativePath, long length) {
+    Long recordedLength = fileLengths.get(relativePath);
+    return recordedLength != null && recordedLength == length;
+  }
+
+  public String getBaseSnapshotDir() {
+    return baseSnapshotDir;
+  }
+
+  public Map<String, Long> getFileLengths() {
+    return Collections.unmodifiableMap(fileLengths);
+  }
+
+  /** write the manifest into the snapshot folder, the manifest is replaced atomically */
+  public void serialize(File snapshotDir) throws IOException {
+    File tempFile = new File(snapshotDir, MANIFEST_FILE_NAME + TEMP_SUFFIX);
+    try (BufferedWriter writer =
+        Files.newBufferedWriter(tempFile.toPath(), StandardCharsets.UTF_8)) {
+      writer.write(BASE_SNAPSHOT_PREFIX + (baseSnapshotDir == null ? "" : baseSnapshotDir));
+      writer.newLine();
+      for (Map.Entry<String, Long> entry : fileLengths.entrySet()) {
+        writer.write(entry.getKey() + SEPARATOR + entry.getValue());
+        writer.newLine();
+      }
+    }
+    Files.move(
+        tempFile.toPath(),
+        new File(snapshotDir, MANIFEST_FILE_NAME).toPath(),
+        StandardCopyOption.REPLACE_EXISTING,
+        StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  /** @return the manifest in the snapshot folder, null if it does not exist */
+  public static SnapshotManifest deserialize(File snapshotDir) throws IOException {
+    File manifestFile = new File(snapshotDir, MANIFEST_FILE_NAME);
+    if (!manifestFile.exists()) {
+      return null;
+    }
+    try (BufferedReader reader =
+        Files.newBufferedReader(manifestFile.toPath(), StandardCharsets.UTF_8)) {
+      String line = reader.readLine();
+      if (line == null || !line.startsWith(BASE_SNAPSHOT_PREFIX)) {
+        throw new IOException("Illegal snapshot manifest " + manifestFile);
+      }
+      String baseSnapshotDir = line.substring(BASE_SNAPSHOT_PREFIX.length());
+      SnapshotManifest manifest =
+          new SnapshotManifest(baseSnapshotDir.isEmpty() ? null : baseSnapshotDir);
+      while ((line = reader.readLine()) != null) {
+        int separatorIndex = line.lastIndexOf(SEPARATOR);
+        if (separatorIndex < 0) {
+          throw new IOException("Illegal line in snapshot manifest " + manifestFile + ": " + line);
+        }
+        try {
+          manifest.addFile(
+              line.substring(0, separatorIndex),
+              Long.parseLong(line.substring(separatorIndex + 1)));
+        } catch (NumberFormatException e) {
+          throw new IOException(
+              "Illegal line in snapshot manifest " + manifestFile + ": " + line, e);
+        }
+      }
+      return manifest;
+    }
+  }
+}
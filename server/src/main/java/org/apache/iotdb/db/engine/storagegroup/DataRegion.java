@@ -27,6 +27,9 @@ import org.apache.iotdb.db.conf.IoTDBConfig;
 import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.conf.directories.DirectoryManager;
 import org.apache.iotdb.db.engine.StorageEngine;
+import org.apache.iotdb.db.engine.cache.BloomFilterCache;
+import org.apache.iotdb.db.engine.cache.ChunkCache;
+import org.apache.iotdb.db.engine.cache.TimeSeriesMetadataCache;
 import org.apache.iotdb.db.engine.compaction.CompactionRecoverManager;
 import org.apache.iotdb.db.engine.compaction.CompactionScheduler;
 import org.apache.iotdb.db.engine.compaction.CompactionTaskManager;
@@ -35,9 +38,13 @@ import org.apache.iotdb.db.engine.fileSystem.SystemFileFactory;
 import org.apache.iotdb.db.engine.flush.CloseFileListener;
 import org.apache.iotdb.db.engine.flush.FlushListener;
 import org.apache.iotdb.db.engine.flush.TsFileFlushPolicy;
+import org.apache.iotdb.db.engine.migration.TsFileMigrationTask;
 import org.apache.iotdb.db.engine.modification.Deletion;
 import org.apache.iotdb.db.engine.modification.ModificationFile;
 import org.apache.iotdb.db.engine.querycontext.QueryDataSource;
+import org.apache.iotdb.db.engine.snapshot.DataRegionSnapshotTaker;
+import org.apache.iotdb.db.engine.snapshot.SnapshotManifest;
+import org.apache.iotdb.db.engine.storagegroup.timeindex.LazyTimeIndex;
 import org.apache.iotdb.db.engine.trigger.executor.TriggerEngine;
 import org.apache.iotdb.db.engine.trigger.executor.TriggerEvent;
 import org.apache.iotdb.db.engine.upgrade.UpgradeCheckStatus;
@@ -112,6 +119,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
@@ -119,6 +127,8 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -167,6 +177,13 @@ public class DataRegion {
   /** indicating the file to be loaded overlap with some files. */
   private static final int POS_OVERLAP = -3;
 
+  /** suffix of the tsfiles staged in the data dir before they are loaded by a batch */
+  private static final String LOADING_SUFFIX = ".loading";
+
+  private static final String[] LOADING_FILE_SUFFIXES = {
+    "", TsFileResource.RESOURCE_SUFFIX, ModificationFile.FILE_SUFFIX
+  };
+
   private final boolean enableMemControl = config.isEnableMemControl();
   /**
    * a read write lock for guaranteeing concurrent safety when accessing all fields in this class
@@ -255,6 +272,12 @@ public class DataRegion {
 
   private ScheduledExecutorService timedCompactionScheduleTask;
 
+  /**
+   * time partitions whose flushed time is not loaded from their lazily registered sequence TsFiles
+   * yet, see {@link IoTDBConfig#isEnableLazyLoadTsFileResource()}
+   */
+  private final Set<Long> partitionsWithoutFlushTime = ConcurrentHashMap.newKeySet();
+
   public static final long COMPACTION_TASK_SUBMIT_DELAY = 20L * 1000L;
 
   private IDTable idTable;
@@ -445,14 +468,19 @@ public class DataRegion {
       }
       WALRecoverManager.getInstance().getAllDataRegionScannedLatch().countDown();
       // recover sealed TsFiles
-      for (List<TsFileResource> value : partitionTmpSeqTsFiles.values()) {
-        for (TsFileResource tsFileResource : value) {
-          recoverSealedTsFiles(tsFileResource, DataRegionRecoveryContext, true);
+      if (config.isEnableLazyLoadTsFileResource()) {
+        recoverSealedTsFilesLazily(
+            partitionTmpSeqTsFiles, partitionTmpUnseqTsFiles, DataRegionRecoveryContext);
+      } else {
+        for (List<TsFileResource> value : partitionTmpSeqTsFiles.values()) {
+          for (TsFileResource tsFileResource : value) {
+            recoverSealedTsFiles(tsFileResource, DataRegionRecoveryContext, true);
+          }
         }
-      }
-      for (List<TsFileResource> value : partitionTmpUnseqTsFiles.values()) {
-        for (TsFileResource tsFileResource : value) {
-          recoverSealedTsFiles(tsFileResource, DataRegionRecoveryContext, false);
+        for (List<TsFileResource> value : partitionTmpUnseqTsFiles.values()) {
+          for (TsFileResource tsFileResource : value) {
+            recoverSealedTsFiles(tsFileResource, DataRegionRecoveryContext, false);
+          }
         }
       }
       // wait until all unsealed TsFiles have been recovered
@@ -490,6 +518,10 @@ public class DataRegion {
     List<TsFileResource> seqTsFileResources = tsFileManager.getTsFileList(true);
     for (TsFileResource resource : seqTsFileResources) {
       long timePartitionId = resource.getTimePartition();
+      if (partitionsWithoutFlushTime.contains(timePartitionId)) {
+        // loaded on the first write of the partition or by the warm-up task
+        continue;
+      }
       Map<String, Long> endTimeMap = new HashMap<>();
       for (String deviceId : resource.getDevices()) {
         long endTime = resource.getEndTime(deviceId);
@@ -584,6 +616,7 @@ public class DataRegion {
   private Pair<List<TsFileResource>, List<TsFileResource>> getAllFiles(List<String> folders)
       throws IOException, DataRegionException {
     List<File> tsFiles = new ArrayList<>();
+    Set<String> tsFileNames = new HashSet<>();
     List<File> upgradeFiles = new ArrayList<>();
     for (String baseDir : folders) {
       File fileFolder =
@@ -607,10 +640,33 @@ public class DataRegion {
             // such
             // resources
             continueFailedRenames(partitionFolder, TEMP_SUFFIX);
+            // the TsFiles being staged for loading when the system crashed
+            for (String suffix : LOADING_FILE_SUFFIXES) {
+              for (File loadingFile :
+                  fsFactory.listFilesBySuffix(
+                      partitionFolder.getAbsolutePath(), LOADING_SUFFIX + suffix)) {
+                fsFactory.deleteIfExists(loadingFile);
+              }
+            }
+            // the TsFiles being migrated to the cold storage tier when the system crashed
+            for (File migratingFile :
+                fsFactory.listFilesBySuffix(
+                    partitionFolder.getAbsolutePath(), TsFileMigrationTask.MIGRATING_SUFFIX)) {
+              fsFactory.deleteIfExists(migratingFile);
+            }
 
-            Collections.addAll(
-                tsFiles,
-                fsFactory.listFilesBySuffix(partitionFolder.getAbsolutePath(), TSFILE_SUFFIX));
+            for (File tsFile :
+                fsFactory.listFilesBySuffix(partitionFolder.getAbsolutePath(), TSFILE_SUFFIX)) {
+              // a TsFile exists in both storage tiers if the system crashed before its migration
+              // finished, the one in the hot tier is kept as the folders of it are listed first
+              String key = partitionFolder.getName() + File.separator + tsFile.getName();
+              if (tsFileNames.add(key)) {
+                tsFiles.add(tsFile);
+              } else {
+                logger.info("Remove {} whose migration is not finished", tsFile);
+                new TsFileResource(tsFile).remove();
+              }
+            }
           } else {
             // collect old TsFiles for upgrading
             Collections.addAll(
@@ -766,6 +822,102 @@ public class DataRegion {
     }
   }
 
+  /**
+   * register sealed TsFiles by their file names only, their .resource files are deserialized on
+   * first access or by a warm-up task from the newest time partition to the oldest one
+   */
+  private void recoverSealedTsFilesLazily(
+      Map<Long, List<TsFileResource>> partitionSeqTsFiles,
+      Map<Long, List<TsFileResource>> partitionUnseqTsFiles,
+      DataRegionRecoveryContext context) {
+    TreeMap<Long, List<TsFileResource>> partitionLazyTsFiles = new TreeMap<>();
+    for (boolean sequence : new boolean[] {true, false}) {
+      Map<Long, List<TsFileResource>> partitionTsFiles =
+          sequence ? partitionSeqTsFiles : partitionUnseqTsFiles;
+      for (Entry<Long, List<TsFileResource>> entry : partitionTsFiles.entrySet()) {
+        for (TsFileResource tsFileResource : entry.getValue()) {
+          tsFileResource.setTimeIndex(new LazyTimeIndex(tsFileResource));
+          tsFileResource.setStatus(TsFileResourceStatus.CLOSED);
+          tsFileManager.add(tsFileResource, sequence);
+          partitionLazyTsFiles
+              .computeIfAbsent(entry.getKey(), k -> new ArrayList<>())
+              .add(tsFileResource);
+          context.incrementRecoveredFilesNum();
+        }
+        if (sequence && !entry.getValue().isEmpty()) {
+          partitionsWithoutFlushTime.add(entry.getKey());
+        }
+      }
+    }
+    if (!partitionLazyTsFiles.isEmpty()) {
+      tsFileResourceManager.submitWarmUpTask(
+          () -> warmUpTsFileResources(partitionLazyTsFiles.descendingMap()));
+    }
+  }
+
+  private void warmUpTsFileResources(Map<Long, List<TsFileResource>> partitionLazyTsFiles) {
+    for (Entry<Long, List<TsFileResource>> entry : partitionLazyTsFiles.entrySet()) {
+      List<TsFileResource> tsFileResources = entry.getValue();
+      // the newer files of a partition are more likely to be queried
+      tsFileResources.sort((o1, o2) -> compareFileName(o2.getTsFile(), o1.getTsFile()));
+      for (TsFileResource tsFileResource : tsFileResources) {
+        try {
+          tsFileResource.loadLazyTimeIndex();
+        } catch (RuntimeException e) {
+          if (!tsFileResource.isDeleted()) {
+            logger.error("Fail to load TsFileResource of {}", tsFileResource.getTsFilePath(), e);
+          }
+        }
+      }
+      writeLock("warmUpTsFileResources");
+      try {
+        loadFlushTimeOfPartition(entry.getKey());
+      } finally {
+        writeUnlock();
+      }
+    }
+    logger.info(
+        "TsFileResources of data region {}[{}] are warmed up",
+        logicalStorageGroupName,
+        dataRegionId);
+  }
+
+  /**
+   * load the flushed time of a time partition from its sequence TsFiles if they are registered
+   * lazily when recovering, this should be called with the write lock of the data region held
+   */
+  private void loadFlushTimeOfPartition(long timePartitionId) {
+    if (partitionsWithoutFlushTime.isEmpty()
+        || !partitionsWithoutFlushTime.remove(timePartitionId)) {
+      return;
+    }
+    tsFileManager.readLock();
+    try {
+      for (TsFileResource resource :
+          tsFileManager.getSequenceListByTimePartition(timePartitionId)) {
+        for (String deviceId : resource.getDevices()) {
+          String device = deviceId.intern();
+          long endTime = resource.getEndTime(deviceId);
+          lastFlushTimeManager.updateLastTime(timePartitionId, device, endTime);
+          lastFlushTimeManager.updateFlushedTime(timePartitionId, device, endTime);
+          lastFlushTimeManager.updateGlobalFlushedTime(device, endTime);
+        }
+      }
+    } finally {
+      tsFileManager.readUnlock();
+    }
+  }
+
+  /**
+   * the global flushed time of a device is unknown before the flushed time of all partitions is
+   * loaded, and then no insertion will be taken as the latest point of the device
+   */
+  private long getGlobalFlushedTime(String deviceId) {
+    return partitionsWithoutFlushTime.isEmpty()
+        ? lastFlushTimeManager.getGlobalFlushedTime(deviceId)
+        : Long.MAX_VALUE;
+  }
+
   // ({systemTime}-{versionNum}-{mergeNum}.tsfile)
   private int compareFileName(File o1, File o2) {
     String[] items1 = o1.getName().replace(TSFILE_SUFFIX, "").split(FILE_NAME_SEPARATOR);
@@ -796,6 +948,8 @@ public class DataRegion {
       // init map
       long timePartitionId = StorageEngine.getTimePartition(insertRowPlan.getTime());
 
+      loadFlushTimeOfPartition(timePartitionId);
+
       lastFlushTimeManager.ensureFlushedTimePartition(timePartitionId);
 
       boolean isSequence =
@@ -839,6 +993,8 @@ public class DataRegion {
       // init map
       long timePartitionId = StorageEngine.getTimePartition(insertRowNode.getTime());
 
+      loadFlushTimeOfPartition(timePartitionId);
+
       lastFlushTimeManager.ensureFlushedTimePartition(timePartitionId);
 
       boolean isSequence =
@@ -913,6 +1069,7 @@ public class DataRegion {
       long beforeTimePartition =
           StorageEngine.getTimePartition(insertTabletPlan.getTimes()[before]);
       // init map
+      loadFlushTimeOfPartition(beforeTimePartition);
       long lastFlushTime =
           lastFlushTimeManager.ensureFlushedTimePartitionAndInit(
               beforeTimePartition, insertTabletPlan.getDevicePath().getFullPath(), Long.MIN_VALUE);
@@ -934,6 +1091,7 @@ public class DataRegion {
           // re initialize
           before = loc;
           beforeTimePartition = curTimePartition;
+          loadFlushTimeOfPartition(beforeTimePartition);
           lastFlushTime =
               lastFlushTimeManager.ensureFlushedTimePartitionAndInit(
                   beforeTimePartition,
@@ -970,7 +1128,7 @@ public class DataRegion {
                 && noFailure;
       }
       long globalLatestFlushedTime =
-          lastFlushTimeManager.getGlobalFlushedTime(insertTabletPlan.getDevicePath().getFullPath());
+          getGlobalFlushedTime(insertTabletPlan.getDevicePath().getFullPath());
       tryToUpdateBatchInsertLastCache(insertTabletPlan, globalLatestFlushedTime);
 
       if (!noFailure) {
@@ -1032,6 +1190,7 @@ public class DataRegion {
       long beforeTimePartition =
           StorageEngine.getTimePartition(insertTabletNode.getTimes()[before]);
       // init map
+      loadFlushTimeOfPartition(beforeTimePartition);
       long lastFlushTime =
           lastFlushTimeManager.ensureFlushedTimePartitionAndInit(
               beforeTimePartition, insertTabletNode.getDevicePath().getFullPath(), Long.MIN_VALUE);
@@ -1065,7 +1224,7 @@ public class DataRegion {
                 && noFailure;
       }
       long globalLatestFlushedTime =
-          lastFlushTimeManager.getGlobalFlushedTime(insertTabletNode.getDevicePath().getFullPath());
+          getGlobalFlushedTime(insertTabletNode.getDevicePath().getFullPath());
       // TODO:LAST CACHE
       //      tryToUpdateBatchInsertLastCache(insertTabletNode, globalLatestFlushedTime);
 
@@ -1248,8 +1407,7 @@ public class DataRegion {
     lastFlushTimeManager.updateLastTime(
         timePartitionId, insertRowPlan.getDevicePath().getFullPath(), insertRowPlan.getTime());
 
-    long globalLatestFlushTime =
-        lastFlushTimeManager.getGlobalFlushedTime(insertRowPlan.getDevicePath().getFullPath());
+    long globalLatestFlushTime = getGlobalFlushedTime(insertRowPlan.getDevicePath().getFullPath());
 
     tryToUpdateInsertLastCache(insertRowPlan, globalLatestFlushTime);
 
@@ -1273,8 +1431,7 @@ public class DataRegion {
     lastFlushTimeManager.updateLastTime(
         timePartitionId, insertRowNode.getDevicePath().getFullPath(), insertRowNode.getTime());
 
-    long globalLatestFlushTime =
-        lastFlushTimeManager.getGlobalFlushedTime(insertRowNode.getDevicePath().getFullPath());
+    long globalLatestFlushTime = getGlobalFlushedTime(insertRowNode.getDevicePath().getFullPath());
 
     // tryToUpdateInsertLastCache(insertRowNode, globalLatestFlushTime);
 
@@ -1598,6 +1755,7 @@ public class DataRegion {
       this.workSequenceTsFileProcessors.clear();
       this.workUnsequenceTsFileProcessors.clear();
       this.tsFileManager.clear();
+      partitionsWithoutFlushTime.clear();
       lastFlushTimeManager.clearFlushedTime();
       lastFlushTimeManager.clearGlobalFlushedTime();
       lastFlushTimeManager.clearLastTime();
@@ -1616,6 +1774,16 @@ public class DataRegion {
     }
   }
 
+  /**
+   * Take an online snapshot of the region by hard-linking its sealed TsFiles into the folder.
+   *
+   * @param baseSnapshotDir the folder of the base snapshot for an incremental snapshot, null for a
+   *     full snapshot
+   */
+  public SnapshotManifest takeSnapshot(File snapshotDir, File baseSnapshotDir) throws IOException {
+    return new DataRegionSnapshotTaker(this, snapshotDir, baseSnapshotDir).take();
+  }
+
   /** Iterate each TsFile and try to lock and remove those out of TTL. */
   public synchronized void checkFilesTTL() {
     if (dataTTL == Long.MAX_VALUE) {
@@ -1629,6 +1797,8 @@ public class DataRegion {
         logicalStorageGroupName + "-" + dataRegionId,
         new Date(ttlLowerBound));
 
+    removeExpiredTimePartitions(ttlLowerBound);
+
     // copy to avoid concurrent modification of deletion
     List<TsFileResource> seqFiles = new ArrayList<>(tsFileManager.getTsFileList(true));
     List<TsFileResource> unseqFiles = new ArrayList<>(tsFileManager.getTsFileList(false));
@@ -1641,6 +1811,117 @@ public class DataRegion {
     }
   }
 
+  /**
+   * Remove the time partitions whose whole time ranges are out of TTL. All files of such a
+   * partition are unlinked from the file lists in one operation and then deleted, so the expired
+   * data is neither checked file by file nor rewritten. A partition is tried again in the next
+   * check if any of its files is being written, compacted or read.
+   */
+  private void removeExpiredTimePartitions(long ttlLowerBound) {
+    if (!StorageEngine.isEnablePartition()) {
+      return;
+    }
+    Set<Long> expiredTimePartitions = new TreeSet<>();
+    for (boolean sequence : new boolean[] {true, false}) {
+      for (TsFileResource resource : tsFileManager.getTsFileList(sequence)) {
+        if (getTimePartitionEndTime(resource.getTimePartition()) < ttlLowerBound) {
+          expiredTimePartitions.add(resource.getTimePartition());
+        }
+      }
+    }
+    for (long timePartition : expiredTimePartitions) {
+      removeExpiredTimePartition(timePartition, ttlLowerBound);
+    }
+  }
+
+  private void removeExpiredTimePartition(long timePartition, long ttlLowerBound) {
+    List<TsFileResource> removedFiles = new ArrayList<>();
+    writeLock("removeExpiredTimePartition");
+    tsFileManager.writeLock("removeExpiredTimePartition");
+    try {
+      if (workSequenceTsFileProcessors.containsKey(timePartition)
+          || workUnsequenceTsFileProcessors.containsKey(timePartition)) {
+        return;
+      }
+      for (boolean sequence : new boolean[] {true, false}) {
+        for (TsFileResource resource : tsFileManager.getTsFileList(sequence)) {
+          if (resource.getTimePartition() != timePartition) {
+            continue;
+          }
+          // prevent the partition from being removed while its files are compacted, migrated or
+          // read
+          if (resource.isClosed()
+              && !resource.isCompacting()
+              && !resource.isCompactionCandidate()
+              && !resource.isMigrating()
+              && resource.tryWriteLock()) {
+            removedFiles.add(resource);
+          } else {
+            for (TsFileResource lockedResource : removedFiles) {
+              lockedResource.writeUnlock();
+            }
+            return;
+          }
+        }
+      }
+      for (TsFileResource resource : removedFiles) {
+        resource.setStatus(TsFileResourceStatus.DELETED);
+      }
+      tsFileManager.removeTimePartition(timePartition);
+      partitionsWithoutFlushTime.remove(timePartition);
+      // no file of the partition is left, so its data is no longer out of order for new writes
+      lastFlushTimeManager.removeTimePartition(timePartition);
+    } finally {
+      tsFileManager.writeUnlock();
+      writeUnlock();
+    }
+
+    Set<String> removedFilePaths = new HashSet<>();
+    Set<File> partitionFolders = new HashSet<>();
+    for (TsFileResource resource : removedFiles) {
+      try {
+        FileReaderManager.getInstance().closeFileAndRemoveReader(resource.getTsFilePath());
+        resource.remove();
+      } catch (IOException e) {
+        logger.error("Failed to remove an expired file {}", resource.getTsFilePath(), e);
+      } finally {
+        resource.writeUnlock();
+      }
+      removedFilePaths.add(resource.getTsFilePath());
+      partitionFolders.add(resource.getTsFile().getParentFile());
+    }
+    ChunkCache.getInstance().removeFiles(removedFilePaths);
+    TimeSeriesMetadataCache.getInstance().removeFiles(removedFilePaths);
+    BloomFilterCache.getInstance().removeFiles(removedFilePaths);
+    for (File partitionFolder : partitionFolders) {
+      String[] remainingFiles = partitionFolder.list();
+      if (remainingFiles != null && remainingFiles.length == 0 && !partitionFolder.delete()) {
+        logger.warn("Failed to delete the empty partition folder {}", partitionFolder);
+      }
+    }
+    logger.info(
+        "{}: removed time partition {} with {} files before {} by ttl ({}ms)",
+        logicalStorageGroupName + "-" + dataRegionId,
+        timePartition,
+        removedFiles.size(),
+        new Date(ttlLowerBound),
+        dataTTL);
+  }
+
+  /** @return whether the whole time partition will be out of TTL in one time partition interval */
+  private boolean isTimePartitionAboutToExpire(long timePartition) {
+    if (!StorageEngine.isEnablePartition() || dataTTL == Long.MAX_VALUE) {
+      return false;
+    }
+    long ttlLowerBound = System.currentTimeMillis() - dataTTL;
+    return getTimePartitionEndTime(timePartition)
+        < ttlLowerBound + StorageEngine.getTimePartitionInterval();
+  }
+
+  private long getTimePartitionEndTime(long timePartition) {
+    return (timePartition + 1) * StorageEngine.getTimePartitionInterval() - 1;
+  }
+
   private void checkFileTTL(TsFileResource resource, long ttlLowerBound, boolean isSeq) {
     if (!resource.isClosed() || !resource.isDeleted() && resource.stillLives(ttlLowerBound)) {
       return;
@@ -1666,6 +1947,29 @@ public class DataRegion {
     }
   }
 
+  /**
+   * Migrate the sealed TsFiles whose data are older than the hot data retention from the hot
+   * storage tier to the cold one. Files being compacted or read are skipped and tried again in the
+   * next check.
+   */
+  public synchronized void migrateColdFiles() {
+    long hotLowerBound = System.currentTimeMillis() - config.getHotDataRetentionInMs();
+    for (boolean sequence : new boolean[] {true, false}) {
+      for (TsFileResource resource : tsFileManager.getTsFileList(sequence)) {
+        if (!resource.isClosed()
+            || resource.getFileEndTime() >= hotLowerBound
+            || DirectoryManager.getInstance().isInColdFolder(resource.getTsFile())) {
+          continue;
+        }
+        try {
+          new TsFileMigrationTask(this, resource, sequence).migrate();
+        } catch (IOException | DiskSpaceInsufficientException e) {
+          logger.error("Failed to migrate {} to the cold storage tier", resource, e);
+        }
+      }
+    }
+  }
+
   public void timedFlushSeqMemTable() {
     writeLock("timedFlushSeqMemTable");
     try {
@@ -1804,7 +2108,7 @@ public class DataRegion {
     try {
       List<TsFileResource> seqResources =
           getFileResourceListForQuery(
-              tsFileManager.getTsFileList(true),
+              tsFileManager.getTsFileList(true, timeFilter),
               upgradeSeqFileList,
               pathList,
               singleDeviceId,
@@ -1813,7 +2117,7 @@ public class DataRegion {
               true);
       List<TsFileResource> unseqResources =
           getFileResourceListForQuery(
-              tsFileManager.getTsFileList(false),
+              tsFileManager.getTsFileList(false, timeFilter),
               upgradeUnseqFileList,
               pathList,
               singleDeviceId,
@@ -1843,7 +2147,7 @@ public class DataRegion {
     try {
       List<TsFileResource> seqResources =
           getFileResourceListForQuery(
-              tsFileManager.getTsFileList(true),
+              tsFileManager.getTsFileList(true, timeFilter),
               upgradeSeqFileList,
               pathList,
               singleDeviceId,
@@ -1852,7 +2156,7 @@ public class DataRegion {
               true);
       List<TsFileResource> unseqResources =
           getFileResourceListForQuery(
-              tsFileManager.getTsFileList(false),
+              tsFileManager.getTsFileList(false, timeFilter),
               upgradeUnseqFileList,
               pathList,
               singleDeviceId,
@@ -1945,6 +2249,9 @@ public class DataRegion {
       try {
         if (tsFileResource.isClosed()) {
           tsfileResourcesForQuery.add(tsFileResource);
+          if (config.isEnableQueryHeatAwareCompaction()) {
+            tsFileResource.increaseQueryHeat();
+          }
         } else {
           tsFileResource.getProcessor().query(pathList, context, tsfileResourcesForQuery);
         }
@@ -2253,6 +2560,10 @@ public class DataRegion {
     // sort the time partition from largest to smallest
     timePartitions.sort((o1, o2) -> (int) (o2 - o1));
     for (long timePartition : timePartitions) {
+      if (isTimePartitionAboutToExpire(timePartition)) {
+        // the partition will be removed by the TTL check soon, do not rewrite its data
+        continue;
+      }
       CompactionScheduler.scheduleCompaction(tsFileManager, timePartition);
     }
     CompactionTaskManager.getInstance().submitTaskFromTaskQueue();
@@ -2425,44 +2736,9 @@ public class DataRegion {
   public void loadNewTsFile(TsFileResource newTsFileResource, boolean deleteOriginFile)
       throws LoadFileException {
     File tsfileToBeInserted = newTsFileResource.getTsFile();
-    long newFilePartitionId = newTsFileResource.getTimePartitionWithCheck();
     writeLock("loadNewTsFile");
     try {
-      List<TsFileResource> sequenceList =
-          tsFileManager.getSequenceListByTimePartition(newFilePartitionId);
-
-      int insertPos = findInsertionPosition(newTsFileResource, sequenceList);
-      LoadTsFileType tsFileType = getLoadingTsFileType(insertPos, sequenceList);
-      String renameInfo =
-          (tsFileType == LoadTsFileType.LOAD_SEQUENCE)
-              ? IoTDBConstant.SEQUENCE_FLODER_NAME
-              : IoTDBConstant.UNSEQUENCE_FLODER_NAME;
-      newTsFileResource.setSeq(tsFileType == LoadTsFileType.LOAD_SEQUENCE);
-      String newFileName =
-          getLoadingTsFileName(tsFileType, insertPos, newTsFileResource, sequenceList);
-
-      if (!newFileName.equals(tsfileToBeInserted.getName())) {
-        logger.info(
-            "TsFile {} must be renamed to {} for loading into the " + renameInfo + " list.",
-            tsfileToBeInserted.getName(),
-            newFileName);
-        newTsFileResource.setFile(
-            fsFactory.getFile(tsfileToBeInserted.getParentFile(), newFileName));
-      }
-      loadTsFileByType(
-          tsFileType,
-          tsfileToBeInserted,
-          newTsFileResource,
-          newFilePartitionId,
-          insertPos,
-          deleteOriginFile);
-      resetLastCacheWhenLoadingTsfile(newTsFileResource);
-
-      // update latest time map
-      updateLatestTimeMap(newTsFileResource);
-      long partitionNum = newTsFileResource.getTimePartition();
-      updatePartitionFileVersion(partitionNum, newTsFileResource.getVersion());
-      logger.info("TsFile {} is successfully loaded in {} list.", newFileName, renameInfo);
+      loadNewTsFileWithLock(newTsFileResource, tsfileToBeInserted, deleteOriginFile, null);
     } catch (DiskSpaceInsufficientException e) {
       logger.error(
           "Failed to append the tsfile {} to storage group processor {} because the disk space is insufficient.",
@@ -2479,6 +2755,204 @@ public class DataRegion {
     }
   }
 
+  /**
+   * Load a batch of new tsfiles, each of which is in one time partition, to storage group
+   * processor. The data dir of each file is chosen and the file is staged in it before the write
+   * lock is taken. Whether the file is sequence or not depends on the files in the sequence list,
+   * so it is decided under the lock, and the staged file is renamed into the sequence or unsequence
+   * folder of the same data dir.
+   *
+   * <p>If a file fails to be loaded, the files before it in the batch stay loaded, and the
+   * LoadFileException lists them.
+   *
+   * @param newTsFileResources tsfile resources sorted by the establish time of the files
+   * @param deleteOriginFile whether to delete the origin tsfiles after they are loaded
+   */
+  public void loadNewTsFiles(List<TsFileResource> newTsFileResources, boolean deleteOriginFile)
+      throws LoadFileException {
+    List<File> originFiles = new ArrayList<>();
+    List<File> stagedFiles = new ArrayList<>();
+    List<String> dataDirs = new ArrayList<>();
+    int loadedNum = 0;
+    try {
+      for (TsFileResource newTsFileResource : newTsFileResources) {
+        File originFile = newTsFileResource.getTsFile();
+        originFiles.add(originFile);
+        String dataDir =
+            fsFactory
+                .getFile(DirectoryManager.getInstance().getNextFolderForUnSequenceFile())
+                .getParent();
+        dataDirs.add(dataDir);
+        stagedFiles.add(stageTsFileToLoad(newTsFileResource, originFile, dataDir));
+      }
+      writeLock("loadNewTsFiles");
+      try {
+        for (; loadedNum < newTsFileResources.size(); loadedNum++) {
+          loadNewTsFileWithLock(
+              newTsFileResources.get(loadedNum),
+              stagedFiles.get(loadedNum),
+              true,
+              dataDirs.get(loadedNum));
+        }
+      } catch (LoadFileException e) {
+        throw createBatchLoadException(
+            String.format(
+                "Failed to load %s because %s",
+                originFiles.get(loadedNum).getAbsolutePath(), e.getMessage()),
+            originFiles,
+            loadedNum);
+      } catch (DiskSpaceInsufficientException e) {
+        logger.error(
+            "Failed to append the tsfile {} to storage group processor {} because the disk space is insufficient.",
+            stagedFiles.get(loadedNum).getAbsolutePath(),
+            stagedFiles.get(loadedNum).getParentFile().getName());
+        IoTDBDescriptor.getInstance().getConfig().setReadOnly(true);
+        throw createBatchLoadException(
+            String.format(
+                "Failed to load %s because %s",
+                originFiles.get(loadedNum).getAbsolutePath(), e.getMessage()),
+            originFiles,
+            loadedNum);
+      } catch (IllegalPathException e) {
+        logger.error(
+            "Failed to reset last cache when loading file {}",
+            newTsFileResources.get(loadedNum).getTsFilePath());
+        // the file has been moved into the file list before its last cache is reset
+        loadedNum++;
+        throw createBatchLoadException(
+            String.format(
+                "Failed to reset the last cache of %s because %s",
+                originFiles.get(loadedNum - 1).getAbsolutePath(), e.getMessage()),
+            originFiles,
+            loadedNum);
+      } finally {
+        writeUnlock();
+      }
+    } catch (IOException | DiskSpaceInsufficientException e) {
+      throw new LoadFileException(e);
+    } finally {
+      // the loaded files have been moved, so only the staged files of the others are removed
+      for (File stagedFile : stagedFiles) {
+        deleteTsFileWithAttachments(stagedFile);
+      }
+      if (deleteOriginFile) {
+        for (File originFile : originFiles.subList(0, loadedNum)) {
+          deleteTsFileWithAttachments(originFile);
+        }
+      }
+    }
+  }
+
+  /** The LoadFileException of a failed batch, which lists the first loadedNum loaded files. */
+  private LoadFileException createBatchLoadException(
+      String reason, List<File> originFiles, int loadedNum) {
+    List<String> loadedFilePaths = new ArrayList<>(loadedNum);
+    for (File loadedFile : originFiles.subList(0, loadedNum)) {
+      loadedFilePaths.add(loadedFile.getAbsolutePath());
+    }
+    return new LoadFileException(
+        String.format(
+            "%s. %d of %d tsfiles of the batch have been loaded and are not rolled back: %s",
+            reason, loadedNum, originFiles.size(), loadedFilePaths));
+  }
+
+  /**
+   * Link or copy the tsfile and its .resource and .mods files into the unsequence folder of its
+   * time partition in dataDir, with a suffix so that they are ignored and removed when recovering.
+   */
+  private File stageTsFileToLoad(
+      TsFileResource newTsFileResource, File tsFileToLoad, String dataDir)
+      throws IOException, LoadFileException {
+    File stagedFile =
+        fsFactory.getFile(
+            dataDir + File.separator + IoTDBConstant.UNSEQUENCE_FLODER_NAME,
+            logicalStorageGroupName
+                + File.separatorChar
+                + dataRegionId
+                + File.separatorChar
+                + newTsFileResource.getTimePartitionWithCheck()
+                + File.separator
+                + tsFileToLoad.getName()
+                + LOADING_SUFFIX);
+    if (!stagedFile.getParentFile().exists()) {
+      stagedFile.getParentFile().mkdirs();
+    }
+    for (String suffix : LOADING_FILE_SUFFIXES) {
+      File origin = fsFactory.getFile(tsFileToLoad.getAbsolutePath() + suffix);
+      if (!suffix.isEmpty() && !origin.exists()) {
+        continue;
+      }
+      File target = fsFactory.getFile(stagedFile.getAbsolutePath() + suffix);
+      Files.deleteIfExists(target.toPath());
+      try {
+        Files.createLink(target.toPath(), origin.toPath());
+      } catch (IOException | UnsupportedOperationException e) {
+        // the file is in another file system
+        FileUtils.copyFile(origin, target);
+      }
+    }
+    return stagedFile;
+  }
+
+  private void deleteTsFileWithAttachments(File tsFile) {
+    for (String suffix : LOADING_FILE_SUFFIXES) {
+      File file = fsFactory.getFile(tsFile.getAbsolutePath() + suffix);
+      try {
+        Files.deleteIfExists(file.toPath());
+      } catch (IOException e) {
+        logger.warn("Cannot delete {}", file, e);
+      }
+    }
+  }
+
+  /**
+   * @param dataDir the data dir to move the file into, or null if it is chosen by the directory
+   *     strategies
+   */
+  private void loadNewTsFileWithLock(
+      TsFileResource newTsFileResource,
+      File tsfileToBeInserted,
+      boolean deleteOriginFile,
+      String dataDir)
+      throws LoadFileException, DiskSpaceInsufficientException, IllegalPathException {
+    long newFilePartitionId = newTsFileResource.getTimePartitionWithCheck();
+    List<TsFileResource> sequenceList =
+        tsFileManager.getSequenceListByTimePartition(newFilePartitionId);
+
+    int insertPos = findInsertionPosition(newTsFileResource, sequenceList);
+    LoadTsFileType tsFileType = getLoadingTsFileType(insertPos, sequenceList);
+    String renameInfo =
+        (tsFileType == LoadTsFileType.LOAD_SEQUENCE)
+            ? IoTDBConstant.SEQUENCE_FLODER_NAME
+            : IoTDBConstant.UNSEQUENCE_FLODER_NAME;
+    newTsFileResource.setSeq(tsFileType == LoadTsFileType.LOAD_SEQUENCE);
+    String newFileName =
+        getLoadingTsFileName(tsFileType, insertPos, newTsFileResource, sequenceList);
+
+    if (!newFileName.equals(tsfileToBeInserted.getName())) {
+      logger.info(
+          "TsFile {} must be renamed to {} for loading into the " + renameInfo + " list.",
+          tsfileToBeInserted.getName(),
+          newFileName);
+      newTsFileResource.setFile(fsFactory.getFile(tsfileToBeInserted.getParentFile(), newFileName));
+    }
+    loadTsFileByType(
+        tsFileType,
+        tsfileToBeInserted,
+        newTsFileResource,
+        newFilePartitionId,
+        insertPos,
+        deleteOriginFile,
+        dataDir);
+    resetLastCacheWhenLoadingTsfile(newTsFileResource);
+
+    // update latest time map
+    updateLatestTimeMap(newTsFileResource);
+    long partitionNum = newTsFileResource.getTimePartition();
+    updatePartitionFileVersion(partitionNum, newTsFileResource.getVersion());
+    logger.info("TsFile {} is successfully loaded in {} list.", newFileName, renameInfo);
+  }
+
   /**
    * Set the version in "partition" to "version" if "version" is larger than the current version.
    */
@@ -2743,6 +3217,8 @@ public class DataRegion {
    * @param tsFileResource tsfile resource to be loaded
    * @param filePartitionId the partition id of the new file
    * @param deleteOriginFile whether to delete the original file
+   * @param dataDir the data dir to move the file into, or null if it is chosen by the directory
+   *     strategies
    * @return load the file successfully @UsedBy sync module, load external tsfile module.
    */
   private boolean loadTsFileByType(
@@ -2751,14 +3227,17 @@ public class DataRegion {
       TsFileResource tsFileResource,
       long filePartitionId,
       int insertPos,
-      boolean deleteOriginFile)
+      boolean deleteOriginFile,
+      String dataDir)
       throws LoadFileException, DiskSpaceInsufficientException {
     File targetFile;
     switch (type) {
       case LOAD_UNSEQUENCE:
         targetFile =
             fsFactory.getFile(
-                DirectoryManager.getInstance().getNextFolderForUnSequenceFile(),
+                dataDir == null
+                    ? DirectoryManager.getInstance().getNextFolderForUnSequenceFile()
+                    : dataDir + File.separator + IoTDBConstant.UNSEQUENCE_FLODER_NAME,
                 logicalStorageGroupName
                     + File.separatorChar
                     + dataRegionId
@@ -2771,7 +3250,6 @@ public class DataRegion {
           logger.error("The file {} has already been loaded in unsequence list", tsFileResource);
           return false;
         }
-        tsFileManager.add(tsFileResource, false);
         logger.info(
             "Load tsfile in unsequence list, move file from {} to {}",
             tsFileToLoad.getAbsolutePath(),
@@ -2780,7 +3258,9 @@ public class DataRegion {
       case LOAD_SEQUENCE:
         targetFile =
             fsFactory.getFile(
-                DirectoryManager.getInstance().getNextFolderForSequenceFile(),
+                dataDir == null
+                    ? DirectoryManager.getInstance().getNextFolderForSequenceFile()
+                    : dataDir + File.separator + IoTDBConstant.SEQUENCE_FLODER_NAME,
                 logicalStorageGroupName
                     + File.separatorChar
                     + dataRegionId
@@ -2793,11 +3273,6 @@ public class DataRegion {
           logger.error("The file {} has already been loaded in sequence list", tsFileResource);
           return false;
         }
-        if (insertPos == -1) {
-          tsFileManager.insertToPartitionFileList(tsFileResource, true, 0);
-        } else {
-          tsFileManager.insertToPartitionFileList(tsFileResource, true, insertPos + 1);
-        }
         logger.info(
             "Load tsfile in sequence list, move file from {} to {}",
             tsFileToLoad.getAbsolutePath(),
@@ -2811,86 +3286,101 @@ public class DataRegion {
     if (!targetFile.getParentFile().exists()) {
       targetFile.getParentFile().mkdirs();
     }
+    // the files are published only after all of them are moved, and the moved ones are moved back
+    // if any of them fails
+    List<Pair<File, File>> movedFiles = new ArrayList<>();
     try {
-      if (deleteOriginFile) {
-        FileUtils.moveFile(tsFileToLoad, targetFile);
-      } else {
-        Files.createLink(targetFile.toPath(), tsFileToLoad.toPath());
+      moveFileToLoad(tsFileToLoad, targetFile, deleteOriginFile, "tsfile", movedFiles);
+      moveFileToLoad(
+          fsFactory.getFile(tsFileToLoad.getAbsolutePath() + TsFileResource.RESOURCE_SUFFIX),
+          fsFactory.getFile(targetFile.getAbsolutePath() + TsFileResource.RESOURCE_SUFFIX),
+          deleteOriginFile,
+          ".resource file",
+          movedFiles);
+
+      File modFileToLoad =
+          fsFactory.getFile(tsFileToLoad.getAbsolutePath() + ModificationFile.FILE_SUFFIX);
+      if (modFileToLoad.exists()) {
+        // when successfully loaded, the filepath of the resource will be changed to the IoTDB data
+        // dir, so we can add a suffix to find the old modification file.
+        File targetModFile =
+            fsFactory.getFile(targetFile.getAbsolutePath() + ModificationFile.FILE_SUFFIX);
+        try {
+          Files.deleteIfExists(targetModFile.toPath());
+        } catch (IOException e) {
+          logger.warn("Cannot delete localModFile {}", targetModFile, e);
+        }
+        try {
+          moveFileToLoad(modFileToLoad, targetModFile, deleteOriginFile, ".mod file", movedFiles);
+        } finally {
+          // ModFile will be updated during the next call to `getModFile`
+          tsFileResource.setModFile(null);
+        }
       }
-    } catch (IOException e) {
-      logger.error(
-          "File renaming failed when loading tsfile. Origin: {}, Target: {}",
-          tsFileToLoad.getAbsolutePath(),
-          targetFile.getAbsolutePath(),
-          e);
-      throw new LoadFileException(
-          String.format(
-              "File renaming failed when loading tsfile. Origin: %s, Target: %s, because %s",
-              tsFileToLoad.getAbsolutePath(), targetFile.getAbsolutePath(), e.getMessage()));
+    } catch (LoadFileException e) {
+      undoMovingFilesToLoad(movedFiles, deleteOriginFile);
+      tsFileResource.setFile(tsFileToLoad);
+      throw e;
     }
 
-    File resourceFileToLoad =
-        fsFactory.getFile(tsFileToLoad.getAbsolutePath() + TsFileResource.RESOURCE_SUFFIX);
-    File targetResourceFile =
-        fsFactory.getFile(targetFile.getAbsolutePath() + TsFileResource.RESOURCE_SUFFIX);
+    if (type == LoadTsFileType.LOAD_UNSEQUENCE) {
+      tsFileManager.add(tsFileResource, false);
+    } else if (insertPos == -1) {
+      tsFileManager.insertToPartitionFileList(tsFileResource, true, 0);
+    } else {
+      tsFileManager.insertToPartitionFileList(tsFileResource, true, insertPos + 1);
+    }
+    updatePartitionFileVersion(filePartitionId, tsFileResource.getVersion());
+    return true;
+  }
+
+  /**
+   * Move the file to load into the data dir, or link it if the origin file is kept. The origin and
+   * target files are appended to movedFiles once it is done.
+   */
+  private void moveFileToLoad(
+      File origin,
+      File target,
+      boolean deleteOriginFile,
+      String fileType,
+      List<Pair<File, File>> movedFiles)
+      throws LoadFileException {
     try {
       if (deleteOriginFile) {
-        FileUtils.moveFile(resourceFileToLoad, targetResourceFile);
+        FileUtils.moveFile(origin, target);
       } else {
-        Files.createLink(targetResourceFile.toPath(), resourceFileToLoad.toPath());
+        Files.createLink(target.toPath(), origin.toPath());
       }
     } catch (IOException e) {
       logger.error(
-          "File renaming failed when loading .resource file. Origin: {}, Target: {}",
-          resourceFileToLoad.getAbsolutePath(),
-          targetResourceFile.getAbsolutePath(),
+          "File renaming failed when loading {}. Origin: {}, Target: {}",
+          fileType,
+          origin.getAbsolutePath(),
+          target.getAbsolutePath(),
           e);
       throw new LoadFileException(
           String.format(
-              "File renaming failed when loading .resource file. Origin: %s, Target: %s, because %s",
-              resourceFileToLoad.getAbsolutePath(),
-              targetResourceFile.getAbsolutePath(),
-              e.getMessage()));
-    }
-
-    File modFileToLoad =
-        fsFactory.getFile(tsFileToLoad.getAbsolutePath() + ModificationFile.FILE_SUFFIX);
-    if (modFileToLoad.exists()) {
-      // when successfully loaded, the filepath of the resource will be changed to the IoTDB data
-      // dir, so we can add a suffix to find the old modification file.
-      File targetModFile =
-          fsFactory.getFile(targetFile.getAbsolutePath() + ModificationFile.FILE_SUFFIX);
-      try {
-        Files.deleteIfExists(targetModFile.toPath());
-      } catch (IOException e) {
-        logger.warn("Cannot delete localModFile {}", targetModFile, e);
-      }
+              "File renaming failed when loading %s. Origin: %s, Target: %s, because %s",
+              fileType, origin.getAbsolutePath(), target.getAbsolutePath(), e.getMessage()));
+    }
+    movedFiles.add(new Pair<>(origin, target));
+  }
+
+  /** Move the files moved by moveFileToLoad back, or remove their links. */
+  private void undoMovingFilesToLoad(List<Pair<File, File>> movedFiles, boolean deleteOriginFile) {
+    for (int i = movedFiles.size() - 1; i >= 0; i--) {
+      File origin = movedFiles.get(i).left;
+      File target = movedFiles.get(i).right;
       try {
         if (deleteOriginFile) {
-          FileUtils.moveFile(modFileToLoad, targetModFile);
+          FileUtils.moveFile(target, origin);
         } else {
-          Files.createLink(targetModFile.toPath(), modFileToLoad.toPath());
+          Files.deleteIfExists(target.toPath());
         }
       } catch (IOException e) {
-        logger.error(
-            "File renaming failed when loading .mod file. Origin: {}, Target: {}",
-            resourceFileToLoad.getAbsolutePath(),
-            targetModFile.getAbsolutePath(),
-            e);
-        throw new LoadFileException(
-            String.format(
-                "File renaming failed when loading .mod file. Origin: %s, Target: %s, because %s",
-                resourceFileToLoad.getAbsolutePath(),
-                targetModFile.getAbsolutePath(),
-                e.getMessage()));
-      } finally {
-        // ModFile will be updated during the next call to `getModFile`
-        tsFileResource.setModFile(null);
+        logger.warn("Cannot restore {} from {}", origin, target, e);
       }
     }
-
-    updatePartitionFileVersion(filePartitionId, tsFileResource.getVersion());
-    return true;
   }
 
   /**
@@ -3204,6 +3694,8 @@ public class DataRegion {
         // init map
         long timePartitionId = StorageEngine.getTimePartition(plan.getTime());
 
+        loadFlushTimeOfPartition(timePartitionId);
+
         lastFlushTimeManager.ensureFlushedTimePartition(timePartitionId);
         // as the plans have been ordered, and we have get the write lock,
         // So, if a plan is sequenced, then all the rest plans are sequenced.
@@ -3264,6 +3756,8 @@ public class DataRegion {
         // init map
         long timePartitionId = StorageEngine.getTimePartition(insertRowNode.getTime());
 
+        loadFlushTimeOfPartition(timePartitionId);
+
         lastFlushTimeManager.ensureFlushedTimePartition(timePartitionId);
         // as the plans have been ordered, and we have get the write lock,
         // So, if a plan is sequenced, then all the rest plans are sequenced.
@@ -203,5 +203,12 @@ public class IDTableFlushTimeManager implements ILastFlushTimeManager {
       deviceEntry.setGlobalFlushTime(Long.MIN_VALUE);
     }
   }
+
+  @Override
+  public void removeTimePartition(long timePartitionId) {
+    for (DeviceEntry deviceEntry : idTable.getAllDeviceEntry()) {
+      deviceEntry.removeTimePartition(timePartitionId);
+    }
+  }
   // endregion
 }
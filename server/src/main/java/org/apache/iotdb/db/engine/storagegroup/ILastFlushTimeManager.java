@@ -85,5 +85,8 @@ public interface ILastFlushTimeManager {
   void clearFlushedTime();
 
   void clearGlobalFlushedTime();
+
+  /** remove the last time and flush time of a time partition whose files are all removed */
+  void removeTimePartition(long timePartitionId);
   // endregion
 }
@@ -264,5 +264,12 @@ public class LastFlushTimeManager implements ILastFlushTimeManager {
   public void clearGlobalFlushedTime() {
     globalLatestFlushedTimeForEachDevice.clear();
   }
+
+  @Override
+  public void removeTimePartition(long timePartitionId) {
+    latestTimeForEachDevice.remove(timePartitionId);
+    partitionLatestFlushedTimeForEachDevice.remove(timePartitionId);
+    newlyFlushedPartitionLatestFlushedTimeForEachDevice.remove(timePartitionId);
+  }
   // endregion
 }
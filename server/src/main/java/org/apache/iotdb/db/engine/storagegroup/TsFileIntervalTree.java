@@ -0,0 +1,149 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.storagegroup;
+
+import org.apache.iotdb.tsfile.read.filter.basic.BinaryFilter;
+import org.apache.iotdb.tsfile.read.filter.basic.Filter;
+import org.apache.iotdb.tsfile.read.filter.operator.NotFilter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * A static interval tree over the file level time ranges of the closed TsFiles in a {@link
+ * TsFileResourceList}. The closed files are sorted by their start time and the tree is implicitly
+ * balanced over the sorted array, each node keeping the max end time of its subtree, so that the
+ * files overlapped with a time filter are found in O(log n + k). Files that are not closed when the
+ * tree is built are always regarded as candidates, because their time ranges are still growing.
+ *
+ * <p>The tree is immutable, so it must be rebuilt once the list is changed.
+ */
+class TsFileIntervalTree {
+
+  /** files in the order of the list */
+  private final TsFileResource[] files;
+  /** positions (in the list) of the closed files sorted by start time */
+  private final int[] sortedPositions;
+
+  private final long[] startTimes;
+  private final long[] endTimes;
+  /** max end time of the subtree rooted at each node of the sorted array */
+  private final long[] maxEndTimes;
+  /** positions of the files that are not closed when the tree is built */
+  private final int[] unclosedPositions;
+
+  TsFileIntervalTree(List<TsFileResource> fileList) {
+    files = fileList.toArray(new TsFileResource[0]);
+    List<Integer> closed = new ArrayList<>();
+    List<Integer> unclosed = new ArrayList<>();
+    for (int i = 0; i < files.length; i++) {
+      if (files[i].isClosed()) {
+        closed.add(i);
+      } else {
+        unclosed.add(i);
+      }
+    }
+    unclosedPositions = unclosed.stream().mapToInt(Integer::intValue).toArray();
+
+    int size = closed.size();
+    long[] fileStartTimes = new long[files.length];
+    for (int position : closed) {
+      fileStartTimes[position] = files[position].getFileStartTime();
+    }
+    closed.sort(Comparator.comparingLong(position -> fileStartTimes[position]));
+    sortedPositions = closed.stream().mapToInt(Integer::intValue).toArray();
+    startTimes = new long[size];
+    endTimes = new long[size];
+    for (int i = 0; i < size; i++) {
+      startTimes[i] = fileStartTimes[sortedPositions[i]];
+      endTimes[i] = files[sortedPositions[i]].getFileEndTime();
+    }
+    maxEndTimes = new long[size];
+    buildMaxEndTimes(0, size - 1);
+  }
+
+  private long buildMaxEndTimes(int low, int high) {
+    if (low > high) {
+      return Long.MIN_VALUE;
+    }
+    int mid = (low + high) >>> 1;
+    maxEndTimes[mid] =
+        Math.max(
+            endTimes[mid],
+            Math.max(buildMaxEndTimes(low, mid - 1), buildMaxEndTimes(mid + 1, high)));
+    return maxEndTimes[mid];
+  }
+
+  /**
+   * @return the files that may contain data satisfying the time filter, in the order of the list.
+   *     All files are returned if the filter is null or cannot be used for pruning.
+   */
+  List<TsFileResource> getOverlappedFiles(Filter timeFilter) {
+    if (timeFilter == null || !isMonotone(timeFilter)) {
+      return new ArrayList<>(Arrays.asList(files));
+    }
+    boolean[] selected = new boolean[files.length];
+    for (int position : unclosedPositions) {
+      selected[position] = true;
+    }
+    search(0, startTimes.length - 1, timeFilter, selected);
+
+    List<TsFileResource> result = new ArrayList<>();
+    for (int i = 0; i < files.length; i++) {
+      if (selected[i]) {
+        result.add(files[i]);
+      }
+    }
+    return result;
+  }
+
+  private void search(int low, int high, Filter timeFilter, boolean[] selected) {
+    if (low > high) {
+      return;
+    }
+    int mid = (low + high) >>> 1;
+    // the files in [low, high] are sorted by start time, so their union is covered by
+    // [startTimes[low], maxEndTimes[mid]]
+    if (!timeFilter.satisfyStartEndTime(startTimes[low], maxEndTimes[mid])) {
+      return;
+    }
+    search(low, mid - 1, timeFilter, selected);
+    if (timeFilter.satisfyStartEndTime(startTimes[mid], endTimes[mid])) {
+      selected[sortedPositions[mid]] = true;
+    }
+    search(mid + 1, high, timeFilter, selected);
+  }
+
+  /**
+   * Pruning a subtree by its covering time range is only correct if a filter that does not satisfy
+   * a time range never satisfies its sub ranges, which does not hold for NotFilter.
+   */
+  private static boolean isMonotone(Filter filter) {
+    if (filter instanceof NotFilter) {
+      return false;
+    }
+    if (filter instanceof BinaryFilter) {
+      return isMonotone(((BinaryFilter) filter).getLeft())
+          && isMonotone(((BinaryFilter) filter).getRight());
+    }
+    return true;
+  }
+}
@@ -22,6 +22,7 @@ package org.apache.iotdb.db.engine.storagegroup;
 import org.apache.iotdb.db.exception.WriteLockFailedException;
 import org.apache.iotdb.db.rescon.TsFileResourceManager;
 import org.apache.iotdb.db.sync.sender.manager.TsFileSyncManager;
+import org.apache.iotdb.tsfile.read.filter.basic.Filter;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -29,6 +30,7 @@ import org.slf4j.LoggerFactory;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
@@ -83,6 +85,24 @@ public class TsFileManager {
     }
   }
 
+  /**
+   * Get the files that may contain data satisfying the time filter. The files are pruned by the
+   * interval tree of each time partition, so the devices in them still need to be checked.
+   */
+  public List<TsFileResource> getTsFileList(boolean sequence, Filter timeFilter) {
+    readLock();
+    try {
+      List<TsFileResource> allResources = new ArrayList<>();
+      Map<Long, TsFileResourceList> chosenMap = sequence ? sequenceFiles : unsequenceFiles;
+      for (Map.Entry<Long, TsFileResourceList> entry : chosenMap.entrySet()) {
+        allResources.addAll(entry.getValue().getOverlappedFiles(timeFilter));
+      }
+      return allResources;
+    } finally {
+      readUnlock();
+    }
+  }
+
   public TsFileResourceList getSequenceListByTimePartition(long timePartition) {
     readLock();
     try {
@@ -126,6 +146,33 @@ public class TsFileManager {
     }
   }
 
+  /**
+   * Remove the file lists of a time partition at once, the caller should guarantee that none of the
+   * files is being written, compacted or read.
+   *
+   * @return the removed sequence and unsequence files
+   */
+  public List<TsFileResource> removeTimePartition(long timePartition) {
+    writeLock("removeTimePartition");
+    try {
+      List<TsFileResource> removedFiles = new ArrayList<>();
+      for (Map<Long, TsFileResourceList> partitionFiles :
+          Arrays.asList(sequenceFiles, unsequenceFiles)) {
+        TsFileResourceList files = partitionFiles.remove(timePartition);
+        if (files == null) {
+          continue;
+        }
+        for (TsFileResource resource : files) {
+          removedFiles.add(resource);
+          TsFileResourceManager.getInstance().removeTsFileResource(resource);
+        }
+      }
+      return removedFiles;
+    } finally {
+      writeUnlock();
+    }
+  }
+
   public void removeAll(List<TsFileResource> tsFileResourceList, boolean sequence) {
     writeLock("removeAll");
     try {
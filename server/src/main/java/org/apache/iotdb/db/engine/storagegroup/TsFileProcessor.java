@@ -23,6 +23,7 @@ import org.apache.iotdb.commons.utils.TestOnly;
 import org.apache.iotdb.db.conf.IoTDBConfig;
 import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.conf.adapter.CompressionRatio;
+import org.apache.iotdb.db.conf.directories.strategy.DiskIoLoadMonitor;
 import org.apache.iotdb.db.engine.StorageEngine;
 import org.apache.iotdb.db.engine.flush.CloseFileListener;
 import org.apache.iotdb.db.engine.flush.FlushListener;
@@ -1201,6 +1202,8 @@ public class TsFileProcessor {
 
     // signal memtable only may appear when calling asyncClose()
     if (!memTableToFlush.isSignalMemTable()) {
+      String tsFilePath = tsFileResource.getTsFilePath();
+      DiskIoLoadMonitor.getInstance().startWriting(tsFilePath);
       try {
         writer.mark();
         MemTableFlushTask flushTask =
@@ -1238,6 +1241,8 @@ public class TsFileProcessor {
           }
           Thread.currentThread().interrupt();
         }
+      } finally {
+        DiskIoLoadMonitor.getInstance().finishWriting(tsFilePath);
       }
     }
 
@@ -29,18 +29,22 @@ import org.apache.iotdb.db.engine.storagegroup.TsFileNameGenerator.TsFileName;
 import org.apache.iotdb.db.engine.storagegroup.timeindex.DeviceTimeIndex;
 import org.apache.iotdb.db.engine.storagegroup.timeindex.FileTimeIndex;
 import org.apache.iotdb.db.engine.storagegroup.timeindex.ITimeIndex;
+import org.apache.iotdb.db.engine.storagegroup.timeindex.LazyTimeIndex;
 import org.apache.iotdb.db.engine.storagegroup.timeindex.TimeIndexLevel;
 import org.apache.iotdb.db.engine.upgrade.UpgradeTask;
 import org.apache.iotdb.db.exception.PartitionViolationException;
 import org.apache.iotdb.db.metadata.path.PartialPath;
 import org.apache.iotdb.db.metadata.utils.ResourceByPathUtils;
 import org.apache.iotdb.db.query.filter.TsFileFilter;
+import org.apache.iotdb.db.rescon.TsFileResourceManager;
 import org.apache.iotdb.db.service.UpgradeSevice;
+import org.apache.iotdb.db.utils.FileLoaderUtils;
 import org.apache.iotdb.tsfile.common.constant.TsFileConstant;
 import org.apache.iotdb.tsfile.file.metadata.IChunkMetadata;
 import org.apache.iotdb.tsfile.file.metadata.ITimeSeriesMetadata;
 import org.apache.iotdb.tsfile.fileSystem.FSFactoryProducer;
 import org.apache.iotdb.tsfile.fileSystem.fsFactory.FSFactory;
+import org.apache.iotdb.tsfile.read.TsFileSequenceReader;
 import org.apache.iotdb.tsfile.read.filter.basic.Filter;
 import org.apache.iotdb.tsfile.utils.FilePathUtils;
 import org.apache.iotdb.tsfile.utils.ReadWriteIOUtils;
@@ -133,6 +137,11 @@ public class TsFileResource {
 
   private long tsFileSize = -1L;
 
+  /** the num of queries that read this file, which decays by half every half life */
+  private double queryHeat = 0;
+
+  private long lastQueryHeatUpdateTime = 0L;
+
   private TsFileProcessor processor;
 
   /**
@@ -157,6 +166,7 @@ public class TsFileResource {
   public TsFileResource() {}
 
   public TsFileResource(TsFileResource other) throws IOException {
+    other.loadLazyTimeIndex();
     this.file = other.file;
     this.processor = other.processor;
     this.timeIndex = other.timeIndex;
@@ -231,7 +241,13 @@ public class TsFileResource {
     this.timeIndexType = 1;
   }
 
-  public synchronized void serialize() throws IOException {
+  public void serialize() throws IOException {
+    // the time index type is known after the time index is loaded
+    loadLazyTimeIndex();
+    serializeTimeIndex();
+  }
+
+  private synchronized void serializeTimeIndex() throws IOException {
     try (OutputStream outputStream =
         fsFactory.getBufferedOutputStream(file + RESOURCE_SUFFIX + TEMP_SUFFIX)) {
       ReadWriteIOUtils.write(VERSION_NUMBER, outputStream);
@@ -277,6 +293,50 @@ public class TsFileResource {
     }
   }
 
+  /**
+   * Deserialize the .resource file of a TsFile registered with a {@link LazyTimeIndex}, or
+   * reconstruct it from the TsFile if it is broken, and then register the resource in {@link
+   * TsFileResourceManager}. It should only be called by the LazyTimeIndex.
+   *
+   * @return the deserialized time index
+   */
+  public ITimeIndex deserializeLazily() {
+    try {
+      deserialize();
+    } catch (IOException e) {
+      LOGGER.warn("Cannot deserialize .resource file of {}, try to reconstruct it.", file, e);
+      timeIndex = CONFIG.getTimeIndexLevel().getTimeIndex();
+      timeIndexType = (byte) CONFIG.getTimeIndexLevel().ordinal();
+      try (TsFileSequenceReader reader = new TsFileSequenceReader(file.getAbsolutePath())) {
+        FileLoaderUtils.updateTsFileResource(reader, this);
+        serialize();
+      } catch (IOException e1) {
+        LOGGER.error("Failed to reconstruct .resource file of {}", file, e1);
+        throw new RuntimeException("Failed to load the resource of tsfile: " + file);
+      }
+    }
+    ITimeIndex index = timeIndex;
+    index.close();
+    if (!isDeleted()) {
+      TsFileResourceManager.getInstance().registerSealedTsFileResource(this);
+    }
+    return index;
+  }
+
+  /** Deserialize the .resource file if the TsFile is registered with a {@link LazyTimeIndex}. */
+  public void loadLazyTimeIndex() {
+    ITimeIndex index = timeIndex;
+    if (index instanceof LazyTimeIndex) {
+      ((LazyTimeIndex) index).load();
+    }
+  }
+
+  /** @return true if the TsFile is registered with a {@link LazyTimeIndex} not loaded yet */
+  public boolean hasUnloadedTimeIndex() {
+    ITimeIndex index = timeIndex;
+    return index instanceof LazyTimeIndex && !((LazyTimeIndex) index).isLoaded();
+  }
+
   /** deserialize tsfile resource from old file */
   public void deserializeFromOldFile() throws IOException {
     try (InputStream inputStream = fsFactory.getBufferedInputStream(file + RESOURCE_SUFFIX)) {
@@ -338,6 +398,8 @@ public class TsFileResource {
 
   public ModificationFile getModFile() {
     if (modFile == null) {
+      // the name of the mods file may be recorded in the .resource file
+      loadLazyTimeIndex();
       synchronized (this) {
         if (modFile == null) {
           modFile = ModificationFile.getNormalMods(this);
@@ -374,6 +436,32 @@ public class TsFileResource {
     return file;
   }
 
+  /** Record that a query reads this file, see {@link #getQueryHeat()}. */
+  public synchronized void increaseQueryHeat() {
+    long currentTime = System.currentTimeMillis();
+    queryHeat = decayQueryHeat(currentTime) + 1;
+    lastQueryHeatUpdateTime = currentTime;
+  }
+
+  /**
+   * @return the num of queries that read this file, in which a query is weighted by half for each
+   *     half life passed
+   */
+  public synchronized double getQueryHeat() {
+    return decayQueryHeat(System.currentTimeMillis());
+  }
+
+  private double decayQueryHeat(long currentTime) {
+    if (queryHeat == 0) {
+      return 0;
+    }
+    return queryHeat
+        * Math.pow(
+            0.5,
+            (double) (currentTime - lastQueryHeatUpdateTime)
+                / CONFIG.getCompactionQueryHeatHalfLifeInMs());
+  }
+
   public String getTsFilePath() {
     return file.getPath();
   }
@@ -583,6 +671,10 @@ public class TsFileResource {
     return this.status == TsFileResourceStatus.COMPACTION_CANDIDATE;
   }
 
+  public boolean isMigrating() {
+    return this.status == TsFileResourceStatus.MIGRATING;
+  }
+
   public void setStatus(TsFileResourceStatus status) {
     switch (status) {
       case CLOSED:
@@ -622,6 +714,15 @@ public class TsFileResource {
                   + this.status);
         }
         break;
+      case MIGRATING:
+        if (this.status == TsFileResourceStatus.CLOSED) {
+          this.status = TsFileResourceStatus.MIGRATING;
+        } else {
+          throw new RuntimeException(
+              "Cannot set the status of TsFileResource to MIGRATING while its status is "
+                  + this.status);
+        }
+        break;
       default:
         break;
     }
@@ -866,10 +967,12 @@ public class TsFileResource {
   }
 
   public long getMaxPlanIndex() {
+    loadLazyTimeIndex();
     return maxPlanIndex;
   }
 
   public long getMinPlanIndex() {
+    loadLazyTimeIndex();
     return minPlanIndex;
   }
 
@@ -969,6 +1072,7 @@ public class TsFileResource {
   }
 
   public byte getTimeIndexType() {
+    loadLazyTimeIndex();
     return timeIndexType;
   }
 
@@ -983,6 +1087,7 @@ public class TsFileResource {
 
   /** the DeviceTimeIndex degrade to FileTimeIndex and release memory */
   public long degradeTimeIndex() {
+    loadLazyTimeIndex();
     TimeIndexLevel timeIndexLevel = TimeIndexLevel.valueOf(timeIndexType);
     // if current timeIndex is FileTimeIndex, no need to degrade
     if (timeIndexLevel == TimeIndexLevel.FILE_TIME_INDEX) {
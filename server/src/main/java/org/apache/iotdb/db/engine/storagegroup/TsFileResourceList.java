@@ -21,6 +21,7 @@ package org.apache.iotdb.db.engine.storagegroup;
 
 import org.apache.iotdb.commons.utils.TestOnly;
 import org.apache.iotdb.tsfile.exception.NotImplementedException;
+import org.apache.iotdb.tsfile.read.filter.basic.Filter;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -39,6 +40,8 @@ public class TsFileResourceList implements List<TsFileResource> {
   private TsFileResource tail;
   private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
   private int count = 0;
+  /** built lazily for pruning files by time filter, and discarded once the list is changed */
+  private volatile TsFileIntervalTree intervalTree;
 
   /**
    * Insert a new node before an existing node
@@ -50,6 +53,7 @@ public class TsFileResourceList implements List<TsFileResource> {
     if (newNode.equals(node)) {
       return;
     }
+    intervalTree = null;
     newNode.prev = node.prev;
     newNode.next = node;
     if (node.prev == null) {
@@ -68,6 +72,7 @@ public class TsFileResourceList implements List<TsFileResource> {
    * @param newNode the file to insert
    */
   public void insertAfter(TsFileResource node, TsFileResource newNode) {
+    intervalTree = null;
     newNode.prev = node;
     newNode.next = node.next;
     if (node.next == null) {
@@ -126,6 +131,7 @@ public class TsFileResourceList implements List<TsFileResource> {
       header = newNode;
       tail = newNode;
       count++;
+      intervalTree = null;
     } else {
       insertAfter(tail, newNode);
     }
@@ -146,6 +152,7 @@ public class TsFileResourceList implements List<TsFileResource> {
       header = newNode;
       tail = newNode;
       count++;
+      intervalTree = null;
     } else {
       // find the position to insert of this node
       // the list should be ordered by file timestamp
@@ -221,6 +228,7 @@ public class TsFileResourceList implements List<TsFileResource> {
     tsFileResource.prev = null;
     tsFileResource.next = null;
     count--;
+    intervalTree = null;
     return true;
   }
 
@@ -246,6 +254,7 @@ public class TsFileResourceList implements List<TsFileResource> {
     header = null;
     tail = null;
     count = 0;
+    intervalTree = null;
   }
 
   @Override
@@ -355,6 +364,19 @@ public class TsFileResourceList implements List<TsFileResource> {
     throw new NotImplementedException();
   }
 
+  /**
+   * @return the files that may contain data satisfying the time filter according to their file
+   *     level time ranges, in the order of the list
+   */
+  public List<TsFileResource> getOverlappedFiles(Filter timeFilter) {
+    TsFileIntervalTree tree = intervalTree;
+    if (tree == null) {
+      tree = new TsFileIntervalTree(getArrayList());
+      intervalTree = tree;
+    }
+    return tree.getOverlappedFiles(timeFilter);
+  }
+
   public List<TsFileResource> getArrayList() {
     List<TsFileResource> list = new ArrayList<>();
     if (header == null) {
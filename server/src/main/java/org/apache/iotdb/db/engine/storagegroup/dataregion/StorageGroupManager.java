@@ -116,6 +116,26 @@ public class StorageGroupManager {
     }
   }
 
+  /** push migrating cold TsFiles down to all data regions */
+  public void migrateColdFiles() {
+    for (DataRegion dataRegion : this.dataRegion) {
+      if (dataRegion != null) {
+        dataRegion.migrateColdFiles();
+      }
+    }
+  }
+
+  /** @return all data regions of the storage group */
+  public List<DataRegion> getAllDataRegions() {
+    List<DataRegion> dataRegions = new ArrayList<>();
+    for (DataRegion dataRegion : this.dataRegion) {
+      if (dataRegion != null) {
+        dataRegions.add(dataRegion);
+      }
+    }
+    return dataRegions;
+  }
+
   /** push check sequence memtable flush interval down to all sg */
   public void timedFlushSeqMemTable() {
     for (DataRegion dataRegion : this.dataRegion) {
@@ -0,0 +1,87 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.storagegroup.timeindex;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * DeviceIdDictionary assigns each device an int id shared by the time indexes of all TsFiles, so
+ * that a closed {@link DeviceTimeIndex} only keeps the sorted ids of its devices instead of a map
+ * from device to array index. Ids are never reclaimed, because the devices are far fewer than the
+ * TsFiles referring to them.
+ */
+public class DeviceIdDictionary {
+
+  private static final int INIT_CAPACITY = 1024;
+
+  private final Map<String, Integer> deviceToId = new ConcurrentHashMap<>();
+
+  /** id -> device, republished after each assignment so that readers see the new device */
+  private volatile String[] devices = new String[INIT_CAPACITY];
+
+  private int size = 0;
+
+  private DeviceIdDictionary() {}
+
+  public static DeviceIdDictionary getInstance() {
+    return InstanceHolder.INSTANCE;
+  }
+
+  /** @return id of the device, which is assigned if the device is new */
+  public int getOrCreateId(String device) {
+    Integer id = deviceToId.get(device);
+    if (id != null) {
+      return id;
+    }
+    synchronized (this) {
+      id = deviceToId.get(device);
+      if (id != null) {
+        return id;
+      }
+      String[] array = devices;
+      if (size == array.length) {
+        array = Arrays.copyOf(array, size * 2);
+      }
+      String interned = device.intern();
+      array[size] = interned;
+      devices = array;
+      deviceToId.put(interned, size);
+      return size++;
+    }
+  }
+
+  /** @return id of the device, -1 if the device has never been assigned an id */
+  public int getId(String device) {
+    Integer id = deviceToId.get(device);
+    return id == null ? -1 : id;
+  }
+
+  public String getDevice(int id) {
+    return devices[id];
+  }
+
+  private static class InstanceHolder {
+
+    private InstanceHolder() {}
+
+    private static final DeviceIdDictionary INSTANCE = new DeviceIdDictionary();
+  }
+}
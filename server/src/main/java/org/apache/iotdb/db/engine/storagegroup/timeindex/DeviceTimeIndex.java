@@ -35,6 +35,8 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
 import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
@@ -61,8 +63,15 @@ public class DeviceTimeIndex implements ITimeIndex {
   /** max end time */
   private long maxEndTime = Long.MIN_VALUE;
 
-  /** device -> index of start times array and end times array */
-  protected Map<String, Integer> deviceToIndex;
+  /**
+   * device -> index of start times array and end times array. It is replaced by {@link
+   * #compactDevices} once the index is closed or deserialized, and restored if a new device is
+   * added afterwards.
+   */
+  protected volatile Map<String, Integer> deviceToIndex;
+
+  /** sorted device ids of a compacted index, only used when deviceToIndex is null */
+  private volatile CompactDevices compactDevices;
 
   public DeviceTimeIndex() {
     this.deviceToIndex = new ConcurrentHashMap<>();
@@ -80,7 +89,9 @@ public class DeviceTimeIndex implements ITimeIndex {
 
   @Override
   public void serialize(OutputStream outputStream) throws IOException {
-    int deviceNum = deviceToIndex.size();
+    Map<String, Integer> map = deviceToIndex;
+    CompactDevices compact = map == null ? compactDevices : null;
+    int deviceNum = map != null ? map.size() : compact.ids.length;
 
     ReadWriteIOUtils.write(deviceNum, outputStream);
     for (int i = 0; i < deviceNum; i++) {
@@ -88,11 +99,19 @@ public class DeviceTimeIndex implements ITimeIndex {
       ReadWriteIOUtils.write(endTimes[i], outputStream);
     }
 
-    for (Entry<String, Integer> stringIntegerEntry : deviceToIndex.entrySet()) {
-      String deviceName = stringIntegerEntry.getKey();
-      int index = stringIntegerEntry.getValue();
-      ReadWriteIOUtils.write(deviceName, outputStream);
-      ReadWriteIOUtils.write(index, outputStream);
+    if (map != null) {
+      for (Entry<String, Integer> stringIntegerEntry : map.entrySet()) {
+        String deviceName = stringIntegerEntry.getKey();
+        int index = stringIntegerEntry.getValue();
+        ReadWriteIOUtils.write(deviceName, outputStream);
+        ReadWriteIOUtils.write(index, outputStream);
+      }
+    } else {
+      for (int i = 0; i < deviceNum; i++) {
+        ReadWriteIOUtils.write(
+            DeviceIdDictionary.getInstance().getDevice(compact.ids[i]), outputStream);
+        ReadWriteIOUtils.write(compact.getIndex(i), outputStream);
+      }
     }
   }
 
@@ -110,11 +129,13 @@ public class DeviceTimeIndex implements ITimeIndex {
       maxEndTime = Math.max(maxEndTime, endTimes[i]);
     }
 
+    int[] deviceIds = new int[deviceNum];
     for (int i = 0; i < deviceNum; i++) {
-      String path = ReadWriteIOUtils.readString(inputStream).intern();
+      String path = ReadWriteIOUtils.readString(inputStream);
       int index = ReadWriteIOUtils.readInt(inputStream);
-      deviceToIndex.put(path, index);
+      deviceIds[index] = DeviceIdDictionary.getInstance().getOrCreateId(path);
     }
+    compactDeserialized(deviceIds);
     return this;
   }
 
@@ -131,23 +152,115 @@ public class DeviceTimeIndex implements ITimeIndex {
       maxEndTime = Math.max(maxEndTime, endTimes[i]);
     }
 
+    int[] deviceIds = new int[deviceNum];
     for (int i = 0; i < deviceNum; i++) {
-      String path = SerializeUtils.deserializeString(buffer).intern();
+      String path = SerializeUtils.deserializeString(buffer);
       int index = buffer.getInt();
-      deviceToIndex.put(path, index);
+      deviceIds[index] = DeviceIdDictionary.getInstance().getOrCreateId(path);
     }
+    compactDeserialized(deviceIds);
     return this;
   }
 
+  /**
+   * Sort the deserialized arrays by device id, so that the compacted index needs no extra array
+   * from positions to array indexes. The index is not visible to others yet.
+   *
+   * @param deviceIds device id of each array index
+   */
+  private void compactDeserialized(int[] deviceIds) {
+    int deviceNum = deviceIds.length;
+    Integer[] order = new Integer[deviceNum];
+    for (int i = 0; i < deviceNum; i++) {
+      order[i] = i;
+    }
+    Arrays.sort(order, Comparator.comparingInt(index -> deviceIds[index]));
+    int[] sortedIds = new int[deviceNum];
+    long[] sortedStartTimes = new long[deviceNum];
+    long[] sortedEndTimes = new long[deviceNum];
+    for (int i = 0; i < deviceNum; i++) {
+      sortedIds[i] = deviceIds[order[i]];
+      sortedStartTimes[i] = startTimes[order[i]];
+      sortedEndTimes[i] = endTimes[order[i]];
+    }
+    startTimes = sortedStartTimes;
+    endTimes = sortedEndTimes;
+    compactDevices = new CompactDevices(sortedIds, null);
+    deviceToIndex = null;
+  }
+
   @Override
   public void close() {
-    startTimes = Arrays.copyOfRange(startTimes, 0, deviceToIndex.size());
-    endTimes = Arrays.copyOfRange(endTimes, 0, deviceToIndex.size());
+    Map<String, Integer> map = deviceToIndex;
+    if (map == null) {
+      return;
+    }
+    int deviceNum = map.size();
+    startTimes = Arrays.copyOfRange(startTimes, 0, deviceNum);
+    endTimes = Arrays.copyOfRange(endTimes, 0, deviceNum);
+
+    // the arrays may be read concurrently, so they are kept in place and the positions of the
+    // sorted ids are mapped to the array indexes
+    long[] idAndIndexes = new long[deviceNum];
+    int i = 0;
+    for (Entry<String, Integer> entry : map.entrySet()) {
+      int id = DeviceIdDictionary.getInstance().getOrCreateId(entry.getKey());
+      idAndIndexes[i++] = ((long) id << 32) | entry.getValue();
+    }
+    Arrays.sort(idAndIndexes);
+    int[] sortedIds = new int[deviceNum];
+    int[] indexes = new int[deviceNum];
+    for (i = 0; i < deviceNum; i++) {
+      sortedIds[i] = (int) (idAndIndexes[i] >>> 32);
+      indexes[i] = (int) idAndIndexes[i];
+    }
+    compactDevices = new CompactDevices(sortedIds, indexes);
+    deviceToIndex = null;
+  }
+
+  /** restore deviceToIndex from the compacted index to add new devices */
+  private synchronized Map<String, Integer> restoreDeviceToIndex() {
+    Map<String, Integer> map = deviceToIndex;
+    if (map != null) {
+      return map;
+    }
+    CompactDevices compact = compactDevices;
+    map = new ConcurrentHashMap<>();
+    for (int i = 0; i < compact.ids.length; i++) {
+      map.put(DeviceIdDictionary.getInstance().getDevice(compact.ids[i]), compact.getIndex(i));
+    }
+    // compactDevices is kept for the readers that have seen a null deviceToIndex
+    deviceToIndex = map;
+    return map;
+  }
+
+  /** @return index of start times array and end times array of the device, -1 if not exists */
+  private int getIndex(String deviceId) {
+    Map<String, Integer> map = deviceToIndex;
+    if (map != null) {
+      Integer index = map.get(deviceId);
+      return index == null ? -1 : index;
+    }
+    return compactDevices.indexOf(deviceId);
+  }
+
+  private int getDeviceNum() {
+    Map<String, Integer> map = deviceToIndex;
+    return map != null ? map.size() : compactDevices.ids.length;
   }
 
   @Override
   public Set<String> getDevices(String tsFilePath, TsFileResource tsFileResource) {
-    return deviceToIndex.keySet();
+    Map<String, Integer> map = deviceToIndex;
+    if (map != null) {
+      return map.keySet();
+    }
+    int[] ids = compactDevices.ids;
+    Set<String> devices = new HashSet<>();
+    for (int id : ids) {
+      devices.add(DeviceIdDictionary.getInstance().getDevice(id));
+    }
+    return devices;
   }
 
   @Override
@@ -176,18 +289,21 @@ public class DeviceTimeIndex implements ITimeIndex {
 
   @Override
   public long calculateRamSize() {
-    return RamUsageEstimator.sizeOf(deviceToIndex)
-        + RamUsageEstimator.sizeOf(startTimes)
-        + RamUsageEstimator.sizeOf(endTimes);
+    Map<String, Integer> map = deviceToIndex;
+    long devicesSize =
+        map != null ? RamUsageEstimator.sizeOf(map) : compactDevices.calculateRamSize();
+    return devicesSize + RamUsageEstimator.sizeOf(startTimes) + RamUsageEstimator.sizeOf(endTimes);
   }
 
   private int getDeviceIndex(String deviceId) {
-    int index;
-    if (deviceToIndex.containsKey(deviceId)) {
-      index = deviceToIndex.get(deviceId);
-    } else {
-      index = deviceToIndex.size();
-      deviceToIndex.put(deviceId.intern(), index);
+    int index = getIndex(deviceId);
+    if (index < 0) {
+      Map<String, Integer> map = deviceToIndex;
+      if (map == null) {
+        map = restoreDeviceToIndex();
+      }
+      index = map.size();
+      map.put(deviceId.intern(), index);
       if (startTimes.length <= index) {
         startTimes = enLargeArray(startTimes, Long.MAX_VALUE);
         endTimes = enLargeArray(endTimes, Long.MIN_VALUE);
@@ -201,7 +317,7 @@ public class DeviceTimeIndex implements ITimeIndex {
   }
 
   private long[] enLargeArray(long[] array, long defaultValue) {
-    long[] tmp = new long[(int) (array.length * 2)];
+    long[] tmp = new long[Math.max(INIT_ARRAY_SIZE, array.length * 2)];
     initTimes(tmp, defaultValue);
     System.arraycopy(array, 0, tmp, 0, array.length);
     return tmp;
@@ -210,8 +326,8 @@ public class DeviceTimeIndex implements ITimeIndex {
   @Override
   public long getTimePartition(String tsFilePath) {
     try {
-      if (deviceToIndex != null && !deviceToIndex.isEmpty()) {
-        return StorageEngine.getTimePartition(startTimes[deviceToIndex.values().iterator().next()]);
+      if (getDeviceNum() > 0) {
+        return StorageEngine.getTimePartition(startTimes[0]);
       }
       String[] filePathSplits = FilePathUtils.splitTsFilePath(tsFilePath);
       return Long.parseLong(filePathSplits[filePathSplits.length - 2]);
@@ -223,7 +339,8 @@ public class DeviceTimeIndex implements ITimeIndex {
   /** @return the time partition id, if spans multi time partitions, return -1. */
   private long getTimePartitionWithCheck() {
     long partitionId = SPANS_MULTI_TIME_PARTITIONS_FLAG_ID;
-    for (int index : deviceToIndex.values()) {
+    int deviceNum = getDeviceNum();
+    for (int index = 0; index < deviceNum; index++) {
       long p = StorageEngine.getTimePartition(startTimes[index]);
       if (partitionId == SPANS_MULTI_TIME_PARTITIONS_FLAG_ID) {
         partitionId = p;
@@ -292,23 +409,25 @@ public class DeviceTimeIndex implements ITimeIndex {
 
   @Override
   public long getStartTime(String deviceId) {
-    if (!deviceToIndex.containsKey(deviceId)) {
+    int index = getIndex(deviceId);
+    if (index < 0) {
       return Long.MAX_VALUE;
     }
-    return startTimes[deviceToIndex.get(deviceId)];
+    return startTimes[index];
   }
 
   @Override
   public long getEndTime(String deviceId) {
-    if (!deviceToIndex.containsKey(deviceId)) {
+    int index = getIndex(deviceId);
+    if (index < 0) {
       return Long.MIN_VALUE;
     }
-    return endTimes[deviceToIndex.get(deviceId)];
+    return endTimes[index];
   }
 
   @Override
   public boolean checkDeviceIdExist(String deviceId) {
-    return deviceToIndex.containsKey(deviceId);
+    return getIndex(deviceId) >= 0;
   }
 
   @Override
@@ -335,6 +454,39 @@ public class DeviceTimeIndex implements ITimeIndex {
 
   @Override
   public boolean mayContainsDevice(String device) {
-    return deviceToIndex.containsKey(device);
+    return getIndex(device) >= 0;
+  }
+
+  /** Ids in {@link DeviceIdDictionary} of the devices in a closed index. */
+  private static class CompactDevices {
+
+    /** device ids in ascending order */
+    private final int[] ids;
+
+    /** array index of each device in ids, null if the arrays are sorted by device id as well */
+    private final int[] indexes;
+
+    private CompactDevices(int[] ids, int[] indexes) {
+      this.ids = ids;
+      this.indexes = indexes;
+    }
+
+    private int getIndex(int position) {
+      return indexes == null ? position : indexes[position];
+    }
+
+    private int indexOf(String device) {
+      int id = DeviceIdDictionary.getInstance().getId(device);
+      if (id < 0) {
+        return -1;
+      }
+      int position = Arrays.binarySearch(ids, id);
+      return position < 0 ? -1 : getIndex(position);
+    }
+
+    private long calculateRamSize() {
+      return RamUsageEstimator.sizeOf(ids)
+          + (indexes == null ? 0 : RamUsageEstimator.sizeOf(indexes));
+    }
   }
 }
@@ -0,0 +1,188 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.storagegroup.timeindex;
+
+import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
+import org.apache.iotdb.db.exception.PartitionViolationException;
+import org.apache.iotdb.tsfile.utils.FilePathUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Set;
+
+/**
+ * LazyTimeIndex is the time index of a sealed TsFile registered at startup by its file name only.
+ * The .resource file is deserialized on the first access of the time index, after which the
+ * TsFileResource holds the deserialized time index and this one only delegates to it.
+ */
+public class LazyTimeIndex implements ITimeIndex {
+
+  private final TsFileResource tsFileResource;
+
+  private volatile ITimeIndex timeIndex;
+
+  public LazyTimeIndex(TsFileResource tsFileResource) {
+    this.tsFileResource = tsFileResource;
+  }
+
+  public boolean isLoaded() {
+    return timeIndex != null;
+  }
+
+  /** Deserialize the .resource file if it is not deserialized yet. */
+  public ITimeIndex load() {
+    ITimeIndex index = timeIndex;
+    if (index == null) {
+      synchronized (this) {
+        index = timeIndex;
+        if (index == null) {
+          index = tsFileResource.deserializeLazily();
+          timeIndex = index;
+        }
+      }
+    }
+    return index;
+  }
+
+  @Override
+  public void serialize(OutputStream outputStream) throws IOException {
+    load().serialize(outputStream);
+  }
+
+  @Override
+  public ITimeIndex deserialize(InputStream inputStream) {
+    throw new UnsupportedOperationException("LazyTimeIndex can not be deserialized directly.");
+  }
+
+  @Override
+  public ITimeIndex deserialize(ByteBuffer buffer) {
+    throw new UnsupportedOperationException("LazyTimeIndex can not be deserialized directly.");
+  }
+
+  @Override
+  public void close() {
+    // the time index is closed after it is deserialized
+    ITimeIndex index = timeIndex;
+    if (index != null) {
+      index.close();
+    }
+  }
+
+  @Override
+  public Set<String> getDevices(String tsFilePath, TsFileResource tsFileResource) {
+    return load().getDevices(tsFilePath, tsFileResource);
+  }
+
+  @Override
+  public boolean endTimeEmpty() {
+    return load().endTimeEmpty();
+  }
+
+  @Override
+  public boolean stillLives(long ttlLowerBound) {
+    return load().stillLives(ttlLowerBound);
+  }
+
+  @Override
+  public long calculateRamSize() {
+    return load().calculateRamSize();
+  }
+
+  /** The time partition is got from the folder of the file, so it does not need to be loaded. */
+  @Override
+  public long getTimePartition(String tsFilePath) {
+    ITimeIndex index = timeIndex;
+    if (index != null) {
+      return index.getTimePartition(tsFilePath);
+    }
+    try {
+      String[] filePathSplits = FilePathUtils.splitTsFilePath(tsFilePath);
+      return Long.parseLong(filePathSplits[filePathSplits.length - 2]);
+    } catch (NumberFormatException e) {
+      return 0;
+    }
+  }
+
+  @Override
+  public long getTimePartitionWithCheck(String tsFilePath) throws PartitionViolationException {
+    return load().getTimePartitionWithCheck(tsFilePath);
+  }
+
+  @Override
+  public boolean isSpanMultiTimePartitions() {
+    return load().isSpanMultiTimePartitions();
+  }
+
+  @Override
+  public void updateStartTime(String deviceId, long time) {
+    load().updateStartTime(deviceId, time);
+  }
+
+  @Override
+  public void updateEndTime(String deviceId, long time) {
+    load().updateEndTime(deviceId, time);
+  }
+
+  @Override
+  public void putStartTime(String deviceId, long time) {
+    load().putStartTime(deviceId, time);
+  }
+
+  @Override
+  public void putEndTime(String deviceId, long time) {
+    load().putEndTime(deviceId, time);
+  }
+
+  @Override
+  public long getStartTime(String deviceId) {
+    return load().getStartTime(deviceId);
+  }
+
+  @Override
+  public long getEndTime(String deviceId) {
+    return load().getEndTime(deviceId);
+  }
+
+  @Override
+  public boolean checkDeviceIdExist(String deviceId) {
+    return load().checkDeviceIdExist(deviceId);
+  }
+
+  @Override
+  public long getMinStartTime() {
+    return load().getMinStartTime();
+  }
+
+  @Override
+  public long getMaxEndTime() {
+    return load().getMaxEndTime();
+  }
+
+  @Override
+  public int compareDegradePriority(ITimeIndex timeIndex) {
+    return load().compareDegradePriority(timeIndex);
+  }
+
+  @Override
+  public boolean mayContainsDevice(String device) {
+    return load().mayContainsDevice(device);
+  }
+}
@@ -148,6 +148,11 @@ public class DeviceEntry {
   public void clearFlushTime() {
     flushTimeMapOfEachPartition.clear();
   }
+
+  public void removeTimePartition(long timePartition) {
+    lastTimeMapOfEachPartition.remove(timePartition);
+    flushTimeMapOfEachPartition.remove(timePartition);
+  }
   // endregion
 
   @TestOnly
@@ -22,6 +22,8 @@ package org.apache.iotdb.db.mpp.buffer;
 import org.apache.iotdb.common.rpc.thrift.TEndPoint;
 import org.apache.iotdb.commons.client.IClientManager;
 import org.apache.iotdb.commons.client.sync.SyncDataNodeDataBlockServiceClient;
+import org.apache.iotdb.db.conf.IoTDBConfig;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.mpp.execution.FragmentInstanceContext;
 import org.apache.iotdb.db.mpp.memory.LocalMemoryManager;
 import org.apache.iotdb.mpp.rpc.thrift.DataBlockService;
@@ -41,6 +43,8 @@ import org.slf4j.LoggerFactory;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.concurrent.ConcurrentHashMap;
@@ -85,11 +89,15 @@ public class DataBlockManager implements IDataBlockManager {
                 + req.getSourceFragmentInstanceId()
                 + ".");
       }
+      ISinkHandle sinkHandle = sinkHandles.get(req.getSourceFragmentInstanceId());
+      if (!(sinkHandle instanceof SinkHandle)) {
+        throw new TException(
+            "Fragment instance " + req.getSourceFragmentInstanceId() + " has a local sink handle.");
+      }
       TGetDataBlockResponse resp = new TGetDataBlockResponse();
-      SinkHandle sinkHandle = sinkHandles.get(req.getSourceFragmentInstanceId());
       for (int i = req.getStartSequenceId(); i < req.getEndSequenceId(); i++) {
         try {
-          ByteBuffer serializedTsBlock = sinkHandle.getSerializedTsBlock(i);
+          ByteBuffer serializedTsBlock = ((SinkHandle) sinkHandle).getSerializedTsBlock(i);
           resp.addToTsBlocks(serializedTsBlock);
         } catch (IOException e) {
           throw new TException(e);
@@ -111,9 +119,12 @@ public class DataBlockManager implements IDataBlockManager {
                 + e.getSourceFragmentInstanceId()
                 + ".");
       }
-      sinkHandles
-          .get(e.getSourceFragmentInstanceId())
-          .acknowledgeTsBlock(e.getStartSequenceId(), e.getEndSequenceId());
+      ISinkHandle sinkHandle = sinkHandles.get(e.getSourceFragmentInstanceId());
+      if (!(sinkHandle instanceof SinkHandle)) {
+        throw new TException(
+            "Fragment instance " + e.getSourceFragmentInstanceId() + " has a local sink handle.");
+      }
+      ((SinkHandle) sinkHandle).acknowledgeTsBlock(e.getStartSequenceId(), e.getEndSequenceId());
     }
 
     @Override
@@ -137,9 +148,18 @@ public class DataBlockManager implements IDataBlockManager {
                 + ".");
       }
 
-      SourceHandle sourceHandle =
+      ISourceHandle sourceHandle =
           sourceHandles.get(e.getTargetFragmentInstanceId()).get(e.getTargetPlanNodeId());
-      sourceHandle.updatePendingDataBlockInfo(e.getStartSequenceId(), e.getBlockSizes());
+      if (!(sourceHandle instanceof SourceHandle)) {
+        throw new TException(
+            "Plan node "
+                + e.getTargetPlanNodeId()
+                + " of fragment instance "
+                + e.getTargetFragmentInstanceId()
+                + " has a local source handle.");
+      }
+      ((SourceHandle) sourceHandle)
+          .updatePendingDataBlockInfo(e.getStartSequenceId(), e.getBlockSizes());
     }
 
     @Override
@@ -162,11 +182,19 @@ public class DataBlockManager implements IDataBlockManager {
                 + e.getTargetFragmentInstanceId()
                 + ".");
       }
-      SourceHandle sourceHandle =
+      ISourceHandle sourceHandle =
           sourceHandles
               .getOrDefault(e.getTargetFragmentInstanceId(), Collections.emptyMap())
               .get(e.getTargetPlanNodeId());
-      sourceHandle.setNoMoreTsBlocks(e.getLastSequenceId());
+      if (!(sourceHandle instanceof SourceHandle)) {
+        throw new TException(
+            "Plan node "
+                + e.getTargetPlanNodeId()
+                + " of fragment instance "
+                + e.getTargetFragmentInstanceId()
+                + " has a local source handle.");
+      }
+      ((SourceHandle) sourceHandle).setNoMoreTsBlocks(e.getLastSequenceId());
     }
   }
 
@@ -247,6 +275,9 @@ public class DataBlockManager implements IDataBlockManager {
         logger.info("Resources of aborted sink handle {} has already been released", sinkHandle);
       }
       sinkHandles.remove(sinkHandle.getLocalFragmentInstanceId());
+      if (sinkHandle instanceof LocalSinkHandle) {
+        removeSharedTsBlockQueue(((LocalSinkHandle) sinkHandle).getSharedTsBlockQueue());
+      }
     }
 
     @Override
@@ -263,8 +294,16 @@ public class DataBlockManager implements IDataBlockManager {
   private final ExecutorService executorService;
   private final IClientManager<TEndPoint, SyncDataNodeDataBlockServiceClient>
       dataBlockServiceClientManager;
-  private final Map<TFragmentInstanceId, Map<String, SourceHandle>> sourceHandles;
-  private final Map<TFragmentInstanceId, SinkHandle> sinkHandles;
+  private final Map<TFragmentInstanceId, Map<String, ISourceHandle>> sourceHandles;
+  private final Map<TFragmentInstanceId, ISinkHandle> sinkHandles;
+
+  /** Data block endpoint of this node. Exchanges with it are done in memory. */
+  private final TEndPoint localEndpoint;
+  /**
+   * Shared queues of local exchanges whose sink handle or source handle has not been created yet,
+   * keyed by the fragment instance ID and plan node ID of the source handle.
+   */
+  private final Map<TFragmentInstanceId, Map<String, SharedTsBlockQueue>> sharedTsBlockQueues;
 
   private DataBlockServiceImpl dataBlockService;
 
@@ -279,6 +318,13 @@ public class DataBlockManager implements IDataBlockManager {
     this.dataBlockServiceClientManager = Validate.notNull(dataBlockServiceClientManager);
     sourceHandles = new ConcurrentHashMap<>();
     sinkHandles = new ConcurrentHashMap<>();
+    IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
+    localEndpoint = new TEndPoint(config.getInternalIp(), config.getDataBlockManagerPort());
+    sharedTsBlockQueues = new HashMap<>();
+  }
+
+  public LocalMemoryManager getLocalMemoryManager() {
+    return localMemoryManager;
   }
 
   public DataBlockServiceImpl getOrCreateDataBlockServiceImpl() {
@@ -306,6 +352,17 @@ public class DataBlockManager implements IDataBlockManager {
         remoteFragmentInstanceId,
         localFragmentInstanceId);
 
+    if (localEndpoint.equals(remoteEndpoint)) {
+      LocalSinkHandle localSinkHandle =
+          new LocalSinkHandle(
+              localFragmentInstanceId,
+              getOrCreateSharedTsBlockQueue(
+                  remoteFragmentInstanceId, remotePlanNodeId, localFragmentInstanceId),
+              new SinkHandleListenerImpl(instanceContext, instanceContext::failed));
+      sinkHandles.put(localFragmentInstanceId, localSinkHandle);
+      return localSinkHandle;
+    }
+
     SinkHandle sinkHandle =
         new SinkHandle(
             remoteEndpoint,
@@ -344,6 +401,20 @@ public class DataBlockManager implements IDataBlockManager {
         localPlanNodeId,
         localFragmentInstanceId);
 
+    if (localEndpoint.equals(remoteEndpoint)) {
+      LocalSourceHandle localSourceHandle =
+          new LocalSourceHandle(
+              localFragmentInstanceId,
+              localPlanNodeId,
+              getOrCreateSharedTsBlockQueue(
+                  localFragmentInstanceId, localPlanNodeId, remoteFragmentInstanceId),
+              new SourceHandleListenerImpl(onFailureCallback));
+      sourceHandles
+          .computeIfAbsent(localFragmentInstanceId, key -> new ConcurrentHashMap<>())
+          .put(localPlanNodeId, localSourceHandle);
+      return localSourceHandle;
+    }
+
     SourceHandle sourceHandle =
         new SourceHandle(
             remoteEndpoint,
@@ -361,6 +432,50 @@ public class DataBlockManager implements IDataBlockManager {
     return sourceHandle;
   }
 
+  /**
+   * Get the queue shared by the sink handle and the source handle of a local exchange. The queue is
+   * created by whichever handle comes first, and handed over to the other one.
+   *
+   * @param targetFragmentInstanceId fragment instance ID of the source handle.
+   * @param targetPlanNodeId plan node ID of the source handle.
+   * @param sourceFragmentInstanceId fragment instance ID of the sink handle, whose memory is
+   *     reserved for the buffered TsBlocks.
+   */
+  private synchronized SharedTsBlockQueue getOrCreateSharedTsBlockQueue(
+      TFragmentInstanceId targetFragmentInstanceId,
+      String targetPlanNodeId,
+      TFragmentInstanceId sourceFragmentInstanceId) {
+    Map<String, SharedTsBlockQueue> planNodeIdToQueue =
+        sharedTsBlockQueues.get(targetFragmentInstanceId);
+    if (planNodeIdToQueue != null && planNodeIdToQueue.containsKey(targetPlanNodeId)) {
+      SharedTsBlockQueue queue = planNodeIdToQueue.remove(targetPlanNodeId);
+      if (planNodeIdToQueue.isEmpty()) {
+        sharedTsBlockQueues.remove(targetFragmentInstanceId);
+      }
+      return queue;
+    }
+    SharedTsBlockQueue queue = new SharedTsBlockQueue(sourceFragmentInstanceId, localMemoryManager);
+    sharedTsBlockQueues
+        .computeIfAbsent(targetFragmentInstanceId, key -> new HashMap<>())
+        .put(targetPlanNodeId, queue);
+    return queue;
+  }
+
+  /**
+   * Remove a queue that is still waiting for its source handle, so that the queue of an aborted
+   * sink handle is not kept forever if the source handle is never created.
+   */
+  private synchronized void removeSharedTsBlockQueue(SharedTsBlockQueue queue) {
+    Iterator<Map<String, SharedTsBlockQueue>> iterator = sharedTsBlockQueues.values().iterator();
+    while (iterator.hasNext()) {
+      Map<String, SharedTsBlockQueue> planNodeIdToQueue = iterator.next();
+      if (planNodeIdToQueue.values().removeIf(value -> value == queue)
+          && planNodeIdToQueue.isEmpty()) {
+        iterator.remove();
+      }
+    }
+  }
+
   /**
    * Release all the related resources, including data blocks that are not yet fetched by downstream
    * fragment instances.
@@ -376,12 +491,19 @@ public class DataBlockManager implements IDataBlockManager {
       sinkHandles.remove(fragmentInstanceId);
     }
     if (sourceHandles.containsKey(fragmentInstanceId)) {
-      Map<String, SourceHandle> planNodeIdToSourceHandle = sourceHandles.get(fragmentInstanceId);
-      for (Entry<String, SourceHandle> entry : planNodeIdToSourceHandle.entrySet()) {
+      Map<String, ISourceHandle> planNodeIdToSourceHandle = sourceHandles.get(fragmentInstanceId);
+      for (Entry<String, ISourceHandle> entry : planNodeIdToSourceHandle.entrySet()) {
         logger.info("Close source handle {}", sourceHandles);
         entry.getValue().close();
       }
       sourceHandles.remove(fragmentInstanceId);
     }
+    Map<String, SharedTsBlockQueue> planNodeIdToQueue;
+    synchronized (this) {
+      planNodeIdToQueue = sharedTsBlockQueues.remove(fragmentInstanceId);
+    }
+    if (planNodeIdToQueue != null) {
+      planNodeIdToQueue.values().forEach(SharedTsBlockQueue::close);
+    }
   }
 }
@@ -0,0 +1,166 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.mpp.buffer;
+
+import org.apache.iotdb.db.mpp.buffer.DataBlockManager.SinkHandleListener;
+import org.apache.iotdb.mpp.rpc.thrift.TFragmentInstanceId;
+import org.apache.iotdb.tsfile.read.common.block.TsBlock;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import org.apache.commons.lang3.Validate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.StringJoiner;
+
+/**
+ * A sink handle that passes TsBlocks to a {@link LocalSourceHandle} in the same process through a
+ * {@link SharedTsBlockQueue}.
+ */
+public class LocalSinkHandle implements ISinkHandle {
+
+  private static final Logger logger = LoggerFactory.getLogger(LocalSinkHandle.class);
+
+  private final TFragmentInstanceId localFragmentInstanceId;
+  private final SharedTsBlockQueue queue;
+  private final SinkHandleListener sinkHandleListener;
+
+  private volatile boolean closed = false;
+  private boolean aborted = false;
+  private boolean finishInvoked = false;
+
+  public LocalSinkHandle(TFragmentInstanceId localFragmentInstanceId, SharedTsBlockQueue queue) {
+    this(localFragmentInstanceId, queue, null);
+  }
+
+  public LocalSinkHandle(
+      TFragmentInstanceId localFragmentInstanceId,
+      SharedTsBlockQueue queue,
+      SinkHandleListener sinkHandleListener) {
+    this.localFragmentInstanceId = Validate.notNull(localFragmentInstanceId);
+    this.queue = Validate.notNull(queue);
+    this.sinkHandleListener = sinkHandleListener;
+    queue.setSinkHandle(this);
+  }
+
+  @Override
+  public TFragmentInstanceId getLocalFragmentInstanceId() {
+    return localFragmentInstanceId;
+  }
+
+  SharedTsBlockQueue getSharedTsBlockQueue() {
+    return queue;
+  }
+
+  @Override
+  public long getBufferRetainedSizeInBytes() {
+    return queue.getBufferRetainedSizeInBytes();
+  }
+
+  @Override
+  public ListenableFuture<Void> isFull() {
+    return queue.isFull();
+  }
+
+  @Override
+  public void send(List<TsBlock> tsBlocks) {
+    Validate.notNull(tsBlocks, "tsBlocks is null");
+    if (closed) {
+      throw new IllegalStateException("Sink handle is closed.");
+    }
+    for (TsBlock tsBlock : tsBlocks) {
+      queue.add(tsBlock);
+    }
+  }
+
+  @Override
+  public void send(int partition, List<TsBlock> tsBlocks) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public void setNoMoreTsBlocks() {
+    queue.setNoMoreTsBlocks();
+  }
+
+  @Override
+  public boolean isClosed() {
+    return closed;
+  }
+
+  @Override
+  public boolean isFinished() {
+    return queue.isFinished();
+  }
+
+  @Override
+  public void close() {
+    logger.info("Sink handle {} is being closed.", this);
+    synchronized (this) {
+      if (closed) {
+        return;
+      }
+      closed = true;
+    }
+    queue.setNoMoreTsBlocks();
+    if (sinkHandleListener != null) {
+      sinkHandleListener.onClosed(this);
+    }
+    checkAndInvokeOnFinished();
+    logger.info("Sink handle {} is closed.", this);
+  }
+
+  @Override
+  public void abort() {
+    logger.info("Sink handle {} is being aborted.", this);
+    synchronized (this) {
+      closed = true;
+      aborted = true;
+    }
+    queue.close();
+    if (sinkHandleListener != null) {
+      sinkHandleListener.onAborted(this);
+    }
+    logger.info("Sink handle {} is aborted", this);
+  }
+
+  /**
+   * Invoke {@link SinkHandleListener#onFinish} once after the sink handle is closed and all the
+   * TsBlocks have been consumed, or the downstream has closed the queue.
+   */
+  void checkAndInvokeOnFinished() {
+    synchronized (this) {
+      if (!closed || aborted || finishInvoked || !queue.isFinished()) {
+        return;
+      }
+      finishInvoked = true;
+    }
+    if (sinkHandleListener != null) {
+      sinkHandleListener.onFinish(this);
+    }
+  }
+
+  @Override
+  public String toString() {
+    return new StringJoiner(", ", LocalSinkHandle.class.getSimpleName() + "[", "]")
+        .add("localFragmentInstanceId=" + localFragmentInstanceId)
+        .toString();
+  }
+}
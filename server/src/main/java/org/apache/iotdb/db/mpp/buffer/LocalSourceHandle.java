@@ -0,0 +1,124 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.mpp.buffer;
+
+import org.apache.iotdb.db.mpp.buffer.DataBlockManager.SourceHandleListener;
+import org.apache.iotdb.mpp.rpc.thrift.TFragmentInstanceId;
+import org.apache.iotdb.tsfile.read.common.block.TsBlock;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import org.apache.commons.lang3.Validate;
+
+import java.util.StringJoiner;
+
+/**
+ * A source handle that takes TsBlocks sent by a {@link LocalSinkHandle} in the same process from a
+ * {@link SharedTsBlockQueue}.
+ */
+public class LocalSourceHandle implements ISourceHandle {
+
+  private final TFragmentInstanceId localFragmentInstanceId;
+  private final String localPlanNodeId;
+  private final SharedTsBlockQueue queue;
+  private final SourceHandleListener sourceHandleListener;
+
+  private volatile boolean closed = false;
+
+  public LocalSourceHandle(
+      TFragmentInstanceId localFragmentInstanceId,
+      String localPlanNodeId,
+      SharedTsBlockQueue queue) {
+    this(localFragmentInstanceId, localPlanNodeId, queue, null);
+  }
+
+  public LocalSourceHandle(
+      TFragmentInstanceId localFragmentInstanceId,
+      String localPlanNodeId,
+      SharedTsBlockQueue queue,
+      SourceHandleListener sourceHandleListener) {
+    this.localFragmentInstanceId = Validate.notNull(localFragmentInstanceId);
+    this.localPlanNodeId = Validate.notNull(localPlanNodeId);
+    this.queue = Validate.notNull(queue);
+    this.sourceHandleListener = sourceHandleListener;
+  }
+
+  @Override
+  public TFragmentInstanceId getLocalFragmentInstanceId() {
+    return localFragmentInstanceId;
+  }
+
+  @Override
+  public String getLocalPlanNodeId() {
+    return localPlanNodeId;
+  }
+
+  @Override
+  public long getBufferRetainedSizeInBytes() {
+    return queue.getBufferRetainedSizeInBytes();
+  }
+
+  @Override
+  public TsBlock receive() {
+    if (closed) {
+      throw new IllegalStateException("Source handle is closed.");
+    }
+    TsBlock tsBlock = queue.remove();
+    if (queue.isFinished() && sourceHandleListener != null) {
+      sourceHandleListener.onFinished(this);
+    }
+    return tsBlock;
+  }
+
+  @Override
+  public boolean isFinished() {
+    return queue.isFinished();
+  }
+
+  @Override
+  public ListenableFuture<Void> isBlocked() {
+    return queue.isBlocked();
+  }
+
+  @Override
+  public boolean isClosed() {
+    return closed;
+  }
+
+  @Override
+  public void close() {
+    synchronized (this) {
+      if (closed) {
+        return;
+      }
+      closed = true;
+    }
+    queue.close();
+    if (sourceHandleListener != null) {
+      sourceHandleListener.onClosed(this);
+    }
+  }
+
+  @Override
+  public String toString() {
+    return new StringJoiner(", ", LocalSourceHandle.class.getSimpleName() + "[", "]")
+        .add("localFragmentInstanceId=" + localFragmentInstanceId)
+        .add("localPlanNodeId='" + localPlanNodeId + "'")
+        .toString();
+  }
+}
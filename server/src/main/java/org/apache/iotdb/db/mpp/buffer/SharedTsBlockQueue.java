@@ -0,0 +1,239 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.mpp.buffer;
+
+import org.apache.iotdb.db.mpp.memory.LocalMemoryManager;
+import org.apache.iotdb.db.mpp.memory.MemoryPool;
+import org.apache.iotdb.mpp.rpc.thrift.TFragmentInstanceId;
+import org.apache.iotdb.tsfile.read.common.block.TsBlock;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import org.apache.commons.lang3.Validate;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedList;
+import java.util.Queue;
+import java.util.Set;
+
+import static com.google.common.util.concurrent.Futures.immediateFuture;
+import static com.google.common.util.concurrent.Futures.nonCancellationPropagating;
+
+/**
+ * An in-memory queue of {@link TsBlock}s shared by a {@link LocalSinkHandle} and a {@link
+ * LocalSourceHandle} in the same process, so TsBlocks are passed by reference without
+ * serialization. Memory of the buffered TsBlocks is reserved from the query pool of {@link
+ * LocalMemoryManager}. If the memory of a TsBlock can't be reserved, the queue stays full until
+ * that TsBlock and all the TsBlocks added after it are consumed. A queue may also be bounded by the
+ * number of TsBlocks, so that it can't take the memory of the whole query while its consumer is
+ * busy with other inputs.
+ */
+@ThreadSafe
+public class SharedTsBlockQueue {
+
+  private final TFragmentInstanceId localFragmentInstanceId;
+  private final LocalMemoryManager localMemoryManager;
+
+  /** max number of TsBlocks in the queue before it is full */
+  private final int maxTsBlockCount;
+
+  private final Queue<TsBlock> queue = new LinkedList<>();
+
+  /** completed when the queue is not empty or no more TsBlocks will be added */
+  private SettableFuture<Void> blocked = SettableFuture.create();
+  /**
+   * completed when all the TsBlocks whose memory is not reserved have been consumed and there are
+   * less than maxTsBlockCount TsBlocks in the queue
+   */
+  private SettableFuture<Void> notFull = SettableFuture.create();
+  /** TsBlocks in the queue whose memory is not reserved, compared by identity */
+  private final Set<TsBlock> unreservedTsBlocks =
+      Collections.newSetFromMap(new IdentityHashMap<>());
+
+  private long bufferRetainedSizeInBytes = 0L;
+
+  private boolean noMoreTsBlocks = false;
+  private boolean closed = false;
+
+  private LocalSinkHandle sinkHandle;
+
+  public SharedTsBlockQueue(
+      TFragmentInstanceId localFragmentInstanceId, LocalMemoryManager localMemoryManager) {
+    this(localFragmentInstanceId, localMemoryManager, Integer.MAX_VALUE);
+  }
+
+  public SharedTsBlockQueue(
+      TFragmentInstanceId localFragmentInstanceId,
+      LocalMemoryManager localMemoryManager,
+      int maxTsBlockCount) {
+    Validate.isTrue(maxTsBlockCount > 0, "maxTsBlockCount must be positive");
+    this.localFragmentInstanceId = Validate.notNull(localFragmentInstanceId);
+    this.localMemoryManager = Validate.notNull(localMemoryManager);
+    this.maxTsBlockCount = maxTsBlockCount;
+    notFull.set(null);
+  }
+
+  public TFragmentInstanceId getLocalFragmentInstanceId() {
+    return localFragmentInstanceId;
+  }
+
+  /** Set the sink handle to be notified when all the TsBlocks have been consumed. */
+  public void setSinkHandle(LocalSinkHandle sinkHandle) {
+    this.sinkHandle = sinkHandle;
+  }
+
+  public synchronized boolean hasNoMoreTsBlocks() {
+    return noMoreTsBlocks;
+  }
+
+  /** Get the total amount of memory reserved by buffered tsblocks. */
+  public synchronized long getBufferRetainedSizeInBytes() {
+    return bufferRetainedSizeInBytes;
+  }
+
+  public synchronized int size() {
+    return queue.size();
+  }
+
+  public synchronized boolean isClosed() {
+    return closed;
+  }
+
+  /** If all the TsBlocks have been consumed, or the queue has been closed. */
+  public synchronized boolean isFinished() {
+    return closed || (noMoreTsBlocks && queue.isEmpty());
+  }
+
+  /** Get a future that will be completed when the queue is not empty or finished. */
+  public synchronized ListenableFuture<Void> isBlocked() {
+    if (!queue.isEmpty() || isFinished()) {
+      return immediateFuture(null);
+    }
+    return nonCancellationPropagating(blocked);
+  }
+
+  /** Get a future that will be completed when more TsBlocks can be added. */
+  public synchronized ListenableFuture<Void> isFull() {
+    return nonCancellationPropagating(notFull);
+  }
+
+  /**
+   * Add a TsBlock to the tail of the queue. The TsBlock is discarded if the queue has been closed
+   * or no more TsBlocks are expected. While the queue is full, the TsBlock is added without
+   * reserving its memory, so the queue stays full until it is consumed.
+   */
+  public synchronized void add(TsBlock tsBlock) {
+    Validate.notNull(tsBlock, "TsBlock is null");
+    if (closed || noMoreTsBlocks) {
+      return;
+    }
+    queue.add(tsBlock);
+    long retainedSizeInBytes = tsBlock.getRetainedSizeInBytes();
+    if (retainedSizeInBytes > 0) {
+      MemoryPool queryPool = localMemoryManager.getQueryPool();
+      if (unreservedTsBlocks.isEmpty()
+          && retainedSizeInBytes <= queryPool.getMaxBytesPerQuery()
+          && queryPool.tryReserve(localFragmentInstanceId.getQueryId(), retainedSizeInBytes)) {
+        bufferRetainedSizeInBytes += retainedSizeInBytes;
+      } else {
+        unreservedTsBlocks.add(tsBlock);
+      }
+    }
+    if (isFullInternal() && notFull.isDone()) {
+      notFull = SettableFuture.create();
+    }
+    blocked.set(null);
+  }
+
+  /** Remove a TsBlock from the head of the queue. Null is returned if the queue is empty. */
+  public TsBlock remove() {
+    TsBlock tsBlock;
+    boolean finished;
+    synchronized (this) {
+      tsBlock = queue.poll();
+      if (tsBlock == null) {
+        return null;
+      }
+      if (!unreservedTsBlocks.remove(tsBlock) && tsBlock.getRetainedSizeInBytes() > 0) {
+        localMemoryManager
+            .getQueryPool()
+            .free(localFragmentInstanceId.getQueryId(), tsBlock.getRetainedSizeInBytes());
+        bufferRetainedSizeInBytes -= tsBlock.getRetainedSizeInBytes();
+      }
+      if (!isFullInternal()) {
+        notFull.set(null);
+      }
+      if (queue.isEmpty() && !noMoreTsBlocks && blocked.isDone()) {
+        blocked = SettableFuture.create();
+      }
+      finished = isFinished();
+    }
+    if (finished) {
+      notifySinkHandle();
+    }
+    return tsBlock;
+  }
+
+  /** Notify the queue that no more TsBlocks will be added. */
+  public void setNoMoreTsBlocks() {
+    boolean finished;
+    synchronized (this) {
+      noMoreTsBlocks = true;
+      blocked.set(null);
+      finished = isFinished();
+    }
+    if (finished) {
+      notifySinkHandle();
+    }
+  }
+
+  /** Discard all the TsBlocks in the queue and complete all the pending futures. */
+  public void close() {
+    synchronized (this) {
+      if (closed) {
+        return;
+      }
+      closed = true;
+      queue.clear();
+      unreservedTsBlocks.clear();
+      if (bufferRetainedSizeInBytes > 0) {
+        localMemoryManager
+            .getQueryPool()
+            .free(localFragmentInstanceId.getQueryId(), bufferRetainedSizeInBytes);
+        bufferRetainedSizeInBytes = 0L;
+      }
+      blocked.set(null);
+      notFull.set(null);
+    }
+    notifySinkHandle();
+  }
+
+  private boolean isFullInternal() {
+    return !unreservedTsBlocks.isEmpty() || queue.size() >= maxTsBlockCount;
+  }
+
+  private void notifySinkHandle() {
+    if (sinkHandle != null) {
+      sinkHandle.checkAndInvokeOnFinished();
+    }
+  }
+}
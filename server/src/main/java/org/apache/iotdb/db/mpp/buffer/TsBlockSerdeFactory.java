@@ -19,13 +19,22 @@
 
 package org.apache.iotdb.db.mpp.buffer;
 
+import org.apache.iotdb.db.conf.IoTDBConfig;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.tsfile.read.common.block.column.TsBlockSerde;
 
 import java.util.function.Supplier;
 
+/**
+ * Create the {@link TsBlockSerde} of an exchange. A serialized TsBlock records its own compression
+ * type and column encodings, so data nodes with different configurations can still exchange
+ * TsBlocks.
+ */
 public class TsBlockSerdeFactory implements Supplier<TsBlockSerde> {
   @Override
   public TsBlockSerde get() {
-    return new TsBlockSerde();
+    IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
+    return new TsBlockSerde(
+        config.getDataBlockCompressionType(), config.isEnableDataBlockAdaptiveEncoding());
   }
 }
@@ -20,6 +20,7 @@ package org.apache.iotdb.db.mpp.execution;
 
 import org.apache.iotdb.db.engine.storagegroup.DataRegion;
 import org.apache.iotdb.db.metadata.path.PartialPath;
+import org.apache.iotdb.db.mpp.common.FragmentInstanceId;
 import org.apache.iotdb.db.mpp.operator.source.DataSourceOperator;
 import org.apache.iotdb.tsfile.read.filter.basic.Filter;
 
@@ -38,7 +39,23 @@ public class DataDriverContext extends DriverContext {
       Filter timeFilter,
       DataRegion dataRegion,
       List<DataSourceOperator> sourceOperators) {
-    super(fragmentInstanceContext);
+    this(
+        fragmentInstanceContext,
+        fragmentInstanceContext.getId(),
+        paths,
+        timeFilter,
+        dataRegion,
+        sourceOperators);
+  }
+
+  public DataDriverContext(
+      FragmentInstanceContext fragmentInstanceContext,
+      FragmentInstanceId driverId,
+      List<PartialPath> paths,
+      Filter timeFilter,
+      DataRegion dataRegion,
+      List<DataSourceOperator> sourceOperators) {
+    super(fragmentInstanceContext, driverId);
     this.paths = paths;
     this.timeFilter = timeFilter;
     this.dataRegion = dataRegion;
@@ -25,15 +25,24 @@ import java.util.concurrent.atomic.AtomicBoolean;
 public class DriverContext {
 
   private final FragmentInstanceContext fragmentInstanceContext;
+  // used to identify the driver in the scheduler, it's the id of the fragment instance unless the
+  // fragment instance is split into several drivers
+  private final FragmentInstanceId driverId;
 
   private final AtomicBoolean finished = new AtomicBoolean();
 
   public DriverContext(FragmentInstanceContext fragmentInstanceContext) {
+    this(fragmentInstanceContext, fragmentInstanceContext.getId());
+  }
+
+  public DriverContext(
+      FragmentInstanceContext fragmentInstanceContext, FragmentInstanceId driverId) {
     this.fragmentInstanceContext = fragmentInstanceContext;
+    this.driverId = driverId;
   }
 
   public FragmentInstanceId getId() {
-    return fragmentInstanceContext.getId();
+    return driverId;
   }
 
   public FragmentInstanceContext getFragmentInstanceContext() {
@@ -18,13 +18,15 @@
  */
 package org.apache.iotdb.db.mpp.execution;
 
-import org.apache.iotdb.db.mpp.buffer.ISinkHandle;
 import org.apache.iotdb.db.mpp.common.FragmentInstanceId;
 import org.apache.iotdb.db.mpp.schedule.IDriverScheduler;
 
 import com.google.common.collect.ImmutableList;
 import io.airlift.stats.CounterStat;
 
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkArgument;
 import static java.util.Objects.requireNonNull;
 import static org.apache.iotdb.db.mpp.execution.FragmentInstanceState.FAILED;
 
@@ -33,9 +35,9 @@ public class FragmentInstanceExecution {
   private final FragmentInstanceId instanceId;
   private final FragmentInstanceContext context;
 
-  private final IDriver driver;
-
-  private final ISinkHandle sinkHandle;
+  // the first driver is the one whose sink handle sends results to the downstream fragment
+  // instance, the others are drivers split from it and run in parallel
+  private final List<IDriver> drivers;
 
   private final FragmentInstanceStateMachine stateMachine;
 
@@ -48,22 +50,33 @@ public class FragmentInstanceExecution {
       IDriver driver,
       FragmentInstanceStateMachine stateMachine,
       CounterStat failedInstances) {
+    return createFragmentInstanceExecution(
+        scheduler, instanceId, context, ImmutableList.of(driver), stateMachine, failedInstances);
+  }
+
+  public static FragmentInstanceExecution createFragmentInstanceExecution(
+      IDriverScheduler scheduler,
+      FragmentInstanceId instanceId,
+      FragmentInstanceContext context,
+      List<IDriver> drivers,
+      FragmentInstanceStateMachine stateMachine,
+      CounterStat failedInstances) {
     FragmentInstanceExecution execution =
-        new FragmentInstanceExecution(instanceId, context, driver, stateMachine);
+        new FragmentInstanceExecution(instanceId, context, drivers, stateMachine);
     execution.initialize(failedInstances, scheduler);
-    scheduler.submitDrivers(instanceId.getQueryId(), ImmutableList.of(driver));
+    scheduler.submitDrivers(instanceId.getQueryId(), drivers);
     return execution;
   }
 
   private FragmentInstanceExecution(
       FragmentInstanceId instanceId,
       FragmentInstanceContext context,
-      IDriver driver,
+      List<IDriver> drivers,
       FragmentInstanceStateMachine stateMachine) {
+    checkArgument(!drivers.isEmpty(), "drivers should not be empty");
     this.instanceId = instanceId;
     this.context = context;
-    this.driver = driver;
-    this.sinkHandle = driver.getSinkHandle();
+    this.drivers = drivers;
     this.stateMachine = stateMachine;
   }
 
@@ -110,9 +123,11 @@ public class FragmentInstanceExecution {
             failedInstances.update(1);
           }
 
-          driver.close();
-          sinkHandle.abort();
-          scheduler.abortFragmentInstance(instanceId);
+          for (IDriver driver : drivers) {
+            driver.close();
+            driver.getSinkHandle().abort();
+            scheduler.abortFragmentInstance(driver.getInfo());
+          }
         });
   }
 }
@@ -32,6 +32,7 @@ import io.airlift.units.Duration;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
@@ -104,14 +105,14 @@ public class FragmentInstanceManager {
                           createFragmentInstanceContext(fragmentInstanceId, stateMachine));
 
               try {
-                DataDriver driver =
+                List<IDriver> drivers =
                     planner.plan(
                         instance.getFragment().getRoot(),
                         context,
                         instance.getTimeFilter(),
                         dataRegion);
                 return createFragmentInstanceExecution(
-                    scheduler, instanceId, context, driver, stateMachine, failedInstances);
+                    scheduler, instanceId, context, drivers, stateMachine, failedInstances);
               } catch (Throwable t) {
                 stateMachine.failed(t);
                 return null;
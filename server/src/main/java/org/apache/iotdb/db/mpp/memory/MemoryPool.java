@@ -27,12 +27,21 @@ import org.apache.commons.lang3.Validate;
 import javax.annotation.Nullable;
 
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.Map;
 import java.util.Queue;
+import java.util.Set;
 
-/** A thread-safe memory pool. */
+/**
+ * A thread-safe memory pool.
+ *
+ * <p>Holders of memory that can be spilled register themselves as {@link RevocableMemoryConsumer}s.
+ * When a reservation can't be satisfied, the pool asks the consumer with the most revocable memory
+ * to spill, rather than letting the reservation wait for memory that may never be freed by the
+ * query holding it. If the per query limit is hit, only the consumers of the same query are asked.
+ */
 public class MemoryPool {
 
   private static class MemoryReservationFuture<V> extends AbstractFuture<V> {
@@ -70,6 +79,7 @@ public class MemoryPool {
   private long reservedBytes = 0L;
   private final Map<String, Long> queryMemoryReservations = new HashMap<>();
   private final Queue<MemoryReservationFuture<Void>> memoryReservationFutures = new LinkedList<>();
+  private final Set<RevocableMemoryConsumer> revocableMemoryConsumers = new HashSet<>();
 
   public MemoryPool(String id, long maxBytes, long maxBytesPerQuery) {
     this.id = Validate.notNull(id);
@@ -89,6 +99,10 @@ public class MemoryPool {
     return maxBytes;
   }
 
+  public long getMaxBytesPerQuery() {
+    return maxBytesPerQuery;
+  }
+
   public ListenableFuture<Void> reserve(String queryId, long bytes) {
     Validate.notNull(queryId);
     Validate.isTrue(
@@ -101,6 +115,7 @@ public class MemoryPool {
           || maxBytesPerQuery - queryMemoryReservations.getOrDefault(queryId, 0L) < bytes) {
         result = MemoryReservationFuture.create(queryId, bytes);
         memoryReservationFutures.add((MemoryReservationFuture<Void>) result);
+        requestRevoke(queryId, bytes);
       } else {
         reservedBytes += bytes;
         queryMemoryReservations.merge(queryId, bytes, Long::sum);
@@ -117,13 +132,10 @@ public class MemoryPool {
         bytes > 0L && bytes <= maxBytesPerQuery,
         "bytes should be greater than zero while less than or equal to max bytes per query.");
 
-    if (maxBytes - reservedBytes < bytes
-        || maxBytesPerQuery - queryMemoryReservations.getOrDefault(queryId, 0L) < bytes) {
-      return false;
-    }
     synchronized (this) {
       if (maxBytes - reservedBytes < bytes
           || maxBytesPerQuery - queryMemoryReservations.getOrDefault(queryId, 0L) < bytes) {
+        requestRevoke(queryId, bytes);
         return false;
       }
       reservedBytes += bytes;
@@ -175,6 +187,35 @@ public class MemoryPool {
     }
   }
 
+  public synchronized void registerRevocableMemoryConsumer(RevocableMemoryConsumer consumer) {
+    revocableMemoryConsumers.add(Validate.notNull(consumer));
+  }
+
+  public synchronized void deregisterRevocableMemoryConsumer(RevocableMemoryConsumer consumer) {
+    revocableMemoryConsumers.remove(consumer);
+  }
+
+  /** Ask the biggest consumer that can help to satisfy the reservation to revoke its memory. */
+  private void requestRevoke(String queryId, long bytes) {
+    boolean queryLimitExceeded =
+        maxBytesPerQuery - queryMemoryReservations.getOrDefault(queryId, 0L) < bytes;
+    RevocableMemoryConsumer biggestConsumer = null;
+    long biggestRevocableBytes = 0L;
+    for (RevocableMemoryConsumer consumer : revocableMemoryConsumers) {
+      if (queryLimitExceeded && !queryId.equals(consumer.getQueryId())) {
+        continue;
+      }
+      long revocableBytes = consumer.getRevocableBytes();
+      if (revocableBytes > biggestRevocableBytes) {
+        biggestConsumer = consumer;
+        biggestRevocableBytes = revocableBytes;
+      }
+    }
+    if (biggestConsumer != null) {
+      biggestConsumer.requestRevoke();
+    }
+  }
+
   public long getQueryMemoryReservedBytes(String queryId) {
     return queryMemoryReservations.getOrDefault(queryId, 0L);
   }
@@ -0,0 +1,40 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.mpp.memory;
+
+/**
+ * A holder of memory reserved from a {@link MemoryPool} that can give the memory back by spilling
+ * its state to local disk. It's registered in the memory pool, which asks the biggest consumer to
+ * revoke its memory when a reservation can't be satisfied.
+ */
+public interface RevocableMemoryConsumer {
+
+  /** ID of the query that the memory is reserved for. */
+  String getQueryId();
+
+  /** The amount of reserved memory that can be freed by spilling. */
+  long getRevocableBytes();
+
+  /**
+   * Ask the consumer to free its revocable memory. This method may be called by any thread while
+   * holding the lock of the memory pool, so it should only record the request, and the consumer
+   * spills in its own thread as soon as possible.
+   */
+  void requestRevoke();
+}
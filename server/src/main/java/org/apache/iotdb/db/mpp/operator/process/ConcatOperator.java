@@ -0,0 +1,90 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.mpp.operator.process;
+
+import org.apache.iotdb.db.mpp.operator.Operator;
+import org.apache.iotdb.db.mpp.operator.OperatorContext;
+import org.apache.iotdb.tsfile.read.common.block.TsBlock;
+
+import com.google.common.util.concurrent.ListenableFuture;
+
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * ConcatOperator returns all the TsBlocks of its first child, then those of the second child, and
+ * so on. It's used to merge the outputs of drivers that scan disjoint time ranges of the same
+ * series, so the children must be ordered in the same order as the scan.
+ */
+public class ConcatOperator implements ProcessOperator {
+
+  private final OperatorContext operatorContext;
+  private final List<Operator> children;
+
+  private int currentIndex = 0;
+
+  public ConcatOperator(OperatorContext operatorContext, List<Operator> children) {
+    this.operatorContext = requireNonNull(operatorContext, "operatorContext is null");
+    this.children = requireNonNull(children, "children is null");
+    checkArgument(!children.isEmpty(), "children should not be empty");
+  }
+
+  @Override
+  public OperatorContext getOperatorContext() {
+    return operatorContext;
+  }
+
+  @Override
+  public ListenableFuture<Void> isBlocked() {
+    skipFinishedChildren();
+    return currentIndex < children.size() ? children.get(currentIndex).isBlocked() : NOT_BLOCKED;
+  }
+
+  @Override
+  public TsBlock next() {
+    return children.get(currentIndex).next();
+  }
+
+  @Override
+  public boolean hasNext() {
+    skipFinishedChildren();
+    return currentIndex < children.size();
+  }
+
+  @Override
+  public void close() throws Exception {
+    for (Operator child : children) {
+      child.close();
+    }
+  }
+
+  @Override
+  public boolean isFinished() {
+    skipFinishedChildren();
+    return currentIndex >= children.size();
+  }
+
+  private void skipFinishedChildren() {
+    while (currentIndex < children.size() && children.get(currentIndex).isFinished()) {
+      currentIndex++;
+    }
+  }
+}
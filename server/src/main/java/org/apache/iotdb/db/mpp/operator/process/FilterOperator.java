@@ -29,11 +29,13 @@ import org.apache.iotdb.tsfile.exception.write.UnSupportedDataTypeException;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.read.common.block.TsBlock;
 import org.apache.iotdb.tsfile.read.common.block.TsBlockBuilder;
+import org.apache.iotdb.tsfile.read.common.block.column.Column;
 import org.apache.iotdb.tsfile.read.common.block.column.ColumnBuilder;
 import org.apache.iotdb.tsfile.read.common.block.column.TimeColumnBuilder;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 public class FilterOperator extends TransformOperator {
@@ -65,6 +67,44 @@ public class FilterOperator extends TransformOperator {
     return expressions;
   }
 
+  @Override
+  protected void initColumnTransformers() throws QueryProcessException {
+    super.initColumnTransformers();
+    if (columnTransformers == null) {
+      return;
+    }
+
+    TSDataType filterDataType = columnTransformers[columnTransformers.length - 1].getDataType();
+    if (filterDataType != TSDataType.BOOLEAN) {
+      throw new UnSupportedDataTypeException(
+          String.format(
+              "Data type of the filter expression should be BOOLEAN, but %s is received.",
+              filterDataType));
+    }
+  }
+
+  @Override
+  protected int getOutputColumnCount() {
+    return outputExpressions.length - 1;
+  }
+
+  @Override
+  protected boolean[] selectRows(Column[] columns, int positionCount) {
+    boolean[] selected = selectRowsWithAtLeastOneValid(columns, positionCount);
+    if (selected == null) {
+      selected = new boolean[positionCount];
+      Arrays.fill(selected, true);
+    }
+
+    Column filterColumn = columns[columns.length - 1];
+    boolean allSelected = true;
+    for (int row = 0; row < positionCount; ++row) {
+      selected[row] &= !filterColumn.isNull(row) && filterColumn.getBoolean(row);
+      allSelected &= selected[row];
+    }
+    return allSelected ? null : selected;
+  }
+
   @Override
   protected void initTransformers() throws QueryProcessException, IOException {
     super.initTransformers();
@@ -92,6 +132,10 @@ public class FilterOperator extends TransformOperator {
 
   @Override
   public TsBlock next() {
+    if (columnTransformers != null) {
+      return nextByColumnTransformers();
+    }
+
     final TsBlockBuilder tsBlockBuilder = TsBlockBuilder.createWithOnlyTimeColumn();
 
     final int outputColumnCount = transformers.length - 1;
@@ -146,6 +190,9 @@ public class FilterOperator extends TransformOperator {
 
   @Override
   public boolean hasNext() {
+    if (columnTransformers != null) {
+      return inputOperator.hasNext();
+    }
     try {
       return filterPointReader.next();
     } catch (Exception e) {
@@ -7,7 +7,7 @@
  * "License"); you may not use this file except in compliance
  * with the License.  You may obtain a copy of the License at
  *
- *      http://www.apache.org/licenses/LICENSE-2.0
+ *     http://www.apache.org/licenses/LICENSE-2.0
  *
  * Unless required by applicable law or agreed to in writing,
  * software distributed under the License is distributed on an
@@ -18,40 +18,317 @@
  */
 package org.apache.iotdb.db.mpp.operator.process;
 
+import org.apache.iotdb.db.mpp.memory.MemoryPool;
+import org.apache.iotdb.db.mpp.memory.RevocableMemoryConsumer;
+import org.apache.iotdb.db.mpp.operator.Operator;
 import org.apache.iotdb.db.mpp.operator.OperatorContext;
+import org.apache.iotdb.db.mpp.operator.process.sort.SortKey;
+import org.apache.iotdb.db.mpp.operator.process.sort.SortedRunFile;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.read.common.block.TsBlock;
+import org.apache.iotdb.tsfile.read.common.block.TsBlockBuilder;
 
 import com.google.common.util.concurrent.ListenableFuture;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
-public class SortOperator implements ProcessOperator {
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * SortOperator sorts all the rows of its child. The TsBlocks of the child are cached in memory as
+ * long as their memory can be reserved from the {@link MemoryPool}, otherwise the cached rows are
+ * sorted and spilled to a run file on local disk. After the child is finished, the spilled runs and
+ * the rows still cached are merged into the output TsBlocks.
+ *
+ * <p>Before the child is finished, the cached rows are revocable memory of the {@link MemoryPool},
+ * which may ask this operator to spill them so that other queries can make progress.
+ */
+public class SortOperator implements ProcessOperator, RevocableMemoryConsumer {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(SortOperator.class);
+
+  private final OperatorContext operatorContext;
+  private final Operator child;
+  private final List<TSDataType> dataTypes;
+  private final Comparator<SortKey> comparator;
+  private final MemoryPool memoryPool;
+  private final String queryId;
+  private final String spillDir;
+
+  private final TsBlockBuilder tsBlockBuilder;
+
+  /** TsBlocks of the child which are not spilled, their memory is reserved from memoryPool */
+  private final List<TsBlock> cachedTsBlocks = new ArrayList<>();
+
+  private volatile long reservedBytes;
+
+  private volatile boolean revokeRequested;
+
+  private final List<SortedRunFile> spilledRuns = new ArrayList<>();
+
+  private PriorityQueue<SortedRun> mergeQueue;
+
+  private volatile boolean inputFinished;
+
+  public SortOperator(
+      OperatorContext operatorContext,
+      Operator child,
+      List<TSDataType> dataTypes,
+      Comparator<SortKey> comparator,
+      MemoryPool memoryPool,
+      String spillDir) {
+    this.operatorContext = requireNonNull(operatorContext, "operatorContext is null");
+    this.child = requireNonNull(child, "child operator is null");
+    this.dataTypes = dataTypes;
+    this.comparator = comparator;
+    this.memoryPool = memoryPool;
+    this.queryId = operatorContext.getInstanceContext().getId().getQueryId().getId();
+    this.spillDir = spillDir;
+    this.tsBlockBuilder = new TsBlockBuilder(dataTypes);
+    memoryPool.registerRevocableMemoryConsumer(this);
+  }
 
   @Override
   public OperatorContext getOperatorContext() {
-    return null;
+    return operatorContext;
   }
 
   @Override
   public ListenableFuture<Void> isBlocked() {
-    return ProcessOperator.super.isBlocked();
+    return inputFinished ? NOT_BLOCKED : child.isBlocked();
   }
 
   @Override
   public TsBlock next() {
-    return null;
+    try {
+      if (!inputFinished) {
+        if (revokeRequested && !cachedTsBlocks.isEmpty()) {
+          spill();
+        }
+        if (child.hasNext()) {
+          TsBlock tsBlock = child.next();
+          if (tsBlock != null && !tsBlock.isEmpty()) {
+            addInput(tsBlock);
+          }
+          // no output until all the rows of the child are consumed
+          tsBlockBuilder.reset();
+          return tsBlockBuilder.build();
+        }
+        memoryPool.deregisterRevocableMemoryConsumer(this);
+        prepareMerge();
+        // set after the merge queue is built, so the operator is never finished with a null queue
+        // even if the spilled runs fail to be read
+        inputFinished = true;
+      }
+      return buildOutput();
+    } catch (IOException e) {
+      throw new RuntimeException("Error happened while spilling sorted rows", e);
+    }
   }
 
   @Override
   public boolean hasNext() {
-    return false;
+    return !isFinished();
   }
 
   @Override
   public void close() throws Exception {
-    ProcessOperator.super.close();
+    memoryPool.deregisterRevocableMemoryConsumer(this);
+    child.close();
+    for (SortedRunFile spilledRun : spilledRuns) {
+      try {
+        spilledRun.close();
+      } catch (IOException e) {
+        LOGGER.warn("Failed to delete the spilled run {}", spilledRun.getFile(), e);
+      }
+    }
+    spilledRuns.clear();
+    cachedTsBlocks.clear();
+    freeMemory();
   }
 
   @Override
   public boolean isFinished() {
-    return false;
+    return inputFinished && mergeQueue != null && mergeQueue.isEmpty();
+  }
+
+  @Override
+  public String getQueryId() {
+    return queryId;
+  }
+
+  @Override
+  public long getRevocableBytes() {
+    return inputFinished ? 0L : reservedBytes;
+  }
+
+  @Override
+  public void requestRevoke() {
+    revokeRequested = true;
+  }
+
+  private void addInput(TsBlock tsBlock) throws IOException {
+    cachedTsBlocks.add(tsBlock);
+    long bytes = tsBlock.getRetainedSizeInBytes();
+    if (bytes <= memoryPool.getMaxBytesPerQuery() && memoryPool.tryReserve(queryId, bytes)) {
+      reservedBytes += bytes;
+    } else {
+      // the memory budget is exhausted
+      spill();
+    }
+  }
+
+  private List<SortKey> sortCachedRows() {
+    int rowCount = 0;
+    for (TsBlock tsBlock : cachedTsBlocks) {
+      rowCount += tsBlock.getPositionCount();
+    }
+    List<SortKey> sortKeys = new ArrayList<>(rowCount);
+    for (TsBlock tsBlock : cachedTsBlocks) {
+      for (int i = 0; i < tsBlock.getPositionCount(); i++) {
+        sortKeys.add(new SortKey(tsBlock, i));
+      }
+    }
+    sortKeys.sort(comparator);
+    return sortKeys;
+  }
+
+  /** sort the cached rows into a run file and release their memory */
+  private void spill() throws IOException {
+    revokeRequested = false;
+    File directory = new File(spillDir);
+    Files.createDirectories(directory.toPath());
+    File file =
+        new File(
+            directory,
+            String.format(
+                "%s-%d-%d.sort",
+                operatorContext.getInstanceContext().getId().getFullId(),
+                operatorContext.getOperatorId(),
+                spilledRuns.size()));
+    SortedRunFile spilledRun = new SortedRunFile(file);
+    spilledRuns.add(spilledRun);
+
+    tsBlockBuilder.reset();
+    for (SortKey sortKey : sortCachedRows()) {
+      sortKey.writeTo(tsBlockBuilder);
+      if (tsBlockBuilder.isFull()) {
+        spilledRun.write(tsBlockBuilder.build());
+        tsBlockBuilder.reset();
+      }
+    }
+    if (!tsBlockBuilder.isEmpty()) {
+      spilledRun.write(tsBlockBuilder.build());
+      tsBlockBuilder.reset();
+    }
+    spilledRun.finishWriting();
+
+    cachedTsBlocks.clear();
+    freeMemory();
+  }
+
+  private void prepareMerge() throws IOException {
+    mergeQueue =
+        new PriorityQueue<>(
+            spilledRuns.size() + 1,
+            (o1, o2) -> comparator.compare(o1.getCurrent(), o2.getCurrent()));
+    for (SortedRunFile spilledRun : spilledRuns) {
+      addToMergeQueue(new SpilledSortedRun(spilledRun));
+    }
+    if (!cachedTsBlocks.isEmpty()) {
+      addToMergeQueue(new InMemorySortedRun(sortCachedRows()));
+    }
+  }
+
+  private void addToMergeQueue(SortedRun sortedRun) throws IOException {
+    if (sortedRun.advance()) {
+      mergeQueue.add(sortedRun);
+    }
+  }
+
+  private TsBlock buildOutput() throws IOException {
+    tsBlockBuilder.reset();
+    while (!mergeQueue.isEmpty() && !tsBlockBuilder.isFull()) {
+      SortedRun sortedRun = mergeQueue.poll();
+      sortedRun.getCurrent().writeTo(tsBlockBuilder);
+      addToMergeQueue(sortedRun);
+    }
+    return tsBlockBuilder.build();
+  }
+
+  private void freeMemory() {
+    if (reservedBytes > 0) {
+      memoryPool.free(queryId, reservedBytes);
+      reservedBytes = 0;
+    }
+  }
+
+  /** A sequence of sorted rows to be merged. */
+  private interface SortedRun {
+
+    /** move to the next row, return false if there are no more rows */
+    boolean advance() throws IOException;
+
+    SortKey getCurrent();
+  }
+
+  private static class InMemorySortedRun implements SortedRun {
+
+    private final List<SortKey> sortKeys;
+    private int index = -1;
+
+    private InMemorySortedRun(List<SortKey> sortKeys) {
+      this.sortKeys = sortKeys;
+    }
+
+    @Override
+    public boolean advance() {
+      return ++index < sortKeys.size();
+    }
+
+    @Override
+    public SortKey getCurrent() {
+      return sortKeys.get(index);
+    }
+  }
+
+  private static class SpilledSortedRun implements SortedRun {
+
+    private final SortedRunFile runFile;
+    private SortKey current;
+
+    private SpilledSortedRun(SortedRunFile runFile) {
+      this.runFile = runFile;
+    }
+
+    @Override
+    public boolean advance() throws IOException {
+      if (current != null && current.getRowIndex() + 1 < current.getTsBlock().getPositionCount()) {
+        current = new SortKey(current.getTsBlock(), current.getRowIndex() + 1);
+        return true;
+      }
+      TsBlock tsBlock = runFile.read();
+      while (tsBlock != null && tsBlock.isEmpty()) {
+        tsBlock = runFile.read();
+      }
+      if (tsBlock == null) {
+        return false;
+      }
+      current = new SortKey(tsBlock, 0);
+      return true;
+    }
+
+    @Override
+    public SortKey getCurrent() {
+      return current;
+    }
   }
 }
@@ -0,0 +1,208 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.mpp.operator.process;
+
+import org.apache.iotdb.db.mpp.operator.Operator;
+import org.apache.iotdb.db.mpp.operator.OperatorContext;
+import org.apache.iotdb.db.mpp.operator.process.sort.SortKey;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.read.common.block.TsBlock;
+import org.apache.iotdb.tsfile.read.common.block.TsBlockBuilder;
+
+import com.google.common.util.concurrent.ListenableFuture;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * TopKOperator returns the first topValue rows of its children in the order of the comparator. The
+ * children are consumed one after another as a single input, so they don't need to be ordered by
+ * time. It keeps a bounded max-heap of the best rows seen so far, so a row is dropped as soon as
+ * topValue better rows are known. The TsBlocks referenced by the heap are compacted into one
+ * TsBlock from time to time, so the memory is bounded by O(topValue) rows instead of the whole
+ * input.
+ */
+public class TopKOperator implements ProcessOperator {
+
+  /** the heap is compacted when the TsBlocks it references hold more rows than this */
+  private static final int MIN_COMPACT_ROW_COUNT = 1024;
+
+  private final OperatorContext operatorContext;
+  private final List<Operator> children;
+  private final Comparator<SortKey> comparator;
+  private final int topValue;
+  private final int compactRowCount;
+
+  private final TsBlockBuilder tsBlockBuilder;
+
+  /** the worst retained row is at the head so that it can be replaced by a better one */
+  private final PriorityQueue<SortKey> heap;
+
+  /** row count of the TsBlocks referenced by the heap */
+  private long retainedRowCount;
+
+  /** index of the child being consumed */
+  private int childIndex;
+
+  private boolean inputFinished;
+
+  private SortKey[] sortedRows;
+  private int outputIndex;
+
+  public TopKOperator(
+      OperatorContext operatorContext,
+      Operator child,
+      List<TSDataType> dataTypes,
+      Comparator<SortKey> comparator,
+      int topValue) {
+    this(
+        operatorContext,
+        Collections.singletonList(requireNonNull(child, "child operator is null")),
+        dataTypes,
+        comparator,
+        topValue);
+  }
+
+  public TopKOperator(
+      OperatorContext operatorContext,
+      List<Operator> children,
+      List<TSDataType> dataTypes,
+      Comparator<SortKey> comparator,
+      int topValue) {
+    checkArgument(topValue >= 0, "topValue must be non-negative");
+    this.operatorContext = requireNonNull(operatorContext, "operatorContext is null");
+    this.children = requireNonNull(children, "children is null");
+    this.comparator = comparator;
+    this.topValue = topValue;
+    this.compactRowCount = Math.max(MIN_COMPACT_ROW_COUNT, 2 * topValue);
+    this.tsBlockBuilder = new TsBlockBuilder(dataTypes);
+    this.heap = new PriorityQueue<>(Math.max(1, topValue), comparator.reversed());
+  }
+
+  @Override
+  public OperatorContext getOperatorContext() {
+    return operatorContext;
+  }
+
+  @Override
+  public ListenableFuture<Void> isBlocked() {
+    return inputFinished || childIndex >= children.size()
+        ? NOT_BLOCKED
+        : children.get(childIndex).isBlocked();
+  }
+
+  @Override
+  public TsBlock next() {
+    tsBlockBuilder.reset();
+    if (!inputFinished) {
+      while (childIndex < children.size() && !children.get(childIndex).hasNext()) {
+        childIndex++;
+      }
+      if (topValue > 0 && childIndex < children.size()) {
+        Operator child = children.get(childIndex);
+        // the next child may not be ready yet, wait for it in isBlocked
+        if (child.isBlocked().isDone()) {
+          TsBlock tsBlock = child.next();
+          if (tsBlock != null && !tsBlock.isEmpty()) {
+            addInput(tsBlock);
+          }
+        }
+        // no output until all the rows of the children are consumed
+        return tsBlockBuilder.build();
+      }
+      inputFinished = true;
+      prepareOutput();
+    }
+    while (outputIndex < sortedRows.length && !tsBlockBuilder.isFull()) {
+      sortedRows[outputIndex].writeTo(tsBlockBuilder);
+      // release the reference as soon as the row is returned
+      sortedRows[outputIndex++] = null;
+    }
+    return tsBlockBuilder.build();
+  }
+
+  @Override
+  public boolean hasNext() {
+    return !isFinished();
+  }
+
+  @Override
+  public void close() throws Exception {
+    for (Operator child : children) {
+      child.close();
+    }
+    heap.clear();
+    sortedRows = null;
+  }
+
+  @Override
+  public boolean isFinished() {
+    return inputFinished && outputIndex >= sortedRows.length;
+  }
+
+  private void addInput(TsBlock tsBlock) {
+    boolean retained = false;
+    for (int i = 0; i < tsBlock.getPositionCount(); i++) {
+      SortKey row = new SortKey(tsBlock, i);
+      if (heap.size() < topValue) {
+        heap.add(row);
+        retained = true;
+      } else if (comparator.compare(row, heap.peek()) < 0) {
+        heap.poll();
+        heap.add(row);
+        retained = true;
+      }
+    }
+    if (retained) {
+      retainedRowCount += tsBlock.getPositionCount();
+      if (retainedRowCount > compactRowCount) {
+        compact();
+      }
+    }
+  }
+
+  /** copy the retained rows into a new TsBlock to release the TsBlocks they come from */
+  private void compact() {
+    tsBlockBuilder.reset();
+    for (SortKey row : heap) {
+      row.writeTo(tsBlockBuilder);
+    }
+    TsBlock compacted = tsBlockBuilder.build();
+    tsBlockBuilder.reset();
+    heap.clear();
+    for (int i = 0; i < compacted.getPositionCount(); i++) {
+      heap.add(new SortKey(compacted, i));
+    }
+    retainedRowCount = compacted.getPositionCount();
+  }
+
+  private void prepareOutput() {
+    sortedRows = new SortKey[heap.size()];
+    // the heap pops the worst row first
+    for (int i = sortedRows.length - 1; i >= 0; i--) {
+      sortedRows[i] = heap.poll();
+    }
+    retainedRowCount = 0;
+  }
+}
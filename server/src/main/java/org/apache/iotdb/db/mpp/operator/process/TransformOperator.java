@@ -23,6 +23,8 @@ import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.exception.query.QueryProcessException;
 import org.apache.iotdb.db.mpp.operator.Operator;
 import org.apache.iotdb.db.mpp.operator.OperatorContext;
+import org.apache.iotdb.db.mpp.operator.process.transform.ColumnTransformer;
+import org.apache.iotdb.db.mpp.operator.process.transform.ColumnTransformerBuilder;
 import org.apache.iotdb.db.query.dataset.IUDFInputDataSet;
 import org.apache.iotdb.db.query.expression.Expression;
 import org.apache.iotdb.db.query.udf.core.executor.UDTFContext;
@@ -37,6 +39,7 @@ import org.apache.iotdb.tsfile.exception.write.UnSupportedDataTypeException;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.read.common.block.TsBlock;
 import org.apache.iotdb.tsfile.read.common.block.TsBlockBuilder;
+import org.apache.iotdb.tsfile.read.common.block.column.Column;
 import org.apache.iotdb.tsfile.read.common.block.column.ColumnBuilder;
 import org.apache.iotdb.tsfile.read.common.block.column.TimeColumnBuilder;
 
@@ -64,6 +67,13 @@ public class TransformOperator implements ProcessOperator {
   protected final UDTFContext udtfContext;
   protected final boolean keepNull;
 
+  /**
+   * Evaluate the expressions on whole columns of the input TsBlocks. It is null if any of the
+   * expressions is not supported by {@link ColumnTransformerBuilder}, and then the expressions are
+   * evaluated point by point by the UDF layers.
+   */
+  protected ColumnTransformer[] columnTransformers;
+
   protected IUDFInputDataSet inputDataset;
   protected LayerPointReader[] transformers;
   protected TimeSelector timeHeap;
@@ -84,9 +94,26 @@ public class TransformOperator implements ProcessOperator {
     this.udtfContext = udtfContext;
     this.keepNull = keepNull;
 
-    initInputDataset(inputDataTypes);
-    initTransformers();
-    initLayerPointReaders();
+    initColumnTransformers();
+    if (columnTransformers == null) {
+      initInputDataset(inputDataTypes);
+      initTransformers();
+      initLayerPointReaders();
+    }
+  }
+
+  protected void initColumnTransformers() throws QueryProcessException {
+    columnTransformers = ColumnTransformerBuilder.tryBuild(outputExpressions, inputDataTypes);
+    if (columnTransformers != null) {
+      outputDataTypes = new ArrayList<>();
+      for (int i = 0; i < getOutputColumnCount(); i++) {
+        outputDataTypes.add(columnTransformers[i].getDataType());
+      }
+    }
+  }
+
+  protected int getOutputColumnCount() {
+    return outputExpressions.length;
   }
 
   private void initInputDataset(List<TSDataType> inputDataTypes) {
@@ -139,11 +166,18 @@ public class TransformOperator implements ProcessOperator {
 
   @Override
   public boolean hasNext() {
+    if (columnTransformers != null) {
+      return inputOperator.hasNext();
+    }
     return !timeHeap.isEmpty();
   }
 
   @Override
   public TsBlock next() {
+    if (columnTransformers != null) {
+      return nextByColumnTransformers();
+    }
+
     final TsBlockBuilder tsBlockBuilder = TsBlockBuilder.createWithOnlyTimeColumn();
 
     if (outputDataTypes == null) {
@@ -182,6 +216,76 @@ public class TransformOperator implements ProcessOperator {
     return tsBlockBuilder.build();
   }
 
+  protected TsBlock nextByColumnTransformers() {
+    TsBlock input = inputOperator.next();
+    if (input == null || input.isEmpty()) {
+      final TsBlockBuilder tsBlockBuilder = new TsBlockBuilder(outputDataTypes);
+      return tsBlockBuilder.build();
+    }
+
+    final int positionCount = input.getPositionCount();
+    final Column[] columns = new Column[columnTransformers.length];
+    for (int i = 0; i < columns.length; ++i) {
+      columns[i] = columnTransformers[i].evaluate(input);
+    }
+
+    final boolean[] selected = selectRows(columns, positionCount);
+    final int outputColumnCount = getOutputColumnCount();
+    if (selected == null) {
+      Column[] outputColumns = new Column[outputColumnCount];
+      System.arraycopy(columns, 0, outputColumns, 0, outputColumnCount);
+      return new TsBlock(positionCount, input.getTimeColumn(), outputColumns);
+    }
+
+    final TsBlockBuilder tsBlockBuilder = new TsBlockBuilder(outputDataTypes);
+    final TimeColumnBuilder timeBuilder = tsBlockBuilder.getTimeColumnBuilder();
+    final ColumnBuilder[] columnBuilders = tsBlockBuilder.getValueColumnBuilders();
+    for (int row = 0; row < positionCount; ++row) {
+      if (!selected[row]) {
+        continue;
+      }
+      timeBuilder.writeLong(input.getTimeByIndex(row));
+      for (int i = 0; i < outputColumnCount; ++i) {
+        if (columns[i].isNull(row)) {
+          columnBuilders[i].appendNull();
+        } else {
+          columnBuilders[i].write(columns[i], row);
+        }
+      }
+      tsBlockBuilder.declarePosition();
+    }
+    return tsBlockBuilder.build();
+  }
+
+  /**
+   * @return whether each row of the evaluated columns should be returned, or null if all the rows
+   *     should be returned
+   */
+  protected boolean[] selectRows(Column[] columns, int positionCount) {
+    if (keepNull) {
+      return null;
+    }
+    return selectRowsWithAtLeastOneValid(columns, positionCount);
+  }
+
+  protected boolean[] selectRowsWithAtLeastOneValid(Column[] columns, int positionCount) {
+    boolean[] selected = new boolean[positionCount];
+    boolean allSelected = true;
+    for (int i = 0; i < getOutputColumnCount(); ++i) {
+      Column column = columns[i];
+      if (!column.mayHaveNull()) {
+        return null;
+      }
+      for (int row = 0; row < positionCount; ++row) {
+        selected[row] |= !column.isNull(row);
+      }
+    }
+    for (int row = 0; row < positionCount; ++row) {
+      allSelected &= selected[row];
+    }
+    return allSelected ? null : selected;
+  }
+
   protected void collectDataPoint(LayerPointReader reader, ColumnBuilder writer, long currentTime)
       throws QueryProcessException, IOException {
     if (!reader.next() || reader.currentTime() != currentTime || reader.isCurrentNull()) {
@@ -219,7 +323,9 @@ public class TransformOperator implements ProcessOperator {
 
   @Override
   public void close() throws Exception {
-    udtfContext.finalizeUDFExecutors(operatorContext.getOperatorId());
+    if (columnTransformers == null) {
+      udtfContext.finalizeUDFExecutors(operatorContext.getOperatorId());
+    }
 
     inputOperator.close();
   }
@@ -0,0 +1,59 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.mpp.operator.process.sort;
+
+import org.apache.iotdb.tsfile.read.common.block.TsBlock;
+import org.apache.iotdb.tsfile.read.common.block.TsBlockBuilder;
+import org.apache.iotdb.tsfile.read.common.block.column.Column;
+import org.apache.iotdb.tsfile.read.common.block.column.ColumnBuilder;
+
+/** Position of a row in a TsBlock, which is compared by {@link SortKeyComparator}. */
+public class SortKey {
+
+  TsBlock tsBlock;
+  int rowIndex;
+
+  public SortKey(TsBlock tsBlock, int rowIndex) {
+    this.tsBlock = tsBlock;
+    this.rowIndex = rowIndex;
+  }
+
+  public TsBlock getTsBlock() {
+    return tsBlock;
+  }
+
+  public int getRowIndex() {
+    return rowIndex;
+  }
+
+  /** copy the row into tsBlockBuilder, whose value columns must be the same as the TsBlock */
+  public void writeTo(TsBlockBuilder tsBlockBuilder) {
+    tsBlockBuilder.getTimeColumnBuilder().writeLong(tsBlock.getTimeByIndex(rowIndex));
+    for (int i = 0; i < tsBlock.getValueColumnCount(); i++) {
+      Column column = tsBlock.getColumn(i);
+      ColumnBuilder columnBuilder = tsBlockBuilder.getColumnBuilder(i);
+      if (column.isNull(rowIndex)) {
+        columnBuilder.appendNull();
+      } else {
+        columnBuilder.write(column, rowIndex);
+      }
+    }
+    tsBlockBuilder.declarePosition();
+  }
+}
@@ -0,0 +1,90 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.mpp.operator.process.sort;
+
+import org.apache.iotdb.tsfile.read.common.block.column.Column;
+
+import java.util.Comparator;
+
+/**
+ * Compare rows by the time column and value columns in turn. Null values are always put after
+ * non-null values.
+ */
+public class SortKeyComparator implements Comparator<SortKey> {
+
+  /** index of the time column in sortColumnIndexes */
+  public static final int TIME_COLUMN_INDEX = -1;
+
+  private final int[] sortColumnIndexes;
+
+  private final boolean ascending;
+
+  public SortKeyComparator(int[] sortColumnIndexes, boolean ascending) {
+    this.sortColumnIndexes = sortColumnIndexes;
+    this.ascending = ascending;
+  }
+
+  @Override
+  public int compare(SortKey o1, SortKey o2) {
+    for (int columnIndex : sortColumnIndexes) {
+      int result;
+      if (columnIndex == TIME_COLUMN_INDEX) {
+        result =
+            Long.compare(
+                o1.tsBlock.getTimeByIndex(o1.rowIndex), o2.tsBlock.getTimeByIndex(o2.rowIndex));
+      } else {
+        Column column1 = o1.tsBlock.getColumn(columnIndex);
+        Column column2 = o2.tsBlock.getColumn(columnIndex);
+        boolean isNull1 = column1.isNull(o1.rowIndex);
+        boolean isNull2 = column2.isNull(o2.rowIndex);
+        if (isNull1 || isNull2) {
+          if (isNull1 && isNull2) {
+            continue;
+          }
+          return isNull1 ? 1 : -1;
+        }
+        result = compareValue(column1, o1.rowIndex, column2, o2.rowIndex);
+      }
+      if (result != 0) {
+        return ascending ? result : -result;
+      }
+    }
+    return 0;
+  }
+
+  private int compareValue(Column column1, int rowIndex1, Column column2, int rowIndex2) {
+    switch (column1.getDataType()) {
+      case INT32:
+        return Integer.compare(column1.getInt(rowIndex1), column2.getInt(rowIndex2));
+      case INT64:
+        return Long.compare(column1.getLong(rowIndex1), column2.getLong(rowIndex2));
+      case FLOAT:
+        return Float.compare(column1.getFloat(rowIndex1), column2.getFloat(rowIndex2));
+      case DOUBLE:
+        return Double.compare(column1.getDouble(rowIndex1), column2.getDouble(rowIndex2));
+      case BOOLEAN:
+        return Boolean.compare(column1.getBoolean(rowIndex1), column2.getBoolean(rowIndex2));
+      case TEXT:
+        return column1.getBinary(rowIndex1).compareTo(column2.getBinary(rowIndex2));
+      default:
+        throw new UnsupportedOperationException(
+            "Unsupported data type to sort: " + column1.getDataType());
+    }
+  }
+}
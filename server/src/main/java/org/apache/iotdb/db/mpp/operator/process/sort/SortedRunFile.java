@@ -0,0 +1,99 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.mpp.operator.process.sort;
+
+import org.apache.iotdb.tsfile.read.common.block.TsBlock;
+import org.apache.iotdb.tsfile.read.common.block.column.TsBlockSerde;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+
+/**
+ * A run of sorted rows spilled to local disk. TsBlocks are appended to the file one by one, and are
+ * read back in the same order after {@link #finishWriting()} is called.
+ */
+public class SortedRunFile implements AutoCloseable {
+
+  private final File file;
+
+  private final TsBlockSerde serde = new TsBlockSerde();
+
+  private DataOutputStream outputStream;
+
+  private DataInputStream inputStream;
+
+  public SortedRunFile(File file) throws IOException {
+    this.file = file;
+    this.outputStream = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+  }
+
+  public void write(TsBlock tsBlock) throws IOException {
+    ByteBuffer buffer = serde.serialize(tsBlock);
+    outputStream.writeInt(buffer.remaining());
+    outputStream.write(buffer.array(), buffer.arrayOffset(), buffer.remaining());
+  }
+
+  public void finishWriting() throws IOException {
+    outputStream.close();
+    outputStream = null;
+  }
+
+  /** @return the next TsBlock of this run, or null if all TsBlocks have been read */
+  public TsBlock read() throws IOException {
+    if (inputStream == null) {
+      inputStream = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+    }
+    int length;
+    try {
+      length = inputStream.readInt();
+    } catch (EOFException e) {
+      return null;
+    }
+    byte[] bytes = new byte[length];
+    inputStream.readFully(bytes);
+    return serde.deserialize(ByteBuffer.wrap(bytes));
+  }
+
+  public File getFile() {
+    return file;
+  }
+
+  @Override
+  public void close() throws IOException {
+    try {
+      if (outputStream != null) {
+        outputStream.close();
+      }
+      if (inputStream != null) {
+        inputStream.close();
+      }
+    } finally {
+      Files.deleteIfExists(file.toPath());
+    }
+  }
+}
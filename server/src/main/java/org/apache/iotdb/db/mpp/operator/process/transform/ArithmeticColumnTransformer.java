@@ -0,0 +1,75 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.mpp.operator.process.transform;
+
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.read.common.block.TsBlock;
+import org.apache.iotdb.tsfile.read.common.block.column.Column;
+import org.apache.iotdb.tsfile.read.common.block.column.DoubleColumn;
+
+import java.util.Optional;
+
+/**
+ * Evaluates a tree of +, -, *, / and % by an {@link ArithmeticKernel}. Same as {@link
+ * org.apache.iotdb.db.query.udf.core.transformer.ArithmeticBinaryTransformer}, the operands are
+ * cast to double and the result is DOUBLE, which is null if any of the operands is null.
+ */
+public class ArithmeticColumnTransformer extends ColumnTransformer {
+
+  private final ArithmeticKernel kernel;
+  private final ColumnTransformer[] inputs;
+  private final double[] constants;
+
+  public ArithmeticColumnTransformer(
+      ArithmeticKernel kernel, ColumnTransformer[] inputs, double[] constants) {
+    this.kernel = kernel;
+    this.inputs = inputs;
+    this.constants = constants;
+  }
+
+  @Override
+  protected Column doEvaluate(TsBlock input) {
+    int positionCount = input.getPositionCount();
+    double[][] inputValues = new double[inputs.length][];
+    boolean[] isNull = null;
+    for (int i = 0; i < inputs.length; i++) {
+      Column column = inputs[i].evaluate(input);
+      inputValues[i] = toDoubleArray(column);
+      boolean[] columnIsNull = getNullBitmap(column);
+      if (isNull == null) {
+        isNull = columnIsNull;
+      } else if (columnIsNull != null) {
+        for (int j = 0; j < positionCount; j++) {
+          isNull[j] |= columnIsNull[j];
+        }
+      }
+    }
+    double[] values = kernel.evaluate(inputValues, constants, positionCount);
+    return new DoubleColumn(positionCount, Optional.ofNullable(isNull), values);
+  }
+
+  public ArithmeticKernel getKernel() {
+    return kernel;
+  }
+
+  @Override
+  public TSDataType getDataType() {
+    return TSDataType.DOUBLE;
+  }
+}
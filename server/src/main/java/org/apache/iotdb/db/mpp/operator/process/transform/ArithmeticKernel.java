@@ -0,0 +1,420 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.mpp.operator.process.transform;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * ArithmeticKernel is a tree of +, -, *, / and % compiled into a flat program, which evaluates the
+ * whole tree in one pass of tight loops over double arrays, without virtual calls or intermediate
+ * columns between the nodes of the tree.
+ *
+ * <p>A kernel is compiled from the normalized shape of the tree, where the operands are replaced by
+ * their slots, e.g. {@code s1 * 1.8 + 32} and {@code s2 * 2 + 10} share the shape {@code
+ * +(*($0,#0),#1)}. $i is the i-th input column and #i is the i-th constant. The compiled kernels
+ * are cached by their shapes, so the queries with the same shape of expressions share one kernel.
+ */
+public final class ArithmeticKernel {
+
+  private static final int MAX_CACHED_KERNEL_COUNT = 1024;
+
+  private static final Cache<String, ArithmeticKernel> KERNEL_CACHE =
+      Caffeine.newBuilder().maximumSize(MAX_CACHED_KERNEL_COUNT).build();
+
+  // r[d] = r[a] op r[b]
+  private static final byte ADD = 0;
+  private static final byte SUBTRACT = 1;
+  private static final byte MULTIPLY = 2;
+  private static final byte DIVIDE = 3;
+  private static final byte MODULO = 4;
+  // r[d] = r[a] op c[b]
+  private static final byte ADD_CONSTANT = 5;
+  private static final byte SUBTRACT_CONSTANT = 6;
+  private static final byte MULTIPLY_CONSTANT = 7;
+  private static final byte DIVIDE_CONSTANT = 8;
+  private static final byte MODULO_CONSTANT = 9;
+  // r[d] = c[b] op r[a]
+  private static final byte CONSTANT_SUBTRACT = 10;
+  private static final byte CONSTANT_DIVIDE = 11;
+  private static final byte CONSTANT_MODULO = 12;
+  // r[d] = c[b]
+  private static final byte FILL_CONSTANT = 13;
+
+  private final String shape;
+  private final int inputCount;
+  private final int registerCount;
+  private final byte[] opcodes;
+  private final int[] destinations;
+  private final int[] leftOperands;
+  private final int[] rightOperands;
+
+  private ArithmeticKernel(
+      String shape,
+      int inputCount,
+      int registerCount,
+      byte[] opcodes,
+      int[] destinations,
+      int[] leftOperands,
+      int[] rightOperands) {
+    this.shape = shape;
+    this.inputCount = inputCount;
+    this.registerCount = registerCount;
+    this.opcodes = opcodes;
+    this.destinations = destinations;
+    this.leftOperands = leftOperands;
+    this.rightOperands = rightOperands;
+  }
+
+  public static ArithmeticKernel getOrCompile(String shape) {
+    return KERNEL_CACHE.get(shape, ArithmeticKernel::compile);
+  }
+
+  public static String inputSlot(int index) {
+    return "$" + index;
+  }
+
+  public static String constantSlot(int index) {
+    return "#" + index;
+  }
+
+  public String getShape() {
+    return shape;
+  }
+
+  public int getInputCount() {
+    return inputCount;
+  }
+
+  /**
+   * @param inputs values of the input columns, which are not modified
+   * @param constants values of the constants
+   * @return the result of the tree
+   */
+  public double[] evaluate(double[][] inputs, double[] constants, int positionCount) {
+    double[][] registers = new double[registerCount][];
+    System.arraycopy(inputs, 0, registers, 0, inputCount);
+    for (int i = 0; i < opcodes.length; i++) {
+      int destination = destinations[i];
+      if (registers[destination] == null) {
+        registers[destination] = new double[positionCount];
+      }
+      double[] d = registers[destination];
+      double[] a = registers[leftOperands[i]];
+      double[] b;
+      double c;
+      switch (opcodes[i]) {
+        case ADD:
+          b = registers[rightOperands[i]];
+          for (int j = 0; j < positionCount; j++) {
+            d[j] = a[j] + b[j];
+          }
+          break;
+        case SUBTRACT:
+          b = registers[rightOperands[i]];
+          for (int j = 0; j < positionCount; j++) {
+            d[j] = a[j] - b[j];
+          }
+          break;
+        case MULTIPLY:
+          b = registers[rightOperands[i]];
+          for (int j = 0; j < positionCount; j++) {
+            d[j] = a[j] * b[j];
+          }
+          break;
+        case DIVIDE:
+          b = registers[rightOperands[i]];
+          for (int j = 0; j < positionCount; j++) {
+            d[j] = a[j] / b[j];
+          }
+          break;
+        case MODULO:
+          b = registers[rightOperands[i]];
+          for (int j = 0; j < positionCount; j++) {
+            d[j] = a[j] % b[j];
+          }
+          break;
+        case ADD_CONSTANT:
+          c = constants[rightOperands[i]];
+          for (int j = 0; j < positionCount; j++) {
+            d[j] = a[j] + c;
+          }
+          break;
+        case SUBTRACT_CONSTANT:
+          c = constants[rightOperands[i]];
+          for (int j = 0; j < positionCount; j++) {
+            d[j] = a[j] - c;
+          }
+          break;
+        case MULTIPLY_CONSTANT:
+          c = constants[rightOperands[i]];
+          for (int j = 0; j < positionCount; j++) {
+            d[j] = a[j] * c;
+          }
+          break;
+        case DIVIDE_CONSTANT:
+          c = constants[rightOperands[i]];
+          for (int j = 0; j < positionCount; j++) {
+            d[j] = a[j] / c;
+          }
+          break;
+        case MODULO_CONSTANT:
+          c = constants[rightOperands[i]];
+          for (int j = 0; j < positionCount; j++) {
+            d[j] = a[j] % c;
+          }
+          break;
+        case CONSTANT_SUBTRACT:
+          c = constants[rightOperands[i]];
+          for (int j = 0; j < positionCount; j++) {
+            d[j] = c - a[j];
+          }
+          break;
+        case CONSTANT_DIVIDE:
+          c = constants[rightOperands[i]];
+          for (int j = 0; j < positionCount; j++) {
+            d[j] = c / a[j];
+          }
+          break;
+        case CONSTANT_MODULO:
+          c = constants[rightOperands[i]];
+          for (int j = 0; j < positionCount; j++) {
+            d[j] = c % a[j];
+          }
+          break;
+        case FILL_CONSTANT:
+          c = constants[rightOperands[i]];
+          for (int j = 0; j < positionCount; j++) {
+            d[j] = c;
+          }
+          break;
+        default:
+          throw new IllegalStateException("Unknown opcode: " + opcodes[i]);
+      }
+    }
+    return registers[destinations[opcodes.length - 1]];
+  }
+
+  private static ArithmeticKernel compile(String shape) {
+    Compiler compiler = new Compiler(shape);
+    Operand result = compiler.compileOperand();
+    if (compiler.position != shape.length() || !result.isTemporary) {
+      throw new IllegalArgumentException("Illegal arithmetic shape: " + shape);
+    }
+    return compiler.build();
+  }
+
+  /**
+   * Compiles a shape in prefix notation, e.g. {@code +(*($0,#0),#1)}. The registers of the inputs
+   * are read-only, and the registers of the intermediate results are reused once they are consumed.
+   */
+  private static class Compiler {
+
+    private final String shape;
+    private int position;
+
+    private int inputCount;
+    private int temporaryCount;
+    private final Deque<Integer> freeTemporaries = new ArrayDeque<>();
+
+    private final List<Byte> opcodes = new ArrayList<>();
+    private final List<Operand> destinations = new ArrayList<>();
+    private final List<Operand> leftOperands = new ArrayList<>();
+    private final List<Operand> rightOperands = new ArrayList<>();
+
+    private Compiler(String shape) {
+      this.shape = shape;
+    }
+
+    private Operand compileOperand() {
+      if (position >= shape.length()) {
+        throw new IllegalArgumentException("Illegal arithmetic shape: " + shape);
+      }
+      char c = shape.charAt(position++);
+      if (c == '$') {
+        int index = readIndex();
+        inputCount = Math.max(inputCount, index + 1);
+        return new Operand(false, false, index);
+      }
+      if (c == '#') {
+        return new Operand(true, false, readIndex());
+      }
+      expect('(');
+      Operand left = compileOperand();
+      expect(',');
+      Operand right = compileOperand();
+      expect(')');
+      return compileBinary(c, left, right);
+    }
+
+    private Operand compileBinary(char operator, Operand left, Operand right) {
+      if (left.isConstant && right.isConstant) {
+        // materialize one of the constants, which only happens to constant sub-trees
+        Operand filled = allocate();
+        emit(FILL_CONSTANT, filled, filled, left);
+        left = filled;
+      }
+      release(left);
+      release(right);
+      Operand destination = allocate();
+      if (!left.isConstant && !right.isConstant) {
+        emit(registerOpcode(operator), destination, left, right);
+      } else if (right.isConstant) {
+        emit(rightConstantOpcode(operator), destination, left, right);
+      } else {
+        emit(leftConstantOpcode(operator), destination, right, left);
+      }
+      return destination;
+    }
+
+    private byte registerOpcode(char operator) {
+      switch (operator) {
+        case '+':
+          return ADD;
+        case '-':
+          return SUBTRACT;
+        case '*':
+          return MULTIPLY;
+        case '/':
+          return DIVIDE;
+        case '%':
+          return MODULO;
+        default:
+          throw new IllegalArgumentException("Illegal arithmetic shape: " + shape);
+      }
+    }
+
+    private byte rightConstantOpcode(char operator) {
+      switch (operator) {
+        case '+':
+          return ADD_CONSTANT;
+        case '-':
+          return SUBTRACT_CONSTANT;
+        case '*':
+          return MULTIPLY_CONSTANT;
+        case '/':
+          return DIVIDE_CONSTANT;
+        case '%':
+          return MODULO_CONSTANT;
+        default:
+          throw new IllegalArgumentException("Illegal arithmetic shape: " + shape);
+      }
+    }
+
+    private byte leftConstantOpcode(char operator) {
+      switch (operator) {
+        case '+':
+          return ADD_CONSTANT;
+        case '-':
+          return CONSTANT_SUBTRACT;
+        case '*':
+          return MULTIPLY_CONSTANT;
+        case '/':
+          return CONSTANT_DIVIDE;
+        case '%':
+          return CONSTANT_MODULO;
+        default:
+          throw new IllegalArgumentException("Illegal arithmetic shape: " + shape);
+      }
+    }
+
+    private void emit(byte opcode, Operand destination, Operand left, Operand right) {
+      opcodes.add(opcode);
+      destinations.add(destination);
+      leftOperands.add(left);
+      rightOperands.add(right);
+    }
+
+    private Operand allocate() {
+      Integer index = freeTemporaries.poll();
+      if (index == null) {
+        index = temporaryCount++;
+      }
+      return new Operand(false, true, index);
+    }
+
+    private void release(Operand operand) {
+      if (operand.isTemporary) {
+        freeTemporaries.push(operand.index);
+      }
+    }
+
+    private int readIndex() {
+      int start = position;
+      while (position < shape.length() && Character.isDigit(shape.charAt(position))) {
+        position++;
+      }
+      if (start == position) {
+        throw new IllegalArgumentException("Illegal arithmetic shape: " + shape);
+      }
+      return Integer.parseInt(shape.substring(start, position));
+    }
+
+    private void expect(char c) {
+      if (position >= shape.length() || shape.charAt(position++) != c) {
+        throw new IllegalArgumentException("Illegal arithmetic shape: " + shape);
+      }
+    }
+
+    /** the registers of the temporaries are numbered after the inputs */
+    private int toRegister(Operand operand) {
+      return operand.isTemporary ? inputCount + operand.index : operand.index;
+    }
+
+    private ArithmeticKernel build() {
+      int size = opcodes.size();
+      byte[] opcodeArray = new byte[size];
+      int[] destinationArray = new int[size];
+      int[] leftArray = new int[size];
+      int[] rightArray = new int[size];
+      for (int i = 0; i < size; i++) {
+        opcodeArray[i] = opcodes.get(i);
+        destinationArray[i] = toRegister(destinations.get(i));
+        leftArray[i] = toRegister(leftOperands.get(i));
+        Operand right = rightOperands.get(i);
+        rightArray[i] = right.isConstant ? right.index : toRegister(right);
+      }
+      return new ArithmeticKernel(
+          shape,
+          inputCount,
+          inputCount + temporaryCount,
+          opcodeArray,
+          destinationArray,
+          leftArray,
+          rightArray);
+    }
+  }
+
+  private static class Operand {
+    private final boolean isConstant;
+    private final boolean isTemporary;
+    private final int index;
+
+    private Operand(boolean isConstant, boolean isTemporary, int index) {
+      this.isConstant = isConstant;
+      this.isTemporary = isTemporary;
+      this.index = index;
+    }
+  }
+}
@@ -0,0 +1,165 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.mpp.operator.process.transform;
+
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.read.common.block.TsBlock;
+import org.apache.iotdb.tsfile.read.common.block.column.Column;
+import org.apache.iotdb.tsfile.read.common.block.column.RunLengthEncodedColumn;
+
+import java.util.Arrays;
+
+/**
+ * ColumnTransformer evaluates an expression on a whole TsBlock at a time. The values of each
+ * operand are processed in primitive arrays with a null bitmap, instead of point by point like the
+ * {@link org.apache.iotdb.db.query.udf.core.transformer.Transformer}s.
+ *
+ * <p>The result of the latest input TsBlock is cached, so that a sub-expression shared by several
+ * expressions is evaluated only once.
+ */
+public abstract class ColumnTransformer {
+
+  private TsBlock cachedInput;
+  private Column cachedResult;
+
+  public final Column evaluate(TsBlock input) {
+    if (input != cachedInput) {
+      cachedResult = doEvaluate(input);
+      cachedInput = input;
+    }
+    return cachedResult;
+  }
+
+  /** @return a column with the same position count as the input */
+  protected abstract Column doEvaluate(TsBlock input);
+
+  public abstract TSDataType getDataType();
+
+  /** @return the null bitmap of the column, or null if the column has no null */
+  protected static boolean[] getNullBitmap(Column column) {
+    int positionCount = column.getPositionCount();
+    if (!column.mayHaveNull()) {
+      return null;
+    }
+    if (column instanceof RunLengthEncodedColumn) {
+      if (!column.isNull(0)) {
+        return null;
+      }
+      boolean[] isNull = new boolean[positionCount];
+      Arrays.fill(isNull, true);
+      return isNull;
+    }
+    boolean[] isNull = new boolean[positionCount];
+    boolean hasNull = false;
+    for (int i = 0; i < positionCount; i++) {
+      isNull[i] = column.isNull(i);
+      hasNull |= isNull[i];
+    }
+    return hasNull ? isNull : null;
+  }
+
+  /** @return the null bitmap of a row whose operands are the two columns */
+  protected static boolean[] mergeNullBitmap(Column left, Column right) {
+    boolean[] leftIsNull = getNullBitmap(left);
+    boolean[] rightIsNull = getNullBitmap(right);
+    if (leftIsNull == null) {
+      return rightIsNull;
+    }
+    if (rightIsNull != null) {
+      for (int i = 0; i < leftIsNull.length; i++) {
+        leftIsNull[i] |= rightIsNull[i];
+      }
+    }
+    return leftIsNull;
+  }
+
+  /** copy the values of a numeric column into a double array, the value of a null is undefined */
+  protected static double[] toDoubleArray(Column column) {
+    int positionCount = column.getPositionCount();
+    double[] values = new double[positionCount];
+    if (column instanceof RunLengthEncodedColumn) {
+      Column value = ((RunLengthEncodedColumn) column).getValue();
+      if (!value.isNull(0)) {
+        Arrays.fill(values, toDoubleArray(value)[0]);
+      }
+      return values;
+    }
+    boolean mayHaveNull = column.mayHaveNull();
+    switch (column.getDataType()) {
+      case INT32:
+        for (int i = 0; i < positionCount; i++) {
+          if (!mayHaveNull || !column.isNull(i)) {
+            values[i] = column.getInt(i);
+          }
+        }
+        break;
+      case INT64:
+        for (int i = 0; i < positionCount; i++) {
+          if (!mayHaveNull || !column.isNull(i)) {
+            values[i] = column.getLong(i);
+          }
+        }
+        break;
+      case FLOAT:
+        for (int i = 0; i < positionCount; i++) {
+          if (!mayHaveNull || !column.isNull(i)) {
+            values[i] = column.getFloat(i);
+          }
+        }
+        break;
+      case DOUBLE:
+        for (int i = 0; i < positionCount; i++) {
+          if (!mayHaveNull || !column.isNull(i)) {
+            values[i] = column.getDouble(i);
+          }
+        }
+        break;
+      default:
+        throw new UnsupportedOperationException("Unsupported data type: " + column.getDataType());
+    }
+    return values;
+  }
+
+  /** copy the values of a boolean column into a boolean array, the value of a null is undefined */
+  protected static boolean[] toBooleanArray(Column column) {
+    int positionCount = column.getPositionCount();
+    boolean[] values = new boolean[positionCount];
+    if (column instanceof RunLengthEncodedColumn) {
+      Column value = ((RunLengthEncodedColumn) column).getValue();
+      if (!value.isNull(0)) {
+        Arrays.fill(values, value.getBoolean(0));
+      }
+      return values;
+    }
+    boolean mayHaveNull = column.mayHaveNull();
+    for (int i = 0; i < positionCount; i++) {
+      if (!mayHaveNull || !column.isNull(i)) {
+        values[i] = column.getBoolean(i);
+      }
+    }
+    return values;
+  }
+
+  protected static boolean isNumeric(TSDataType dataType) {
+    return dataType == TSDataType.INT32
+        || dataType == TSDataType.INT64
+        || dataType == TSDataType.FLOAT
+        || dataType == TSDataType.DOUBLE;
+  }
+}
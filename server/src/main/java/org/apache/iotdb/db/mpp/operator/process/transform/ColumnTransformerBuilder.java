@@ -0,0 +1,253 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.mpp.operator.process.transform;
+
+import org.apache.iotdb.db.exception.query.QueryProcessException;
+import org.apache.iotdb.db.query.expression.Expression;
+import org.apache.iotdb.db.query.expression.ExpressionType;
+import org.apache.iotdb.db.query.expression.binary.BinaryExpression;
+import org.apache.iotdb.db.query.expression.leaf.ConstantOperand;
+import org.apache.iotdb.db.query.expression.unary.UnaryExpression;
+import org.apache.iotdb.db.utils.CommonUtils;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds {@link ColumnTransformer}s for expressions. Only time series, constants, arithmetic,
+ * compare and logic operators are supported, the other expressions (e.g. UDFs, LIKE and IN) have to
+ * be evaluated by the UDF layers. Identical sub-expressions share one ColumnTransformer.
+ */
+public class ColumnTransformerBuilder {
+
+  private final List<TSDataType> inputDataTypes;
+  private final Map<Expression, ColumnTransformer> expressionTransformerMap = new HashMap<>();
+
+  private ColumnTransformerBuilder(List<TSDataType> inputDataTypes) {
+    this.inputDataTypes = inputDataTypes;
+  }
+
+  /**
+   * @param inputDataTypes data types of the value columns of the input TsBlocks
+   * @return a ColumnTransformer for each expression, or null if any of the expressions is not
+   *     supported
+   */
+  public static ColumnTransformer[] tryBuild(
+      Expression[] expressions, List<TSDataType> inputDataTypes) throws QueryProcessException {
+    ColumnTransformerBuilder builder = new ColumnTransformerBuilder(inputDataTypes);
+    ColumnTransformer[] transformers = new ColumnTransformer[expressions.length];
+    for (int i = 0; i < expressions.length; i++) {
+      // a constant is not allowed to be a result column, leave it to the UDF layers to report
+      if (expressions[i].isConstantOperand()) {
+        return null;
+      }
+      transformers[i] = builder.build(expressions[i]);
+      if (transformers[i] == null) {
+        return null;
+      }
+    }
+    return transformers;
+  }
+
+  private ColumnTransformer build(Expression expression) throws QueryProcessException {
+    ColumnTransformer transformer = expressionTransformerMap.get(expression);
+    if (transformer == null) {
+      transformer = construct(expression);
+      if (transformer != null) {
+        expressionTransformerMap.put(expression, transformer);
+      }
+    }
+    return transformer;
+  }
+
+  private ColumnTransformer construct(Expression expression) throws QueryProcessException {
+    switch (expression.getExpressionType()) {
+      case TIME_SERIES:
+        Integer columnIndex = expression.getInputColumnIndex();
+        if (columnIndex == null || columnIndex < 0 || columnIndex >= inputDataTypes.size()) {
+          return null;
+        }
+        return new InputColumnTransformer(columnIndex, inputDataTypes.get(columnIndex));
+      case CONSTANT:
+        ConstantOperand constantOperand = (ConstantOperand) expression;
+        Object value =
+            CommonUtils.parseValue(
+                constantOperand.getDataType(), constantOperand.getExpressionString());
+        return value == null
+            ? null
+            : new ConstantColumnTransformer(constantOperand.getDataType(), value);
+      case NEGATION:
+        ColumnTransformer operand = build(((UnaryExpression) expression).getExpression());
+        return operand != null && ColumnTransformer.isNumeric(operand.getDataType())
+            ? new NegationColumnTransformer(operand)
+            : null;
+      case LOGIC_NOT:
+        operand = build(((UnaryExpression) expression).getExpression());
+        return operand != null && operand.getDataType() == TSDataType.BOOLEAN
+            ? new LogicNotColumnTransformer(operand)
+            : null;
+      case ADDITION:
+      case SUBTRACTION:
+      case MULTIPLICATION:
+      case DIVISION:
+      case MODULO:
+        return constructArithmetic(expression);
+      case EQUAL_TO:
+      case NON_EQUAL:
+      case GREATER_EQUAL:
+      case GREATER_THAN:
+      case LESS_EQUAL:
+      case LESS_THAN:
+      case LOGIC_AND:
+      case LOGIC_OR:
+        return constructBinary((BinaryExpression) expression);
+      default:
+        return null;
+    }
+  }
+
+  /**
+   * The whole tree of +, -, *, / and % under the expression is compiled into one {@link
+   * ArithmeticKernel}, whose inputs are the other sub-expressions.
+   */
+  private ColumnTransformer constructArithmetic(Expression expression)
+      throws QueryProcessException {
+    List<ColumnTransformer> inputs = new ArrayList<>();
+    List<Double> constants = new ArrayList<>();
+    StringBuilder shape = new StringBuilder();
+    if (!appendArithmeticShape(expression, inputs, constants, shape)) {
+      return null;
+    }
+    double[] constantValues = new double[constants.size()];
+    for (int i = 0; i < constantValues.length; i++) {
+      constantValues[i] = constants.get(i);
+    }
+    return new ArithmeticColumnTransformer(
+        ArithmeticKernel.getOrCompile(shape.toString()),
+        inputs.toArray(new ColumnTransformer[0]),
+        constantValues);
+  }
+
+  private boolean appendArithmeticShape(
+      Expression expression,
+      List<ColumnTransformer> inputs,
+      List<Double> constants,
+      StringBuilder shape)
+      throws QueryProcessException {
+    switch (expression.getExpressionType()) {
+      case ADDITION:
+      case SUBTRACTION:
+      case MULTIPLICATION:
+      case DIVISION:
+      case MODULO:
+        BinaryExpression binaryExpression = (BinaryExpression) expression;
+        shape.append(getArithmeticOperator(expression.getExpressionType())).append('(');
+        if (!appendArithmeticShape(
+            binaryExpression.getLeftExpression(), inputs, constants, shape)) {
+          return false;
+        }
+        shape.append(',');
+        if (!appendArithmeticShape(
+            binaryExpression.getRightExpression(), inputs, constants, shape)) {
+          return false;
+        }
+        shape.append(')');
+        return true;
+      case CONSTANT:
+        ConstantOperand constantOperand = (ConstantOperand) expression;
+        if (!ColumnTransformer.isNumeric(constantOperand.getDataType())) {
+          return false;
+        }
+        Object value =
+            CommonUtils.parseValue(
+                constantOperand.getDataType(), constantOperand.getExpressionString());
+        if (value == null) {
+          return false;
+        }
+        shape.append(ArithmeticKernel.constantSlot(constants.size()));
+        constants.add(((Number) value).doubleValue());
+        return true;
+      default:
+        ColumnTransformer input = build(expression);
+        if (input == null || !ColumnTransformer.isNumeric(input.getDataType())) {
+          return false;
+        }
+        // identical sub-expressions share one ColumnTransformer, and then one input slot
+        int slot = inputs.indexOf(input);
+        if (slot < 0) {
+          slot = inputs.size();
+          inputs.add(input);
+        }
+        shape.append(ArithmeticKernel.inputSlot(slot));
+        return true;
+    }
+  }
+
+  private static char getArithmeticOperator(ExpressionType expressionType) {
+    switch (expressionType) {
+      case ADDITION:
+        return '+';
+      case SUBTRACTION:
+        return '-';
+      case MULTIPLICATION:
+        return '*';
+      case DIVISION:
+        return '/';
+      case MODULO:
+        return '%';
+      default:
+        throw new IllegalArgumentException("Not an arithmetic operator: " + expressionType);
+    }
+  }
+
+  private ColumnTransformer constructBinary(BinaryExpression expression)
+      throws QueryProcessException {
+    ColumnTransformer left = build(expression.getLeftExpression());
+    ColumnTransformer right = build(expression.getRightExpression());
+    if (left == null || right == null) {
+      return null;
+    }
+    TSDataType leftType = left.getDataType();
+    TSDataType rightType = right.getDataType();
+    boolean numeric =
+        ColumnTransformer.isNumeric(leftType) && ColumnTransformer.isNumeric(rightType);
+    boolean bothBoolean = leftType == TSDataType.BOOLEAN && rightType == TSDataType.BOOLEAN;
+    switch (expression.getExpressionType()) {
+      case EQUAL_TO:
+      case NON_EQUAL:
+        return numeric || bothBoolean
+            ? new CompareColumnTransformer(expression.getExpressionType(), left, right)
+            : null;
+      case GREATER_EQUAL:
+      case GREATER_THAN:
+      case LESS_EQUAL:
+      case LESS_THAN:
+        return numeric
+            ? new CompareColumnTransformer(expression.getExpressionType(), left, right)
+            : null;
+      default:
+        return bothBoolean
+            ? new LogicColumnTransformer(expression.getExpressionType(), left, right)
+            : null;
+    }
+  }
+}
@@ -0,0 +1,125 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.mpp.operator.process.transform;
+
+import org.apache.iotdb.db.query.expression.ExpressionType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.read.common.block.TsBlock;
+import org.apache.iotdb.tsfile.read.common.block.column.BooleanColumn;
+import org.apache.iotdb.tsfile.read.common.block.column.Column;
+
+import java.util.Optional;
+
+/**
+ * Evaluates =, !=, >=, >, <= and < on two columns. Same as {@link
+ * org.apache.iotdb.db.query.udf.core.transformer.CompareBinaryTransformer}, numeric operands are
+ * compared as double, and = and != also accept two BOOLEAN operands. The result is null if any of
+ * the operands is null.
+ */
+public class CompareColumnTransformer extends ColumnTransformer {
+
+  private final ExpressionType operator;
+  private final ColumnTransformer left;
+  private final ColumnTransformer right;
+
+  public CompareColumnTransformer(
+      ExpressionType operator, ColumnTransformer left, ColumnTransformer right) {
+    this.operator = operator;
+    this.left = left;
+    this.right = right;
+  }
+
+  @Override
+  protected Column doEvaluate(TsBlock input) {
+    Column leftColumn = left.evaluate(input);
+    Column rightColumn = right.evaluate(input);
+    int positionCount = input.getPositionCount();
+    boolean[] result =
+        left.getDataType() == TSDataType.BOOLEAN
+            ? compareBoolean(toBooleanArray(leftColumn), toBooleanArray(rightColumn))
+            : compareDouble(toDoubleArray(leftColumn), toDoubleArray(rightColumn));
+    return new BooleanColumn(
+        positionCount, Optional.ofNullable(mergeNullBitmap(leftColumn, rightColumn)), result);
+  }
+
+  private boolean[] compareDouble(double[] leftValues, double[] rightValues) {
+    int positionCount = leftValues.length;
+    boolean[] result = new boolean[positionCount];
+    switch (operator) {
+      case EQUAL_TO:
+        for (int i = 0; i < positionCount; i++) {
+          result[i] = Double.compare(leftValues[i], rightValues[i]) == 0;
+        }
+        break;
+      case NON_EQUAL:
+        for (int i = 0; i < positionCount; i++) {
+          result[i] = Double.compare(leftValues[i], rightValues[i]) != 0;
+        }
+        break;
+      case GREATER_EQUAL:
+        for (int i = 0; i < positionCount; i++) {
+          result[i] = leftValues[i] >= rightValues[i];
+        }
+        break;
+      case GREATER_THAN:
+        for (int i = 0; i < positionCount; i++) {
+          result[i] = leftValues[i] > rightValues[i];
+        }
+        break;
+      case LESS_EQUAL:
+        for (int i = 0; i < positionCount; i++) {
+          result[i] = leftValues[i] <= rightValues[i];
+        }
+        break;
+      case LESS_THAN:
+        for (int i = 0; i < positionCount; i++) {
+          result[i] = leftValues[i] < rightValues[i];
+        }
+        break;
+      default:
+        throw new UnsupportedOperationException("Unsupported compare operator: " + operator);
+    }
+    return result;
+  }
+
+  private boolean[] compareBoolean(boolean[] leftValues, boolean[] rightValues) {
+    int positionCount = leftValues.length;
+    boolean[] result = new boolean[positionCount];
+    switch (operator) {
+      case EQUAL_TO:
+        for (int i = 0; i < positionCount; i++) {
+          result[i] = leftValues[i] == rightValues[i];
+        }
+        break;
+      case NON_EQUAL:
+        for (int i = 0; i < positionCount; i++) {
+          result[i] = leftValues[i] != rightValues[i];
+        }
+        break;
+      default:
+        throw new UnsupportedOperationException("Unsupported compare operator: " + operator);
+    }
+    return result;
+  }
+
+  @Override
+  public TSDataType getDataType() {
+    return TSDataType.BOOLEAN;
+  }
+}
@@ -0,0 +1,77 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.mpp.operator.process.transform;
+
+import org.apache.iotdb.tsfile.exception.write.UnSupportedDataTypeException;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.read.common.block.TsBlock;
+import org.apache.iotdb.tsfile.read.common.block.column.BinaryColumn;
+import org.apache.iotdb.tsfile.read.common.block.column.BooleanColumn;
+import org.apache.iotdb.tsfile.read.common.block.column.Column;
+import org.apache.iotdb.tsfile.read.common.block.column.DoubleColumn;
+import org.apache.iotdb.tsfile.read.common.block.column.FloatColumn;
+import org.apache.iotdb.tsfile.read.common.block.column.IntColumn;
+import org.apache.iotdb.tsfile.read.common.block.column.LongColumn;
+import org.apache.iotdb.tsfile.read.common.block.column.RunLengthEncodedColumn;
+import org.apache.iotdb.tsfile.utils.Binary;
+
+import java.util.Optional;
+
+/** Returns the same value for every row of the input TsBlock. */
+public class ConstantColumnTransformer extends ColumnTransformer {
+
+  private final TSDataType dataType;
+  private final Column value;
+
+  /** @param value the parsed constant, null is not allowed */
+  public ConstantColumnTransformer(TSDataType dataType, Object value) {
+    this.dataType = dataType;
+    this.value = createSingleValueColumn(dataType, value);
+  }
+
+  private static Column createSingleValueColumn(TSDataType dataType, Object value) {
+    switch (dataType) {
+      case INT32:
+        return new IntColumn(1, Optional.empty(), new int[] {(Integer) value});
+      case INT64:
+        return new LongColumn(1, Optional.empty(), new long[] {(Long) value});
+      case FLOAT:
+        return new FloatColumn(1, Optional.empty(), new float[] {(Float) value});
+      case DOUBLE:
+        return new DoubleColumn(1, Optional.empty(), new double[] {(Double) value});
+      case BOOLEAN:
+        return new BooleanColumn(1, Optional.empty(), new boolean[] {(Boolean) value});
+      case TEXT:
+        return new BinaryColumn(1, Optional.empty(), new Binary[] {(Binary) value});
+      default:
+        throw new UnSupportedDataTypeException(
+            String.format("Data type %s is not supported.", dataType));
+    }
+  }
+
+  @Override
+  protected Column doEvaluate(TsBlock input) {
+    return new RunLengthEncodedColumn(value, input.getPositionCount());
+  }
+
+  @Override
+  public TSDataType getDataType() {
+    return dataType;
+  }
+}
@@ -0,0 +1,45 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.mpp.operator.process.transform;
+
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.read.common.block.TsBlock;
+import org.apache.iotdb.tsfile.read.common.block.column.Column;
+
+/** Returns a value column of the input TsBlock as it is. */
+public class InputColumnTransformer extends ColumnTransformer {
+
+  private final int columnIndex;
+  private final TSDataType dataType;
+
+  public InputColumnTransformer(int columnIndex, TSDataType dataType) {
+    this.columnIndex = columnIndex;
+    this.dataType = dataType;
+  }
+
+  @Override
+  protected Column doEvaluate(TsBlock input) {
+    return input.getColumn(columnIndex);
+  }
+
+  @Override
+  public TSDataType getDataType() {
+    return dataType;
+  }
+}
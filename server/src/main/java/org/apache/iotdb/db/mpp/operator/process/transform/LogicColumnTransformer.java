@@ -0,0 +1,77 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.mpp.operator.process.transform;
+
+import org.apache.iotdb.db.query.expression.ExpressionType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.read.common.block.TsBlock;
+import org.apache.iotdb.tsfile.read.common.block.column.BooleanColumn;
+import org.apache.iotdb.tsfile.read.common.block.column.Column;
+
+import java.util.Optional;
+
+/**
+ * Evaluates & and | on two BOOLEAN columns. Same as {@link
+ * org.apache.iotdb.db.query.udf.core.transformer.LogicBinaryTransformer}, the result is null if any
+ * of the operands is null.
+ */
+public class LogicColumnTransformer extends ColumnTransformer {
+
+  private final ExpressionType operator;
+  private final ColumnTransformer left;
+  private final ColumnTransformer right;
+
+  public LogicColumnTransformer(
+      ExpressionType operator, ColumnTransformer left, ColumnTransformer right) {
+    this.operator = operator;
+    this.left = left;
+    this.right = right;
+  }
+
+  @Override
+  protected Column doEvaluate(TsBlock input) {
+    Column leftColumn = left.evaluate(input);
+    Column rightColumn = right.evaluate(input);
+    int positionCount = input.getPositionCount();
+    boolean[] leftValues = toBooleanArray(leftColumn);
+    boolean[] rightValues = toBooleanArray(rightColumn);
+    // the result is written into leftValues
+    switch (operator) {
+      case LOGIC_AND:
+        for (int i = 0; i < positionCount; i++) {
+          leftValues[i] &= rightValues[i];
+        }
+        break;
+      case LOGIC_OR:
+        for (int i = 0; i < positionCount; i++) {
+          leftValues[i] |= rightValues[i];
+        }
+        break;
+      default:
+        throw new UnsupportedOperationException("Unsupported logic operator: " + operator);
+    }
+    return new BooleanColumn(
+        positionCount, Optional.ofNullable(mergeNullBitmap(leftColumn, rightColumn)), leftValues);
+  }
+
+  @Override
+  public TSDataType getDataType() {
+    return TSDataType.BOOLEAN;
+  }
+}
@@ -0,0 +1,92 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.mpp.operator.process.transform;
+
+import org.apache.iotdb.tsfile.exception.write.UnSupportedDataTypeException;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.read.common.block.TsBlock;
+import org.apache.iotdb.tsfile.read.common.block.column.Column;
+import org.apache.iotdb.tsfile.read.common.block.column.DoubleColumn;
+import org.apache.iotdb.tsfile.read.common.block.column.FloatColumn;
+import org.apache.iotdb.tsfile.read.common.block.column.IntColumn;
+import org.apache.iotdb.tsfile.read.common.block.column.LongColumn;
+
+import java.util.Optional;
+
+/**
+ * Evaluates - on a numeric column. Same as {@link
+ * org.apache.iotdb.db.query.udf.core.transformer.ArithmeticNegationTransformer}, the result has the
+ * data type of the operand.
+ */
+public class NegationColumnTransformer extends ColumnTransformer {
+
+  private final ColumnTransformer child;
+
+  public NegationColumnTransformer(ColumnTransformer child) {
+    this.child = child;
+  }
+
+  @Override
+  protected Column doEvaluate(TsBlock input) {
+    Column column = child.evaluate(input);
+    int positionCount = input.getPositionCount();
+    Optional<boolean[]> isNull = Optional.ofNullable(getNullBitmap(column));
+    boolean mayHaveNull = isNull.isPresent();
+    switch (getDataType()) {
+      case INT32:
+        int[] intValues = new int[positionCount];
+        for (int i = 0; i < positionCount; i++) {
+          if (!mayHaveNull || !column.isNull(i)) {
+            intValues[i] = -column.getInt(i);
+          }
+        }
+        return new IntColumn(positionCount, isNull, intValues);
+      case INT64:
+        long[] longValues = new long[positionCount];
+        for (int i = 0; i < positionCount; i++) {
+          if (!mayHaveNull || !column.isNull(i)) {
+            longValues[i] = -column.getLong(i);
+          }
+        }
+        return new LongColumn(positionCount, isNull, longValues);
+      case FLOAT:
+        float[] floatValues = new float[positionCount];
+        for (int i = 0; i < positionCount; i++) {
+          if (!mayHaveNull || !column.isNull(i)) {
+            floatValues[i] = -column.getFloat(i);
+          }
+        }
+        return new FloatColumn(positionCount, isNull, floatValues);
+      case DOUBLE:
+        double[] doubleValues = toDoubleArray(column);
+        for (int i = 0; i < positionCount; i++) {
+          doubleValues[i] = -doubleValues[i];
+        }
+        return new DoubleColumn(positionCount, isNull, doubleValues);
+      default:
+        throw new UnSupportedDataTypeException(
+            String.format("Data type %s is not supported.", getDataType()));
+    }
+  }
+
+  @Override
+  public TSDataType getDataType() {
+    return child.getDataType();
+  }
+}
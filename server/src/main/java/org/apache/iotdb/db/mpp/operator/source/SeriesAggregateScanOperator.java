@@ -26,6 +26,8 @@ import org.apache.iotdb.db.mpp.sql.planner.plan.node.PlanNodeId;
 import org.apache.iotdb.db.mpp.sql.planner.plan.parameter.GroupByTimeParameter;
 import org.apache.iotdb.db.query.aggregation.AggregateResult;
 import org.apache.iotdb.db.query.aggregation.AggregationType;
+import org.apache.iotdb.db.query.executor.groupby.SlidingWindowGroupByExecutor;
+import org.apache.iotdb.db.query.executor.groupby.SlidingWindowGroupByExecutorFactory;
 import org.apache.iotdb.db.query.factory.AggregateResultFactory;
 import org.apache.iotdb.db.utils.SchemaUtils;
 import org.apache.iotdb.db.utils.timerangeiterator.ITimeRangeIterator;
@@ -53,8 +55,14 @@ import java.util.stream.Collectors;
  * time range and time split parameter.
  *
  * <p>Every time next() is invoked, one tsBlock which contains current time window will be returned.
- * In sliding window situation, current time window is a pre-aggregation window. If there is no time
- * split parameter, i.e. aggregation without groupBy, just one tsBlock will be returned.
+ * If there is no time split parameter, i.e. aggregation without groupBy, just one tsBlock will be
+ * returned.
+ *
+ * <p>In sliding window situation, i.e. the interval is larger than the sliding step, the series is
+ * aggregated by non-overlapping pre-aggregation windows split at the start and the end of every
+ * time window. Each point is aggregated only once, statistics are used when a page, chunk or file
+ * falls in a pre-aggregation window, and the pre-aggregated results are combined into the results
+ * of the time windows by {@link SlidingWindowGroupByExecutor}s.
  */
 public class SeriesAggregateScanOperator implements DataSourceOperator {
 
@@ -64,10 +72,17 @@ public class SeriesAggregateScanOperator implements DataSourceOperator {
   private final boolean ascending;
   private List<AggregateResult> aggregateResultList;
 
+  // iterates the pre-aggregation windows in sliding window situation, otherwise the time windows
   private ITimeRangeIterator timeRangeIterator;
   // current interval of aggregation window [curStartTime, curEndTime)
   private TimeRange curTimeRange;
 
+  // null if not in sliding window situation
+  private ITimeRangeIterator slidingWindowIterator;
+  private SlidingWindowGroupByExecutor[] slidingWindowGroupByExecutors;
+  // the first pre-aggregation window that has not been aggregated, null if there is no more
+  private TimeRange curPreAggrTimeRange;
+
   private TsBlockSingleColumnIterator preCachedData;
   // used for resetting the preCachedData to the last read index
   private int lastReadIndex;
@@ -114,6 +129,30 @@ public class SeriesAggregateScanOperator implements DataSourceOperator {
                         SchemaUtils.getSeriesTypeByPath(seriesPath, functionType.name()))
                 .collect(Collectors.toList()));
     this.timeRangeIterator = initTimeRangeIterator(groupByTimeParameter);
+    if (groupByTimeParameter != null
+        && groupByTimeParameter.getInterval() > groupByTimeParameter.getSlidingStep()) {
+      this.slidingWindowIterator =
+          TimeRangeIteratorFactory.getTimeRangeIterator(
+              groupByTimeParameter.getStartTime(),
+              groupByTimeParameter.getEndTime(),
+              groupByTimeParameter.getInterval(),
+              groupByTimeParameter.getSlidingStep(),
+              ascending,
+              groupByTimeParameter.isIntervalByMonth(),
+              groupByTimeParameter.isSlidingStepByMonth(),
+              false);
+      this.slidingWindowGroupByExecutors =
+          new SlidingWindowGroupByExecutor[aggregateFuncList.size()];
+      for (int i = 0; i < aggregateFuncList.size(); i++) {
+        slidingWindowGroupByExecutors[i] =
+            SlidingWindowGroupByExecutorFactory.getSlidingWindowGroupByExecutor(
+                aggregateFuncList.get(i).name(),
+                seriesPath.getSeriesType(),
+                seriesScanUtil.getOrderUtils().getAscending());
+      }
+      this.curPreAggrTimeRange =
+          timeRangeIterator.hasNextTimeRange() ? timeRangeIterator.nextTimeRange() : null;
+    }
   }
 
   /**
@@ -163,77 +202,107 @@ public class SeriesAggregateScanOperator implements DataSourceOperator {
       return true;
     }
     try {
+      if (slidingWindowIterator != null) {
+        return calcSlidingWindow();
+      }
       if (!timeRangeIterator.hasNextTimeRange()) {
         return false;
       }
       curTimeRange = timeRangeIterator.nextTimeRange();
+      calcAggregation(curTimeRange);
+      updateResultTsBlock(curTimeRange.getMin(), aggregateResultList);
+      return true;
+    } catch (IOException e) {
+      throw new RuntimeException("Error while scanning the file", e);
+    }
+  }
 
-      // 1. Clear previous aggregation result
-      for (AggregateResult result : aggregateResultList) {
-        result.reset();
+  /** Aggregate the pre-aggregation windows of the next time window and combine their results. */
+  private boolean calcSlidingWindow() throws IOException {
+    if (!slidingWindowIterator.hasNextTimeRange()) {
+      return false;
+    }
+    TimeRange curWindow = slidingWindowIterator.nextTimeRange();
+    for (SlidingWindowGroupByExecutor executor : slidingWindowGroupByExecutors) {
+      executor.setTimeRange(curWindow.getMin(), curWindow.getMax());
+    }
+    while (curPreAggrTimeRange != null
+        && (ascending
+            ? curPreAggrTimeRange.getMin() < curWindow.getMax()
+            : curPreAggrTimeRange.getMax() > curWindow.getMin())) {
+      curTimeRange = curPreAggrTimeRange;
+      calcAggregation(curTimeRange);
+      for (int i = 0; i < aggregateResultList.size(); i++) {
+        slidingWindowGroupByExecutors[i].update(aggregateResultList.get(i).clone());
       }
+      curPreAggrTimeRange =
+          timeRangeIterator.hasNextTimeRange() ? timeRangeIterator.nextTimeRange() : null;
+    }
+    List<AggregateResult> windowResults = new ArrayList<>(slidingWindowGroupByExecutors.length);
+    for (SlidingWindowGroupByExecutor executor : slidingWindowGroupByExecutors) {
+      windowResults.add(executor.getAggregateResult());
+    }
+    updateResultTsBlock(curWindow.getMin(), windowResults);
+    return true;
+  }
 
-      // 2. Calculate aggregation result based on current time window
-      if (calcFromCacheData(curTimeRange)) {
-        updateResultTsBlockUsingAggregateResult();
-        return true;
-      }
+  /** Calculate the aggregation results of a time range into aggregateResultList. */
+  private void calcAggregation(TimeRange curTimeRange) throws IOException {
+    // 1. Clear previous aggregation result
+    for (AggregateResult result : aggregateResultList) {
+      result.reset();
+    }
 
-      // read page data firstly
-      if (readAndCalcFromPage(curTimeRange)) {
-        updateResultTsBlockUsingAggregateResult();
-        return true;
-      }
+    // 2. Calculate aggregation result based on current time window
+    if (calcFromCacheData(curTimeRange)) {
+      return;
+    }
 
-      // read chunk data secondly
-      if (readAndCalcFromChunk(curTimeRange)) {
-        updateResultTsBlockUsingAggregateResult();
-        return true;
-      }
+    // read page data firstly
+    if (readAndCalcFromPage(curTimeRange)) {
+      return;
+    }
 
-      // read from file first
-      while (seriesScanUtil.hasNextFile()) {
-        Statistics fileStatistics = seriesScanUtil.currentFileStatistics();
-        if (fileStatistics.getStartTime() >= curTimeRange.getMax()) {
-          if (ascending) {
-            updateResultTsBlockUsingAggregateResult();
-            return true;
-          } else {
-            seriesScanUtil.skipCurrentFile();
-            continue;
-          }
-        }
-        // calc from fileMetaData
-        if (canUseCurrentFileStatistics()
-            && curTimeRange.contains(fileStatistics.getStartTime(), fileStatistics.getEndTime())) {
-          calcFromStatistics(fileStatistics);
+    // read chunk data secondly
+    if (readAndCalcFromChunk(curTimeRange)) {
+      return;
+    }
+
+    // read from file first
+    while (seriesScanUtil.hasNextFile()) {
+      Statistics fileStatistics = seriesScanUtil.currentFileStatistics();
+      if (fileStatistics.getStartTime() >= curTimeRange.getMax()) {
+        if (ascending) {
+          return;
+        } else {
           seriesScanUtil.skipCurrentFile();
           continue;
         }
-
-        // read chunk
-        if (readAndCalcFromChunk(curTimeRange)) {
-          updateResultTsBlockUsingAggregateResult();
-          return true;
-        }
+      }
+      // calc from fileMetaData
+      if (canUseCurrentFileStatistics()
+          && curTimeRange.contains(fileStatistics.getStartTime(), fileStatistics.getEndTime())) {
+        calcFromStatistics(fileStatistics);
+        seriesScanUtil.skipCurrentFile();
+        continue;
       }
 
-      updateResultTsBlockUsingAggregateResult();
-      return true;
-    } catch (IOException e) {
-      throw new RuntimeException("Error while scanning the file", e);
+      // read chunk
+      if (readAndCalcFromChunk(curTimeRange)) {
+        return;
+      }
     }
   }
 
-  private void updateResultTsBlockUsingAggregateResult() {
+  private void updateResultTsBlock(long time, List<AggregateResult> aggregateResults) {
     // TODO AVG
     tsBlockBuilder.reset();
     TimeColumnBuilder timeColumnBuilder = tsBlockBuilder.getTimeColumnBuilder();
     // Use start time of current time range as time column
-    timeColumnBuilder.writeLong(curTimeRange.getMin());
+    timeColumnBuilder.writeLong(time);
     ColumnBuilder[] columnBuilders = tsBlockBuilder.getValueColumnBuilders();
-    for (int i = 0; i < aggregateResultList.size(); i++) {
-      columnBuilders[i].writeObject(aggregateResultList.get(i).getResult());
+    for (int i = 0; i < aggregateResults.size(); i++) {
+      columnBuilders[i].writeObject(aggregateResults.get(i).getResult());
     }
     tsBlockBuilder.declarePosition();
     resultTsBlock = tsBlockBuilder.build();
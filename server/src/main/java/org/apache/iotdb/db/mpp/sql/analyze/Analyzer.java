@@ -121,6 +121,14 @@ public class Analyzer {
         rewrittenStatement =
             (QueryStatement) new WildcardsRemover().rewrite(rewrittenStatement, schemaTree);
 
+        // the result set can only be sorted by a selected time series
+        if (rewrittenStatement.getSortPath() != null
+            && !rewrittenStatement
+                .getSelectedPathNames()
+                .contains(rewrittenStatement.getSortPath().getFullPath())) {
+          throw new SemanticException("The time series in the ORDER BY clause must be selected.");
+        }
+
         // fetch partition information
         Set<PartialPath> devicePathSet = new HashSet<>();
         for (ResultColumn resultColumn : queryStatement.getSelectComponent().getResultColumns()) {
@@ -29,12 +29,17 @@ import org.apache.iotdb.db.mpp.common.schematree.node.SchemaNode;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.write.schema.MeasurementSchema;
 
+import java.util.Collections;
 import java.util.List;
 
 public class FakeSchemaFetcherImpl implements ISchemaFetcher {
 
   private final SchemaTree schemaTree = new SchemaTree(generateSchemaTree());
 
+  public FakeSchemaFetcherImpl() {
+    schemaTree.setStorageGroups(Collections.singletonList("root.sg"));
+  }
+
   @Override
   public SchemaTree fetchSchema(PathPatternTree patternTree) {
     return schemaTree;
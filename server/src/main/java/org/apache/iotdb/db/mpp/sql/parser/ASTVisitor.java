@@ -1226,6 +1226,30 @@ public class ASTVisitor extends IoTDBSqlParserBaseVisitor<Statement> {
     }
   }
 
+  // ORDER BY Clause of a Time Series
+
+  @Override
+  public Statement visitOrderByValueStatement(IoTDBSqlParser.OrderByValueStatementContext ctx) {
+    queryStatement = new QueryStatement();
+
+    // parse ORDER BY
+    parseOrderByValueClause(ctx.orderByValueClause());
+
+    // parse others
+    if (ctx.specialLimit() != null) {
+      return visit(ctx.specialLimit());
+    }
+    return queryStatement;
+  }
+
+  // parse ORDER BY
+  private void parseOrderByValueClause(IoTDBSqlParser.OrderByValueClauseContext ctx) {
+    queryStatement.setSortPath(parseSuffixPath(ctx.suffixPath()));
+    if (ctx.DESC() != null) {
+      queryStatement.setSortOrder(OrderBy.TIMESTAMP_DESC);
+    }
+  }
+
   // ResultSetFormat Clause
 
   @Override
@@ -19,6 +19,7 @@
 package org.apache.iotdb.db.mpp.sql.planner;
 
 import org.apache.iotdb.common.rpc.thrift.TRegionReplicaSet;
+import org.apache.iotdb.db.metadata.path.PartialPath;
 import org.apache.iotdb.db.mpp.common.MPPQueryContext;
 import org.apache.iotdb.db.mpp.common.PlanFragmentId;
 import org.apache.iotdb.db.mpp.sql.analyze.Analysis;
@@ -40,6 +41,7 @@ import org.apache.iotdb.db.mpp.sql.planner.plan.node.metedata.read.SchemaScanNod
 import org.apache.iotdb.db.mpp.sql.planner.plan.node.metedata.read.SeriesSchemaMergeNode;
 import org.apache.iotdb.db.mpp.sql.planner.plan.node.process.ExchangeNode;
 import org.apache.iotdb.db.mpp.sql.planner.plan.node.process.TimeJoinNode;
+import org.apache.iotdb.db.mpp.sql.planner.plan.node.process.TopKNode;
 import org.apache.iotdb.db.mpp.sql.planner.plan.node.sink.FragmentSinkNode;
 import org.apache.iotdb.db.mpp.sql.planner.plan.node.source.SeriesAggregateScanNode;
 import org.apache.iotdb.db.mpp.sql.planner.plan.node.source.SeriesScanNode;
@@ -223,6 +225,50 @@ public class DistributionPlanner {
       return timeJoinNode;
     }
 
+    @Override
+    public PlanNode visitTopK(TopKNode node, DistributionPlanContext context) {
+      TopKNode root = (TopKNode) node.clone();
+      List<PlanNode> children =
+          node.getChildren().stream()
+              .map(child -> rewrite(child, context))
+              .collect(Collectors.toList());
+      if (children.size() != 1 || !isSplitOfSingleSeries(children.get(0))) {
+        root.setChildren(children);
+        return root;
+      }
+      // The splits of one series hold disjoint rows, so the top k rows must be among the top k
+      // rows of each split. We push a partial TopKNode onto each split so that every DataRegion
+      // only sends k rows to the upstream. The TimeJoinNode of the splits is dropped, because the
+      // partial results are ordered by the sort key rather than time, and the final TopKNode takes
+      // them as its children directly.
+      for (PlanNode split : children.get(0).getChildren()) {
+        TopKNode partialTopK = (TopKNode) node.clone();
+        partialTopK.setPlanNodeId(context.queryContext.getQueryId().genPlanNodeId());
+        partialTopK.addChild(split);
+        root.addChild(partialTopK);
+      }
+      return root;
+    }
+
+    private boolean isSplitOfSingleSeries(PlanNode node) {
+      if (!(node instanceof TimeJoinNode) || node.getChildren().size() < 2) {
+        return false;
+      }
+      PartialPath seriesPath = null;
+      for (PlanNode child : node.getChildren()) {
+        if (!(child instanceof SeriesScanNode)) {
+          return false;
+        }
+        PartialPath childPath = ((SeriesScanNode) child).getSeriesPath();
+        if (seriesPath == null) {
+          seriesPath = childPath;
+        } else if (!seriesPath.equals(childPath)) {
+          return false;
+        }
+      }
+      return true;
+    }
+
     @Override
     public PlanNode visitTimeJoin(TimeJoinNode node, DistributionPlanContext context) {
       TimeJoinNode root = (TimeJoinNode) node.clone();
@@ -395,6 +441,52 @@ public class DistributionPlanner {
       return node.clone();
     }
 
+    @Override
+    public PlanNode visitTopK(TopKNode node, NodeGroupContext context) {
+      if (node.getChildren().size() == 1) {
+        PlanNode child = visit(node.getChildren().get(0), context);
+        // The TopKNode is executed in the same DataRegion as its child, so that a partial TopKNode
+        // is placed below the ExchangeNode and only its output is transferred.
+        context.putNodeDistribution(
+            node.getPlanNodeId(),
+            new NodeDistribution(
+                NodeDistributionType.SAME_WITH_ALL_CHILDREN,
+                context.getNodeDistribution(child.getPlanNodeId()).region));
+        return node.cloneWithChildren(Collections.singletonList(child));
+      }
+
+      TopKNode newNode = (TopKNode) node.clone();
+      List<PlanNode> visitedChildren = new ArrayList<>();
+      node.getChildren()
+          .forEach(
+              child -> {
+                visitedChildren.add(visit(child, context));
+              });
+
+      // The final TopKNode over the partial ones is executed where most of its children are, and
+      // an ExchangeNode is added for each of the others.
+      TRegionReplicaSet dataRegion = calculateDataRegionByChildren(visitedChildren, context);
+      NodeDistributionType distributionType =
+          nodeDistributionIsSame(visitedChildren, context)
+              ? NodeDistributionType.SAME_WITH_ALL_CHILDREN
+              : NodeDistributionType.SAME_WITH_SOME_CHILD;
+      context.putNodeDistribution(
+          newNode.getPlanNodeId(), new NodeDistribution(distributionType, dataRegion));
+
+      visitedChildren.forEach(
+          child -> {
+            if (!dataRegion.equals(context.getNodeDistribution(child.getPlanNodeId()).region)) {
+              ExchangeNode exchangeNode =
+                  new ExchangeNode(context.queryContext.getQueryId().genPlanNodeId());
+              exchangeNode.setChild(child);
+              newNode.addChild(exchangeNode);
+            } else {
+              newNode.addChild(child);
+            }
+          });
+      return newNode;
+    }
+
     @Override
     public PlanNode visitTimeJoin(TimeJoinNode node, NodeGroupContext context) {
       TimeJoinNode newNode = (TimeJoinNode) node.clone();
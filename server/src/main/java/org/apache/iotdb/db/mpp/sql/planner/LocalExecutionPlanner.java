@@ -18,25 +18,35 @@
  */
 package org.apache.iotdb.db.mpp.sql.planner;
 
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.engine.storagegroup.DataRegion;
+import org.apache.iotdb.db.metadata.idtable.IDTable;
 import org.apache.iotdb.db.metadata.path.PartialPath;
 import org.apache.iotdb.db.metadata.schemaregion.ISchemaRegion;
 import org.apache.iotdb.db.mpp.buffer.DataBlockManager;
 import org.apache.iotdb.db.mpp.buffer.DataBlockService;
 import org.apache.iotdb.db.mpp.buffer.ISinkHandle;
 import org.apache.iotdb.db.mpp.buffer.ISourceHandle;
+import org.apache.iotdb.db.mpp.buffer.LocalSinkHandle;
+import org.apache.iotdb.db.mpp.buffer.LocalSourceHandle;
+import org.apache.iotdb.db.mpp.buffer.SharedTsBlockQueue;
 import org.apache.iotdb.db.mpp.common.FragmentInstanceId;
 import org.apache.iotdb.db.mpp.execution.DataDriver;
 import org.apache.iotdb.db.mpp.execution.DataDriverContext;
 import org.apache.iotdb.db.mpp.execution.FragmentInstanceContext;
+import org.apache.iotdb.db.mpp.execution.IDriver;
 import org.apache.iotdb.db.mpp.execution.SchemaDriver;
 import org.apache.iotdb.db.mpp.execution.SchemaDriverContext;
 import org.apache.iotdb.db.mpp.operator.Operator;
 import org.apache.iotdb.db.mpp.operator.OperatorContext;
+import org.apache.iotdb.db.mpp.operator.process.ConcatOperator;
 import org.apache.iotdb.db.mpp.operator.process.LimitOperator;
+import org.apache.iotdb.db.mpp.operator.process.SortOperator;
 import org.apache.iotdb.db.mpp.operator.process.TimeJoinOperator;
+import org.apache.iotdb.db.mpp.operator.process.TopKOperator;
 import org.apache.iotdb.db.mpp.operator.process.merge.ColumnMerger;
 import org.apache.iotdb.db.mpp.operator.process.merge.SingleColumnMerger;
+import org.apache.iotdb.db.mpp.operator.process.sort.SortKeyComparator;
 import org.apache.iotdb.db.mpp.operator.schema.CountMergeOperator;
 import org.apache.iotdb.db.mpp.operator.schema.DevicesCountOperator;
 import org.apache.iotdb.db.mpp.operator.schema.DevicesSchemaScanOperator;
@@ -50,6 +60,7 @@ import org.apache.iotdb.db.mpp.operator.source.ExchangeOperator;
 import org.apache.iotdb.db.mpp.operator.source.SeriesAggregateScanOperator;
 import org.apache.iotdb.db.mpp.operator.source.SeriesScanOperator;
 import org.apache.iotdb.db.mpp.sql.planner.plan.node.PlanNode;
+import org.apache.iotdb.db.mpp.sql.planner.plan.node.PlanNodeId;
 import org.apache.iotdb.db.mpp.sql.planner.plan.node.PlanVisitor;
 import org.apache.iotdb.db.mpp.sql.planner.plan.node.metedata.read.CountSchemaMergeNode;
 import org.apache.iotdb.db.mpp.sql.planner.plan.node.metedata.read.DevicesCountNode;
@@ -71,41 +82,63 @@ import org.apache.iotdb.db.mpp.sql.planner.plan.node.process.LimitNode;
 import org.apache.iotdb.db.mpp.sql.planner.plan.node.process.OffsetNode;
 import org.apache.iotdb.db.mpp.sql.planner.plan.node.process.SortNode;
 import org.apache.iotdb.db.mpp.sql.planner.plan.node.process.TimeJoinNode;
+import org.apache.iotdb.db.mpp.sql.planner.plan.node.process.TopKNode;
 import org.apache.iotdb.db.mpp.sql.planner.plan.node.sink.FragmentSinkNode;
 import org.apache.iotdb.db.mpp.sql.planner.plan.node.source.SeriesAggregateScanNode;
 import org.apache.iotdb.db.mpp.sql.planner.plan.node.source.SeriesScanNode;
+import org.apache.iotdb.db.mpp.sql.planner.plan.parameter.GroupByTimeParameter;
 import org.apache.iotdb.db.mpp.sql.planner.plan.parameter.OutputColumn;
 import org.apache.iotdb.db.mpp.sql.statement.component.OrderBy;
 import org.apache.iotdb.tsfile.read.expression.IExpression;
 import org.apache.iotdb.tsfile.read.filter.basic.Filter;
 
+import java.io.File;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.function.BiFunction;
 import java.util.stream.Collectors;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static java.util.Objects.requireNonNull;
 
 /**
- * Used to plan a fragment instance. Currently, we simply change it from PlanNode to executable
- * Operator tree, but in the future, we may split one fragment instance into multiple pipeline to
- * run a fragment instance parallel and take full advantage of multi-cores
+ * Used to plan a fragment instance. We change it from PlanNode to executable Operator tree, and the
+ * scan of a series may be split into multiple drivers over disjoint time ranges to run a fragment
+ * instance parallel and take full advantage of multi-cores
  */
 public class LocalExecutionPlanner {
 
   private static final DataBlockManager DATA_BLOCK_MANAGER =
       DataBlockService.getInstance().getDataBlockManager();
 
+  private static final String TIME_COLUMN = "Time";
+
+  /** max number of TsBlocks buffered for each time range of a split series scan */
+  private static final int SPLIT_SCAN_QUEUE_CAPACITY = 8;
+
   public static LocalExecutionPlanner getInstance() {
     return InstanceHolder.INSTANCE;
   }
 
-  public DataDriver plan(
+  /**
+   * Plan a data fragment instance. The first returned driver sends the results to the downstream
+   * fragment instance, the others are split from a series scan of it and send their results to the
+   * first one through local exchanges.
+   */
+  public List<IDriver> plan(
       PlanNode plan,
       FragmentInstanceContext instanceContext,
       Filter timeFilter,
       DataRegion dataRegion) {
-    LocalExecutionPlanContext context = new LocalExecutionPlanContext(instanceContext);
+    LocalExecutionPlanContext context =
+        new LocalExecutionPlanContext(instanceContext, timeFilter, dataRegion);
+    // only split the series scan of a fragment instance which scans one series, otherwise the
+    // number of drivers grows with the number of series
+    if (dataRegion != null && countSeriesScans(plan) == 1) {
+      context.setSeriesScanParallelism(
+          IoTDBDescriptor.getInstance().getConfig().getSeriesScanParallelism());
+    }
 
     Operator root = plan.accept(new Visitor(), context);
 
@@ -117,7 +150,21 @@ public class LocalExecutionPlanner {
             dataRegion,
             context.getSourceOperators());
     instanceContext.setDriverContext(dataDriverContext);
-    return new DataDriver(root, context.getSinkHandle(), dataDriverContext);
+    List<IDriver> drivers = new ArrayList<>();
+    drivers.add(new DataDriver(root, context.getSinkHandle(), dataDriverContext));
+    drivers.addAll(context.getSplitDrivers());
+    return drivers;
+  }
+
+  private static int countSeriesScans(PlanNode node) {
+    if (node instanceof SeriesScanNode || node instanceof SeriesAggregateScanNode) {
+      return 1;
+    }
+    int count = 0;
+    for (PlanNode child : node.getChildren()) {
+      count += countSeriesScans(child);
+    }
+    return count;
   }
 
   public SchemaDriver plan(
@@ -146,6 +193,29 @@ public class LocalExecutionPlanner {
     public Operator visitSeriesScan(SeriesScanNode node, LocalExecutionPlanContext context) {
       PartialPath seriesPath = node.getSeriesPath();
       boolean ascending = node.getScanOrder() == OrderBy.TIMESTAMP_ASC;
+
+      List<Long> splitPoints = context.getSplitPoints(seriesPath, node.getTimeFilter());
+      if (!splitPoints.isEmpty()) {
+        List<Filter> timeRangeFilters = SeriesScanSplitter.getTimeRangeFilters(splitPoints);
+        return createSplitScans(
+            node.getPlanNodeId(),
+            seriesPath,
+            ascending,
+            timeRangeFilters,
+            SeriesScanOperator.class.getSimpleName(),
+            (index, operatorContext) ->
+                new SeriesScanOperator(
+                    node.getPlanNodeId(),
+                    seriesPath,
+                    node.getAllSensors(),
+                    seriesPath.getSeriesType(),
+                    operatorContext,
+                    SeriesScanSplitter.restrict(node.getTimeFilter(), timeRangeFilters.get(index)),
+                    node.getValueFilter(),
+                    ascending),
+            context);
+      }
+
       OperatorContext operatorContext =
           context.instanceContext.addOperatorContext(
               context.getNextOperatorId(),
@@ -297,6 +367,39 @@ public class LocalExecutionPlanner {
         SeriesAggregateScanNode node, LocalExecutionPlanContext context) {
       PartialPath seriesPath = node.getSeriesPath();
       boolean ascending = node.getScanOrder() == OrderBy.TIMESTAMP_ASC;
+
+      // only aggregations with group by time can be split, because the aggregate results of one
+      // time window are calculated by one driver
+      GroupByTimeParameter groupByTimeParameter = node.getGroupByTimeParameter();
+      List<Long> splitPoints =
+          groupByTimeParameter == null
+              ? Collections.emptyList()
+              : SeriesScanSplitter.alignToTimeWindows(
+                  context.getSplitPoints(seriesPath, node.getTimeFilter()), groupByTimeParameter);
+      if (!splitPoints.isEmpty()) {
+        List<Filter> timeRangeFilters = SeriesScanSplitter.getTimeRangeFilters(splitPoints);
+        return createSplitScans(
+            node.getPlanNodeId(),
+            seriesPath,
+            ascending,
+            timeRangeFilters,
+            SeriesAggregateScanOperator.class.getSimpleName(),
+            (index, operatorContext) ->
+                new SeriesAggregateScanOperator(
+                    node.getPlanNodeId(),
+                    seriesPath,
+                    node.getAllSensors(),
+                    operatorContext,
+                    node.getAggregateFuncList(),
+                    SeriesScanSplitter.restrict(node.getTimeFilter(), timeRangeFilters.get(index)),
+                    ascending,
+                    SeriesScanSplitter.restrict(
+                        groupByTimeParameter,
+                        index == 0 ? Long.MIN_VALUE : splitPoints.get(index - 1),
+                        index == splitPoints.size() ? Long.MAX_VALUE : splitPoints.get(index))),
+            context);
+      }
+
       OperatorContext operatorContext =
           context.instanceContext.addOperatorContext(
               context.getNextOperatorId(),
@@ -320,6 +423,69 @@ public class LocalExecutionPlanner {
       return aggregateScanOperator;
     }
 
+    /**
+     * Create one driver for each time range to scan the series, and concat their results through
+     * local exchanges in the scan order.
+     */
+    private Operator createSplitScans(
+        PlanNodeId planNodeId,
+        PartialPath seriesPath,
+        boolean ascending,
+        List<Filter> timeRangeFilters,
+        String scanOperatorType,
+        BiFunction<Integer, OperatorContext, DataSourceOperator> scanOperatorFactory,
+        LocalExecutionPlanContext context) {
+      FragmentInstanceId instanceId = context.instanceContext.getId();
+      List<Operator> exchangeOperators = new ArrayList<>(timeRangeFilters.size());
+      for (int i = 0; i < timeRangeFilters.size(); i++) {
+        OperatorContext scanOperatorContext =
+            context.instanceContext.addOperatorContext(
+                context.getNextOperatorId(), planNodeId, scanOperatorType);
+        DataSourceOperator scanOperator = scanOperatorFactory.apply(i, scanOperatorContext);
+
+        FragmentInstanceId driverId =
+            new FragmentInstanceId(
+                instanceId.getFragmentId(),
+                String.format("%s-%s-%d", instanceId.getInstanceId(), planNodeId.getId(), i));
+        // The queues of the later ranges are filled while the ConcatOperator is still reading the
+        // first one, so each queue is bounded to leave the memory of the query to the other
+        // drivers and to the sink of this fragment instance.
+        SharedTsBlockQueue queue =
+            new SharedTsBlockQueue(
+                driverId.toThrift(),
+                DATA_BLOCK_MANAGER.getLocalMemoryManager(),
+                SPLIT_SCAN_QUEUE_CAPACITY);
+        DataDriverContext driverContext =
+            new DataDriverContext(
+                context.instanceContext,
+                driverId,
+                Collections.singletonList(seriesPath),
+                SeriesScanSplitter.restrict(context.timeFilter, timeRangeFilters.get(i)),
+                context.dataRegion,
+                Collections.singletonList(scanOperator));
+        context.addSplitDriver(
+            new DataDriver(
+                scanOperator, new LocalSinkHandle(driverId.toThrift(), queue), driverContext));
+
+        OperatorContext exchangeOperatorContext =
+            context.instanceContext.addOperatorContext(
+                context.getNextOperatorId(), planNodeId, ExchangeOperator.class.getSimpleName());
+        exchangeOperators.add(
+            new ExchangeOperator(
+                exchangeOperatorContext,
+                new LocalSourceHandle(instanceId.toThrift(), planNodeId.getId(), queue),
+                planNodeId));
+      }
+      if (!ascending) {
+        Collections.reverse(exchangeOperators);
+      }
+
+      OperatorContext operatorContext =
+          context.instanceContext.addOperatorContext(
+              context.getNextOperatorId(), planNodeId, ConcatOperator.class.getSimpleName());
+      return new ConcatOperator(operatorContext, exchangeOperators);
+    }
+
     @Override
     public Operator visitDeviceMerge(DeviceMergeNode node, LocalExecutionPlanContext context) {
       return super.visitDeviceMerge(node, context);
@@ -374,7 +540,51 @@ public class LocalExecutionPlanner {
 
     @Override
     public Operator visitSort(SortNode node, LocalExecutionPlanContext context) {
-      return super.visitSort(node, context);
+      Operator child = node.getChild().accept(this, context);
+      return new SortOperator(
+          context.instanceContext.addOperatorContext(
+              context.getNextOperatorId(),
+              node.getPlanNodeId(),
+              SortOperator.class.getSimpleName()),
+          child,
+          node.getOutputColumnTypes(),
+          createSortKeyComparator(
+              node.getOrderBy(), node.getSortOrder(), node.getOutputColumnNames()),
+          DATA_BLOCK_MANAGER.getLocalMemoryManager().getQueryPool(),
+          IoTDBDescriptor.getInstance().getConfig().getQueryDir() + File.separator + "sort");
+    }
+
+    @Override
+    public Operator visitTopK(TopKNode node, LocalExecutionPlanContext context) {
+      List<Operator> children =
+          node.getChildren().stream()
+              .map(child -> child.accept(this, context))
+              .collect(Collectors.toList());
+      return new TopKOperator(
+          context.instanceContext.addOperatorContext(
+              context.getNextOperatorId(),
+              node.getPlanNodeId(),
+              TopKOperator.class.getSimpleName()),
+          children,
+          node.getOutputColumnTypes(),
+          createSortKeyComparator(
+              node.getOrderBy(), node.getSortOrder(), node.getOutputColumnNames()),
+          node.getTopValue());
+    }
+
+    private SortKeyComparator createSortKeyComparator(
+        List<String> orderBy, OrderBy sortOrder, List<String> outputColumnNames) {
+      int[] sortColumnIndexes = new int[orderBy.size()];
+      for (int i = 0; i < sortColumnIndexes.length; i++) {
+        String sortColumn = orderBy.get(i);
+        if (TIME_COLUMN.equalsIgnoreCase(sortColumn)) {
+          sortColumnIndexes[i] = SortKeyComparator.TIME_COLUMN_INDEX;
+        } else {
+          sortColumnIndexes[i] = outputColumnNames.indexOf(sortColumn);
+          checkArgument(sortColumnIndexes[i] >= 0, "Unknown sort column: %s", sortColumn);
+        }
+      }
+      return new SortKeyComparator(sortColumnIndexes, sortOrder != OrderBy.TIMESTAMP_DESC);
     }
 
     @Override
@@ -481,12 +691,53 @@ public class LocalExecutionPlanner {
     private final List<DataSourceOperator> sourceOperators;
     private ISinkHandle sinkHandle;
 
+    private final Filter timeFilter;
+    private final DataRegion dataRegion;
+    // max number of drivers that a series scan can be split into
+    private int seriesScanParallelism = 1;
+    private final List<IDriver> splitDrivers;
+
     private int nextOperatorId = 0;
 
     public LocalExecutionPlanContext(FragmentInstanceContext instanceContext) {
+      this(instanceContext, null, null);
+    }
+
+    public LocalExecutionPlanContext(
+        FragmentInstanceContext instanceContext, Filter timeFilter, DataRegion dataRegion) {
       this.instanceContext = instanceContext;
       this.paths = new ArrayList<>();
       this.sourceOperators = new ArrayList<>();
+      this.timeFilter = timeFilter;
+      this.dataRegion = dataRegion;
+      this.splitDrivers = new ArrayList<>();
+    }
+
+    public void setSeriesScanParallelism(int seriesScanParallelism) {
+      this.seriesScanParallelism = seriesScanParallelism;
+    }
+
+    /**
+     * Get the points to split the scan of {@code seriesPath} at, empty if the scan should not be
+     * split.
+     */
+    public List<Long> getSplitPoints(PartialPath seriesPath, Filter scanTimeFilter) {
+      if (seriesScanParallelism <= 1) {
+        return Collections.emptyList();
+      }
+      return SeriesScanSplitter.getSplitPoints(
+          dataRegion.getSequenceFileList(),
+          IDTable.translateQueryPath(seriesPath).getDevice(),
+          scanTimeFilter != null ? scanTimeFilter : timeFilter,
+          seriesScanParallelism);
+    }
+
+    public List<IDriver> getSplitDrivers() {
+      return splitDrivers;
+    }
+
+    public void addSplitDriver(IDriver driver) {
+      splitDrivers.add(driver);
     }
 
     private int getNextOperatorId() {
@@ -112,6 +112,7 @@ public class LogicalPlanner {
           queryStatement.getSelectedPathNames());
 
       planBuilder.planFilterNull(queryStatement.getFilterNullComponent());
+      planBuilder.planSort(queryStatement.getSortPath(), queryStatement.getSortOrder());
       planBuilder.planLimit(queryStatement.getRowLimit());
       planBuilder.planOffset(queryStatement.getRowOffset());
       return planBuilder.getRoot();
@@ -38,7 +38,9 @@ import org.apache.iotdb.db.mpp.sql.planner.plan.node.process.FilterNullNode;
 import org.apache.iotdb.db.mpp.sql.planner.plan.node.process.GroupByLevelNode;
 import org.apache.iotdb.db.mpp.sql.planner.plan.node.process.LimitNode;
 import org.apache.iotdb.db.mpp.sql.planner.plan.node.process.OffsetNode;
+import org.apache.iotdb.db.mpp.sql.planner.plan.node.process.SortNode;
 import org.apache.iotdb.db.mpp.sql.planner.plan.node.process.TimeJoinNode;
+import org.apache.iotdb.db.mpp.sql.planner.plan.node.process.TopKNode;
 import org.apache.iotdb.db.mpp.sql.planner.plan.node.source.SeriesAggregateScanNode;
 import org.apache.iotdb.db.mpp.sql.planner.plan.node.source.SeriesScanNode;
 import org.apache.iotdb.db.mpp.sql.planner.plan.parameter.FilterNullParameter;
@@ -51,6 +53,7 @@ import org.apache.iotdb.tsfile.read.expression.impl.GlobalTimeExpression;
 import org.apache.iotdb.tsfile.read.filter.basic.Filter;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -280,11 +283,37 @@ public class QueryPlanBuilder {
                 ));
   }
 
+  public void planSort(PartialPath sortPath, OrderBy sortOrder) {
+    if (sortPath == null) {
+      return;
+    }
+
+    this.root =
+        new SortNode(
+            context.getQueryId().genPlanNodeId(),
+            this.getRoot(),
+            Collections.singletonList(sortPath.getFullPath()),
+            sortOrder);
+  }
+
   public void planLimit(int rowLimit) {
     if (rowLimit == 0) {
       return;
     }
 
+    if (this.getRoot() instanceof SortNode) {
+      // only the first rowLimit rows of the sorted result are needed, so the full sort can be
+      // replaced by a bounded top-k
+      SortNode sortNode = (SortNode) this.getRoot();
+      this.root =
+          new TopKNode(
+              context.getQueryId().genPlanNodeId(),
+              sortNode.getChild(),
+              sortNode.getOrderBy(),
+              sortNode.getSortOrder(),
+              rowLimit);
+      return;
+    }
     this.root = new LimitNode(context.getQueryId().genPlanNodeId(), this.getRoot(), rowLimit);
   }
 
@@ -0,0 +1,145 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.mpp.sql.planner;
+
+import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
+import org.apache.iotdb.db.mpp.sql.planner.plan.parameter.GroupByTimeParameter;
+import org.apache.iotdb.tsfile.read.filter.TimeFilter;
+import org.apache.iotdb.tsfile.read.filter.basic.Filter;
+import org.apache.iotdb.tsfile.read.filter.factory.FilterFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Used to split the time range of a series scan into several disjoint time ranges, so that each of
+ * them can be scanned by a separate driver. The split points are chosen among the start times of
+ * the sequence TsFiles, which never cross a time partition, so that each driver reads a different
+ * set of sequence files.
+ */
+public class SeriesScanSplitter {
+
+  private SeriesScanSplitter() {
+    // util class
+  }
+
+  /**
+   * Get at most {@code maxSplitNum - 1} split points of the series of {@code device}. The i-th time
+   * range is [splitPoints[i - 1], splitPoints[i]), the first one starts from Long.MIN_VALUE and the
+   * last one ends at Long.MAX_VALUE.
+   *
+   * @return split points in ascending order, empty if the scan should not be split
+   */
+  public static List<Long> getSplitPoints(
+      List<TsFileResource> seqResources, String device, Filter timeFilter, int maxSplitNum) {
+    if (maxSplitNum <= 1) {
+      return Collections.emptyList();
+    }
+    TreeSet<Long> startTimes = new TreeSet<>();
+    for (TsFileResource resource : seqResources) {
+      if (resource.isDeleted() || !resource.mayContainsDevice(device)) {
+        continue;
+      }
+      long startTime = resource.getStartTime(device);
+      // open file's end time is Long.MIN_VALUE
+      long endTime = resource.isClosed() ? resource.getEndTime(device) : Long.MAX_VALUE;
+      if (startTime > endTime
+          || (timeFilter != null && !timeFilter.satisfyStartEndTime(startTime, endTime))) {
+        continue;
+      }
+      startTimes.add(startTime);
+    }
+
+    int splitNum = Math.min(maxSplitNum, startTimes.size());
+    if (splitNum <= 1) {
+      return Collections.emptyList();
+    }
+    List<Long> sortedStartTimes = new ArrayList<>(startTimes);
+    List<Long> splitPoints = new ArrayList<>(splitNum - 1);
+    for (int i = 1; i < splitNum; i++) {
+      splitPoints.add(sortedStartTimes.get(i * sortedStartTimes.size() / splitNum));
+    }
+    return splitPoints;
+  }
+
+  /**
+   * Move the split points to the start of the time windows they fall in, so that no time window is
+   * split. Only tumbling windows whose interval is not by month are supported.
+   *
+   * @return aligned split points in ascending order, empty if the scan should not be split
+   */
+  public static List<Long> alignToTimeWindows(
+      List<Long> splitPoints, GroupByTimeParameter groupByTimeParameter) {
+    if (splitPoints.isEmpty()
+        || groupByTimeParameter.isIntervalByMonth()
+        || groupByTimeParameter.isSlidingStepByMonth()
+        || groupByTimeParameter.getInterval() != groupByTimeParameter.getSlidingStep()
+        || !groupByTimeParameter.isLeftCRightO()) {
+      return Collections.emptyList();
+    }
+    long startTime = groupByTimeParameter.getStartTime();
+    long endTime = groupByTimeParameter.getEndTime();
+    long interval = groupByTimeParameter.getInterval();
+    TreeSet<Long> alignedSplitPoints = new TreeSet<>();
+    for (long splitPoint : splitPoints) {
+      long alignedSplitPoint =
+          startTime + Math.floorDiv(splitPoint - startTime, interval) * interval;
+      if (alignedSplitPoint > startTime && alignedSplitPoint < endTime) {
+        alignedSplitPoints.add(alignedSplitPoint);
+      }
+    }
+    return new ArrayList<>(alignedSplitPoints);
+  }
+
+  /** Get the time filter of each time range divided by the split points. */
+  public static List<Filter> getTimeRangeFilters(List<Long> splitPoints) {
+    List<Filter> filters = new ArrayList<>(splitPoints.size() + 1);
+    filters.add(TimeFilter.lt(splitPoints.get(0)));
+    for (int i = 1; i < splitPoints.size(); i++) {
+      filters.add(
+          FilterFactory.and(
+              TimeFilter.gtEq(splitPoints.get(i - 1)), TimeFilter.lt(splitPoints.get(i))));
+    }
+    filters.add(TimeFilter.gtEq(splitPoints.get(splitPoints.size() - 1)));
+    return filters;
+  }
+
+  /** Restrict {@code filter} to the time range of {@code timeRangeFilter}. */
+  public static Filter restrict(Filter filter, Filter timeRangeFilter) {
+    return filter == null ? timeRangeFilter : FilterFactory.and(filter, timeRangeFilter);
+  }
+
+  /**
+   * Get the group by parameter of the time windows in [{@code rangeStartTime}, {@code
+   * rangeEndTime}).
+   */
+  public static GroupByTimeParameter restrict(
+      GroupByTimeParameter groupByTimeParameter, long rangeStartTime, long rangeEndTime) {
+    return new GroupByTimeParameter(
+        Math.max(groupByTimeParameter.getStartTime(), rangeStartTime),
+        Math.min(groupByTimeParameter.getEndTime(), rangeEndTime),
+        groupByTimeParameter.getInterval(),
+        groupByTimeParameter.getSlidingStep(),
+        groupByTimeParameter.isIntervalByMonth(),
+        groupByTimeParameter.isSlidingStepByMonth(),
+        groupByTimeParameter.isLeftCRightO());
+  }
+}
@@ -94,6 +94,14 @@ public class SortNode extends ProcessNode {
     return child.getOutputColumnTypes();
   }
 
+  public PlanNode getChild() {
+    return child;
+  }
+
+  public List<String> getOrderBy() {
+    return orderBy;
+  }
+
   public OrderBy getSortOrder() {
     return sortOrder;
   }
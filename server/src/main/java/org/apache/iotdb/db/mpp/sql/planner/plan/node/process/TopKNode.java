@@ -0,0 +1,204 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.mpp.sql.planner.plan.node.process;
+
+import org.apache.iotdb.commons.utils.TestOnly;
+import org.apache.iotdb.db.mpp.common.header.ColumnHeader;
+import org.apache.iotdb.db.mpp.sql.planner.plan.node.PlanNode;
+import org.apache.iotdb.db.mpp.sql.planner.plan.node.PlanNodeId;
+import org.apache.iotdb.db.mpp.sql.planner.plan.node.PlanNodeType;
+import org.apache.iotdb.db.mpp.sql.planner.plan.node.PlanVisitor;
+import org.apache.iotdb.db.mpp.sql.statement.component.OrderBy;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.utils.Pair;
+import org.apache.iotdb.tsfile.utils.ReadWriteIOUtils;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * TopKNode returns the first topValue rows of its children in the order of orderBy, which is what a
+ * LimitNode over a SortNode returns, and it is planned for "ORDER BY series LIMIT k". The rows of
+ * all the children are taken as one input, they are not merged by time. So a partial TopKNode can
+ * be pushed down to each DataRegion, and the final TopKNode takes the partial results as its
+ * children, each of which has at most topValue rows.
+ */
+public class TopKNode extends ProcessNode {
+
+  private final List<PlanNode> children = new ArrayList<>();
+
+  // kept in the node because the children may be ExchangeNodes whose children are moved into
+  // other fragments
+  private List<ColumnHeader> outputColumnHeaders;
+
+  private final List<String> orderBy;
+
+  private final OrderBy sortOrder;
+
+  private final int topValue;
+
+  public TopKNode(PlanNodeId id, List<String> orderBy, OrderBy sortOrder, int topValue) {
+    super(id);
+    this.orderBy = orderBy;
+    this.sortOrder = sortOrder;
+    this.topValue = topValue;
+  }
+
+  public TopKNode(
+      PlanNodeId id, PlanNode child, List<String> orderBy, OrderBy sortOrder, int topValue) {
+    this(id, orderBy, sortOrder, topValue);
+    addChild(child);
+  }
+
+  @Override
+  public List<PlanNode> getChildren() {
+    return children;
+  }
+
+  @Override
+  public void addChild(PlanNode child) {
+    if (outputColumnHeaders == null) {
+      outputColumnHeaders = child.getOutputColumnHeaders();
+    }
+    children.add(child);
+  }
+
+  public void setChildren(List<PlanNode> children) {
+    this.children.clear();
+    children.forEach(this::addChild);
+  }
+
+  @Override
+  public PlanNode clone() {
+    TopKNode node = new TopKNode(getPlanNodeId(), orderBy, sortOrder, topValue);
+    node.outputColumnHeaders = outputColumnHeaders;
+    return node;
+  }
+
+  @Override
+  public int allowedChildCount() {
+    return CHILD_COUNT_NO_LIMIT;
+  }
+
+  @Override
+  public List<ColumnHeader> getOutputColumnHeaders() {
+    return outputColumnHeaders;
+  }
+
+  @Override
+  public List<String> getOutputColumnNames() {
+    return outputColumnHeaders.stream()
+        .map(ColumnHeader::getColumnName)
+        .collect(Collectors.toList());
+  }
+
+  @Override
+  public List<TSDataType> getOutputColumnTypes() {
+    return outputColumnHeaders.stream()
+        .map(ColumnHeader::getColumnType)
+        .collect(Collectors.toList());
+  }
+
+  public List<String> getOrderBy() {
+    return orderBy;
+  }
+
+  public OrderBy getSortOrder() {
+    return sortOrder;
+  }
+
+  public int getTopValue() {
+    return topValue;
+  }
+
+  @Override
+  public <R, C> R accept(PlanVisitor<R, C> visitor, C context) {
+    return visitor.visitTopK(this, context);
+  }
+
+  @Override
+  protected void serializeAttributes(ByteBuffer byteBuffer) {
+    PlanNodeType.TOP_K.serialize(byteBuffer);
+    ReadWriteIOUtils.write(orderBy.size(), byteBuffer);
+    for (String sortColumn : orderBy) {
+      ReadWriteIOUtils.write(sortColumn, byteBuffer);
+    }
+    ReadWriteIOUtils.write(sortOrder.ordinal(), byteBuffer);
+    ReadWriteIOUtils.write(topValue, byteBuffer);
+    ReadWriteIOUtils.write(outputColumnHeaders.size(), byteBuffer);
+    for (ColumnHeader columnHeader : outputColumnHeaders) {
+      columnHeader.serialize(byteBuffer);
+    }
+  }
+
+  public static TopKNode deserialize(ByteBuffer byteBuffer) {
+    List<String> orderBys = new ArrayList<>();
+    int size = ReadWriteIOUtils.readInt(byteBuffer);
+    for (int i = 0; i < size; i++) {
+      orderBys.add(ReadWriteIOUtils.readString(byteBuffer));
+    }
+    OrderBy orderBy = OrderBy.values()[ReadWriteIOUtils.readInt(byteBuffer)];
+    int topValue = ReadWriteIOUtils.readInt(byteBuffer);
+    int outputColumnHeadersSize = ReadWriteIOUtils.readInt(byteBuffer);
+    List<ColumnHeader> outputColumnHeaders = new ArrayList<>(outputColumnHeadersSize);
+    for (int i = 0; i < outputColumnHeadersSize; i++) {
+      outputColumnHeaders.add(ColumnHeader.deserialize(byteBuffer));
+    }
+    PlanNodeId planNodeId = PlanNodeId.deserialize(byteBuffer);
+    TopKNode topKNode = new TopKNode(planNodeId, orderBys, orderBy, topValue);
+    topKNode.outputColumnHeaders = outputColumnHeaders;
+    return topKNode;
+  }
+
+  @TestOnly
+  public Pair<String, List<String>> print() {
+    String title = String.format("[TopKNode (%s)]", this.getPlanNodeId());
+    List<String> attributes = new ArrayList<>();
+    attributes.add("OrderBy: " + this.getOrderBy());
+    attributes.add("SortOrder: " + (this.getSortOrder() == null ? "null" : this.getSortOrder()));
+    attributes.add("TopValue: " + this.getTopValue());
+    return new Pair<>(title, attributes);
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    if (!super.equals(o)) {
+      return false;
+    }
+    TopKNode topKNode = (TopKNode) o;
+    return topValue == topKNode.topValue
+        && Objects.equals(children, topKNode.children)
+        && Objects.equals(orderBy, topKNode.orderBy)
+        && sortOrder == topKNode.sortOrder;
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(super.hashCode(), children, orderBy, sortOrder, topValue);
+  }
+}
@@ -40,8 +40,8 @@ import java.util.Set;
 /**
  * This rewriter:
  *
- * <p>1. Concat prefix path in SELECT, WHERE, and WITHOUT NULL clause with the suffix path in the
- * FROM clause.
+ * <p>1. Concat prefix path in SELECT, WHERE, WITHOUT NULL, and ORDER BY clause with the suffix path
+ * in the FROM clause.
  *
  * <p>2. Construct a {@link PathPatternTree}.
  */
@@ -63,6 +63,11 @@ public class ConcatPathRewriter {
       concatWithoutNullColumnsWithFrom(queryStatement);
     }
 
+    // concat ORDER BY with FROM
+    if (queryStatement.getSortPath() != null) {
+      concatSortPathWithFrom(queryStatement);
+    }
+
     // concat WHERE with FROM
     if (queryStatement.getWhereCondition() != null) {
       constructPatternTreeFromWhereWithFrom(queryStatement);
@@ -154,6 +159,26 @@ public class ConcatPathRewriter {
     }
   }
 
+  /**
+   * Concat the prefix path in the ORDER BY clause and the suffix path in the FROM clause into a
+   * full path. The ORDER BY clause must refer to exactly one time series, so only one suffix path
+   * is allowed in the FROM clause.
+   */
+  private void concatSortPathWithFrom(QueryStatement queryStatement)
+      throws StatementAnalyzeException {
+    PartialPath sortPath = queryStatement.getSortPath();
+    if (sortPath.getFirstNode().startsWith(SQLConstant.ROOT)) {
+      // do nothing in the case of "order by root.d1.s1"
+      return;
+    }
+    List<PartialPath> prefixPaths = queryStatement.getFromComponent().getPrefixPaths();
+    if (prefixPaths.size() != 1) {
+      throw new StatementAnalyzeException(
+          "ORDER BY a time series only supports one path in the FROM clause.");
+    }
+    queryStatement.setSortPath(prefixPaths.get(0).concatPath(sortPath));
+  }
+
   /**
    * Concat the prefix path in the WHERE clause and the suffix path in the FROM clause into a full
    * path pattern. And construct pattern tree.
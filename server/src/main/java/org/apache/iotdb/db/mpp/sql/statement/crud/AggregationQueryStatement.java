@@ -93,6 +93,10 @@ public class AggregationQueryStatement extends QueryStatement {
     if (disableAlign()) {
       throw new SemanticException("AGGREGATION doesn't support disable align clause.");
     }
+
+    if (sortPath != null) {
+      throw new SemanticException("AGGREGATION doesn't support ORDER BY a time series.");
+    }
     checkSelectComponent(selectComponent);
     if (isGroupByLevel() && isAlignByDevice()) {
       throw new SemanticException("group by level does not support align by device now.");
@@ -58,6 +58,10 @@ public class LastQueryStatement extends QueryStatement {
       throw new SemanticException("Disable align cannot be applied to LAST query.");
     }
 
+    if (sortPath != null) {
+      throw new SemanticException("ORDER BY a time series cannot be applied to LAST query.");
+    }
+
     for (ResultColumn resultColumn : selectComponent.getResultColumns()) {
       Expression expression = resultColumn.getExpression();
       if (!(expression instanceof TimeSeriesOperand)) {
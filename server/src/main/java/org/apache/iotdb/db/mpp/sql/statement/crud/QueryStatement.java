@@ -68,6 +68,7 @@ import java.util.stream.Collectors;
  *   <li>[SLIMIT seriesLimit] [SOFFSET seriesOffset]
  *   <li>[WITHOUT NULL {ANY | ALL} [resultColumn [, resultColumn] ...]]
  *   <li>[ORDER BY TIME {ASC | DESC}]
+ *   <li>[ORDER BY suffixPath {ASC | DESC}]
  *   <li>[{ALIGN BY DEVICE | DISABLE ALIGN}]
  * </ul>
  */
@@ -91,6 +92,12 @@ public class QueryStatement extends Statement {
 
   protected OrderBy resultOrder = OrderBy.TIMESTAMP_ASC;
 
+  // the time series to sort the result set by. The default value is null, which means the result
+  // set is ordered by time
+  protected PartialPath sortPath;
+  // order of sortPath, TIMESTAMP_DESC means descending values
+  protected OrderBy sortOrder = OrderBy.TIMESTAMP_ASC;
+
   protected ResultSetFormat resultSetFormat = ResultSetFormat.ALIGN_BY_TIME;
 
   // used for TOP_N, LIKE, CONTAIN
@@ -114,6 +121,8 @@ public class QueryStatement extends Statement {
     this.seriesOffset = another.getSeriesOffset();
     this.filterNullComponent = another.getFilterNullComponent();
     this.resultOrder = another.getResultOrder();
+    this.sortPath = another.getSortPath();
+    this.sortOrder = another.getSortOrder();
     this.resultSetFormat = another.getResultSetFormat();
     this.props = another.getProps();
     this.indexType = another.getIndexType();
@@ -197,6 +206,22 @@ public class QueryStatement extends Statement {
     this.resultOrder = resultOrder;
   }
 
+  public PartialPath getSortPath() {
+    return sortPath;
+  }
+
+  public void setSortPath(PartialPath sortPath) {
+    this.sortPath = sortPath;
+  }
+
+  public OrderBy getSortOrder() {
+    return sortOrder;
+  }
+
+  public void setSortOrder(OrderBy sortOrder) {
+    this.sortOrder = sortOrder;
+  }
+
   public ResultSetFormat getResultSetFormat() {
     return resultSetFormat;
   }
@@ -317,6 +342,16 @@ public class QueryStatement extends Statement {
 
   /** semantic check */
   public void selfCheck() {
+    if (sortPath != null) {
+      if (isAlignByDevice() || disableAlign()) {
+        throw new SemanticException(
+            "ORDER BY a time series is only supported when the result set is aligned by time.");
+      }
+      if (hasTimeSeriesGeneratingFunction() || hasUserDefinedAggregationFunction()) {
+        throw new SemanticException("ORDER BY a time series is not supported in UDF queries.");
+      }
+    }
+
     if (isAlignByDevice()) {
       if (hasTimeSeriesGeneratingFunction() || hasUserDefinedAggregationFunction()) {
         throw new SemanticException("The ALIGN BY DEVICE clause is not supported in UDF queries.");
@@ -36,9 +36,9 @@ import org.apache.iotdb.db.engine.cache.ChunkCache;
 import org.apache.iotdb.db.engine.cache.TimeSeriesMetadataCache;
 import org.apache.iotdb.db.engine.cq.ContinuousQueryService;
 import org.apache.iotdb.db.engine.flush.pool.FlushTaskPoolManager;
+import org.apache.iotdb.db.engine.load.BulkTsFileLoader;
 import org.apache.iotdb.db.engine.storagegroup.DataRegion.TimePartitionFilter;
 import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
-import org.apache.iotdb.db.engine.storagegroup.TsFileResourceStatus;
 import org.apache.iotdb.db.engine.trigger.service.TriggerRegistrationService;
 import org.apache.iotdb.db.exception.BatchProcessException;
 import org.apache.iotdb.db.exception.ContinuousQueryException;
@@ -51,7 +51,6 @@ import org.apache.iotdb.db.exception.WriteProcessException;
 import org.apache.iotdb.db.exception.metadata.IllegalPathException;
 import org.apache.iotdb.db.exception.metadata.MetadataException;
 import org.apache.iotdb.db.exception.metadata.PathNotExistException;
-import org.apache.iotdb.db.exception.metadata.StorageGroupAlreadySetException;
 import org.apache.iotdb.db.exception.metadata.StorageGroupNotSetException;
 import org.apache.iotdb.db.exception.query.QueryProcessException;
 import org.apache.iotdb.db.exception.sync.PipeException;
@@ -61,7 +60,6 @@ import org.apache.iotdb.db.metadata.mnode.IMeasurementMNode;
 import org.apache.iotdb.db.metadata.mnode.IStorageGroupMNode;
 import org.apache.iotdb.db.metadata.path.MeasurementPath;
 import org.apache.iotdb.db.metadata.path.PartialPath;
-import org.apache.iotdb.db.metadata.utils.MetaUtils;
 import org.apache.iotdb.db.qp.constant.SQLConstant;
 import org.apache.iotdb.db.qp.logical.Operator;
 import org.apache.iotdb.db.qp.logical.sys.AuthorOperator;
@@ -158,34 +156,21 @@ import org.apache.iotdb.db.sync.receiver.ReceiverService;
 import org.apache.iotdb.db.sync.sender.pipe.Pipe;
 import org.apache.iotdb.db.sync.sender.pipe.PipeSink;
 import org.apache.iotdb.db.sync.sender.service.SenderService;
-import org.apache.iotdb.db.tools.TsFileRewriteTool;
 import org.apache.iotdb.db.utils.AuthUtils;
-import org.apache.iotdb.db.utils.FileLoaderUtils;
 import org.apache.iotdb.db.utils.TypeInferenceUtils;
-import org.apache.iotdb.db.utils.UpgradeUtils;
 import org.apache.iotdb.db.wal.WALManager;
 import org.apache.iotdb.rpc.RpcUtils;
 import org.apache.iotdb.rpc.TSStatusCode;
-import org.apache.iotdb.tsfile.common.constant.TsFileConstant;
 import org.apache.iotdb.tsfile.exception.filter.QueryFilterOptimizationException;
 import org.apache.iotdb.tsfile.exception.write.UnSupportedDataTypeException;
-import org.apache.iotdb.tsfile.file.metadata.ChunkGroupMetadata;
-import org.apache.iotdb.tsfile.file.metadata.ChunkMetadata;
-import org.apache.iotdb.tsfile.file.metadata.TimeseriesMetadata;
-import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
-import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
-import org.apache.iotdb.tsfile.read.TsFileCheckStatus;
-import org.apache.iotdb.tsfile.read.TsFileSequenceReader;
 import org.apache.iotdb.tsfile.read.common.Field;
-import org.apache.iotdb.tsfile.read.common.Path;
 import org.apache.iotdb.tsfile.read.common.RowRecord;
 import org.apache.iotdb.tsfile.read.query.dataset.EmptyDataSet;
 import org.apache.iotdb.tsfile.read.query.dataset.QueryDataSet;
 import org.apache.iotdb.tsfile.utils.Binary;
 import org.apache.iotdb.tsfile.utils.Pair;
 import org.apache.iotdb.tsfile.write.schema.IMeasurementSchema;
-import org.apache.iotdb.tsfile.write.writer.RestorableTsFileIOWriter;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -1359,14 +1344,21 @@ public class PlanExecutor implements IPlanExecutor {
       throw new QueryProcessException(
           String.format("File path '%s' doesn't exists.", file.getPath()));
     }
+    List<File> tsFiles = new ArrayList<>();
     if (file.isDirectory()) {
-      loadDir(file, plan);
-    } else {
-      loadFile(file, plan);
+      collectTsFiles(file, tsFiles);
+    } else if (file.getName().endsWith(TSFILE_SUFFIX)) {
+      tsFiles.add(file);
     }
+    new BulkTsFileLoader(plan.getSgLevel(), plan.getVerifyMetadata(), plan.isAutoCreateSchema())
+        .load(tsFiles);
   }
 
-  private void loadDir(File curFile, OperateFilePlan plan) throws QueryProcessException {
+  /**
+   * Collect the tsfiles in the directory sorted by their establish time, and then the tsfiles in
+   * its sub directories.
+   */
+  private void collectTsFiles(File curFile, List<File> tsFileList) {
     File[] files = curFile.listFiles();
     long[] establishTime = new long[files.length];
     List<Integer> tsfiles = new ArrayList<>();
@@ -1390,217 +1382,12 @@ public class PlanExecutor implements IPlanExecutor {
           return establishTime[o1] < establishTime[o2] ? -1 : 1;
         });
     for (Integer i : tsfiles) {
-      loadFile(files[i], plan);
+      tsFileList.add(files[i]);
     }
 
     for (File file : files) {
       if (file.isDirectory()) {
-        loadDir(file, plan);
-      }
-    }
-  }
-
-  private void loadFile(File file, OperateFilePlan plan) throws QueryProcessException {
-    if (!file.getName().endsWith(TSFILE_SUFFIX)) {
-      return;
-    }
-    TsFileResource tsFileResource = new TsFileResource(file);
-    tsFileResource.setStatus(TsFileResourceStatus.CLOSED);
-    try {
-      // check file
-      RestorableTsFileIOWriter restorableTsFileIOWriter = new RestorableTsFileIOWriter(file);
-      if (restorableTsFileIOWriter.hasCrashed()) {
-        restorableTsFileIOWriter.close();
-        throw new QueryProcessException(
-            String.format(
-                "Cannot load file %s because the file has crashed.", file.getAbsolutePath()));
-      }
-      Map<Path, IMeasurementSchema> schemaMap = new HashMap<>();
-
-      List<ChunkGroupMetadata> chunkGroupMetadataList = new ArrayList<>();
-      try (TsFileSequenceReader reader = new TsFileSequenceReader(file.getAbsolutePath(), false)) {
-        if (reader.selfCheck(schemaMap, chunkGroupMetadataList, false)
-            != TsFileCheckStatus.COMPLETE_FILE) {
-          throw new QueryProcessException(
-              String.format(
-                  "Cannot load file %s because the file has crashed.", file.getAbsolutePath()));
-        }
-        if (plan.getVerifyMetadata()) {
-          loadNewTsFileVerifyMetadata(reader);
-        }
-      } catch (IOException e) {
-        logger.warn("can not get timeseries metadata from {}.", file.getAbsoluteFile());
-        throw new QueryProcessException(e.getMessage());
-      }
-
-      FileLoaderUtils.loadOrGenerateResource(tsFileResource);
-      if (UpgradeUtils.isNeedUpgrade(tsFileResource)) {
-        throw new QueryProcessException(
-            String.format(
-                "Cannot load file %s because the file's version is old which needs to be upgraded.",
-                file.getAbsolutePath()));
-      }
-
-      // create schemas if they doesn't exist
-      if (plan.isAutoCreateSchema()) {
-        createSchemaAutomatically(chunkGroupMetadataList, schemaMap, plan.getSgLevel());
-      }
-
-      List<TsFileResource> splitResources = new ArrayList();
-      if (tsFileResource.isSpanMultiTimePartitions()) {
-        logger.info(
-            "try to split the tsFile={} du to it spans multi partitions",
-            tsFileResource.getTsFile().getPath());
-        TsFileRewriteTool.rewriteTsFile(tsFileResource, splitResources);
-        tsFileResource.writeLock();
-        tsFileResource.removeModFile();
-        tsFileResource.writeUnlock();
-        logger.info(
-            "after split, the old tsFile was split to {} new tsFiles", splitResources.size());
-      }
-
-      if (splitResources.isEmpty()) {
-        splitResources.add(tsFileResource);
-      }
-
-      for (TsFileResource resource : splitResources) {
-        StorageEngine.getInstance().loadNewTsFile(resource, true);
-      }
-    } catch (Exception e) {
-      logger.error("fail to load file {}", file.getName(), e);
-      throw new QueryProcessException(
-          String.format("Cannot load file %s because %s", file.getAbsolutePath(), e.getMessage()));
-    }
-  }
-
-  private void loadNewTsFileVerifyMetadata(TsFileSequenceReader tsFileSequenceReader)
-      throws MetadataException, QueryProcessException, IOException {
-    Map<String, List<TimeseriesMetadata>> metadataSet =
-        tsFileSequenceReader.getAllTimeseriesMetadata();
-    for (Map.Entry<String, List<TimeseriesMetadata>> entry : metadataSet.entrySet()) {
-      String deviceId = entry.getKey();
-      PartialPath devicePath = new PartialPath(deviceId);
-      if (!IoTDB.schemaProcessor.isPathExist(devicePath)) {
-        continue;
-      }
-      boolean isAlignedInIoTDB =
-          IoTDB.schemaProcessor.getDeviceNode(devicePath).getAsEntityMNode().isAligned();
-      boolean isAlignedInTsFile = false;
-      for (TimeseriesMetadata metadata : entry.getValue()) {
-        if ("".equals(metadata.getMeasurementId())) {
-          isAlignedInTsFile = true;
-          continue;
-        }
-        PartialPath fullPath =
-            new PartialPath(deviceId + TsFileConstant.PATH_SEPARATOR + metadata.getMeasurementId());
-        if (IoTDB.schemaProcessor.isPathExist(fullPath)) {
-          TSDataType dataType = IoTDB.schemaProcessor.getSeriesType(fullPath);
-          if (dataType != metadata.getTSDataType()) {
-            throw new QueryProcessException(
-                String.format(
-                    "%s is %s in the loading TsFile but is %s in IoTDB.",
-                    fullPath.getFullPath(), metadata.getTSDataType().name(), dataType.name()));
-          }
-        }
-      }
-      if (isAlignedInIoTDB != isAlignedInTsFile) {
-        throw new QueryProcessException(
-            String.format(
-                "%s is%s aligned in the loading TsFile but is%s aligned in IoTDB.",
-                devicePath.getFullPath(),
-                isAlignedInTsFile ? "" : " not",
-                isAlignedInIoTDB ? "" : " not"));
-      }
-    }
-  }
-
-  @SuppressWarnings("squid:S3776") // Suppress high Cognitive Complexity warning
-  private void createSchemaAutomatically(
-      List<ChunkGroupMetadata> chunkGroupMetadataList,
-      Map<Path, IMeasurementSchema> knownSchemas,
-      int sgLevel)
-      throws MetadataException {
-    if (chunkGroupMetadataList.isEmpty()) {
-      return;
-    }
-
-    Set<PartialPath> registeredSeries = new HashSet<>();
-    for (ChunkGroupMetadata chunkGroupMetadata : chunkGroupMetadataList) {
-      String device = chunkGroupMetadata.getDevice();
-      boolean isAligned = false;
-      Set<String> existSeriesSet = new HashSet<>();
-      List<PartialPath> needRegisterSeries = new ArrayList<>();
-      List<IMeasurementSchema> needRegisterSchema = new ArrayList<>();
-      PartialPath devicePath = new PartialPath(device);
-      PartialPath storageGroupPath = MetaUtils.getStorageGroupPathByLevel(devicePath, sgLevel);
-      try {
-        IoTDB.schemaProcessor.setStorageGroup(storageGroupPath);
-      } catch (StorageGroupAlreadySetException alreadySetException) {
-        if (!alreadySetException.getStorageGroupPath().equals(storageGroupPath.getFullPath())) {
-          throw alreadySetException;
-        }
-      }
-      for (PartialPath path : IoTDB.schemaProcessor.getMeasurementPaths(devicePath, true)) {
-        existSeriesSet.add(path.getMeasurement());
-        existSeriesSet.add(path.getMeasurementAlias());
-      }
-      for (ChunkMetadata chunkMetadata : chunkGroupMetadata.getChunkMetadataList()) {
-        if ("".equals(chunkMetadata.getMeasurementUid())) {
-          isAligned = true;
-          continue;
-        }
-        PartialPath series =
-            new PartialPath(
-                chunkGroupMetadata.getDevice()
-                    + TsFileConstant.PATH_SEPARATOR
-                    + chunkMetadata.getMeasurementUid());
-        if (!registeredSeries.contains(series)) {
-          registeredSeries.add(series);
-          IMeasurementSchema schema =
-              knownSchemas.get(new Path(series.getDevice(), series.getMeasurement()));
-          if (schema == null) {
-            throw new MetadataException(
-                String.format(
-                    "Can not get the schema of measurement [%s]",
-                    chunkMetadata.getMeasurementUid()));
-          }
-          if (!existSeriesSet.contains(chunkMetadata.getMeasurementUid())) {
-            needRegisterSeries.add(series);
-            needRegisterSchema.add(schema);
-          }
-        }
-      }
-
-      int size = needRegisterSeries.size();
-      if (size == 0) {
-        continue;
-      }
-      if (isAligned) {
-        List<String> measurements = new ArrayList<>();
-        List<TSDataType> dataTypes = new ArrayList<>();
-        List<TSEncoding> encodings = new ArrayList<>();
-        List<CompressionType> compressors = new ArrayList<>();
-
-        for (int i = 0; i < size; i++) {
-          IMeasurementSchema schema = needRegisterSchema.get(i);
-          measurements.add(needRegisterSeries.get(i).getMeasurement());
-          dataTypes.add(schema.getType());
-          encodings.add(schema.getEncodingType());
-          compressors.add(schema.getCompressor());
-        }
-
-        IoTDB.schemaProcessor.createAlignedTimeSeries(
-            devicePath, measurements, dataTypes, encodings, compressors);
-      } else {
-        for (int i = 0; i < size; i++) {
-          IMeasurementSchema schema = needRegisterSchema.get(i);
-          IoTDB.schemaProcessor.createTimeseries(
-              needRegisterSeries.get(i),
-              schema.getType(),
-              schema.getEncodingType(),
-              schema.getCompressor(),
-              Collections.emptyMap());
-        }
+        collectTsFiles(file, tsFileList);
       }
     }
   }
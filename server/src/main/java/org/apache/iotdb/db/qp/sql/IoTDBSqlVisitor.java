@@ -1187,6 +1187,11 @@ public class IoTDBSqlVisitor extends IoTDBSqlParserBaseVisitor<Operator> {
     return queryOp;
   }
 
+  @Override
+  public Operator visitOrderByValueStatement(IoTDBSqlParser.OrderByValueStatementContext ctx) {
+    throw new SQLParserException("ORDER BY a time series is not supported yet.");
+  }
+
   @Override
   public Operator visitGroupByTimeStatement(IoTDBSqlParser.GroupByTimeStatementContext ctx) {
     queryOp = new GroupByQueryOperator();
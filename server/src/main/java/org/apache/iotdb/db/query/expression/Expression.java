@@ -74,6 +74,15 @@ public abstract class Expression {
 
   protected Integer inputColumnIndex = null;
 
+  /** @return the index of the input column bound to this expression, or null if not bound */
+  public Integer getInputColumnIndex() {
+    return inputColumnIndex;
+  }
+
+  public void setInputColumnIndex(Integer inputColumnIndex) {
+    this.inputColumnIndex = inputColumnIndex;
+  }
+
   public boolean isBuiltInAggregationFunctionExpression() {
     return false;
   }
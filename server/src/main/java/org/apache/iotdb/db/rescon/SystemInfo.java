@@ -40,7 +40,7 @@ public class SystemInfo {
   private static final IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
   private static final Logger logger = LoggerFactory.getLogger(SystemInfo.class);
 
-  private long totalStorageGroupMemCost = 0L;
+  private volatile long totalStorageGroupMemCost = 0L;
   private volatile boolean rejected = false;
 
   private static long memorySizeForWrite = config.getAllocateMemoryForWrite();
@@ -55,6 +55,8 @@ public class SystemInfo {
 
   private volatile boolean isEncodingFasterThanIo = true;
 
+  private long compactionBufferMemoryCost = 0L;
+
   /**
    * Report current mem cost of storage group to system. Called when the memory of storage group
    * newly accumulates to IoTDBConfig.getStorageGroupSizeReportThreshold()
@@ -217,6 +219,14 @@ public class SystemInfo {
     return rejected;
   }
 
+  /**
+   * Get the memory pressure of writing, which grows linearly from 0 when the total mem cost of
+   * storage groups is under the flush threshold to 1 when it reaches the reject threshold.
+   */
+  public double getWriteMemoryPressure() {
+    return WriteThrottler.getPressure(totalStorageGroupMemCost, FLUSH_THERSHOLD, REJECT_THERSHOLD);
+  }
+
   public void setEncodingFasterThanIo(boolean isEncodingFasterThanIo) {
     this.isEncodingFasterThanIo = isEncodingFasterThanIo;
   }
@@ -254,6 +264,28 @@ public class SystemInfo {
     REJECT_THERSHOLD = memorySizeForWrite * config.getRejectProportion();
   }
 
+  /**
+   * Apply memory for buffering the chunk groups compacted by the sub tasks of an inner space
+   * compaction.
+   *
+   * @return false if the budget of compaction buffer is not enough, and nothing is applied
+   */
+  public synchronized boolean applyCompactionBufferMemory(long memoryCost) {
+    if (compactionBufferMemoryCost + memoryCost > config.getInnerCompactionBufferMemoryBudget()) {
+      return false;
+    }
+    compactionBufferMemoryCost += memoryCost;
+    return true;
+  }
+
+  public synchronized void releaseCompactionBufferMemory(long memoryCost) {
+    compactionBufferMemoryCost -= memoryCost;
+  }
+
+  public synchronized long getCompactionBufferMemoryCost() {
+    return compactionBufferMemoryCost;
+  }
+
   public long getTotalMemTableSize() {
     return totalStorageGroupMemCost;
   }
@@ -18,6 +18,7 @@
  */
 package org.apache.iotdb.db.rescon;
 
+import org.apache.iotdb.commons.concurrent.IoTDBThreadPoolFactory;
 import org.apache.iotdb.commons.utils.TestOnly;
 import org.apache.iotdb.db.conf.IoTDBConfig;
 import org.apache.iotdb.db.conf.IoTDBDescriptor;
@@ -28,6 +29,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
 
 public class TsFileResourceManager {
   private static final Logger logger = LoggerFactory.getLogger(TsFileResourceManager.class);
@@ -45,6 +47,9 @@ public class TsFileResourceManager {
   /** total used memory for TimeIndex */
   private long totalTimeIndexMemCost;
 
+  /** load the lazily registered TsFileResources in background */
+  private ExecutorService warmUpExecutor;
+
   @TestOnly
   public void setTimeIndexMemoryThreshold(double timeIndexMemoryThreshold) {
     TIME_INDEX_MEMORY_THRESHOLD = timeIndexMemoryThreshold;
@@ -69,6 +74,10 @@ public class TsFileResourceManager {
 
   /** delete the TsFileResource in PriorityQueue when the source file is deleted */
   public synchronized void removeTsFileResource(TsFileResource tsFileResource) {
+    if (tsFileResource.hasUnloadedTimeIndex()) {
+      // a lazily registered TsFileResource is only registered after it is loaded
+      return;
+    }
     if (sealedTsFileResources.contains(tsFileResource)) {
       sealedTsFileResources.remove(tsFileResource);
       if (TimeIndexLevel.valueOf(tsFileResource.getTimeIndexType())
@@ -80,6 +89,15 @@ public class TsFileResourceManager {
     }
   }
 
+  /** submit a task loading lazily registered TsFileResources, the tasks are run one by one */
+  public synchronized void submitWarmUpTask(Runnable warmUpTask) {
+    if (warmUpExecutor == null) {
+      warmUpExecutor =
+          IoTDBThreadPoolFactory.newSingleThreadExecutorWithDaemon("TsFileResource-WarmUp");
+    }
+    warmUpExecutor.submit(warmUpTask);
+  }
+
   /** once degradation is triggered, the total memory for timeIndex should reduce */
   private void releaseTimeIndexMemCost(long memCost) {
     totalTimeIndexMemCost -= memCost;
@@ -0,0 +1,126 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.rescon;
+
+import org.apache.iotdb.common.rpc.thrift.TSStatus;
+import org.apache.iotdb.db.conf.IoTDBConfig;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.engine.flush.FlushManager;
+import org.apache.iotdb.db.wal.WALManager;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * WriteThrottler delays insertions in proportion to the write pressure, so that ingestion slows
+ * down smoothly before {@link SystemInfo} switches the system to reject status. The write pressure
+ * is the max of the memtable memory pressure, the flush task queue pressure and the wal buffer
+ * occupancy, each of which ranges from 0 to 1.
+ *
+ * <p>Insertions are throttled when the rpc service accepts them, before they are dispatched to the
+ * consensus layer, and the pressure is returned to the client in {@link TSStatus#writePressure} so
+ * that the session can slow down by itself.
+ */
+public class WriteThrottler {
+
+  private static final IoTDBConfig CONFIG = IoTDBDescriptor.getInstance().getConfig();
+
+  private static final Logger logger = LoggerFactory.getLogger(WriteThrottler.class);
+
+  private WriteThrottler() {}
+
+  public static WriteThrottler getInstance() {
+    return InstanceHolder.INSTANCE;
+  }
+
+  /**
+   * @return pressure of value, which grows linearly from 0 when value is not larger than
+   *     lowThreshold to 1 when value reaches highThreshold
+   */
+  public static double getPressure(double value, double lowThreshold, double highThreshold) {
+    if (value <= lowThreshold) {
+      return 0;
+    }
+    if (value >= highThreshold) {
+      return 1;
+    }
+    return (value - lowThreshold) / (highThreshold - lowThreshold);
+  }
+
+  /** @return write pressure of the system, ranging from 0 to 1 */
+  public double getWritePressure() {
+    double memoryPressure = SystemInfo.getInstance().getWriteMemoryPressure();
+    double flushPressure =
+        getPressure(
+            FlushManager.getInstance().getNumberOfPendingTasks(),
+            0,
+            Math.max(1, CONFIG.getWriteThrottleFlushTaskThreshold()));
+    double walPressure = WALManager.getInstance().getMaxBufferOccupancy();
+    return Math.max(memoryPressure, Math.max(flushPressure, walPressure));
+  }
+
+  /** @return time in ms that an insertion should be delayed under the given write pressure */
+  public static long getThrottleTimeInMs(double writePressure, int maxThrottleTimeInMs) {
+    return (long) (Math.max(0, Math.min(1, writePressure)) * maxThrottleTimeInMs);
+  }
+
+  /** Block the current insertion for a while according to the write pressure */
+  public void throttle() {
+    if (!CONFIG.isEnableWriteThrottle()) {
+      return;
+    }
+    long throttleTime =
+        getThrottleTimeInMs(getWritePressure(), CONFIG.getMaxWriteThrottleTimeInMs());
+    if (throttleTime <= 0) {
+      return;
+    }
+    logger.debug("Write pressure is high, delay the insertion for {}ms", throttleTime);
+    try {
+      TimeUnit.MILLISECONDS.sleep(throttleTime);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Attach the current write pressure to the status of an insertion if write throttle is enabled.
+   * The status is copied before being modified because it may be a shared constant.
+   */
+  public TSStatus attachWritePressure(TSStatus status) {
+    if (status == null || !CONFIG.isEnableWriteThrottle()) {
+      return status;
+    }
+    double writePressure = getWritePressure();
+    if (writePressure <= 0) {
+      return status;
+    }
+    TSStatus statusWithPressure = new TSStatus(status);
+    statusWithPressure.setWritePressure(writePressure);
+    return statusWithPressure;
+  }
+
+  private static class InstanceHolder {
+
+    private InstanceHolder() {}
+
+    private static final WriteThrottler INSTANCE = new WriteThrottler();
+  }
+}
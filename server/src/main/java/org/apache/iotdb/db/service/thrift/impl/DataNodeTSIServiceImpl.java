@@ -43,6 +43,7 @@ import org.apache.iotdb.db.mpp.sql.statement.crud.InsertRowsOfOneDeviceStatement
 import org.apache.iotdb.db.mpp.sql.statement.crud.InsertRowsStatement;
 import org.apache.iotdb.db.mpp.sql.statement.crud.InsertTabletStatement;
 import org.apache.iotdb.db.query.control.SessionManager;
+import org.apache.iotdb.db.rescon.WriteThrottler;
 import org.apache.iotdb.db.service.basic.BasicOpenSessionResp;
 import org.apache.iotdb.db.service.metrics.MetricsService;
 import org.apache.iotdb.db.service.metrics.Operation;
@@ -117,6 +118,8 @@ public class DataNodeTSIServiceImpl implements TSIEventHandler {
 
   private static final SessionManager SESSION_MANAGER = SessionManager.getInstance();
 
+  private static final WriteThrottler WRITE_THROTTLER = WriteThrottler.getInstance();
+
   private final IPartitionFetcher PARTITION_FETCHER;
 
   private final ISchemaFetcher SCHEMA_FETCHER;
@@ -378,6 +381,7 @@ public class DataNodeTSIServiceImpl implements TSIEventHandler {
       InsertRowsStatement statement = (InsertRowsStatement) StatementGenerator.createStatement(req);
 
       // Step 2: call the coordinator
+      WRITE_THROTTLER.throttle();
       long queryId = SESSION_MANAGER.requestQueryId(false);
       ExecutionResult result =
           COORDINATOR.execute(
@@ -391,7 +395,7 @@ public class DataNodeTSIServiceImpl implements TSIEventHandler {
       // TODO(INSERT) do this check in analyze
       //      TSStatus status = serviceProvider.checkAuthority(insertTabletPlan,
       // req.getSessionId());
-      return result.status;
+      return WRITE_THROTTLER.attachWritePressure(result.status);
     } catch (Exception e) {
       return onNPEOrUnexpectedException(
           e, OperationType.INSERT_TABLET, TSStatusCode.EXECUTE_STATEMENT_ERROR);
@@ -421,6 +425,7 @@ public class DataNodeTSIServiceImpl implements TSIEventHandler {
           (InsertRowsOfOneDeviceStatement) StatementGenerator.createStatement(req);
 
       // Step 2: call the coordinator
+      WRITE_THROTTLER.throttle();
       long queryId = SESSION_MANAGER.requestQueryId(false);
       ExecutionResult result =
           COORDINATOR.execute(
@@ -434,7 +439,7 @@ public class DataNodeTSIServiceImpl implements TSIEventHandler {
       // TODO(INSERT) do this check in analyze
       //      TSStatus status = serviceProvider.checkAuthority(insertTabletPlan,
       // req.getSessionId());
-      return result.status;
+      return WRITE_THROTTLER.attachWritePressure(result.status);
     } catch (Exception e) {
       return onNPEOrUnexpectedException(
           e, OperationType.INSERT_TABLET, TSStatusCode.EXECUTE_STATEMENT_ERROR);
@@ -464,6 +469,7 @@ public class DataNodeTSIServiceImpl implements TSIEventHandler {
           (InsertRowsOfOneDeviceStatement) StatementGenerator.createStatement(req);
 
       // Step 2: call the coordinator
+      WRITE_THROTTLER.throttle();
       long queryId = SESSION_MANAGER.requestQueryId(false);
       ExecutionResult result =
           COORDINATOR.execute(
@@ -477,7 +483,7 @@ public class DataNodeTSIServiceImpl implements TSIEventHandler {
       // TODO(INSERT) do this check in analyze
       //      TSStatus status = serviceProvider.checkAuthority(insertTabletPlan,
       // req.getSessionId());
-      return result.status;
+      return WRITE_THROTTLER.attachWritePressure(result.status);
     } catch (Exception e) {
       return onNPEOrUnexpectedException(
           e, OperationType.INSERT_TABLET, TSStatusCode.EXECUTE_STATEMENT_ERROR);
@@ -503,6 +509,7 @@ public class DataNodeTSIServiceImpl implements TSIEventHandler {
       InsertRowStatement statement = (InsertRowStatement) StatementGenerator.createStatement(req);
 
       // Step 2: call the coordinator
+      WRITE_THROTTLER.throttle();
       long queryId = SESSION_MANAGER.requestQueryId(false);
       ExecutionResult result =
           COORDINATOR.execute(
@@ -516,7 +523,7 @@ public class DataNodeTSIServiceImpl implements TSIEventHandler {
       // TODO(INSERT) do this check in analyze
       //      TSStatus status = SESSION_MANAGER.checkAuthority(insertTabletPlan,
       // req.getSessionId());
-      return result.status;
+      return WRITE_THROTTLER.attachWritePressure(result.status);
     } catch (Exception e) {
       return onNPEOrUnexpectedException(
           e, OperationType.INSERT_TABLET, TSStatusCode.EXECUTE_STATEMENT_ERROR);
@@ -537,6 +544,7 @@ public class DataNodeTSIServiceImpl implements TSIEventHandler {
       InsertMultiTabletsStatement statement =
           (InsertMultiTabletsStatement) StatementGenerator.createStatement(req);
       // Step 2: call the coordinator
+      WRITE_THROTTLER.throttle();
       long queryId = SESSION_MANAGER.requestQueryId(false);
       ExecutionResult result =
           COORDINATOR.execute(
@@ -550,7 +558,7 @@ public class DataNodeTSIServiceImpl implements TSIEventHandler {
       // TODO(INSERT) do this check in analyze
       //      TSStatus status = serviceProvider.checkAuthority(insertTabletPlan,
       // req.getSessionId());
-      return result.status;
+      return WRITE_THROTTLER.attachWritePressure(result.status);
     } catch (Exception e) {
       return onNPEOrUnexpectedException(
           e, OperationType.INSERT_TABLET, TSStatusCode.EXECUTE_STATEMENT_ERROR);
@@ -572,6 +580,7 @@ public class DataNodeTSIServiceImpl implements TSIEventHandler {
           (InsertTabletStatement) StatementGenerator.createStatement(req);
 
       // Step 2: call the coordinator
+      WRITE_THROTTLER.throttle();
       long queryId = SESSION_MANAGER.requestQueryId(false);
       ExecutionResult result =
           COORDINATOR.execute(
@@ -585,7 +594,7 @@ public class DataNodeTSIServiceImpl implements TSIEventHandler {
       // TODO(INSERT) do this check in analyze
       //      TSStatus status = SESSION_MANAGER.checkAuthority(insertTabletPlan,
       // req.getSessionId());
-      return result.status;
+      return WRITE_THROTTLER.attachWritePressure(result.status);
     } catch (Exception e) {
       return onNPEOrUnexpectedException(
           e, OperationType.INSERT_TABLET, TSStatusCode.EXECUTE_STATEMENT_ERROR);
@@ -612,6 +621,7 @@ public class DataNodeTSIServiceImpl implements TSIEventHandler {
 
       InsertRowsStatement statement = (InsertRowsStatement) StatementGenerator.createStatement(req);
 
+      WRITE_THROTTLER.throttle();
       long queryId = SESSION_MANAGER.requestQueryId(false);
       ExecutionResult result =
           COORDINATOR.execute(
@@ -625,7 +635,7 @@ public class DataNodeTSIServiceImpl implements TSIEventHandler {
       // TODO(INSERT) do this check in analyze
       //      TSStatus status = serviceProvider.checkAuthority(insertTabletPlan,
       // req.getSessionId());
-      return result.status;
+      return WRITE_THROTTLER.attachWritePressure(result.status);
     } catch (Exception e) {
       return onNPEOrUnexpectedException(
           e, OperationType.INSERT_TABLET, TSStatusCode.EXECUTE_STATEMENT_ERROR);
@@ -748,6 +758,7 @@ public class DataNodeTSIServiceImpl implements TSIEventHandler {
       InsertRowStatement statement = (InsertRowStatement) StatementGenerator.createStatement(req);
 
       // Step 2: call the coordinator
+      WRITE_THROTTLER.throttle();
       long queryId = SESSION_MANAGER.requestQueryId(false);
       ExecutionResult result =
           COORDINATOR.execute(
@@ -761,7 +772,7 @@ public class DataNodeTSIServiceImpl implements TSIEventHandler {
       // TODO(INSERT) do this check in analyze
       //      TSStatus status = serviceProvider.checkAuthority(insertTabletPlan,
       // req.getSessionId());
-      return result.status;
+      return WRITE_THROTTLER.attachWritePressure(result.status);
     } catch (Exception e) {
       return onNPEOrUnexpectedException(
           e, OperationType.INSERT_TABLET, TSStatusCode.EXECUTE_STATEMENT_ERROR);
@@ -67,6 +67,7 @@ import org.apache.iotdb.db.query.control.tracing.TracingConstant;
 import org.apache.iotdb.db.query.dataset.DirectAlignByTimeDataSet;
 import org.apache.iotdb.db.query.dataset.DirectNonAlignDataSet;
 import org.apache.iotdb.db.query.pool.QueryTaskManager;
+import org.apache.iotdb.db.rescon.WriteThrottler;
 import org.apache.iotdb.db.service.IoTDB;
 import org.apache.iotdb.db.service.StaticResps;
 import org.apache.iotdb.db.service.basic.BasicOpenSessionResp;
@@ -163,6 +164,8 @@ public class TSServiceImpl implements TSIEventHandler {
 
   private static final SessionManager SESSION_MANAGER = SessionManager.getInstance();
 
+  private static final WriteThrottler WRITE_THROTTLER = WriteThrottler.getInstance();
+
   private class QueryTask implements Callable<TSExecuteStatementResp> {
 
     private PhysicalPlan plan;
@@ -1234,7 +1237,7 @@ public class TSServiceImpl implements TSIEventHandler {
       int totalRowCount) {
 
     if (allCheckSuccess) {
-      return executeTsStatus;
+      return WRITE_THROTTLER.attachWritePressure(executeTsStatus);
     }
 
     if (executeTsStatus.subStatus == null) {
@@ -1245,7 +1248,7 @@ public class TSServiceImpl implements TSIEventHandler {
     for (Entry<Integer, TSStatus> entry : checkTsStatus.entrySet()) {
       executeTsStatus.subStatus.set(entry.getKey(), entry.getValue());
     }
-    return RpcUtils.getStatus(executeTsStatus.subStatus);
+    return WRITE_THROTTLER.attachWritePressure(RpcUtils.getStatus(executeTsStatus.subStatus));
   }
 
   @Override
@@ -1285,13 +1288,13 @@ public class TSServiceImpl implements TSIEventHandler {
     TSStatus resp = RpcUtils.getStatus(statusList);
     for (TSStatus status : resp.subStatus) {
       if (status.code != TSStatusCode.SUCCESS_STATUS.getStatusCode()) {
-        return resp;
+        return WRITE_THROTTLER.attachWritePressure(resp);
       }
     }
 
     resp.setCode(TSStatusCode.SUCCESS_STATUS.getStatusCode());
 
-    return resp;
+    return WRITE_THROTTLER.attachWritePressure(resp);
   }
 
   @Override
@@ -1486,7 +1489,9 @@ public class TSServiceImpl implements TSIEventHandler {
               req.values,
               req.isAligned);
       TSStatus status = SESSION_MANAGER.checkAuthority(plan, req.getSessionId());
-      return status != null ? status : executeNonQueryPlan(plan);
+      return status != null
+          ? status
+          : WRITE_THROTTLER.attachWritePressure(executeNonQueryPlan(plan));
     } catch (IoTDBException e) {
       return onIoTDBException(e, OperationType.INSERT_RECORD, e.getErrorCode());
     } catch (Exception e) {
@@ -1517,7 +1522,9 @@ public class TSServiceImpl implements TSIEventHandler {
       plan.setNeedInferType(true);
       plan.setAligned(req.isAligned);
       TSStatus status = SESSION_MANAGER.checkAuthority(plan, req.getSessionId());
-      return status != null ? status : executeNonQueryPlan(plan);
+      return status != null
+          ? status
+          : WRITE_THROTTLER.attachWritePressure(executeNonQueryPlan(plan));
     } catch (IoTDBException e) {
       return onIoTDBException(e, OperationType.INSERT_STRING_RECORD, e.getErrorCode());
     } catch (Exception e) {
@@ -1573,7 +1580,9 @@ public class TSServiceImpl implements TSIEventHandler {
       insertTabletPlan.setAligned(req.isAligned);
       TSStatus status = SESSION_MANAGER.checkAuthority(insertTabletPlan, req.getSessionId());
 
-      return status != null ? status : executeNonQueryPlan(insertTabletPlan);
+      return status != null
+          ? status
+          : WRITE_THROTTLER.attachWritePressure(executeNonQueryPlan(insertTabletPlan));
     } catch (IoTDBException e) {
       return onIoTDBException(e, OperationType.INSERT_TABLET, e.getErrorCode());
     } catch (Exception e) {
@@ -1592,7 +1601,7 @@ public class TSServiceImpl implements TSIEventHandler {
         return getNotLoggedInStatus();
       }
 
-      return insertTabletsInternally(req);
+      return WRITE_THROTTLER.attachWritePressure(insertTabletsInternally(req));
     } catch (IoTDBException e) {
       return onIoTDBException(e, OperationType.INSERT_TABLETS, e.getErrorCode());
     } catch (NullPointerException e) {
@@ -37,6 +37,7 @@ import org.apache.iotdb.tsfile.file.MetaMarker;
 import org.apache.iotdb.tsfile.file.header.ChunkGroupHeader;
 import org.apache.iotdb.tsfile.file.header.ChunkHeader;
 import org.apache.iotdb.tsfile.file.header.PageHeader;
+import org.apache.iotdb.tsfile.file.metadata.ChunkGroupMetadata;
 import org.apache.iotdb.tsfile.file.metadata.ChunkMetadata;
 import org.apache.iotdb.tsfile.file.metadata.TimeseriesMetadata;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
@@ -44,6 +45,7 @@ import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
 import org.apache.iotdb.tsfile.fileSystem.FSFactoryProducer;
 import org.apache.iotdb.tsfile.read.TsFileSequenceReader;
 import org.apache.iotdb.tsfile.read.common.BatchData;
+import org.apache.iotdb.tsfile.read.common.Chunk;
 import org.apache.iotdb.tsfile.read.common.TimeRange;
 import org.apache.iotdb.tsfile.read.reader.page.PageReader;
 import org.apache.iotdb.tsfile.utils.Binary;
@@ -92,6 +94,13 @@ public class TsFileRewriteTool implements AutoCloseable {
   /** Minimum index of plans executed within this TsFile. */
   protected long minPlanIndex = Long.MAX_VALUE;
 
+  /**
+   * Offset of chunk header -> ChunkMetadata. A chunk whose metadata is known can be copied as a
+   * whole if all of its data is in one time partition, and it is empty if the metadata is not
+   * provided.
+   */
+  protected Map<Long, ChunkMetadata> chunkMetadataMap = new HashMap<>();
+
   /**
    * Create a file reader of the given file. The reader will read the real data and rewrite to some
    * new tsFiles.
@@ -141,6 +150,29 @@ public class TsFileRewriteTool implements AutoCloseable {
     }
   }
 
+  /**
+   * Split a file spanning multiple time partitions into one file per partition. The chunks whose
+   * data is in one time partition are copied to the new files without being decompressed.
+   *
+   * @param resourceToBeRewritten the tsfile which to be split
+   * @param chunkGroupMetadataList all chunk group metadata of the tsfile, collected by self check
+   * @param rewrittenResources the split files
+   */
+  public static void rewriteTsFile(
+      TsFileResource resourceToBeRewritten,
+      List<ChunkGroupMetadata> chunkGroupMetadataList,
+      List<TsFileResource> rewrittenResources)
+      throws IOException, WriteProcessException, IllegalPathException {
+    try (TsFileRewriteTool rewriteTool = new TsFileRewriteTool(resourceToBeRewritten)) {
+      for (ChunkGroupMetadata chunkGroupMetadata : chunkGroupMetadataList) {
+        for (ChunkMetadata chunkMetadata : chunkGroupMetadata.getChunkMetadataList()) {
+          rewriteTool.chunkMetadataMap.put(chunkMetadata.getOffsetOfChunkHeader(), chunkMetadata);
+        }
+      }
+      rewriteTool.parseAndRewriteFile(rewrittenResources);
+    }
+  }
+
   @Override
   public void close() throws IOException {
     this.reader.close();
@@ -182,6 +214,10 @@ public class TsFileRewriteTool implements AutoCloseable {
           case MetaMarker.ONLY_ONE_PAGE_CHUNK_HEADER:
             chunkHeaderOffset = reader.position() - 1;
             ChunkHeader header = reader.readChunkHeader(marker);
+            if (copyChunkInOnePartition(deviceId, header, chunkHeaderOffset)) {
+              firstChunkInChunkGroup = false;
+              break;
+            }
             MeasurementSchema measurementSchema =
                 new MeasurementSchema(
                     header.getMeasurementID(),
@@ -261,6 +297,58 @@ public class TsFileRewriteTool implements AutoCloseable {
     }
   }
 
+  /**
+   * Copy the whole chunk into the file of its time partition if all of its data is in the partition
+   * and none of it is deleted.
+   *
+   * @return true if the chunk is copied, and the reader is positioned after the chunk
+   */
+  protected boolean copyChunkInOnePartition(
+      String deviceId, ChunkHeader header, long chunkHeaderOffset)
+      throws IOException, IllegalPathException {
+    ChunkMetadata chunkMetadata = chunkMetadataMap.get(chunkHeaderOffset);
+    if (chunkMetadata == null || chunkMetadata.getStatistics() == null) {
+      return false;
+    }
+    long partitionId = StorageEngine.getTimePartition(chunkMetadata.getStartTime());
+    if (partitionId != StorageEngine.getTimePartition(chunkMetadata.getEndTime())
+        || isDeleted(
+            deviceId,
+            header.getMeasurementID(),
+            chunkMetadata.getStartTime(),
+            chunkMetadata.getEndTime(),
+            chunkHeaderOffset)) {
+      return false;
+    }
+    Chunk chunk = reader.readMemChunk(chunkMetadata);
+    TsFileIOWriter tsFileIOWriter = getOrDefaultTsFileIOWriter(oldTsFile, partitionId);
+    if (!tsFileIOWriter.isWritingChunkGroup()) {
+      tsFileIOWriter.startChunkGroup(deviceId);
+    }
+    tsFileIOWriter.writeChunk(chunk, chunkMetadata);
+    reader.position(chunkHeaderOffset + header.getSerializedSize() + header.getDataSize());
+    return true;
+  }
+
+  private boolean isDeleted(
+      String deviceId, String measurementId, long startTime, long endTime, long chunkHeaderOffset)
+      throws IllegalPathException {
+    if (oldModification == null) {
+      return false;
+    }
+    PartialPath path = new PartialPath(deviceId + "." + measurementId);
+    for (Modification modification : oldModification) {
+      Deletion deletion = (Deletion) modification;
+      if (deletion.getPath().matchFullPath(path)
+          && deletion.getFileOffset() > chunkHeaderOffset
+          && startTime <= deletion.getEndTime()
+          && endTime >= deletion.getStartTime()) {
+        return true;
+      }
+    }
+    return false;
+  }
+
   /**
    * If the page have no statistics or crosses multi partitions, will return true, otherwise return
    * false.
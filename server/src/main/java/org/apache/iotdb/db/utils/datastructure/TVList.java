@@ -341,23 +341,85 @@ public abstract class TVList implements WALEntryValue {
     return cloneArray;
   }
 
+  /**
+   * Sort rows in [lo, hi). Out-of-order points usually arrive in batches that are sorted
+   * themselves, and the head of the list has often been sorted by a previous query or flush. So
+   * instead of sorting the whole range again, it is split into natural sorted runs (short runs are
+   * extended to SMALL_ARRAY_LENGTH by binary insertion), then adjacent runs are merged pass by pass
+   * until one run is left. Each merge only touches the overlapping part of the two runs.
+   */
   protected void sort(int lo, int hi) {
     if (sorted) {
       return;
     }
-
-    if (lo == hi) {
+    if (hi - lo <= 1) {
       return;
     }
-    if (hi - lo <= SMALL_ARRAY_LENGTH) {
-      int initRunLen = countRunAndMakeAscending(lo, hi);
-      binarySort(lo, hi, lo + initRunLen);
+
+    List<Integer> runStarts = new ArrayList<>();
+    int runStart = lo;
+    while (runStart < hi) {
+      int runLength = countRunAndMakeAscending(runStart, hi);
+      if (runLength < SMALL_ARRAY_LENGTH) {
+        int forcedLength = Math.min(SMALL_ARRAY_LENGTH, hi - runStart);
+        binarySort(runStart, runStart + forcedLength, runStart + runLength);
+        runLength = forcedLength;
+      }
+      runStarts.add(runStart);
+      runStart += runLength;
+    }
+
+    while (runStarts.size() > 1) {
+      List<Integer> mergedRunStarts = new ArrayList<>((runStarts.size() + 1) / 2);
+      for (int i = 0; i < runStarts.size(); i += 2) {
+        mergedRunStarts.add(runStarts.get(i));
+        if (i + 1 < runStarts.size()) {
+          int runEnd = i + 2 < runStarts.size() ? runStarts.get(i + 2) : hi;
+          mergeRuns(runStarts.get(i), runStarts.get(i + 1), runEnd);
+        }
+      }
+      runStarts = mergedRunStarts;
+    }
+  }
+
+  /** Merge two adjacent sorted runs [lo, mid) and [mid, hi), skipping rows already in place. */
+  protected void mergeRuns(int lo, int mid, int hi) {
+    long lastTimeOfLeft = getTime(mid - 1);
+    long firstTimeOfRight = getTime(mid);
+    if (lastTimeOfLeft <= firstTimeOfRight) {
       return;
     }
-    int mid = (lo + hi) >>> 1;
-    sort(lo, mid);
-    sort(mid, hi);
-    merge(lo, mid, hi);
+    // rows in the left run not greater than the first row of the right run are in place
+    int mergeLo = upperBound(lo, mid, firstTimeOfRight);
+    // rows in the right run not less than the last row of the left run are in place
+    int mergeHi = lowerBound(mid, hi, lastTimeOfLeft);
+    merge(mergeLo, mid, mergeHi);
+  }
+
+  /** @return the first index in the sorted range [lo, hi) whose time is greater than time */
+  private int upperBound(int lo, int hi, long time) {
+    while (lo < hi) {
+      int mid = (lo + hi) >>> 1;
+      if (getTime(mid) <= time) {
+        lo = mid + 1;
+      } else {
+        hi = mid;
+      }
+    }
+    return lo;
+  }
+
+  /** @return the first index in the sorted range [lo, hi) whose time is not less than time */
+  private int lowerBound(int lo, int hi, long time) {
+    while (lo < hi) {
+      int mid = (lo + hi) >>> 1;
+      if (getTime(mid) < time) {
+        lo = mid + 1;
+      } else {
+        hi = mid;
+      }
+    }
+    return lo;
   }
 
   protected int countRunAndMakeAscending(int lo, int hi) {
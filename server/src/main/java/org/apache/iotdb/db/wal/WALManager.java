@@ -180,6 +180,15 @@ public class WALManager implements IService {
     }
   }
 
+  /** Get the max occupancy of all wal nodes' buffers, 0 if there is no wal node */
+  public double getMaxBufferOccupancy() {
+    double maxOccupancy = 0;
+    for (WALNode walNode : getNodesSnapshot()) {
+      maxOccupancy = Math.max(maxOccupancy, walNode.getBufferOccupancy());
+    }
+    return maxOccupancy;
+  }
+
   private List<WALNode> getNodesSnapshot() {
     List<WALNode> snapshot;
     if (walNodes.size() < MAX_WAL_NODE_NUM) {
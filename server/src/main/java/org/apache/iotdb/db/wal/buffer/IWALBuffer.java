@@ -32,6 +32,9 @@ public interface IWALBuffer extends AutoCloseable {
   /** Get current log version id */
   int getCurrentWALFileVersion();
 
+  /** Get the proportion of occupied slots in the queue of WALEntries waiting to be serialized */
+  double getOccupancy();
+
   @Override
   void close();
 
@@ -473,6 +473,11 @@ public class WALBuffer extends AbstractWALBuffer {
     }
   }
 
+  @Override
+  public double getOccupancy() {
+    return (double) walEntries.size() / QUEUE_CAPACITY;
+  }
+
   @Override
   public boolean isAllWALEntriesConsumed() {
     return walEntries.isEmpty();
@@ -169,6 +169,11 @@ public class WALNode implements IWALNode {
     checkpointManager.makeCreateMemTableCP(memTableInfo);
   }
 
+  /** Get the occupancy of this node's wal buffer, see {@link IWALBuffer#getOccupancy()} */
+  public double getBufferOccupancy() {
+    return buffer.getOccupancy();
+  }
+
   // region Task to delete outdated .wal files
   /** Delete outdated .wal files */
   public void deleteOutdatedFiles() {
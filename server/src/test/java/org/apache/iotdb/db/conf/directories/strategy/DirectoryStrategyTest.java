@@ -31,6 +31,7 @@ import org.powermock.core.classloader.annotations.PowerMockIgnore;
 import org.powermock.core.classloader.annotations.PrepareForTest;
 import org.powermock.modules.junit4.PowerMockRunner;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashSet;
@@ -174,6 +175,30 @@ public class DirectoryStrategyTest {
     }
   }
 
+  @Test
+  public void testMinIoLoadFirstStrategy() throws DiskSpaceInsufficientException {
+    MinIoLoadFirstStrategy minIoLoadFirstStrategy = new MinIoLoadFirstStrategy();
+    minIoLoadFirstStrategy.setFolders(dataDirList);
+
+    // without files being written, the folder with the maximum usable space is chosen
+    int maxIndex = getIndexOfMaxSpace();
+    assertEquals(maxIndex, minIoLoadFirstStrategy.nextFolderIndex());
+
+    DiskIoLoadMonitor monitor = DiskIoLoadMonitor.getInstance();
+    String writingFile = dataDirList.get(maxIndex) + File.separator + "1-1-0-0.tsfile";
+    monitor.startWriting(writingFile);
+    try {
+      int index = minIoLoadFirstStrategy.nextFolderIndex();
+      assertFalse(fullDirIndexSet.contains(index));
+      assertTrue(maxIndex != index);
+      assertEquals(1, monitor.getWritingFileNum(dataDirList.get(maxIndex)));
+    } finally {
+      monitor.finishWriting(writingFile);
+    }
+    assertEquals(0, monitor.getWritingFileNum(dataDirList.get(maxIndex)));
+    assertEquals(maxIndex, minIoLoadFirstStrategy.nextFolderIndex());
+  }
+
   @Test
   public void testAllDiskFull() {
     for (int i = 0; i < dataDirList.size(); i++) {
@@ -202,5 +227,12 @@ public class DirectoryStrategyTest {
       fail();
     } catch (DiskSpaceInsufficientException e) {
     }
+
+    MinIoLoadFirstStrategy minIoLoadFirstStrategy = new MinIoLoadFirstStrategy();
+    try {
+      minIoLoadFirstStrategy.setFolders(dataDirList);
+      fail();
+    } catch (DiskSpaceInsufficientException e) {
+    }
   }
 }
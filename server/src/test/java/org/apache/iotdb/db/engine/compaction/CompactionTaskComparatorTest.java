@@ -20,6 +20,7 @@ package org.apache.iotdb.db.engine.compaction;
 
 import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.engine.compaction.comparator.DefaultCompactionTaskComparatorImpl;
+import org.apache.iotdb.db.engine.compaction.comparator.QueryHeatCompactionTaskComparatorImpl;
 import org.apache.iotdb.db.engine.compaction.constant.CompactionPriority;
 import org.apache.iotdb.db.engine.compaction.cross.CrossSpaceCompactionTask;
 import org.apache.iotdb.db.engine.compaction.inner.InnerSpaceCompactionTask;
@@ -266,6 +267,34 @@ public class CompactionTaskComparatorTest {
     }
   }
 
+  /** Test comparation of tasks with different query heat and the same other attributes */
+  @Test
+  public void testQueryHeatCompare() throws InterruptedException {
+    FixedPriorityBlockingQueue<AbstractCompactionTask> queryHeatTaskQueue =
+        new FixedPriorityBlockingQueue<>(1024, new QueryHeatCompactionTaskComparatorImpl());
+    AbstractCompactionTask[] compactionTasks = new AbstractCompactionTask[10];
+    for (int i = 0; i < 10; ++i) {
+      List<TsFileResource> resources = new ArrayList<>();
+      for (int j = 0; j < 5; ++j) {
+        TsFileResource resource =
+            new FakedTsFileResource(new File(String.format("%d-%d-0-0.tsfile", j, j)), 1);
+        // the files of task i are read by i queries
+        for (int k = 0; k < i; ++k) {
+          resource.increaseQueryHeat();
+        }
+        resources.add(resource);
+      }
+      compactionTasks[i] =
+          new FakedInnerSpaceCompactionTask("fakeSg", 0, tsFileManager, taskNum, true, resources);
+      queryHeatTaskQueue.put(compactionTasks[i]);
+    }
+
+    for (int i = 0; i < 10; ++i) {
+      AbstractCompactionTask currentTask = queryHeatTaskQueue.take();
+      assertTrue(currentTask == compactionTasks[9 - i]);
+    }
+  }
+
   private static class FakedInnerSpaceCompactionTask extends InnerSpaceCompactionTask {
 
     public FakedInnerSpaceCompactionTask(
@@ -0,0 +1,402 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.compaction;
+
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.engine.compaction.performer.impl.ReadPageCompactionPerformer;
+import org.apache.iotdb.db.engine.compaction.utils.CompactionFileGeneratorUtils;
+import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
+import org.apache.iotdb.db.exception.StorageEngineException;
+import org.apache.iotdb.db.exception.metadata.IllegalPathException;
+import org.apache.iotdb.db.exception.metadata.MetadataException;
+import org.apache.iotdb.db.metadata.path.AlignedPath;
+import org.apache.iotdb.db.metadata.path.MeasurementPath;
+import org.apache.iotdb.db.metadata.path.PartialPath;
+import org.apache.iotdb.db.query.control.FileReaderManager;
+import org.apache.iotdb.db.query.reader.series.SeriesRawDataBatchReader;
+import org.apache.iotdb.db.utils.EnvironmentUtils;
+import org.apache.iotdb.tsfile.common.conf.TSFileDescriptor;
+import org.apache.iotdb.tsfile.exception.write.WriteProcessException;
+import org.apache.iotdb.tsfile.file.MetaMarker;
+import org.apache.iotdb.tsfile.file.header.PageHeader;
+import org.apache.iotdb.tsfile.file.metadata.ChunkMetadata;
+import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.read.TsFileSequenceReader;
+import org.apache.iotdb.tsfile.read.common.BatchData;
+import org.apache.iotdb.tsfile.read.common.Chunk;
+import org.apache.iotdb.tsfile.read.reader.IBatchReader;
+import org.apache.iotdb.tsfile.utils.Pair;
+import org.apache.iotdb.tsfile.utils.TsFileGeneratorUtils;
+import org.apache.iotdb.tsfile.utils.TsPrimitiveType;
+import org.apache.iotdb.tsfile.write.schema.IMeasurementSchema;
+import org.apache.iotdb.tsfile.write.schema.MeasurementSchema;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.apache.iotdb.commons.conf.IoTDBConstant.PATH_SEPARATOR;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ReadPageCompactionPerformerTest extends AbstractCompactionTest {
+  private final String oldThreadName = Thread.currentThread().getName();
+  private int oldMaxNumberOfPointsInPage;
+  private CompressionType oldCompressor;
+
+  @Before
+  public void setUp() throws IOException, WriteProcessException, MetadataException {
+    super.setUp();
+    oldMaxNumberOfPointsInPage =
+        TSFileDescriptor.getInstance().getConfig().getMaxNumberOfPointsInPage();
+    TSFileDescriptor.getInstance().getConfig().setMaxNumberOfPointsInPage(30);
+    // the pages can be copied only if the files are compressed as the registered timeseries
+    oldCompressor = TSFileDescriptor.getInstance().getConfig().getCompressor();
+    TSFileDescriptor.getInstance().getConfig().setCompressor("UNCOMPRESSED");
+    IoTDBDescriptor.getInstance().getConfig().setTargetChunkSize(1024);
+    Thread.currentThread().setName("pool-1-IoTDB-Compaction-1");
+  }
+
+  @After
+  public void tearDown() throws IOException, StorageEngineException {
+    super.tearDown();
+    TSFileDescriptor.getInstance()
+        .getConfig()
+        .setMaxNumberOfPointsInPage(oldMaxNumberOfPointsInPage);
+    TSFileDescriptor.getInstance().getConfig().setCompressor(oldCompressor.name());
+    Thread.currentThread().setName(oldThreadName);
+    for (TsFileResource tsFileResource : seqResources) {
+      FileReaderManager.getInstance().closeFileAndRemoveReader(tsFileResource.getTsFilePath());
+    }
+    for (TsFileResource tsFileResource : unseqResources) {
+      FileReaderManager.getInstance().closeFileAndRemoveReader(tsFileResource.getTsFilePath());
+    }
+  }
+
+  /*
+  Total 10 unseq files, each file has different nonAligned timeseries, and the time ranges of
+  them overlap with each other partly, so some pages are copied directly while the others are
+  merged, and the newer file wins on the same timestamp.
+  */
+  @Test
+  public void testUnSeqInnerSpaceCompactionWithOverlappedPages()
+      throws IOException, WriteProcessException, MetadataException, StorageEngineException,
+          InterruptedException {
+    registerTimeseriesInMManger(9, 9, false);
+    createFiles(2, 2, 3, 100, 0, 0, 50, 50, false, false);
+    createFiles(2, 3, 5, 50, 150, 150, 50, 50, false, false);
+    createFiles(2, 5, 5, 50, 100, 100, 100, 100, false, false);
+    createFiles(2, 7, 7, 70, 200, 300, 100, 100, false, false);
+    createFiles(2, 9, 9, 70, 100, 300, 100, 100, false, false);
+
+    Map<PartialPath, List<String>> dataBeforeCompaction = readAllSeries(9, 9, unseqResources);
+    List<TsFileResource> targetResources =
+        CompactionFileGeneratorUtils.getInnerCompactionTargetTsFileResources(unseqResources, false);
+    new ReadPageCompactionPerformer(unseqResources, targetResources.get(0)).perform();
+    CompactionUtils.moveTargetFile(targetResources, true, COMPACTION_TEST_SG);
+
+    assertEquals(dataBeforeCompaction, readAllSeries(9, 9, targetResources));
+    assertEquals(
+        0, targetResources.get(0).getStartTime(COMPACTION_TEST_SG + PATH_SEPARATOR + "d0"));
+    assertEquals(
+        439, targetResources.get(0).getEndTime(COMPACTION_TEST_SG + PATH_SEPARATOR + "d0"));
+    assertEquals(
+        100, targetResources.get(0).getStartTime(COMPACTION_TEST_SG + PATH_SEPARATOR + "d8"));
+  }
+
+  /*
+  Total 6 unseq files with overlapped nonAligned timeseries. The data of d0.s0 and d2.s4 is deleted
+  in each file, and the data of d1 between 250 and 349 is deleted in each file.
+  */
+  @Test
+  public void testUnSeqInnerSpaceCompactionWithModifiedPages()
+      throws IOException, WriteProcessException, MetadataException, StorageEngineException,
+          InterruptedException {
+    registerTimeseriesInMManger(5, 7, false);
+    createFiles(2, 2, 3, 300, 0, 0, 0, 0, false, false);
+    createFiles(2, 3, 5, 300, 200, 300, 50, 50, false, false);
+    createFiles(2, 5, 7, 300, 900, 1100, 50, 50, false, false);
+
+    for (TsFileResource resource : unseqResources) {
+      Map<String, Pair<Long, Long>> deleteMap = new HashMap<>();
+      deleteMap.put(
+          COMPACTION_TEST_SG + PATH_SEPARATOR + "d0" + PATH_SEPARATOR + "s0",
+          new Pair<>(Long.MIN_VALUE, Long.MAX_VALUE));
+      deleteMap.put(
+          COMPACTION_TEST_SG + PATH_SEPARATOR + "d2" + PATH_SEPARATOR + "s4",
+          new Pair<>(Long.MIN_VALUE, Long.MAX_VALUE));
+      for (int j = 0; j < 5; j++) {
+        deleteMap.put(
+            COMPACTION_TEST_SG + PATH_SEPARATOR + "d1" + PATH_SEPARATOR + "s" + j,
+            new Pair<>(250L, 349L));
+      }
+      CompactionFileGeneratorUtils.generateMods(deleteMap, resource, false);
+    }
+
+    Map<PartialPath, List<String>> dataBeforeCompaction = readAllSeries(5, 7, unseqResources);
+    assertEquals(0, dataBeforeCompaction.get(getPath(0, 0)).size());
+    List<TsFileResource> targetResources =
+        CompactionFileGeneratorUtils.getInnerCompactionTargetTsFileResources(unseqResources, false);
+    new ReadPageCompactionPerformer(unseqResources, targetResources.get(0)).perform();
+    CompactionUtils.moveTargetFile(targetResources, true, COMPACTION_TEST_SG);
+
+    assertEquals(dataBeforeCompaction, readAllSeries(5, 7, targetResources));
+  }
+
+  /*
+  Total 8 unseq files, each file overlaps with the next one, so all the chunks of a series overlap
+  with each other transitively and are loaded one by one while the merge goes on.
+  */
+  @Test
+  public void testUnSeqInnerSpaceCompactionWithChainOfOverlappedChunks()
+      throws IOException, WriteProcessException, MetadataException, StorageEngineException,
+          InterruptedException {
+    registerTimeseriesInMManger(2, 2, false);
+    createFiles(8, 2, 2, 100, 0, 0, -50, -50, false, false);
+
+    Map<PartialPath, List<String>> dataBeforeCompaction = readAllSeries(2, 2, unseqResources);
+    List<TsFileResource> targetResources =
+        CompactionFileGeneratorUtils.getInnerCompactionTargetTsFileResources(unseqResources, false);
+    new ReadPageCompactionPerformer(unseqResources, targetResources.get(0)).perform();
+    CompactionUtils.moveTargetFile(targetResources, true, COMPACTION_TEST_SG);
+
+    assertEquals(dataBeforeCompaction, readAllSeries(2, 2, targetResources));
+    assertEquals(450, dataBeforeCompaction.get(getPath(0, 0)).size());
+    assertEquals(
+        0, targetResources.get(0).getStartTime(COMPACTION_TEST_SG + PATH_SEPARATOR + "d0"));
+    assertEquals(
+        449, targetResources.get(0).getEndTime(COMPACTION_TEST_SG + PATH_SEPARATOR + "d0"));
+  }
+
+  /* Total 4 unseq files, each file has overlapped aligned and nonAligned timeseries. */
+  @Test
+  public void testUnSeqInnerSpaceCompactionWithAlignedSeries()
+      throws IOException, WriteProcessException, MetadataException, StorageEngineException,
+          InterruptedException {
+    registerTimeseriesInMManger(2, 3, true);
+    createFiles(2, 2, 3, 100, 0, 0, 0, 0, true, false);
+    createFiles(2, 2, 3, 100, 50, 1000, 0, 0, true, false);
+
+    int alignedDevice = TsFileGeneratorUtils.getAlignDeviceOffset();
+    List<String> alignedDataBeforeCompaction = readAlignedSeries(alignedDevice, unseqResources);
+    Map<PartialPath, List<String>> dataBeforeCompaction = readAllSeries(2, 3, unseqResources);
+    List<TsFileResource> targetResources =
+        CompactionFileGeneratorUtils.getInnerCompactionTargetTsFileResources(unseqResources, false);
+    new ReadPageCompactionPerformer(unseqResources, targetResources.get(0)).perform();
+    CompactionUtils.moveTargetFile(targetResources, true, COMPACTION_TEST_SG);
+
+    assertEquals(dataBeforeCompaction, readAllSeries(2, 3, targetResources));
+    assertEquals(alignedDataBeforeCompaction, readAlignedSeries(alignedDevice, targetResources));
+    assertEquals(
+        249,
+        targetResources
+            .get(0)
+            .getEndTime(COMPACTION_TEST_SG + PATH_SEPARATOR + "d" + alignedDevice));
+  }
+
+  /*
+  1 seq file with 3 nonAligned timeseries of 1000 points, and 2 unseq files with a few points
+  overlapping with it. They are compacted into one target file, in which the pages of the seq file
+  not overlapped by the unseq files are the same as they are in the seq file, and the unseq points
+  win on the same timestamp.
+  */
+  @Test
+  public void testCrossSpaceCompactionIntoOneTargetFile()
+      throws IOException, WriteProcessException, MetadataException, StorageEngineException,
+          InterruptedException {
+    registerTimeseriesInMManger(2, 3, false);
+    createFiles(1, 2, 3, 1000, 0, 0, 0, 0, false, true);
+    createFiles(2, 2, 3, 20, 100, 10000, 300, 300, false, false);
+
+    Map<PartialPath, List<String>> dataBeforeCompaction =
+        readAllSeries(2, 3, seqResources, unseqResources);
+    assertEquals("100:10000", dataBeforeCompaction.get(getPath(0, 0)).get(100));
+    List<Pair<PageHeader, ByteBuffer>> seqPages = readPages(seqResources.get(0), getPath(0, 0));
+    List<TsFileResource> targetResources =
+        CompactionFileGeneratorUtils.getCrossCompactionTargetTsFileResources(seqResources);
+    new ReadPageCompactionPerformer(seqResources, unseqResources, targetResources).perform();
+    CompactionUtils.moveTargetFile(targetResources, false, COMPACTION_TEST_SG);
+
+    assertEquals(
+        dataBeforeCompaction, readAllSeries(2, 3, targetResources, Collections.emptyList()));
+    assertEquals(
+        999, targetResources.get(0).getEndTime(COMPACTION_TEST_SG + PATH_SEPARATOR + "d1"));
+
+    List<Pair<PageHeader, ByteBuffer>> targetPages =
+        readPages(targetResources.get(0), getPath(0, 0));
+    int notOverlappedSeqPageNum = 0;
+    for (Pair<PageHeader, ByteBuffer> seqPage : seqPages) {
+      long startTime = seqPage.left.getStartTime();
+      long endTime = seqPage.left.getEndTime();
+      if ((endTime < 100 || startTime > 119) && (endTime < 420 || startTime > 439)) {
+        notOverlappedSeqPageNum++;
+        assertTrue(
+            targetPages.stream()
+                .anyMatch(
+                    targetPage ->
+                        targetPage.left.getStartTime() == startTime
+                            && targetPage.left.getEndTime() == endTime
+                            && targetPage.right.equals(seqPage.right)));
+      }
+    }
+    assertTrue(notOverlappedSeqPageNum > 0);
+  }
+
+  /*
+  2 seq files and 1 unseq file overlapping with both of them. The points are split into 2 target
+  files by reading points.
+  */
+  @Test
+  public void testCrossSpaceCompactionIntoSeveralTargetFiles()
+      throws IOException, WriteProcessException, MetadataException, StorageEngineException,
+          InterruptedException {
+    registerTimeseriesInMManger(2, 3, false);
+    createFiles(2, 2, 3, 300, 0, 0, 100, 100, false, true);
+    createFiles(1, 2, 3, 200, 250, 10000, 0, 0, false, false);
+
+    Map<PartialPath, List<String>> dataBeforeCompaction =
+        readAllSeries(2, 3, seqResources, unseqResources);
+    List<TsFileResource> targetResources =
+        CompactionFileGeneratorUtils.getCrossCompactionTargetTsFileResources(seqResources);
+    new ReadPageCompactionPerformer(seqResources, unseqResources, targetResources).perform();
+    CompactionUtils.moveTargetFile(targetResources, false, COMPACTION_TEST_SG);
+
+    assertEquals(
+        dataBeforeCompaction, readAllSeries(2, 3, targetResources, Collections.emptyList()));
+    assertEquals(
+        299, targetResources.get(0).getEndTime(COMPACTION_TEST_SG + PATH_SEPARATOR + "d0"));
+    assertEquals(
+        300, targetResources.get(1).getStartTime(COMPACTION_TEST_SG + PATH_SEPARATOR + "d0"));
+  }
+
+  /** Read the header and the compressed data of all the pages of the series in the file. */
+  private List<Pair<PageHeader, ByteBuffer>> readPages(TsFileResource resource, PartialPath path)
+      throws IOException {
+    List<Pair<PageHeader, ByteBuffer>> pages = new ArrayList<>();
+    try (TsFileSequenceReader reader = new TsFileSequenceReader(resource.getTsFilePath())) {
+      for (ChunkMetadata chunkMetadata : reader.getChunkMetadataList(path)) {
+        Chunk chunk = reader.readMemChunk(chunkMetadata);
+        ByteBuffer chunkDataBuffer = chunk.getData();
+        while (chunkDataBuffer.remaining() > 0) {
+          PageHeader pageHeader;
+          if (((byte) (chunk.getHeader().getChunkType() & 0x3F))
+              == MetaMarker.ONLY_ONE_PAGE_CHUNK_HEADER) {
+            pageHeader = PageHeader.deserializeFrom(chunkDataBuffer, chunk.getChunkStatistic());
+          } else {
+            pageHeader =
+                PageHeader.deserializeFrom(chunkDataBuffer, chunk.getHeader().getDataType());
+          }
+          ByteBuffer pageData = chunkDataBuffer.slice();
+          pageData.limit(pageHeader.getCompressedSize());
+          chunkDataBuffer.position(chunkDataBuffer.position() + pageHeader.getCompressedSize());
+          pages.add(new Pair<>(pageHeader, pageData));
+        }
+      }
+    }
+    return pages;
+  }
+
+  private PartialPath getPath(int deviceIndex, int measurementIndex) throws IllegalPathException {
+    return new MeasurementPath(
+        COMPACTION_TEST_SG + PATH_SEPARATOR + "d" + deviceIndex,
+        "s" + measurementIndex,
+        new MeasurementSchema("s" + measurementIndex, TSDataType.INT64));
+  }
+
+  private Map<PartialPath, List<String>> readAllSeries(
+      int deviceNum, int measurementNum, List<TsFileResource> unseqFiles)
+      throws IOException, IllegalPathException {
+    return readAllSeries(deviceNum, measurementNum, Collections.emptyList(), unseqFiles);
+  }
+
+  private Map<PartialPath, List<String>> readAllSeries(
+      int deviceNum,
+      int measurementNum,
+      List<TsFileResource> seqFiles,
+      List<TsFileResource> unseqFiles)
+      throws IOException, IllegalPathException {
+    Map<PartialPath, List<String>> result = new HashMap<>();
+    for (int i = 0; i < deviceNum; i++) {
+      for (int j = 0; j < measurementNum; j++) {
+        PartialPath path = getPath(i, j);
+        result.put(path, readSeries(path, TSDataType.INT64, seqFiles, unseqFiles));
+      }
+    }
+    return result;
+  }
+
+  private List<String> readAlignedSeries(int deviceIndex, List<TsFileResource> unseqFiles)
+      throws IOException, IllegalPathException {
+    List<IMeasurementSchema> schemas = new ArrayList<>();
+    List<String> measurements = new ArrayList<>();
+    for (int j = 0; j < 3; j++) {
+      schemas.add(new MeasurementSchema("s" + j, TSDataType.INT64));
+      measurements.add("s" + j);
+    }
+    AlignedPath path =
+        new AlignedPath(
+            COMPACTION_TEST_SG + PATH_SEPARATOR + "d" + deviceIndex, measurements, schemas);
+    return readSeries(path, TSDataType.VECTOR, Collections.emptyList(), unseqFiles);
+  }
+
+  private List<String> readSeries(
+      PartialPath path,
+      TSDataType dataType,
+      List<TsFileResource> seqFiles,
+      List<TsFileResource> unseqFiles)
+      throws IOException {
+    IBatchReader tsFilesReader =
+        new SeriesRawDataBatchReader(
+            path,
+            dataType,
+            EnvironmentUtils.TEST_QUERY_CONTEXT,
+            seqFiles,
+            unseqFiles,
+            null,
+            null,
+            true);
+    List<String> points = new ArrayList<>();
+    while (tsFilesReader.hasNextBatch()) {
+      BatchData batchData = tsFilesReader.nextBatch();
+      while (batchData.hasCurrent()) {
+        Object value = batchData.currentValue();
+        if (value instanceof TsPrimitiveType[]) {
+          StringBuilder builder = new StringBuilder();
+          for (TsPrimitiveType primitiveType : (TsPrimitiveType[]) value) {
+            builder.append(primitiveType == null ? "null" : primitiveType.getValue()).append(',');
+          }
+          value = builder.toString();
+        }
+        points.add(batchData.currentTime() + ":" + value);
+        batchData.next();
+      }
+    }
+    tsFilesReader.close();
+    return points;
+  }
+}
@@ -32,6 +32,7 @@ import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
 import org.apache.iotdb.db.exception.metadata.MetadataException;
 import org.apache.iotdb.db.metadata.path.MeasurementPath;
 import org.apache.iotdb.db.metadata.path.PartialPath;
+import org.apache.iotdb.db.rescon.SystemInfo;
 import org.apache.iotdb.db.service.IoTDB;
 import org.apache.iotdb.db.utils.EnvironmentUtils;
 import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
@@ -915,4 +916,72 @@ public class ReadChunkCompactionPerformerNoAlignedTest {
           .setChunkPointNumLowerBoundInCompaction(originChunkPointNumLowerBound);
     }
   }
+
+  /**
+   * Compact the same files serially and by sub tasks, whose buffer memory is only enough for part
+   * of the devices, the target files should be the same.
+   *
+   * @throws Exception
+   */
+  @Test
+  public void testCompactDevicesInParallel() throws Exception {
+    int originSubTaskNum = IoTDBDescriptor.getInstance().getConfig().getSubCompactionTaskNum();
+    long originBufferMemoryBudget =
+        IoTDBDescriptor.getInstance().getConfig().getInnerCompactionBufferMemoryBudget();
+    try {
+      List<TsFileResource> sourceFiles = new ArrayList<>();
+      int fileNum = 6;
+      long pointStep = 200L;
+      for (int i = 0; i < fileNum; ++i) {
+        List<List<Long>> chunkPagePointsNum = new ArrayList<>();
+        List<Long> pagePointsNum = new ArrayList<>();
+        pagePointsNum.add((i + 1L) * pointStep);
+        chunkPagePointsNum.add(pagePointsNum);
+        TsFileResource resource =
+            new TsFileResource(new File(SEQ_DIRS, String.format("%d-%d-0-0.tsfile", i + 1, i + 1)));
+        sourceFiles.add(resource);
+        CompactionFileGeneratorUtils.writeTsFile(
+            fullPathSet, chunkPagePointsNum, i * 1500L, resource);
+      }
+      Map<PartialPath, List<TimeValuePair>> originData =
+          CompactionCheckerUtils.getDataByQuery(paths, schemaList, sourceFiles, new ArrayList<>());
+
+      IoTDBDescriptor.getInstance().getConfig().setSubCompactionTaskNum(1);
+      TsFileResource serialTargetResource =
+          new TsFileResource(new File(SEQ_DIRS, "1-1-1-0.tsfile"));
+      new ReadChunkCompactionPerformer(sourceFiles, serialTargetResource).perform();
+
+      // each device has 4200 points for each measurement, so at most two devices are buffered
+      IoTDBDescriptor.getInstance().getConfig().setSubCompactionTaskNum(4);
+      IoTDBDescriptor.getInstance().getConfig().setInnerCompactionBufferMemoryBudget(700_000L);
+      TsFileResource parallelTargetResource =
+          new TsFileResource(new File(SEQ_DIRS, "2-2-1-0.tsfile"));
+      new ReadChunkCompactionPerformer(sourceFiles, parallelTargetResource).perform();
+
+      Assert.assertEquals(0, SystemInfo.getInstance().getCompactionBufferMemoryCost());
+      Assert.assertTrue(
+          FileUtils.contentEquals(
+              serialTargetResource.getTsFile(), parallelTargetResource.getTsFile()));
+      for (PartialPath device : devicePath) {
+        Assert.assertEquals(
+            serialTargetResource.getStartTime(device.getFullPath()),
+            parallelTargetResource.getStartTime(device.getFullPath()));
+        Assert.assertEquals(
+            serialTargetResource.getEndTime(device.getFullPath()),
+            parallelTargetResource.getEndTime(device.getFullPath()));
+      }
+      Map<PartialPath, List<TimeValuePair>> compactedData =
+          CompactionCheckerUtils.getDataByQuery(
+              paths,
+              schemaList,
+              Collections.singletonList(parallelTargetResource),
+              new ArrayList<>());
+      CompactionCheckerUtils.validDataByValueList(originData, compactedData);
+    } finally {
+      IoTDBDescriptor.getInstance().getConfig().setSubCompactionTaskNum(originSubTaskNum);
+      IoTDBDescriptor.getInstance()
+          .getConfig()
+          .setInnerCompactionBufferMemoryBudget(originBufferMemoryBudget);
+    }
+  }
 }
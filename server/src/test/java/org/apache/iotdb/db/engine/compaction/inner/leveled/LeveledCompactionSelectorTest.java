@@ -0,0 +1,127 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.compaction.inner.leveled;
+
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.constant.TestConstant;
+import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
+import org.apache.iotdb.db.engine.storagegroup.TsFileResourceStatus;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+public class LeveledCompactionSelectorTest {
+  private final File dir = new File(TestConstant.BASE_OUTPUT_PATH, "leveledSelector");
+  private int originMaxFileNumInLevel;
+  private long originTargetCompactionFileSize;
+  private int fileVersion = 0;
+
+  @Before
+  public void setUp() {
+    originMaxFileNumInLevel =
+        IoTDBDescriptor.getInstance().getConfig().getLeveledCompactionMaxFileNumInLevel();
+    originTargetCompactionFileSize =
+        IoTDBDescriptor.getInstance().getConfig().getTargetCompactionFileSize();
+    IoTDBDescriptor.getInstance().getConfig().setLeveledCompactionMaxFileNumInLevel(4);
+    IoTDBDescriptor.getInstance().getConfig().setTargetCompactionFileSize(1000);
+    Assert.assertTrue(dir.mkdirs());
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    IoTDBDescriptor.getInstance()
+        .getConfig()
+        .setLeveledCompactionMaxFileNumInLevel(originMaxFileNumInLevel);
+    IoTDBDescriptor.getInstance()
+        .getConfig()
+        .setTargetCompactionFileSize(originTargetCompactionFileSize);
+    FileUtils.deleteDirectory(dir);
+  }
+
+  @Test
+  public void testLevelWithinBudget() throws IOException {
+    List<TsFileResource> resources = new ArrayList<>();
+    addFiles(resources, 4, 0, 10);
+    addFiles(resources, 4, 1, 10);
+    Assert.assertTrue(newSelector().selectInnerSpaceTask(resources).isEmpty());
+  }
+
+  @Test
+  public void testSelectUntilLevelWithinBudget() throws IOException {
+    List<TsFileResource> resources = new ArrayList<>();
+    addFiles(resources, 6, 0, 10);
+    List<List<TsFileResource>> tasks = newSelector().selectInnerSpaceTask(resources);
+    Assert.assertEquals(1, tasks.size());
+    Assert.assertEquals(resources.subList(0, 2), tasks.get(0));
+  }
+
+  @Test
+  public void testSelectConsecutiveFilesOfEachLevel() throws IOException {
+    List<TsFileResource> resources = new ArrayList<>();
+    addFiles(resources, 3, 1, 10);
+    addFiles(resources, 3, 0, 10);
+    addFiles(resources, 3, 1, 10);
+    addFiles(resources, 7, 0, 10);
+    List<List<TsFileResource>> tasks = newSelector().selectInnerSpaceTask(resources);
+    // 10 files in level 0 exceed the budget by 6, and 6 files in level 1 exceed the budget by 2
+    Assert.assertEquals(3, tasks.size());
+    Assert.assertEquals(resources.subList(3, 6), tasks.get(0));
+    Assert.assertEquals(resources.subList(9, 12), tasks.get(1));
+    Assert.assertEquals(resources.subList(0, 2), tasks.get(2));
+  }
+
+  @Test
+  public void testSkipLargeAndCompactingFiles() throws IOException {
+    List<TsFileResource> resources = new ArrayList<>();
+    addFiles(resources, 2, 0, 10);
+    addFiles(resources, 1, 0, 2000);
+    addFiles(resources, 2, 0, 10);
+    addFiles(resources, 2, 0, 10);
+    resources.get(5).setStatus(TsFileResourceStatus.COMPACTION_CANDIDATE);
+    // the large file is not counted, and the compacting file splits the runs
+    List<List<TsFileResource>> tasks = newSelector().selectInnerSpaceTask(resources);
+    Assert.assertEquals(1, tasks.size());
+    Assert.assertEquals(resources.subList(0, 2), tasks.get(0));
+  }
+
+  private LeveledCompactionSelector newSelector() {
+    return new LeveledCompactionSelector("root.sg", "0", 0, null);
+  }
+
+  private void addFiles(List<TsFileResource> resources, int fileNum, int level, int fileSize)
+      throws IOException {
+    for (int i = 0; i < fileNum; i++) {
+      fileVersion++;
+      File file =
+          new File(dir, String.format("%d-%d-%d-0.tsfile", fileVersion, fileVersion, level));
+      FileUtils.writeByteArrayToFile(file, new byte[fileSize]);
+      TsFileResource resource = new TsFileResource(file);
+      resource.setStatus(TsFileResourceStatus.CLOSED);
+      resources.add(resource);
+    }
+  }
+}
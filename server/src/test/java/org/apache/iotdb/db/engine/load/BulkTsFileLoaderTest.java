@@ -0,0 +1,223 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.load;
+
+import org.apache.iotdb.commons.conf.IoTDBConstant;
+import org.apache.iotdb.db.engine.StorageEngine;
+import org.apache.iotdb.db.engine.storagegroup.DataRegion;
+import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
+import org.apache.iotdb.db.engine.storagegroup.TsFileResourceStatus;
+import org.apache.iotdb.db.exception.LoadFileException;
+import org.apache.iotdb.db.exception.query.QueryProcessException;
+import org.apache.iotdb.db.metadata.path.PartialPath;
+import org.apache.iotdb.db.service.IoTDB;
+import org.apache.iotdb.db.utils.EnvironmentUtils;
+import org.apache.iotdb.tsfile.file.metadata.TimeseriesMetadata;
+import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
+import org.apache.iotdb.tsfile.read.TsFileSequenceReader;
+import org.apache.iotdb.tsfile.read.common.Path;
+import org.apache.iotdb.tsfile.write.TsFileWriter;
+import org.apache.iotdb.tsfile.write.record.TSRecord;
+import org.apache.iotdb.tsfile.write.record.datapoint.LongDataPoint;
+import org.apache.iotdb.tsfile.write.schema.MeasurementSchema;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class BulkTsFileLoaderTest {
+
+  private static final String STORAGE_GROUP = "root.sg";
+  private static final String DEVICE1 = STORAGE_GROUP + ".d1";
+  private static final String DEVICE2 = STORAGE_GROUP + ".d2";
+
+  private final File loadDir = new File("target" + File.separator + "load");
+  private boolean prevEnablePartition;
+  private long prevTimePartitionInterval;
+
+  @Before
+  public void setUp() throws Exception {
+    EnvironmentUtils.envSetUp();
+    prevEnablePartition = StorageEngine.isEnablePartition();
+    prevTimePartitionInterval = StorageEngine.getTimePartitionInterval();
+    StorageEngine.setEnablePartition(true);
+    StorageEngine.setTimePartitionInterval(1000);
+    loadDir.mkdirs();
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    StorageEngine.setEnablePartition(prevEnablePartition);
+    StorageEngine.setTimePartitionInterval(prevTimePartitionInterval);
+    EnvironmentUtils.cleanEnv();
+    FileUtils.deleteDirectory(loadDir);
+  }
+
+  @Test
+  public void testLoadAndSplit() throws Exception {
+    // chunks in partition 0, in partition 1 and across partition 1 and 2
+    File spanningFile = new File(loadDir, "1-1-0-0.tsfile");
+    writeTsFile(spanningFile, DEVICE1, new long[][] {{0, 100}, {1000, 1100}, {1900, 2100}});
+    File singleFile = new File(loadDir, "2-2-0-0.tsfile");
+    writeTsFile(singleFile, DEVICE2, new long[][] {{3000, 3100}});
+
+    new BulkTsFileLoader(1, true, true).load(Arrays.asList(spanningFile, singleFile));
+
+    assertTrue(IoTDB.schemaProcessor.isPathExist(new PartialPath(DEVICE1 + ".s1")));
+    assertTrue(IoTDB.schemaProcessor.isPathExist(new PartialPath(DEVICE2 + ".s1")));
+    DataRegion dataRegion = StorageEngine.getInstance().getProcessor(new PartialPath(DEVICE1));
+    List<TsFileResource> seqResources = dataRegion.getSequenceFileList();
+    assertEquals(4, seqResources.size());
+    assertTrue(dataRegion.getUnSequenceFileList().isEmpty());
+    long pointNum = 0;
+    for (TsFileResource resource : seqResources) {
+      assertFalse(resource.isSpanMultiTimePartitions());
+      assertTrue(resource.getTsFile().exists());
+      assertTrue(resource.resourceFileExists());
+      pointNum += countPoints(resource.getTsFile());
+    }
+    assertEquals(500, pointNum);
+    // the split file is kept while the file loaded directly is moved
+    assertTrue(spanningFile.exists());
+    assertFalse(singleFile.exists());
+    assertFalse(new File(singleFile.getPath() + TsFileResource.RESOURCE_SUFFIX).exists());
+  }
+
+  @Test
+  public void testLoadWithIllegalMetadata() throws Exception {
+    IoTDB.schemaProcessor.setStorageGroup(new PartialPath(STORAGE_GROUP));
+    IoTDB.schemaProcessor.createTimeseries(
+        new PartialPath(DEVICE1 + ".s1"),
+        TSDataType.DOUBLE,
+        TSEncoding.GORILLA,
+        CompressionType.SNAPPY,
+        Collections.emptyMap());
+    File file1 = new File(loadDir, "1-1-0-0.tsfile");
+    writeTsFile(file1, DEVICE2, new long[][] {{0, 100}});
+    File file2 = new File(loadDir, "2-2-0-0.tsfile");
+    writeTsFile(file2, DEVICE1, new long[][] {{200, 300}});
+
+    try {
+      new BulkTsFileLoader(1, true, true).load(Arrays.asList(file1, file2));
+      fail();
+    } catch (QueryProcessException e) {
+      assertTrue(e.getMessage().contains(DEVICE1 + ".s1 is INT64"));
+    }
+    // none of the files is loaded
+    assertFalse(IoTDB.schemaProcessor.isPathExist(new PartialPath(DEVICE2)));
+    assertTrue(file1.exists());
+    assertTrue(file2.exists());
+  }
+
+  @Test
+  public void testReportLoadedFilesOfFailedBatch() throws Exception {
+    IoTDB.schemaProcessor.setStorageGroup(new PartialPath(STORAGE_GROUP));
+    File file1 = new File(loadDir, "1-1-0-0.tsfile");
+    writeTsFile(file1, DEVICE1, new long[][] {{0, 100}});
+    TsFileResource resource1 = createClosedResource(file1, DEVICE1, 0, 99);
+    resource1.serialize();
+    // the .resource file of the second file is missing, so it can't be moved under the lock
+    File file2 = new File(loadDir, "2-2-0-0.tsfile");
+    writeTsFile(file2, DEVICE1, new long[][] {{200, 300}});
+    TsFileResource resource2 = createClosedResource(file2, DEVICE1, 200, 299);
+
+    try {
+      StorageEngine.getInstance().loadNewTsFiles(Arrays.asList(resource1, resource2), true);
+      fail();
+    } catch (LoadFileException e) {
+      assertTrue(e.getMessage().contains("Failed to load " + file2.getAbsolutePath()));
+      assertTrue(e.getMessage().contains("1 of 2 tsfiles"));
+      assertTrue(e.getMessage().contains(file1.getAbsolutePath()));
+    }
+
+    // the first file stays loaded and is moved from the load dir
+    DataRegion dataRegion = StorageEngine.getInstance().getProcessor(new PartialPath(DEVICE1));
+    List<TsFileResource> seqResources = dataRegion.getSequenceFileList();
+    assertEquals(1, seqResources.size());
+    assertTrue(seqResources.get(0).getTsFile().exists());
+    assertEquals(100, countPoints(seqResources.get(0).getTsFile()));
+    assertFalse(file1.exists());
+    assertTrue(file2.exists());
+    // no staged file is left in the data dir
+    File partitionFolder = seqResources.get(0).getTsFile().getParentFile();
+    File unseqPartitionFolder =
+        new File(
+            partitionFolder
+                .getAbsolutePath()
+                .replace(
+                    File.separator + IoTDBConstant.SEQUENCE_FLODER_NAME + File.separator,
+                    File.separator + IoTDBConstant.UNSEQUENCE_FLODER_NAME + File.separator));
+    for (File folder : new File[] {partitionFolder, unseqPartitionFolder}) {
+      File[] files = folder.listFiles();
+      if (files != null) {
+        for (File file : files) {
+          assertFalse(file.getName().contains(".loading"));
+        }
+      }
+    }
+  }
+
+  private TsFileResource createClosedResource(
+      File file, String device, long startTime, long endTime) {
+    TsFileResource resource = new TsFileResource(file);
+    resource.updateStartTime(device, startTime);
+    resource.updateEndTime(device, endTime);
+    resource.setStatus(TsFileResourceStatus.CLOSED);
+    return resource;
+  }
+
+  private void writeTsFile(File file, String device, long[][] chunkTimeRanges) throws Exception {
+    try (TsFileWriter writer = new TsFileWriter(file)) {
+      writer.registerTimeseries(
+          new Path(device), new MeasurementSchema("s1", TSDataType.INT64, TSEncoding.RLE));
+      for (long[] timeRange : chunkTimeRanges) {
+        for (long time = timeRange[0]; time < timeRange[1]; time++) {
+          writer.write(new TSRecord(time, device).addTuple(new LongDataPoint("s1", time)));
+        }
+        writer.flushAllChunkGroups();
+      }
+    }
+  }
+
+  private long countPoints(File tsFile) throws Exception {
+    long pointNum = 0;
+    try (TsFileSequenceReader reader = new TsFileSequenceReader(tsFile.getPath())) {
+      for (List<TimeseriesMetadata> timeseriesMetadataList :
+          reader.getAllTimeseriesMetadata().values()) {
+        for (TimeseriesMetadata timeseriesMetadata : timeseriesMetadataList) {
+          pointNum += timeseriesMetadata.getStatistics().getCount();
+        }
+      }
+    }
+    return pointNum;
+  }
+}
@@ -20,12 +20,15 @@
 package org.apache.iotdb.db.engine.modification;
 
 import org.apache.iotdb.db.constant.TestConstant;
+import org.apache.iotdb.db.exception.metadata.IllegalPathException;
 import org.apache.iotdb.db.metadata.path.PartialPath;
 
 import org.junit.Test;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import static org.junit.Assert.assertEquals;
@@ -100,4 +103,57 @@ public class ModificationFileTest {
       new File(tempFileName).delete();
     }
   }
+
+  @Test
+  public void testGetModificationsOfPath() throws IllegalPathException {
+    String tempFileName = TestConstant.BASE_OUTPUT_PATH.concat("mod.temp");
+    Modification[] modifications =
+        new Modification[] {
+          new Deletion(new PartialPath("root.sg.d1.s1"), 1, 1),
+          new Deletion(new PartialPath("root.sg.d1.*"), 2, 2),
+          new Deletion(new PartialPath("root.sg.**"), 3, 3, 4),
+          new Deletion(new PartialPath("root.sg.d2.s1"), 4, 4, 5),
+          new Deletion(new PartialPath("root.sg.d*.s1"), 5, 5, 6),
+          new Deletion(new PartialPath("root.sg.d1"), 6, 6, 7),
+          new Deletion(new PartialPath("root.**.s2"), 7, 7, 8)
+        };
+    PartialPath d1s1 = new PartialPath("root.sg.d1.s1");
+    PartialPath d1s2 = new PartialPath("root.sg.d1.s2");
+    PartialPath d2s1 = new PartialPath("root.sg.d2.s1");
+    try (ModificationFile mFile = new ModificationFile(tempFileName)) {
+      for (int i = 0; i < 5; i++) {
+        mFile.write(modifications[i]);
+      }
+      assertEquals(
+          Arrays.asList(modifications[0], modifications[1], modifications[2], modifications[4]),
+          mFile.getModifications(d1s1));
+      assertEquals(
+          Arrays.asList(modifications[2], modifications[3], modifications[4]),
+          mFile.getModifications(d2s1));
+
+      // the modifications written after the index is built are also indexed
+      for (int i = 5; i < 7; i++) {
+        mFile.write(modifications[i]);
+      }
+      assertEquals(
+          Arrays.asList(modifications[1], modifications[2], modifications[6]),
+          mFile.getModifications(d1s2));
+
+      mFile.abort();
+      assertEquals(Arrays.asList(modifications[1], modifications[2]), mFile.getModifications(d1s2));
+      for (PartialPath path : new PartialPath[] {d1s1, d1s2, d2s1}) {
+        List<Modification> expected = new ArrayList<>();
+        for (Modification modification : mFile.getModifications()) {
+          if (modification.getPath().matchFullPath(path)) {
+            expected.add(modification);
+          }
+        }
+        assertEquals(expected, mFile.getModifications(path));
+      }
+    } catch (IOException e) {
+      fail(e.getMessage());
+    } finally {
+      new File(tempFileName).delete();
+    }
+  }
 }
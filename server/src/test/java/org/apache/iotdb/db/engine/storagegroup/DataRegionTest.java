@@ -19,9 +19,11 @@
 
 package org.apache.iotdb.db.engine.storagegroup;
 
+import org.apache.iotdb.commons.conf.IoTDBConstant;
 import org.apache.iotdb.commons.exception.ShutdownException;
 import org.apache.iotdb.db.conf.IoTDBConfig;
 import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.conf.directories.DirectoryManager;
 import org.apache.iotdb.db.constant.TestConstant;
 import org.apache.iotdb.db.engine.MetadataManagerHelper;
 import org.apache.iotdb.db.engine.StorageEngine;
@@ -32,8 +34,11 @@ import org.apache.iotdb.db.engine.compaction.performer.impl.ReadChunkCompactionP
 import org.apache.iotdb.db.engine.compaction.utils.CompactionConfigRestorer;
 import org.apache.iotdb.db.engine.flush.FlushManager;
 import org.apache.iotdb.db.engine.flush.TsFileFlushPolicy;
+import org.apache.iotdb.db.engine.modification.ModificationFile;
 import org.apache.iotdb.db.engine.querycontext.QueryDataSource;
 import org.apache.iotdb.db.engine.querycontext.ReadOnlyMemChunk;
+import org.apache.iotdb.db.engine.snapshot.SnapshotManifest;
+import org.apache.iotdb.db.engine.storagegroup.timeindex.LazyTimeIndex;
 import org.apache.iotdb.db.exception.DataRegionException;
 import org.apache.iotdb.db.exception.TriggerExecutionException;
 import org.apache.iotdb.db.exception.WriteProcessException;
@@ -48,6 +53,7 @@ import org.apache.iotdb.db.mpp.sql.planner.plan.node.write.InsertTabletNode;
 import org.apache.iotdb.db.query.context.QueryContext;
 import org.apache.iotdb.db.rescon.MemTableManager;
 import org.apache.iotdb.db.utils.EnvironmentUtils;
+import org.apache.iotdb.tsfile.common.constant.TsFileConstant;
 import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
@@ -57,6 +63,7 @@ import org.apache.iotdb.tsfile.write.record.TSRecord;
 import org.apache.iotdb.tsfile.write.record.datapoint.DataPoint;
 import org.apache.iotdb.tsfile.write.schema.MeasurementSchema;
 
+import org.apache.commons.io.FileUtils;
 import org.junit.After;
 import org.junit.Assert;
 import org.junit.Before;
@@ -66,9 +73,14 @@ import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.FutureTask;
 import java.util.concurrent.atomic.AtomicInteger;
 
 public class DataRegionTest {
@@ -218,6 +230,196 @@ public class DataRegionTest {
     }
   }
 
+  @Test
+  public void testTakeSnapshot()
+      throws WriteProcessException, IOException, MetadataException, TriggerExecutionException {
+    for (int j = 1; j <= 10; j++) {
+      TSRecord record = new TSRecord(j, deviceId);
+      record.addTuple(DataPoint.getDataPoint(TSDataType.INT32, measurementId, String.valueOf(j)));
+      dataRegion.insert(buildInsertRowNodeByTSRecord(record));
+      if (j % 5 == 0) {
+        dataRegion.syncCloseAllWorkingTsFileProcessors();
+      }
+    }
+    List<TsFileResource> oldFiles = new ArrayList<>(dataRegion.getSequenceFileList());
+    Assert.assertEquals(2, oldFiles.size());
+
+    File snapshotRoot = new File(TestConstant.OUTPUT_DATA_DIR, "snapshot");
+    File fullSnapshotDir = new File(snapshotRoot, "full");
+    File incrementalSnapshotDir = new File(snapshotRoot, "incremental");
+    try {
+      // the full snapshot links all sealed files
+      SnapshotManifest fullManifest = dataRegion.takeSnapshot(fullSnapshotDir, null);
+      Assert.assertNull(fullManifest.getBaseSnapshotDir());
+      Assert.assertEquals(4, fullManifest.getFileLengths().size());
+      for (TsFileResource resource : oldFiles) {
+        File snapshotFile = getSnapshotFile(fullSnapshotDir, resource);
+        Assert.assertTrue(Files.isSameFile(resource.getTsFile().toPath(), snapshotFile.toPath()));
+      }
+
+      // the unsealed data is flushed and a deletion is made after the full snapshot
+      for (int j = 11; j <= 15; j++) {
+        TSRecord record = new TSRecord(j, deviceId);
+        record.addTuple(DataPoint.getDataPoint(TSDataType.INT32, measurementId, String.valueOf(j)));
+        dataRegion.insert(buildInsertRowNodeByTSRecord(record));
+      }
+      dataRegion.delete(new PartialPath(deviceId, measurementId), 0, 3L, -1, null);
+
+      SnapshotManifest incrementalManifest =
+          dataRegion.takeSnapshot(incrementalSnapshotDir, fullSnapshotDir);
+      Assert.assertEquals(
+          fullSnapshotDir.getAbsolutePath(), incrementalManifest.getBaseSnapshotDir());
+      // 3 TsFiles, 3 resource files and the mods files
+      int modsFileNum = 0;
+      for (TsFileResource resource : dataRegion.getSequenceFileList()) {
+        if (resource.getModFile().exists()) {
+          modsFileNum++;
+        }
+      }
+      Assert.assertTrue(modsFileNum > 0);
+      Assert.assertEquals(6 + modsFileNum, incrementalManifest.getFileLengths().size());
+      Assert.assertEquals(
+          incrementalManifest.getFileLengths(),
+          SnapshotManifest.deserialize(incrementalSnapshotDir).getFileLengths());
+      for (TsFileResource resource : dataRegion.getSequenceFileList()) {
+        boolean isNewFile = !oldFiles.contains(resource);
+        Assert.assertEquals(isNewFile, getSnapshotFile(incrementalSnapshotDir, resource).exists());
+      }
+      File modsFile =
+          new File(
+              getSnapshotFile(incrementalSnapshotDir, oldFiles.get(0)).getPath()
+                  + ModificationFile.FILE_SUFFIX);
+      Assert.assertTrue(modsFile.exists());
+    } finally {
+      FileUtils.deleteDirectory(snapshotRoot);
+    }
+  }
+
+  /**
+   * Take snapshots repeatedly while the sealed files are compacted. Each snapshot must contain
+   * either all the source files or the target file, and all the files in its manifest.
+   */
+  @Test
+  public void testTakeSnapshotDuringCompaction() throws Exception {
+    for (int j = 0; j < 10; j++) {
+      TSRecord record = new TSRecord(j, deviceId);
+      record.addTuple(DataPoint.getDataPoint(TSDataType.INT32, measurementId, String.valueOf(j)));
+      dataRegion.insert(buildInsertRowNodeByTSRecord(record));
+      dataRegion.syncCloseAllWorkingTsFileProcessors();
+    }
+    List<TsFileResource> sourceFiles = new ArrayList<>(dataRegion.getSequenceFileList());
+    Set<String> sourceFileNames = new HashSet<>();
+    for (TsFileResource resource : sourceFiles) {
+      sourceFileNames.add(resource.getTsFile().getName());
+    }
+    InnerSpaceCompactionTask task =
+        new InnerSpaceCompactionTask(
+            0,
+            dataRegion.getTsFileManager(),
+            sourceFiles,
+            true,
+            new ReadChunkCompactionPerformer(sourceFiles),
+            new AtomicInteger(0));
+    task.setSourceFilesToCompactionCandidate();
+    Assert.assertTrue(task.checkValidAndSetMerging());
+
+    File snapshotRoot = new File(TestConstant.OUTPUT_DATA_DIR, "snapshot");
+    FutureTask<Void> compaction = new FutureTask<>(task);
+    new Thread(compaction).start();
+    try {
+      int snapshotNum = 0;
+      boolean compacted;
+      do {
+        compacted = compaction.isDone();
+        File snapshotDir = new File(snapshotRoot, String.valueOf(snapshotNum++));
+        SnapshotManifest manifest = dataRegion.takeSnapshot(snapshotDir, null);
+        Set<String> snapshotFileNames = new HashSet<>();
+        for (Map.Entry<String, Long> entry : manifest.getFileLengths().entrySet()) {
+          File snapshotFile = new File(snapshotDir, entry.getKey());
+          Assert.assertEquals((long) entry.getValue(), snapshotFile.length());
+          if (snapshotFile.getName().endsWith(TsFileConstant.TSFILE_SUFFIX)) {
+            snapshotFileNames.add(snapshotFile.getName());
+            Assert.assertTrue(
+                new File(snapshotFile.getPath() + TsFileResource.RESOURCE_SUFFIX).exists());
+          }
+        }
+        if (!snapshotFileNames.equals(sourceFileNames)) {
+          Assert.assertEquals(1, snapshotFileNames.size());
+          Assert.assertFalse(sourceFileNames.containsAll(snapshotFileNames));
+        }
+      } while (!compacted);
+      compaction.get();
+      Assert.assertEquals(1, dataRegion.getSequenceFileList().size());
+    } finally {
+      FileUtils.deleteDirectory(snapshotRoot);
+    }
+  }
+
+  private File getSnapshotFile(File snapshotDir, TsFileResource resource) {
+    return new File(
+        snapshotDir,
+        IoTDBConstant.SEQUENCE_FLODER_NAME
+            + File.separator
+            + resource.getTimePartition()
+            + File.separator
+            + resource.getTsFile().getName());
+  }
+
+  @Test
+  public void testMigrateColdFiles()
+      throws WriteProcessException, QueryProcessException, IllegalPathException,
+          TriggerExecutionException, IOException {
+    config.setColdDataDirs(new String[] {TestConstant.OUTPUT_DATA_DIR + "cold"});
+    DirectoryManager.getInstance().updateColdFileFolders();
+    try {
+      for (int j = 1; j <= 10; j++) {
+        TSRecord record = new TSRecord(j, deviceId);
+        record.addTuple(DataPoint.getDataPoint(TSDataType.INT32, measurementId, String.valueOf(j)));
+        dataRegion.insert(buildInsertRowNodeByTSRecord(record));
+      }
+      dataRegion.syncCloseAllWorkingTsFileProcessors();
+      // the data in the unsealed file are not migrated
+      TSRecord record = new TSRecord(System.currentTimeMillis(), deviceId);
+      record.addTuple(DataPoint.getDataPoint(TSDataType.INT32, measurementId, "0"));
+      dataRegion.insert(buildInsertRowNodeByTSRecord(record));
+
+      File hotFile = dataRegion.getSequenceFileList().get(0).getTsFile();
+      dataRegion.migrateColdFiles();
+
+      PartialPath fullPath =
+          new MeasurementPath(
+              deviceId,
+              measurementId,
+              new MeasurementSchema(
+                  measurementId,
+                  TSDataType.INT32,
+                  TSEncoding.RLE,
+                  CompressionType.UNCOMPRESSED,
+                  Collections.emptyMap()));
+      QueryDataSource queryDataSource =
+          dataRegion.query(Collections.singletonList(fullPath), deviceId, context, null, null);
+      Assert.assertEquals(2, queryDataSource.getSeqResources().size());
+      TsFileResource coldResource = queryDataSource.getSeqResources().get(0);
+      Assert.assertTrue(DirectoryManager.getInstance().isInColdFolder(coldResource.getTsFile()));
+      Assert.assertTrue(coldResource.getTsFile().exists());
+      Assert.assertTrue(coldResource.isClosed());
+      Assert.assertEquals(1, coldResource.getStartTime(deviceId));
+      Assert.assertEquals(10, coldResource.getEndTime(deviceId));
+      Assert.assertFalse(hotFile.exists());
+      TsFileResource hotResource = queryDataSource.getSeqResources().get(1);
+      Assert.assertFalse(hotResource.isClosed());
+      Assert.assertFalse(DirectoryManager.getInstance().isInColdFolder(hotResource.getTsFile()));
+
+      // deletions are written to the mods file in the cold tier
+      dataRegion.delete(new PartialPath(deviceId, measurementId), 0, 5L, -1, null);
+      Assert.assertTrue(coldResource.getModFile().exists());
+    } finally {
+      dataRegion.syncDeleteDataFiles();
+      config.setColdDataDirs(new String[0]);
+      DirectoryManager.getInstance().updateColdFileFolders();
+    }
+  }
+
   @Test
   public void testInsertDataAndRemovePartitionAndInsert()
       throws WriteProcessException, QueryProcessException, IllegalPathException,
@@ -913,6 +1115,62 @@ public class DataRegionTest {
     config.setUnseqMemtableFlushInterval(preFLushInterval);
   }
 
+  @Test
+  public void testLazyLoadTsFileResource()
+      throws WriteProcessException, QueryProcessException, IllegalPathException,
+          TriggerExecutionException, DataRegionException, IOException {
+    for (int j = 1; j <= 10; j++) {
+      TSRecord record = new TSRecord(j, deviceId);
+      record.addTuple(DataPoint.getDataPoint(TSDataType.INT32, measurementId, String.valueOf(j)));
+      dataRegion.insert(buildInsertRowNodeByTSRecord(record));
+      dataRegion.syncCloseAllWorkingTsFileProcessors();
+    }
+
+    // the time index is loaded on first access
+    File tsFile = dataRegion.getSequenceFileList().get(0).getTsFile();
+    TsFileResource lazyResource = new TsFileResource(tsFile);
+    lazyResource.setTimeIndex(new LazyTimeIndex(lazyResource));
+    lazyResource.setStatus(TsFileResourceStatus.CLOSED);
+    Assert.assertTrue(lazyResource.hasUnloadedTimeIndex());
+    Assert.assertEquals(0, lazyResource.getTimePartition());
+    Assert.assertTrue(lazyResource.hasUnloadedTimeIndex());
+    Assert.assertEquals(1, lazyResource.getStartTime(deviceId));
+    Assert.assertFalse(lazyResource.hasUnloadedTimeIndex());
+
+    boolean prevEnableLazyLoad = config.isEnableLazyLoadTsFileResource();
+    config.setEnableLazyLoadTsFileResource(true);
+    try {
+      dataRegion = new DummyDataRegion(systemDir, storageGroup);
+      List<TsFileResource> seqResources = dataRegion.getSequenceFileList();
+      Assert.assertEquals(10, seqResources.size());
+      for (int j = 1; j <= 10; j++) {
+        Assert.assertEquals(j, seqResources.get(j - 1).getEndTime(deviceId));
+      }
+
+      // the flushed time of the partition is loaded before the first insertion into it
+      TSRecord record = new TSRecord(5, deviceId);
+      record.addTuple(DataPoint.getDataPoint(TSDataType.INT32, measurementId, String.valueOf(5)));
+      dataRegion.insert(buildInsertRowNodeByTSRecord(record));
+      record = new TSRecord(20, deviceId);
+      record.addTuple(DataPoint.getDataPoint(TSDataType.INT32, measurementId, String.valueOf(20)));
+      dataRegion.insert(buildInsertRowNodeByTSRecord(record));
+      dataRegion.syncCloseAllWorkingTsFileProcessors();
+
+      QueryDataSource queryDataSource =
+          dataRegion.query(
+              Collections.singletonList(new PartialPath(deviceId, measurementId)),
+              deviceId,
+              context,
+              null,
+              null);
+      Assert.assertEquals(11, queryDataSource.getSeqResources().size());
+      Assert.assertEquals(1, queryDataSource.getUnseqResources().size());
+      Assert.assertEquals(5, queryDataSource.getUnseqResources().get(0).getEndTime(deviceId));
+    } finally {
+      config.setEnableLazyLoadTsFileResource(prevEnableLazyLoad);
+    }
+  }
+
   static class DummyDataRegion extends DataRegion {
 
     DummyDataRegion(String systemInfoDir, String storageGroupName) throws DataRegionException {
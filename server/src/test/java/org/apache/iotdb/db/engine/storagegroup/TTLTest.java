@@ -23,6 +23,7 @@ package org.apache.iotdb.db.engine.storagegroup;
 import org.apache.iotdb.commons.conf.IoTDBConstant;
 import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.conf.directories.DirectoryManager;
+import org.apache.iotdb.db.engine.StorageEngine;
 import org.apache.iotdb.db.engine.flush.TsFileFlushPolicy.DirectFlushPolicy;
 import org.apache.iotdb.db.engine.querycontext.QueryDataSource;
 import org.apache.iotdb.db.exception.DataRegionException;
@@ -72,6 +73,7 @@ import java.util.Set;
 import java.util.stream.Collectors;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
@@ -444,4 +446,68 @@ public class TTLTest {
     assertEquals(0, dataRegion.getSequenceFileList().size());
     assertEquals(0, dataRegion.getUnSequenceFileList().size());
   }
+
+  @Test
+  public void testTTLRemoveTimePartition()
+      throws WriteProcessException, QueryProcessException, IllegalPathException,
+          TriggerExecutionException {
+    boolean prevEnablePartition = StorageEngine.isEnablePartition();
+    long prevTimePartitionInterval = StorageEngine.getTimePartitionInterval();
+    StorageEngine.setEnablePartition(true);
+    StorageEngine.setTimePartitionInterval(1000);
+    try {
+      InsertRowPlan plan = new InsertRowPlan();
+      plan.setDevicePath(new PartialPath(sg1));
+      plan.setMeasurements(new String[] {"s1"});
+      plan.setDataTypes(new TSDataType[] {TSDataType.INT64});
+      plan.setValues(new Object[] {1L});
+      plan.setMeasurementMNodes(
+          new IMeasurementMNode[] {
+            MeasurementMNode.getMeasurementMNode(
+                null, "s1", new MeasurementSchema("s1", TSDataType.INT64, TSEncoding.PLAIN), null)
+          });
+      plan.transferType();
+
+      // two files in each of the two old partitions and one file in the current partition
+      long currentTime = System.currentTimeMillis();
+      long oldPartition = currentTime / 1000 - 20;
+      for (long partition : new long[] {oldPartition, oldPartition + 1}) {
+        for (int i = 0; i < 2; i++) {
+          for (int j = 0; j < 10; j++) {
+            plan.setTime(partition * 1000 + i * 100 + j);
+            dataRegion.insert(plan);
+          }
+          dataRegion.syncCloseAllWorkingTsFileProcessors();
+        }
+      }
+      plan.setTime(currentTime);
+      dataRegion.insert(plan);
+      dataRegion.syncCloseAllWorkingTsFileProcessors();
+      assertEquals(5, dataRegion.getSequenceFileList().size());
+      File oldPartitionFolder =
+          dataRegion.getSequenceFileList().iterator().next().getTsFile().getParentFile();
+      assertTrue(oldPartitionFolder.exists());
+      ILastFlushTimeManager lastFlushTimeManager = dataRegion.getLastFlushTimeManager();
+      assertEquals(
+          oldPartition * 1000 + 109, lastFlushTimeManager.getFlushedTime(oldPartition, sg1));
+
+      // the old partitions are removed as a whole while the current partition is kept
+      dataRegion.setDataTTL(10000);
+      dataRegion.checkFilesTTL();
+
+      assertEquals(1, dataRegion.getSequenceFileList().size());
+      TsFileResource remainingFile = dataRegion.getSequenceFileList().iterator().next();
+      assertEquals(currentTime / 1000, remainingFile.getTimePartition());
+      assertTrue(remainingFile.getTsFile().exists());
+      assertFalse(oldPartitionFolder.exists());
+      // removing the files one by one would leave the empty file lists of the partitions
+      assertFalse(dataRegion.getTsFileManager().getTimePartitions().contains(oldPartition));
+      assertFalse(dataRegion.getTsFileManager().getTimePartitions().contains(oldPartition + 1));
+      lastFlushTimeManager.ensureFlushedTimePartition(oldPartition);
+      assertEquals(Long.MIN_VALUE, lastFlushTimeManager.getFlushedTime(oldPartition, sg1));
+    } finally {
+      StorageEngine.setEnablePartition(prevEnablePartition);
+      StorageEngine.setTimePartitionInterval(prevTimePartitionInterval);
+    }
+  }
 }
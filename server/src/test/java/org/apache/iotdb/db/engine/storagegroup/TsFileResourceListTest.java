@@ -20,6 +20,9 @@
 package org.apache.iotdb.db.engine.storagegroup;
 
 import org.apache.iotdb.db.constant.TestConstant;
+import org.apache.iotdb.tsfile.read.filter.TimeFilter;
+import org.apache.iotdb.tsfile.read.filter.basic.Filter;
+import org.apache.iotdb.tsfile.read.filter.factory.FilterFactory;
 
 import org.junit.Assert;
 import org.junit.Test;
@@ -212,4 +215,58 @@ public class TsFileResourceListTest {
         tsFileResourceList.getHeader(), tsFileResources.get(tsFileResources.size() - 1));
     Assert.assertEquals(tsFileResourceList.getTail(), tsFileResources.get(0));
   }
+
+  @Test
+  public void testGetOverlappedFiles() {
+    TsFileResourceList tsFileResourceList = new TsFileResourceList();
+    List<TsFileResource> tsFileResources = new ArrayList<>();
+    for (int i = 0; i < 20; i++) {
+      TsFileResource resource = generateTsFileResource(i);
+      // the time ranges are out of order and overlap with each other
+      long startTime = (i % 4) * 1000L + i * 10L;
+      resource.updateStartTime("root.sg.d1", startTime);
+      resource.updateEndTime("root.sg.d1", startTime + (i % 3) * 500L);
+      if (i != 19) {
+        resource.setStatus(TsFileResourceStatus.CLOSED);
+      }
+      tsFileResources.add(resource);
+      tsFileResourceList.add(resource);
+    }
+
+    List<Filter> filters = new ArrayList<>();
+    filters.add(TimeFilter.gt(3000));
+    filters.add(TimeFilter.lt(100));
+    filters.add(FilterFactory.and(TimeFilter.gtEq(1200), TimeFilter.ltEq(1300)));
+    filters.add(FilterFactory.or(TimeFilter.eq(50), TimeFilter.gt(5000)));
+    filters.add(null);
+    for (Filter filter : filters) {
+      Assert.assertEquals(
+          getOverlappedFilesLinearly(tsFileResources, filter),
+          tsFileResourceList.getOverlappedFiles(filter));
+    }
+    // files are not pruned by not filters
+    Assert.assertEquals(
+        tsFileResources, tsFileResourceList.getOverlappedFiles(TimeFilter.not(TimeFilter.gt(100))));
+
+    // the index is rebuilt after the list is changed
+    tsFileResourceList.remove(tsFileResources.get(3));
+    tsFileResources.remove(3);
+    Filter filter = TimeFilter.gt(3000);
+    Assert.assertEquals(
+        getOverlappedFilesLinearly(tsFileResources, filter),
+        tsFileResourceList.getOverlappedFiles(filter));
+  }
+
+  private List<TsFileResource> getOverlappedFilesLinearly(
+      List<TsFileResource> tsFileResources, Filter filter) {
+    List<TsFileResource> result = new ArrayList<>();
+    for (TsFileResource resource : tsFileResources) {
+      if (filter == null
+          || !resource.isClosed()
+          || filter.satisfyStartEndTime(resource.getFileStartTime(), resource.getFileEndTime())) {
+        result.add(resource);
+      }
+    }
+    return result;
+  }
 }
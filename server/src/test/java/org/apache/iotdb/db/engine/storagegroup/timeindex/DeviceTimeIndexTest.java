@@ -0,0 +1,108 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.storagegroup.timeindex;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.HashSet;
+import java.util.Set;
+
+public class DeviceTimeIndexTest {
+
+  private static final String DEVICE_PREFIX = "root.sg.device_time_index_test.d";
+
+  private DeviceTimeIndex generateTimeIndex(int deviceNum) {
+    DeviceTimeIndex timeIndex = new DeviceTimeIndex();
+    // devices are added in descending order, which is different from the order of their ids
+    for (int i = deviceNum - 1; i >= 0; i--) {
+      timeIndex.updateStartTime(DEVICE_PREFIX + i, i * 100L);
+      timeIndex.updateEndTime(DEVICE_PREFIX + i, i * 100L + 50);
+    }
+    return timeIndex;
+  }
+
+  private void checkTimeIndex(ITimeIndex timeIndex, int deviceNum) {
+    Set<String> devices = new HashSet<>();
+    for (int i = 0; i < deviceNum; i++) {
+      String device = DEVICE_PREFIX + i;
+      devices.add(device);
+      Assert.assertTrue(timeIndex.mayContainsDevice(device));
+      Assert.assertEquals(i * 100L, timeIndex.getStartTime(device));
+      Assert.assertEquals(i * 100L + 50, timeIndex.getEndTime(device));
+    }
+    Assert.assertEquals(devices, new HashSet<>(timeIndex.getDevices(null, null)));
+    Assert.assertFalse(timeIndex.mayContainsDevice(DEVICE_PREFIX + deviceNum));
+    Assert.assertEquals(Long.MAX_VALUE, timeIndex.getStartTime(DEVICE_PREFIX + deviceNum));
+    Assert.assertEquals(Long.MIN_VALUE, timeIndex.getEndTime(DEVICE_PREFIX + deviceNum));
+    Assert.assertEquals(0, timeIndex.getMinStartTime());
+    Assert.assertEquals((deviceNum - 1) * 100L + 50, timeIndex.getMaxEndTime());
+  }
+
+  @Test
+  public void testClose() {
+    DeviceTimeIndex timeIndex = generateTimeIndex(100);
+    long ramSizeBeforeClose = timeIndex.calculateRamSize();
+    timeIndex.close();
+    checkTimeIndex(timeIndex, 100);
+    Assert.assertTrue(timeIndex.calculateRamSize() < ramSizeBeforeClose);
+  }
+
+  @Test
+  public void testSerialize() throws IOException {
+    DeviceTimeIndex timeIndex = generateTimeIndex(100);
+    timeIndex.close();
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    timeIndex.serialize(outputStream);
+
+    checkTimeIndex(
+        new DeviceTimeIndex().deserialize(new ByteArrayInputStream(outputStream.toByteArray())),
+        100);
+    checkTimeIndex(
+        new DeviceTimeIndex().deserialize(ByteBuffer.wrap(outputStream.toByteArray())), 100);
+
+    // serialize the deserialized index again
+    DeviceTimeIndex deserialized =
+        new DeviceTimeIndex().deserialize(ByteBuffer.wrap(outputStream.toByteArray()));
+    outputStream.reset();
+    deserialized.serialize(outputStream);
+    checkTimeIndex(
+        new DeviceTimeIndex().deserialize(new ByteArrayInputStream(outputStream.toByteArray())),
+        100);
+  }
+
+  @Test
+  public void testUpdateAfterClose() {
+    DeviceTimeIndex timeIndex = generateTimeIndex(10);
+    timeIndex.close();
+    timeIndex.putEndTime(DEVICE_PREFIX + 9, 940);
+    timeIndex.updateStartTime(DEVICE_PREFIX + 10, 1000);
+    timeIndex.updateEndTime(DEVICE_PREFIX + 10, 1050);
+    Assert.assertEquals(940, timeIndex.getEndTime(DEVICE_PREFIX + 9));
+    Assert.assertEquals(1000, timeIndex.getStartTime(DEVICE_PREFIX + 10));
+    Assert.assertEquals(1050, timeIndex.getEndTime(DEVICE_PREFIX + 10));
+    timeIndex.putEndTime(DEVICE_PREFIX + 9, 950);
+    timeIndex.close();
+    checkTimeIndex(timeIndex, 11);
+  }
+}
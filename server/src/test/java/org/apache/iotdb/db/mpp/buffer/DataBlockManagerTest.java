@@ -0,0 +1,155 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.mpp.buffer;
+
+import org.apache.iotdb.common.rpc.thrift.TEndPoint;
+import org.apache.iotdb.commons.client.IClientManager;
+import org.apache.iotdb.commons.client.sync.SyncDataNodeDataBlockServiceClient;
+import org.apache.iotdb.db.conf.IoTDBConfig;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.mpp.execution.FragmentInstanceContext;
+import org.apache.iotdb.db.mpp.memory.LocalMemoryManager;
+import org.apache.iotdb.db.mpp.memory.MemoryPool;
+import org.apache.iotdb.mpp.rpc.thrift.TFragmentInstanceId;
+import org.apache.iotdb.tsfile.read.common.block.TsBlock;
+import org.apache.iotdb.tsfile.read.common.block.column.TsBlockSerde;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.Collections;
+import java.util.concurrent.ExecutorService;
+
+public class DataBlockManagerTest {
+
+  private static final String QUERY_ID = "q0";
+  private static final long MOCK_TSBLOCK_SIZE = 1024L * 1024L;
+
+  private final IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
+  private final TEndPoint localEndpoint =
+      new TEndPoint(config.getInternalIp(), config.getDataBlockManagerPort());
+  private final TFragmentInstanceId sinkFragmentInstanceId =
+      new TFragmentInstanceId(QUERY_ID, 0, "0");
+  private final TFragmentInstanceId sourceFragmentInstanceId =
+      new TFragmentInstanceId(QUERY_ID, 1, "0");
+  private final String sourcePlanNodeId = "exchange_0";
+
+  private DataBlockManager createDataBlockManager(MemoryPool mockMemoryPool) {
+    LocalMemoryManager mockLocalMemoryManager = Mockito.mock(LocalMemoryManager.class);
+    Mockito.when(mockLocalMemoryManager.getQueryPool()).thenReturn(mockMemoryPool);
+    IClientManager<TEndPoint, SyncDataNodeDataBlockServiceClient> mockClientManager =
+        Mockito.mock(IClientManager.class);
+    return new DataBlockManager(
+        mockLocalMemoryManager,
+        TsBlockSerde::new,
+        Mockito.mock(ExecutorService.class),
+        mockClientManager);
+  }
+
+  @Test
+  public void testCreateLocalHandles() {
+    MemoryPool mockMemoryPool = Utils.createMockNonBlockedMemoryPool();
+    Mockito.when(mockMemoryPool.getMaxBytesPerQuery()).thenReturn(Long.MAX_VALUE);
+    DataBlockManager dataBlockManager = createDataBlockManager(mockMemoryPool);
+
+    // The source handle is created before the sink handle.
+    ISourceHandle sourceHandle =
+        dataBlockManager.createSourceHandle(
+            sourceFragmentInstanceId,
+            sourcePlanNodeId,
+            localEndpoint,
+            sinkFragmentInstanceId,
+            null);
+    Assert.assertTrue(sourceHandle instanceof LocalSourceHandle);
+    ISinkHandle sinkHandle =
+        dataBlockManager.createSinkHandle(
+            sinkFragmentInstanceId,
+            localEndpoint,
+            sourceFragmentInstanceId,
+            sourcePlanNodeId,
+            Mockito.mock(FragmentInstanceContext.class));
+    Assert.assertTrue(sinkHandle instanceof LocalSinkHandle);
+
+    // TsBlocks are passed by reference through the shared queue.
+    TsBlock mockTsBlock = Utils.createMockTsBlocks(1, MOCK_TSBLOCK_SIZE).get(0);
+    sinkHandle.send(Collections.singletonList(mockTsBlock));
+    sinkHandle.setNoMoreTsBlocks();
+    Assert.assertTrue(sourceHandle.isBlocked().isDone());
+    Assert.assertSame(mockTsBlock, sourceHandle.receive());
+    Assert.assertTrue(sourceHandle.isFinished());
+    Assert.assertTrue(sinkHandle.isFinished());
+    Mockito.verify(mockMemoryPool, Mockito.times(1)).tryReserve(QUERY_ID, MOCK_TSBLOCK_SIZE);
+    Mockito.verify(mockMemoryPool, Mockito.times(1)).free(QUERY_ID, MOCK_TSBLOCK_SIZE);
+  }
+
+  @Test
+  public void testCreateRemoteHandles() {
+    DataBlockManager dataBlockManager =
+        createDataBlockManager(Utils.createMockNonBlockedMemoryPool());
+    TEndPoint remoteEndpoint = new TEndPoint("remote", config.getDataBlockManagerPort());
+
+    Assert.assertTrue(
+        dataBlockManager.createSourceHandle(
+                sourceFragmentInstanceId,
+                sourcePlanNodeId,
+                remoteEndpoint,
+                sinkFragmentInstanceId,
+                null)
+            instanceof SourceHandle);
+    Assert.assertTrue(
+        dataBlockManager.createSinkHandle(
+                sinkFragmentInstanceId,
+                remoteEndpoint,
+                sourceFragmentInstanceId,
+                sourcePlanNodeId,
+                Mockito.mock(FragmentInstanceContext.class))
+            instanceof SinkHandle);
+  }
+
+  @Test
+  public void testAbortSinkHandleBeforeSourceHandleIsCreated() {
+    MemoryPool mockMemoryPool = Utils.createMockNonBlockedMemoryPool();
+    Mockito.when(mockMemoryPool.getMaxBytesPerQuery()).thenReturn(Long.MAX_VALUE);
+    DataBlockManager dataBlockManager = createDataBlockManager(mockMemoryPool);
+
+    ISinkHandle sinkHandle =
+        dataBlockManager.createSinkHandle(
+            sinkFragmentInstanceId,
+            localEndpoint,
+            sourceFragmentInstanceId,
+            sourcePlanNodeId,
+            Mockito.mock(FragmentInstanceContext.class));
+    sinkHandle.send(Utils.createMockTsBlocks(1, MOCK_TSBLOCK_SIZE));
+    dataBlockManager.forceDeregisterFragmentInstance(sinkFragmentInstanceId);
+    Assert.assertTrue(sinkHandle.isClosed());
+    Mockito.verify(mockMemoryPool, Mockito.times(1)).free(QUERY_ID, MOCK_TSBLOCK_SIZE);
+
+    // The queue of the aborted sink handle has been released, so a source handle created later
+    // gets a new queue instead of the closed one.
+    ISourceHandle sourceHandle =
+        dataBlockManager.createSourceHandle(
+            sourceFragmentInstanceId,
+            sourcePlanNodeId,
+            localEndpoint,
+            sinkFragmentInstanceId,
+            null);
+    Assert.assertFalse(sourceHandle.isFinished());
+  }
+}
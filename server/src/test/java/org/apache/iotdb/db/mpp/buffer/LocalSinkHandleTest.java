@@ -0,0 +1,258 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.mpp.buffer;
+
+import org.apache.iotdb.db.mpp.buffer.DataBlockManager.SinkHandleListener;
+import org.apache.iotdb.db.mpp.buffer.DataBlockManager.SourceHandleListener;
+import org.apache.iotdb.db.mpp.memory.LocalMemoryManager;
+import org.apache.iotdb.db.mpp.memory.MemoryPool;
+import org.apache.iotdb.mpp.rpc.thrift.TFragmentInstanceId;
+import org.apache.iotdb.tsfile.read.common.block.TsBlock;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class LocalSinkHandleTest {
+
+  @Test
+  public void testNotBlockedSendAndReceive() {
+    final String queryId = "q0";
+    final long mockTsBlockSize = 1024L * 1024L;
+    final int numOfMockTsBlock = 10;
+    final TFragmentInstanceId remoteFragmentInstanceId = new TFragmentInstanceId(queryId, 0, "0");
+    final String remotePlanNodeId = "exchange_0";
+    final TFragmentInstanceId localFragmentInstanceId = new TFragmentInstanceId(queryId, 1, "0");
+
+    // Construct a mock LocalMemoryManager that never blocks.
+    LocalMemoryManager mockLocalMemoryManager = Mockito.mock(LocalMemoryManager.class);
+    MemoryPool mockMemoryPool = Utils.createMockNonBlockedMemoryPool();
+    Mockito.when(mockMemoryPool.getMaxBytesPerQuery()).thenReturn(Long.MAX_VALUE);
+    Mockito.when(mockLocalMemoryManager.getQueryPool()).thenReturn(mockMemoryPool);
+    SinkHandleListener mockSinkHandleListener = Mockito.mock(SinkHandleListener.class);
+    SourceHandleListener mockSourceHandleListener = Mockito.mock(SourceHandleListener.class);
+    List<TsBlock> mockTsBlocks = Utils.createMockTsBlocks(numOfMockTsBlock, mockTsBlockSize);
+
+    // Construct a pair of local handles.
+    SharedTsBlockQueue queue =
+        new SharedTsBlockQueue(localFragmentInstanceId, mockLocalMemoryManager);
+    LocalSinkHandle sinkHandle =
+        new LocalSinkHandle(localFragmentInstanceId, queue, mockSinkHandleListener);
+    LocalSourceHandle sourceHandle =
+        new LocalSourceHandle(
+            remoteFragmentInstanceId, remotePlanNodeId, queue, mockSourceHandleListener);
+    Assert.assertTrue(sinkHandle.isFull().isDone());
+    Assert.assertFalse(sinkHandle.isFinished());
+    Assert.assertFalse(sourceHandle.isBlocked().isDone());
+    Assert.assertFalse(sourceHandle.isFinished());
+
+    // Send tsblocks.
+    sinkHandle.send(mockTsBlocks);
+    Assert.assertTrue(sinkHandle.isFull().isDone());
+    Assert.assertTrue(sourceHandle.isBlocked().isDone());
+    Assert.assertEquals(
+        mockTsBlockSize * numOfMockTsBlock, sinkHandle.getBufferRetainedSizeInBytes());
+    Mockito.verify(mockMemoryPool, Mockito.times(numOfMockTsBlock))
+        .tryReserve(queryId, mockTsBlockSize);
+    sinkHandle.close();
+    Assert.assertTrue(sinkHandle.isClosed());
+    Assert.assertFalse(sinkHandle.isFinished());
+    Mockito.verify(mockSinkHandleListener, Mockito.times(1)).onClosed(sinkHandle);
+    Mockito.verify(mockSinkHandleListener, Mockito.never()).onFinish(sinkHandle);
+
+    // Receive the same tsblocks in order.
+    for (int i = 0; i < numOfMockTsBlock; i++) {
+      Assert.assertSame(mockTsBlocks.get(i), sourceHandle.receive());
+    }
+    Assert.assertNull(sourceHandle.receive());
+    Assert.assertTrue(sourceHandle.isFinished());
+    Assert.assertTrue(sinkHandle.isFinished());
+    Assert.assertEquals(0L, sinkHandle.getBufferRetainedSizeInBytes());
+    Mockito.verify(mockMemoryPool, Mockito.times(numOfMockTsBlock)).free(queryId, mockTsBlockSize);
+    Mockito.verify(mockSinkHandleListener, Mockito.times(1)).onFinish(sinkHandle);
+    Mockito.verify(mockSourceHandleListener, Mockito.atLeastOnce()).onFinished(sourceHandle);
+
+    sourceHandle.close();
+    Assert.assertTrue(sourceHandle.isClosed());
+    Mockito.verify(mockSourceHandleListener, Mockito.times(1)).onClosed(sourceHandle);
+    Mockito.verify(mockSinkHandleListener, Mockito.times(1)).onFinish(sinkHandle);
+  }
+
+  @Test
+  public void testBlockedSend() {
+    final String queryId = "q0";
+    final long mockTsBlockSize = 1024L * 1024L;
+    final int numOfMockTsBlock = 10;
+    final TFragmentInstanceId remoteFragmentInstanceId = new TFragmentInstanceId(queryId, 0, "0");
+    final String remotePlanNodeId = "exchange_0";
+    final TFragmentInstanceId localFragmentInstanceId = new TFragmentInstanceId(queryId, 1, "0");
+
+    // Construct a mock LocalMemoryManager that can hold only part of the tsblocks.
+    LocalMemoryManager mockLocalMemoryManager = Mockito.mock(LocalMemoryManager.class);
+    MemoryPool mockMemoryPool =
+        Utils.createMockBlockedMemoryPool(queryId, numOfMockTsBlock / 2, mockTsBlockSize);
+    Mockito.when(mockMemoryPool.getMaxBytesPerQuery()).thenReturn(Long.MAX_VALUE);
+    Mockito.when(mockLocalMemoryManager.getQueryPool()).thenReturn(mockMemoryPool);
+    SinkHandleListener mockSinkHandleListener = Mockito.mock(SinkHandleListener.class);
+    List<TsBlock> mockTsBlocks = Utils.createMockTsBlocks(numOfMockTsBlock, mockTsBlockSize);
+
+    SharedTsBlockQueue queue =
+        new SharedTsBlockQueue(localFragmentInstanceId, mockLocalMemoryManager);
+    LocalSinkHandle sinkHandle =
+        new LocalSinkHandle(localFragmentInstanceId, queue, mockSinkHandleListener);
+    LocalSourceHandle sourceHandle =
+        new LocalSourceHandle(remoteFragmentInstanceId, remotePlanNodeId, queue);
+
+    // Send tsblocks until the sink handle is full.
+    int numOfSentTsBlocks = 0;
+    while (sinkHandle.isFull().isDone()) {
+      sinkHandle.send(mockTsBlocks.subList(numOfSentTsBlocks, numOfSentTsBlocks + 1));
+      numOfSentTsBlocks++;
+    }
+    Assert.assertEquals(numOfMockTsBlock / 2 + 1, numOfSentTsBlocks);
+    Assert.assertEquals(
+        mockTsBlockSize * numOfMockTsBlock / 2, sinkHandle.getBufferRetainedSizeInBytes());
+
+    // The sink handle is unblocked once the unreserved tsblock has been received.
+    ListenableFuture<Void> blocked = sinkHandle.isFull();
+    for (int i = 0; i < numOfSentTsBlocks - 1; i++) {
+      Assert.assertSame(mockTsBlocks.get(i), sourceHandle.receive());
+      Assert.assertFalse(blocked.isDone());
+    }
+    Assert.assertEquals(0L, sinkHandle.getBufferRetainedSizeInBytes());
+    Assert.assertSame(mockTsBlocks.get(numOfSentTsBlocks - 1), sourceHandle.receive());
+    Assert.assertTrue(blocked.isDone());
+
+    // Abort the sink handle.
+    sinkHandle.abort();
+    Assert.assertTrue(sinkHandle.isClosed());
+    Assert.assertTrue(sourceHandle.isFinished());
+    Mockito.verify(mockSinkHandleListener, Mockito.times(1)).onAborted(sinkHandle);
+    Mockito.verify(mockSinkHandleListener, Mockito.never()).onFinish(sinkHandle);
+  }
+
+  @Test
+  public void testSendMoreTsBlocksWhenFull() {
+    final String queryId = "q0";
+    final long mockTsBlockSize = 1024L * 1024L;
+    final TFragmentInstanceId remoteFragmentInstanceId = new TFragmentInstanceId(queryId, 0, "0");
+    final String remotePlanNodeId = "exchange_0";
+    final TFragmentInstanceId localFragmentInstanceId = new TFragmentInstanceId(queryId, 1, "0");
+
+    // Construct a mock LocalMemoryManager that can hold only one tsblock.
+    LocalMemoryManager mockLocalMemoryManager = Mockito.mock(LocalMemoryManager.class);
+    MemoryPool mockMemoryPool = Utils.createMockBlockedMemoryPool(queryId, 1, mockTsBlockSize);
+    Mockito.when(mockMemoryPool.getMaxBytesPerQuery()).thenReturn(Long.MAX_VALUE);
+    Mockito.when(mockLocalMemoryManager.getQueryPool()).thenReturn(mockMemoryPool);
+    List<TsBlock> mockTsBlocks = Utils.createMockTsBlocks(4, mockTsBlockSize);
+
+    SharedTsBlockQueue queue =
+        new SharedTsBlockQueue(localFragmentInstanceId, mockLocalMemoryManager);
+    LocalSinkHandle sinkHandle = new LocalSinkHandle(localFragmentInstanceId, queue);
+    LocalSourceHandle sourceHandle =
+        new LocalSourceHandle(remoteFragmentInstanceId, remotePlanNodeId, queue);
+
+    // Only the first tsblock is reserved, and the rest are added without reserving memory.
+    sinkHandle.send(mockTsBlocks);
+    Assert.assertEquals(mockTsBlockSize, sinkHandle.getBufferRetainedSizeInBytes());
+    Mockito.verify(mockMemoryPool, Mockito.times(2)).tryReserve(queryId, mockTsBlockSize);
+
+    // The sink handle is unblocked once all the unreserved tsblocks have been received.
+    ListenableFuture<Void> blocked = sinkHandle.isFull();
+    for (int i = 0; i < mockTsBlocks.size() - 1; i++) {
+      Assert.assertSame(mockTsBlocks.get(i), sourceHandle.receive());
+      Assert.assertFalse(blocked.isDone());
+    }
+    Assert.assertSame(mockTsBlocks.get(mockTsBlocks.size() - 1), sourceHandle.receive());
+    Assert.assertTrue(blocked.isDone());
+    Assert.assertTrue(sinkHandle.isFull().isDone());
+    Assert.assertEquals(0L, sinkHandle.getBufferRetainedSizeInBytes());
+    Mockito.verify(mockMemoryPool, Mockito.times(1)).free(queryId, mockTsBlockSize);
+  }
+
+  @Test
+  public void testBoundedQueuesOfSlowFirstRange() {
+    final String queryId = "q0";
+    final long mockTsBlockSize = 1024L * 1024L;
+    final int maxTsBlockCount = 8;
+    final int numOfRanges = 4;
+    final long maxBytesPerQuery = 32 * mockTsBlockSize;
+    final TFragmentInstanceId remoteFragmentInstanceId = new TFragmentInstanceId(queryId, 0, "0");
+    final String remotePlanNodeId = "exchange_0";
+
+    // All the split drivers of the query share a real memory pool.
+    MemoryPool memoryPool = new MemoryPool("test", maxBytesPerQuery, maxBytesPerQuery);
+    LocalMemoryManager mockLocalMemoryManager = Mockito.mock(LocalMemoryManager.class);
+    Mockito.when(mockLocalMemoryManager.getQueryPool()).thenReturn(memoryPool);
+
+    List<LocalSinkHandle> sinkHandles = new ArrayList<>();
+    List<LocalSourceHandle> sourceHandles = new ArrayList<>();
+    for (int i = 0; i < numOfRanges; i++) {
+      TFragmentInstanceId localFragmentInstanceId =
+          new TFragmentInstanceId(queryId, 1, String.valueOf(i));
+      SharedTsBlockQueue queue =
+          new SharedTsBlockQueue(localFragmentInstanceId, mockLocalMemoryManager, maxTsBlockCount);
+      sinkHandles.add(new LocalSinkHandle(localFragmentInstanceId, queue));
+      sourceHandles.add(new LocalSourceHandle(remoteFragmentInstanceId, remotePlanNodeId, queue));
+    }
+
+    // The first range is slow and sends nothing, while the later ranges send large tsblocks as long
+    // as their sink handles are not full.
+    for (int i = 1; i < numOfRanges; i++) {
+      LocalSinkHandle sinkHandle = sinkHandles.get(i);
+      int numOfSentTsBlocks = 0;
+      while (sinkHandle.isFull().isDone() && numOfSentTsBlocks < 2 * maxTsBlockCount) {
+        sinkHandle.send(Utils.createMockTsBlocks(1, mockTsBlockSize));
+        numOfSentTsBlocks++;
+      }
+      Assert.assertEquals(maxTsBlockCount, numOfSentTsBlocks);
+      Assert.assertEquals(
+          maxTsBlockCount * mockTsBlockSize, sinkHandle.getBufferRetainedSizeInBytes());
+    }
+
+    // The later ranges have left memory to the sink of the fragment instance, which reads the
+    // first range and reserves memory before sending.
+    Assert.assertTrue(memoryPool.reserve(queryId, mockTsBlockSize).isDone());
+    memoryPool.free(queryId, mockTsBlockSize);
+
+    // The first range finishes and its tsblock is received.
+    List<TsBlock> firstRangeTsBlocks = Utils.createMockTsBlocks(1, mockTsBlockSize);
+    sinkHandles.get(0).send(firstRangeTsBlocks);
+    sinkHandles.get(0).setNoMoreTsBlocks();
+    Assert.assertSame(firstRangeTsBlocks.get(0), sourceHandles.get(0).receive());
+    Assert.assertTrue(sourceHandles.get(0).isFinished());
+
+    // A later range is unblocked as soon as one of its tsblocks is received.
+    ListenableFuture<Void> blocked = sinkHandles.get(1).isFull();
+    Assert.assertFalse(blocked.isDone());
+    Assert.assertNotNull(sourceHandles.get(1).receive());
+    Assert.assertTrue(blocked.isDone());
+    Assert.assertEquals(
+        (maxTsBlockCount - 1) * mockTsBlockSize, sinkHandles.get(1).getBufferRetainedSizeInBytes());
+
+    for (LocalSinkHandle sinkHandle : sinkHandles) {
+      sinkHandle.abort();
+    }
+    Assert.assertEquals(0L, memoryPool.getQueryMemoryReservedBytes(queryId));
+  }
+}
@@ -0,0 +1,223 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.mpp.execution;
+
+import org.apache.iotdb.commons.concurrent.IoTDBThreadPoolFactory;
+import org.apache.iotdb.db.engine.querycontext.QueryDataSource;
+import org.apache.iotdb.db.engine.storagegroup.DataRegion;
+import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
+import org.apache.iotdb.db.exception.metadata.IllegalPathException;
+import org.apache.iotdb.db.exception.metadata.MetadataException;
+import org.apache.iotdb.db.exception.query.QueryProcessException;
+import org.apache.iotdb.db.metadata.path.MeasurementPath;
+import org.apache.iotdb.db.mpp.buffer.LocalSinkHandle;
+import org.apache.iotdb.db.mpp.buffer.LocalSourceHandle;
+import org.apache.iotdb.db.mpp.buffer.SharedTsBlockQueue;
+import org.apache.iotdb.db.mpp.buffer.StubSinkHandle;
+import org.apache.iotdb.db.mpp.common.FragmentInstanceId;
+import org.apache.iotdb.db.mpp.common.PlanFragmentId;
+import org.apache.iotdb.db.mpp.common.QueryId;
+import org.apache.iotdb.db.mpp.memory.LocalMemoryManager;
+import org.apache.iotdb.db.mpp.operator.Operator;
+import org.apache.iotdb.db.mpp.operator.process.ConcatOperator;
+import org.apache.iotdb.db.mpp.operator.source.ExchangeOperator;
+import org.apache.iotdb.db.mpp.operator.source.SeriesScanOperator;
+import org.apache.iotdb.db.mpp.sql.planner.SeriesScanSplitter;
+import org.apache.iotdb.db.mpp.sql.planner.plan.node.PlanNodeId;
+import org.apache.iotdb.db.query.reader.series.SeriesReaderTestUtil;
+import org.apache.iotdb.tsfile.exception.write.WriteProcessException;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.read.common.block.TsBlock;
+import org.apache.iotdb.tsfile.read.filter.basic.Filter;
+import org.apache.iotdb.tsfile.write.schema.MeasurementSchema;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+
+import static org.apache.iotdb.db.mpp.execution.FragmentInstanceContext.createFragmentInstanceContext;
+import static org.apache.iotdb.db.mpp.schedule.DriverTaskThread.EXECUTION_TIME_SLICE;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.fail;
+
+public class SplitDataDriverTest {
+
+  private static final String SPLIT_DATA_DRIVER_TEST_SG = "root.SplitDataDriverTest";
+  private final List<String> deviceIds = new ArrayList<>();
+  private final List<MeasurementSchema> measurementSchemas = new ArrayList<>();
+
+  private final List<TsFileResource> seqResources = new ArrayList<>();
+  private final List<TsFileResource> unSeqResources = new ArrayList<>();
+
+  @Before
+  public void setUp() throws MetadataException, IOException, WriteProcessException {
+    SeriesReaderTestUtil.setUp(
+        measurementSchemas, deviceIds, seqResources, unSeqResources, SPLIT_DATA_DRIVER_TEST_SG);
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    SeriesReaderTestUtil.tearDown(seqResources, unSeqResources);
+  }
+
+  @Test
+  public void splitSeriesScanTest() {
+    ExecutorService instanceNotificationExecutor =
+        IoTDBThreadPoolFactory.newFixedThreadPool(1, "test-instance-notification");
+    List<IDriver> drivers = new ArrayList<>();
+    try {
+      String deviceId = SPLIT_DATA_DRIVER_TEST_SG + ".device0";
+      MeasurementPath measurementPath =
+          new MeasurementPath(deviceId + ".sensor0", TSDataType.INT32);
+      Set<String> allSensors = Collections.singleton("sensor0");
+      QueryId queryId = new QueryId("stub_query");
+      LocalMemoryManager localMemoryManager = new LocalMemoryManager();
+      FragmentInstanceId instanceId =
+          new FragmentInstanceId(new PlanFragmentId(queryId, 0), "stub-instance");
+      FragmentInstanceStateMachine stateMachine =
+          new FragmentInstanceStateMachine(instanceId, instanceNotificationExecutor);
+      FragmentInstanceContext fragmentInstanceContext =
+          createFragmentInstanceContext(instanceId, stateMachine);
+
+      DataRegion dataRegion = Mockito.mock(DataRegion.class);
+      Mockito.when(
+              dataRegion.query(
+                  Mockito.anyList(), Mockito.anyString(), Mockito.any(), Mockito.any()))
+          .thenAnswer(invocation -> new QueryDataSource(seqResources, unSeqResources));
+
+      // sequence files start at 0, 100, 200, 300 and 400
+      List<Long> splitPoints = SeriesScanSplitter.getSplitPoints(seqResources, deviceId, null, 3);
+      assertEquals(ImmutableList.of(100L, 300L), splitPoints);
+      List<Filter> timeRangeFilters = SeriesScanSplitter.getTimeRangeFilters(splitPoints);
+
+      PlanNodeId planNodeId = new PlanNodeId("1");
+      int operatorId = 0;
+      List<Operator> exchangeOperators = new ArrayList<>();
+      List<IDriver> splitDrivers = new ArrayList<>();
+      for (int i = 0; i < timeRangeFilters.size(); i++) {
+        SeriesScanOperator seriesScanOperator =
+            new SeriesScanOperator(
+                planNodeId,
+                measurementPath,
+                allSensors,
+                TSDataType.INT32,
+                fragmentInstanceContext.addOperatorContext(
+                    operatorId++, planNodeId, SeriesScanOperator.class.getSimpleName()),
+                timeRangeFilters.get(i),
+                null,
+                true);
+        FragmentInstanceId driverId =
+            new FragmentInstanceId(new PlanFragmentId(queryId, 0), "stub-instance-1-" + i);
+        SharedTsBlockQueue queue = new SharedTsBlockQueue(driverId.toThrift(), localMemoryManager);
+        DataDriverContext driverContext =
+            new DataDriverContext(
+                fragmentInstanceContext,
+                driverId,
+                ImmutableList.of(measurementPath),
+                timeRangeFilters.get(i),
+                dataRegion,
+                ImmutableList.of(seriesScanOperator));
+        splitDrivers.add(
+            new DataDriver(
+                seriesScanOperator,
+                new LocalSinkHandle(driverId.toThrift(), queue),
+                driverContext));
+        exchangeOperators.add(
+            new ExchangeOperator(
+                fragmentInstanceContext.addOperatorContext(
+                    operatorId++, planNodeId, ExchangeOperator.class.getSimpleName()),
+                new LocalSourceHandle(instanceId.toThrift(), planNodeId.getId(), queue),
+                planNodeId));
+      }
+      ConcatOperator concatOperator =
+          new ConcatOperator(
+              fragmentInstanceContext.addOperatorContext(
+                  operatorId, planNodeId, ConcatOperator.class.getSimpleName()),
+              exchangeOperators);
+
+      DataDriverContext rootDriverContext =
+          new DataDriverContext(
+              fragmentInstanceContext,
+              Collections.emptyList(),
+              null,
+              dataRegion,
+              Collections.emptyList());
+      StubSinkHandle sinkHandle = new StubSinkHandle(fragmentInstanceContext);
+      IDriver rootDriver = new DataDriver(concatOperator, sinkHandle, rootDriverContext);
+      drivers.add(rootDriver);
+      drivers.addAll(splitDrivers);
+
+      assertEquals(instanceId, rootDriver.getInfo());
+      for (IDriver splitDriver : splitDrivers) {
+        assertNotEquals(instanceId, splitDriver.getInfo());
+      }
+
+      // run the drivers in turn, split drivers will be blocked when their queue is full
+      Set<IDriver> finishedDrivers = new HashSet<>();
+      while (!finishedDrivers.contains(rootDriver)) {
+        for (IDriver driver : drivers) {
+          if (!finishedDrivers.contains(driver)) {
+            driver.processFor(EXECUTION_TIME_SLICE);
+            if (driver.isFinished()) {
+              finishedDrivers.add(driver);
+            }
+          }
+        }
+      }
+      assertEquals(drivers.size(), finishedDrivers.size());
+
+      long expectedTime = 0;
+      for (TsBlock tsBlock : sinkHandle.getTsBlocks()) {
+        assertEquals(1, tsBlock.getValueColumnCount());
+        for (int i = 0; i < tsBlock.getPositionCount(); i++, expectedTime++) {
+          assertEquals(expectedTime, tsBlock.getTimeByIndex(i));
+          if (expectedTime < 200) {
+            assertEquals(20000 + expectedTime, tsBlock.getColumn(0).getInt(i));
+          } else if (expectedTime < 260
+              || (expectedTime >= 300 && expectedTime < 380)
+              || expectedTime >= 400) {
+            assertEquals(10000 + expectedTime, tsBlock.getColumn(0).getInt(i));
+          } else {
+            assertEquals(expectedTime, tsBlock.getColumn(0).getInt(i));
+          }
+        }
+      }
+      assertEquals(500, expectedTime);
+    } catch (IllegalPathException | QueryProcessException e) {
+      e.printStackTrace();
+      fail();
+    } finally {
+      for (IDriver driver : drivers) {
+        driver.close();
+      }
+      instanceNotificationExecutor.shutdown();
+    }
+  }
+}
@@ -247,4 +247,71 @@ public class MemoryPoolTest {
     } catch (IllegalArgumentException ignore) {
     }
   }
+
+  @Test
+  public void testRevokeBiggestConsumer() {
+    Assert.assertTrue(pool.tryReserve("q0", 256L));
+    Assert.assertTrue(pool.tryReserve("q1", 512L));
+    StubRevocableMemoryConsumer consumer0 = new StubRevocableMemoryConsumer("q0", 256L);
+    StubRevocableMemoryConsumer consumer1 = new StubRevocableMemoryConsumer("q1", 512L);
+    pool.registerRevocableMemoryConsumer(consumer0);
+    pool.registerRevocableMemoryConsumer(consumer1);
+
+    // The pool is exhausted, so the biggest consumer of all queries is asked to revoke.
+    ListenableFuture<Void> future = pool.reserve("q2", 512L);
+    Assert.assertFalse(future.isDone());
+    Assert.assertFalse(consumer0.revokeRequested);
+    Assert.assertTrue(consumer1.revokeRequested);
+
+    // The reservation is satisfied once the consumer has spilled.
+    pool.free("q1", 512L);
+    Assert.assertTrue(future.isDone());
+
+    pool.deregisterRevocableMemoryConsumer(consumer1);
+    consumer0.revokeRequested = false;
+    Assert.assertFalse(pool.tryReserve("q3", 512L));
+    Assert.assertTrue(consumer0.revokeRequested);
+  }
+
+  @Test
+  public void testRevokeConsumerOfSameQuery() {
+    Assert.assertTrue(pool.tryReserve("q0", 256L));
+    Assert.assertTrue(pool.tryReserve("q1", 512L));
+    StubRevocableMemoryConsumer consumer0 = new StubRevocableMemoryConsumer("q0", 256L);
+    StubRevocableMemoryConsumer consumer1 = new StubRevocableMemoryConsumer("q1", 512L);
+    pool.registerRevocableMemoryConsumer(consumer0);
+    pool.registerRevocableMemoryConsumer(consumer1);
+
+    // Only spilling the consumers of q0 helps when q0 exceeds its own limit.
+    Assert.assertFalse(pool.tryReserve("q0", 300L));
+    Assert.assertTrue(consumer0.revokeRequested);
+    Assert.assertFalse(consumer1.revokeRequested);
+  }
+
+  private static class StubRevocableMemoryConsumer implements RevocableMemoryConsumer {
+
+    private final String queryId;
+    private final long revocableBytes;
+    private boolean revokeRequested;
+
+    private StubRevocableMemoryConsumer(String queryId, long revocableBytes) {
+      this.queryId = queryId;
+      this.revocableBytes = revocableBytes;
+    }
+
+    @Override
+    public String getQueryId() {
+      return queryId;
+    }
+
+    @Override
+    public long getRevocableBytes() {
+      return revocableBytes;
+    }
+
+    @Override
+    public void requestRevoke() {
+      revokeRequested = true;
+    }
+  }
 }
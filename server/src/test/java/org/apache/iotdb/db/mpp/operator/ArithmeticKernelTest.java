@@ -0,0 +1,89 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.mpp.operator;
+
+import org.apache.iotdb.db.mpp.operator.process.transform.ArithmeticKernel;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+public class ArithmeticKernelTest {
+
+  private static final double DELTA = 1e-12;
+
+  private final double[] s1 = new double[] {1, 2, 3, 4, 5};
+  private final double[] s2 = new double[] {10, 20, 30, 40, 50};
+
+  @Test
+  public void evaluateTest() {
+    // s1 * 1.8 + 32
+    ArithmeticKernel kernel = ArithmeticKernel.getOrCompile("+(*($0,#0),#1)");
+    assertEquals(1, kernel.getInputCount());
+    double[] result = kernel.evaluate(new double[][] {s1}, new double[] {1.8, 32}, s1.length);
+    for (int i = 0; i < s1.length; i++) {
+      assertEquals(s1[i] * 1.8 + 32, result[i], DELTA);
+    }
+
+    // (s1 * s2 - 100 / s1) % (s2 - s1)
+    kernel = ArithmeticKernel.getOrCompile("%(-(*($0,$1),/(#0,$0)),-($1,$0))");
+    assertEquals(2, kernel.getInputCount());
+    result = kernel.evaluate(new double[][] {s1, s2}, new double[] {100}, s1.length);
+    for (int i = 0; i < s1.length; i++) {
+      assertEquals((s1[i] * s2[i] - 100 / s1[i]) % (s2[i] - s1[i]), result[i], DELTA);
+    }
+
+    // s1 * (2 - 3), the constant sub-tree is materialized
+    kernel = ArithmeticKernel.getOrCompile("*($0,-(#0,#1))");
+    result = kernel.evaluate(new double[][] {s1}, new double[] {2, 3}, s1.length);
+    for (int i = 0; i < s1.length; i++) {
+      assertEquals(-s1[i], result[i], DELTA);
+    }
+
+    // the inputs are not modified
+    assertArrayEquals(new double[] {1, 2, 3, 4, 5}, s1, DELTA);
+    assertArrayEquals(new double[] {10, 20, 30, 40, 50}, s2, DELTA);
+  }
+
+  @Test
+  public void cacheTest() {
+    ArithmeticKernel kernel = ArithmeticKernel.getOrCompile("/(#0,+($0,$1))");
+    assertSame(kernel, ArithmeticKernel.getOrCompile("/(#0,+($0,$1))"));
+    // the same kernel is evaluated with different constants
+    double[] result = kernel.evaluate(new double[][] {s1, s2}, new double[] {1}, s1.length);
+    assertEquals(1 / 11.0, result[0], DELTA);
+    result = kernel.evaluate(new double[][] {s1, s2}, new double[] {22}, s1.length);
+    assertEquals(2, result[0], DELTA);
+  }
+
+  @Test
+  public void illegalShapeTest() {
+    for (String shape : new String[] {"$0", "#0", "+($0,$1", "+($0;$1)", "^($0,$1)", "+($,$1)"}) {
+      try {
+        ArithmeticKernel.getOrCompile(shape);
+        fail(shape);
+      } catch (IllegalArgumentException e) {
+        // expected
+      }
+    }
+  }
+}
@@ -281,7 +281,7 @@ public class SeriesAggregateScanOperatorTest {
 
   @Test
   public void testGroupBySlidingTimeWindow() throws IllegalPathException {
-    int[] result = new int[] {50, 50, 50, 50, 50, 50, 50, 50};
+    int[] result = new int[] {100, 100, 100, 100, 100, 100, 100, 50};
     GroupByTimeParameter groupByTimeParameter = new GroupByTimeParameter(0, 399, 100, 50, true);
     SeriesAggregateScanOperator seriesAggregateScanOperator =
         initSeriesAggregateScanOperator(
@@ -298,8 +298,8 @@ public class SeriesAggregateScanOperatorTest {
 
   @Test
   public void testGroupBySlidingTimeWindow2() throws IllegalPathException {
-    int[] timeColumn = new int[] {0, 20, 30, 50, 60, 80, 90, 110, 120, 140};
-    int[] result = new int[] {20, 10, 20, 10, 20, 10, 20, 10, 20, 9};
+    int[] timeColumn = new int[] {0, 30, 60, 90, 120};
+    int[] result = new int[] {50, 50, 50, 50, 29};
     GroupByTimeParameter groupByTimeParameter = new GroupByTimeParameter(0, 149, 50, 30, true);
     SeriesAggregateScanOperator seriesAggregateScanOperator =
         initSeriesAggregateScanOperator(
@@ -316,13 +316,13 @@ public class SeriesAggregateScanOperatorTest {
 
   @Test
   public void testGroupBySlidingWindowWithMultiFunction() throws IllegalPathException {
-    int[] timeColumn = new int[] {0, 20, 30, 50, 60, 80, 90, 110, 120, 140};
+    int[] timeColumn = new int[] {0, 30, 60, 90, 120};
     int[][] result =
         new int[][] {
-          {20000, 20020, 20030, 20050, 20060, 20080, 20090, 20110, 20120, 20140},
-          {20019, 20029, 20049, 20059, 20079, 20089, 20109, 20119, 20139, 20148},
-          {20019, 20029, 20049, 20059, 20079, 20089, 20109, 20119, 20139, 20148},
-          {20000, 20020, 20030, 20050, 20060, 20080, 20090, 20110, 20120, 20140}
+          {20000, 20030, 20060, 20090, 20120},
+          {20049, 20079, 20109, 20139, 20148},
+          {20049, 20079, 20109, 20139, 20148},
+          {20000, 20030, 20060, 20090, 20120}
         };
     List<AggregationType> aggregationTypes = new ArrayList<>();
     aggregationTypes.add(AggregationType.FIRST_VALUE);
@@ -345,6 +345,24 @@ public class SeriesAggregateScanOperatorTest {
     assertEquals(timeColumn.length, count);
   }
 
+  @Test
+  public void testGroupBySlidingWindowWithAvg() throws IllegalPathException {
+    int[] timeColumn = new int[] {0, 30, 60, 90, 120};
+    double[] result = new double[] {20024.5, 20054.5, 20084.5, 20114.5, 20134};
+    GroupByTimeParameter groupByTimeParameter = new GroupByTimeParameter(0, 149, 50, 30, true);
+    SeriesAggregateScanOperator seriesAggregateScanOperator =
+        initSeriesAggregateScanOperator(
+            Collections.singletonList(AggregationType.AVG), null, true, groupByTimeParameter);
+    int count = 0;
+    while (seriesAggregateScanOperator.hasNext()) {
+      TsBlock resultTsBlock = seriesAggregateScanOperator.next();
+      assertEquals(timeColumn[count], resultTsBlock.getTimeColumn().getLong(0));
+      assertEquals(result[count], resultTsBlock.getColumn(0).getDouble(0), 0.0001);
+      count++;
+    }
+    assertEquals(timeColumn.length, count);
+  }
+
   public SeriesAggregateScanOperator initSeriesAggregateScanOperator(
       List<AggregationType> aggregateFuncList,
       Filter timeFilter,
@@ -0,0 +1,280 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.mpp.operator;
+
+import org.apache.iotdb.commons.concurrent.IoTDBThreadPoolFactory;
+import org.apache.iotdb.db.mpp.common.FragmentInstanceId;
+import org.apache.iotdb.db.mpp.common.PlanFragmentId;
+import org.apache.iotdb.db.mpp.common.QueryId;
+import org.apache.iotdb.db.mpp.execution.FragmentInstanceContext;
+import org.apache.iotdb.db.mpp.execution.FragmentInstanceStateMachine;
+import org.apache.iotdb.db.mpp.memory.MemoryPool;
+import org.apache.iotdb.db.mpp.operator.process.SortOperator;
+import org.apache.iotdb.db.mpp.operator.process.sort.SortKeyComparator;
+import org.apache.iotdb.db.mpp.sql.planner.plan.node.PlanNodeId;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.read.common.block.TsBlock;
+import org.apache.iotdb.tsfile.read.common.block.TsBlockBuilder;
+import org.apache.iotdb.tsfile.utils.Binary;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+
+import static org.apache.iotdb.db.mpp.execution.FragmentInstanceContext.createFragmentInstanceContext;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class SortOperatorTest {
+
+  private static final List<TSDataType> DATA_TYPES =
+      Arrays.asList(TSDataType.INT32, TSDataType.TEXT);
+  private static final int ROW_COUNT = 1000;
+  private static final int ROWS_PER_BLOCK = 100;
+
+  private ExecutorService instanceNotificationExecutor;
+  private File spillDir;
+
+  @Before
+  public void setUp() throws IOException {
+    instanceNotificationExecutor =
+        IoTDBThreadPoolFactory.newFixedThreadPool(1, "test-instance-notification");
+    spillDir = Files.createTempDirectory("sort-operator-test").toFile();
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    instanceNotificationExecutor.shutdown();
+    FileUtils.deleteDirectory(spillDir);
+  }
+
+  @Test
+  public void sortInMemoryTest() throws Exception {
+    MemoryPool memoryPool = new MemoryPool("test", 1024L * 1024 * 1024, 1024L * 1024 * 1024);
+    // order by s0 desc, time desc
+    SortOperator sortOperator =
+        createSortOperator(
+            memoryPool,
+            new SortKeyComparator(new int[] {0, SortKeyComparator.TIME_COLUMN_INDEX}, false));
+    checkResult(sortOperator, false);
+    assertEquals(0, listSpilledFiles().length);
+    assertTrue(memoryPool.getReservedBytes() > 0);
+    sortOperator.close();
+    assertEquals(0, memoryPool.getReservedBytes());
+  }
+
+  @Test
+  public void sortWithSpillTest() throws Exception {
+    // only a few TsBlocks can be cached in memory at the same time
+    MemoryPool memoryPool = new MemoryPool("test", 8 * 1024, 8 * 1024);
+    // order by s0, time
+    SortOperator sortOperator =
+        createSortOperator(
+            memoryPool,
+            new SortKeyComparator(new int[] {0, SortKeyComparator.TIME_COLUMN_INDEX}, true));
+    checkResult(sortOperator, true);
+    assertTrue(listSpilledFiles().length > 1);
+    sortOperator.close();
+    assertEquals(0, listSpilledFiles().length);
+    assertEquals(0, memoryPool.getReservedBytes());
+  }
+
+  @Test
+  public void spillOnRevokeTest() throws Exception {
+    MemoryPool memoryPool = new MemoryPool("test", 64 * 1024, 64 * 1024);
+    // order by s0, time
+    SortOperator sortOperator =
+        createSortOperator(
+            memoryPool,
+            new SortKeyComparator(new int[] {0, SortKeyComparator.TIME_COLUMN_INDEX}, true));
+    for (int i = 0; i < 3; i++) {
+      sortOperator.next();
+    }
+    long revocableBytes = sortOperator.getRevocableBytes();
+    assertTrue(revocableBytes > 0);
+    assertEquals(revocableBytes, memoryPool.getReservedBytes());
+
+    // another query can't get its memory, so the sort operator is asked to spill
+    assertFalse(memoryPool.tryReserve("other_query", memoryPool.getMaxBytes()));
+    sortOperator.next();
+    assertEquals(1, listSpilledFiles().length);
+    assertTrue(memoryPool.getReservedBytes() < revocableBytes);
+
+    checkResult(sortOperator, true);
+    assertEquals(0, sortOperator.getRevocableBytes());
+    sortOperator.close();
+    assertEquals(0, listSpilledFiles().length);
+    assertEquals(0, memoryPool.getReservedBytes());
+  }
+
+  @Test
+  public void failToMergeTest() throws Exception {
+    MemoryPool memoryPool = new MemoryPool("test", 8 * 1024, 8 * 1024);
+    SortOperator sortOperator =
+        createSortOperator(
+            memoryPool,
+            new SortKeyComparator(new int[] {0, SortKeyComparator.TIME_COLUMN_INDEX}, true));
+    // consume all the input
+    for (int i = 0; i < ROW_COUNT / ROWS_PER_BLOCK; i++) {
+      sortOperator.next();
+    }
+    assertTrue(listSpilledFiles().length > 0);
+    for (File file : listSpilledFiles()) {
+      assertTrue(file.delete());
+    }
+
+    // the spilled runs can't be read, the failure is reported by next() instead of isFinished()
+    try {
+      sortOperator.next();
+      fail();
+    } catch (RuntimeException e) {
+      assertTrue(e.getCause() instanceof IOException);
+    }
+    assertFalse(sortOperator.isFinished());
+    sortOperator.close();
+    assertEquals(0, memoryPool.getReservedBytes());
+  }
+
+  private SortOperator createSortOperator(MemoryPool memoryPool, SortKeyComparator comparator) {
+    QueryId queryId = new QueryId("stub_query");
+    FragmentInstanceId instanceId =
+        new FragmentInstanceId(new PlanFragmentId(queryId, 0), "stub-instance");
+    FragmentInstanceStateMachine stateMachine =
+        new FragmentInstanceStateMachine(instanceId, instanceNotificationExecutor);
+    FragmentInstanceContext fragmentInstanceContext =
+        createFragmentInstanceContext(instanceId, stateMachine);
+    fragmentInstanceContext.addOperatorContext(1, new PlanNodeId("1"), "TsBlockSourceOperator");
+    fragmentInstanceContext.addOperatorContext(
+        2, new PlanNodeId("2"), SortOperator.class.getSimpleName());
+    Operator child =
+        new TsBlockSourceOperator(
+            fragmentInstanceContext.getOperatorContexts().get(0), buildInput());
+    return new SortOperator(
+        fragmentInstanceContext.getOperatorContexts().get(1),
+        child,
+        DATA_TYPES,
+        comparator,
+        memoryPool,
+        spillDir.getPath());
+  }
+
+  /**
+   * Time is from 0 to ROW_COUNT - 1, s0 is time % 10, and s1 is the string of time, which is null
+   * if time % 7 == 0.
+   */
+  private List<TsBlock> buildInput() {
+    List<TsBlock> tsBlocks = new ArrayList<>();
+    TsBlockBuilder builder = new TsBlockBuilder(DATA_TYPES);
+    for (int time = 0; time < ROW_COUNT; time++) {
+      builder.getTimeColumnBuilder().writeLong(time);
+      builder.getColumnBuilder(0).writeInt(time % 10);
+      if (time % 7 == 0) {
+        builder.getColumnBuilder(1).appendNull();
+      } else {
+        builder.getColumnBuilder(1).writeBinary(new Binary(String.valueOf(time)));
+      }
+      builder.declarePosition();
+      if (builder.getPositionCount() == ROWS_PER_BLOCK) {
+        tsBlocks.add(builder.build());
+        builder.reset();
+      }
+    }
+    return tsBlocks;
+  }
+
+  private void checkResult(SortOperator sortOperator, boolean ascending) {
+    List<long[]> rows = new ArrayList<>();
+    while (sortOperator.hasNext()) {
+      TsBlock tsBlock = sortOperator.next();
+      for (int i = 0; i < tsBlock.getPositionCount(); i++) {
+        long time = tsBlock.getTimeByIndex(i);
+        assertEquals(time % 10, tsBlock.getColumn(0).getInt(i));
+        if (time % 7 == 0) {
+          assertTrue(tsBlock.getColumn(1).isNull(i));
+        } else {
+          assertEquals(String.valueOf(time), tsBlock.getColumn(1).getBinary(i).toString());
+        }
+        rows.add(new long[] {tsBlock.getColumn(0).getInt(i), time});
+      }
+    }
+    assertTrue(sortOperator.isFinished());
+    assertFalse(sortOperator.hasNext());
+    assertEquals(ROW_COUNT, rows.size());
+    for (int i = 1; i < rows.size(); i++) {
+      long[] previous = rows.get(i - 1);
+      long[] current = rows.get(i);
+      int result =
+          previous[0] != current[0]
+              ? Long.compare(previous[0], current[0])
+              : Long.compare(previous[1], current[1]);
+      assertTrue(ascending ? result < 0 : result > 0);
+    }
+    assertArrayEquals(ascending ? new long[] {0, 0} : new long[] {9, 999}, rows.get(0));
+  }
+
+  private File[] listSpilledFiles() {
+    File[] files = spillDir.listFiles();
+    return files == null ? new File[0] : files;
+  }
+
+  /** Return the given TsBlocks one by one. */
+  private static class TsBlockSourceOperator implements Operator {
+
+    private final OperatorContext operatorContext;
+    private final Iterator<TsBlock> iterator;
+
+    private TsBlockSourceOperator(OperatorContext operatorContext, List<TsBlock> tsBlocks) {
+      this.operatorContext = operatorContext;
+      this.iterator = tsBlocks.iterator();
+    }
+
+    @Override
+    public OperatorContext getOperatorContext() {
+      return operatorContext;
+    }
+
+    @Override
+    public TsBlock next() {
+      return iterator.next();
+    }
+
+    @Override
+    public boolean hasNext() {
+      return iterator.hasNext();
+    }
+
+    @Override
+    public boolean isFinished() {
+      return !iterator.hasNext();
+    }
+  }
+}
@@ -0,0 +1,270 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.mpp.operator;
+
+import org.apache.iotdb.commons.concurrent.IoTDBThreadPoolFactory;
+import org.apache.iotdb.db.mpp.common.FragmentInstanceId;
+import org.apache.iotdb.db.mpp.common.PlanFragmentId;
+import org.apache.iotdb.db.mpp.common.QueryId;
+import org.apache.iotdb.db.mpp.execution.FragmentInstanceContext;
+import org.apache.iotdb.db.mpp.execution.FragmentInstanceStateMachine;
+import org.apache.iotdb.db.mpp.operator.process.TopKOperator;
+import org.apache.iotdb.db.mpp.operator.process.sort.SortKeyComparator;
+import org.apache.iotdb.db.mpp.sql.planner.plan.node.PlanNodeId;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.read.common.block.TsBlock;
+import org.apache.iotdb.tsfile.read.common.block.TsBlockBuilder;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TopKOperatorTest {
+
+  private static final List<TSDataType> DATA_TYPES =
+      Arrays.asList(TSDataType.INT64, TSDataType.DOUBLE);
+  private static final int ROW_COUNT = 5000;
+  private static final int ROWS_PER_BLOCK = 100;
+
+  private ExecutorService instanceNotificationExecutor;
+
+  @Before
+  public void setUp() {
+    instanceNotificationExecutor =
+        IoTDBThreadPoolFactory.newFixedThreadPool(1, "test-instance-notification");
+  }
+
+  @After
+  public void tearDown() {
+    instanceNotificationExecutor.shutdown();
+  }
+
+  @Test
+  public void topKDescTest() throws Exception {
+    // order by s0 desc, time desc limit 25
+    TopKOperator topKOperator =
+        createTopKOperator(
+            new SortKeyComparator(new int[] {0, SortKeyComparator.TIME_COLUMN_INDEX}, false), 25);
+    List<Long> times = collectTimes(topKOperator);
+    assertEquals(25, times.size());
+    // s0 is time % 100, so the first rows are those whose s0 is 99, from the latest one
+    for (int i = 0; i < times.size(); i++) {
+      assertEquals(ROW_COUNT - 1 - 100 * i, (long) times.get(i));
+    }
+    topKOperator.close();
+  }
+
+  @Test
+  public void topKAscTest() throws Exception {
+    // order by s0, time limit 120, rows whose s1 is null are the last ones
+    TopKOperator topKOperator =
+        createTopKOperator(
+            new SortKeyComparator(new int[] {1, SortKeyComparator.TIME_COLUMN_INDEX}, true), 120);
+    List<Long> times = collectTimes(topKOperator);
+    assertEquals(120, times.size());
+    List<Long> expected = new ArrayList<>();
+    for (long time = 0; expected.size() < 120; time++) {
+      if (time % 3 != 0) {
+        expected.add(time);
+      }
+    }
+    assertEquals(expected, times);
+    topKOperator.close();
+  }
+
+  @Test
+  public void topValueLargerThanInputTest() throws Exception {
+    TopKOperator topKOperator =
+        createTopKOperator(
+            new SortKeyComparator(new int[] {SortKeyComparator.TIME_COLUMN_INDEX}, false),
+            ROW_COUNT * 2);
+    List<Long> times = collectTimes(topKOperator);
+    assertEquals(ROW_COUNT, times.size());
+    for (int i = 0; i < times.size(); i++) {
+      assertEquals(ROW_COUNT - 1 - i, (long) times.get(i));
+    }
+    topKOperator.close();
+  }
+
+  @Test
+  public void zeroTopValueTest() throws Exception {
+    TopKOperator topKOperator =
+        createTopKOperator(
+            new SortKeyComparator(new int[] {SortKeyComparator.TIME_COLUMN_INDEX}, true), 0);
+    assertTrue(collectTimes(topKOperator).isEmpty());
+    topKOperator.close();
+  }
+
+  @Test
+  public void mergePartialTopKTest() throws Exception {
+    // order by s0 desc, time desc limit 25, and the input is split into 3 ranges of time like the
+    // splits of a series in different DataRegions
+    SortKeyComparator comparator =
+        new SortKeyComparator(new int[] {0, SortKeyComparator.TIME_COLUMN_INDEX}, false);
+    FragmentInstanceContext fragmentInstanceContext = createFragmentInstanceContext();
+    List<TsBlock> input = buildInput();
+    int[] splitPoints = {0, 7, 31, input.size()};
+    List<Operator> partialTopKOperators = new ArrayList<>();
+    for (int i = 0; i + 1 < splitPoints.length; i++) {
+      fragmentInstanceContext.addOperatorContext(
+          2 * i + 1, new PlanNodeId(String.valueOf(2 * i + 1)), "TsBlockSourceOperator");
+      fragmentInstanceContext.addOperatorContext(
+          2 * i + 2, new PlanNodeId(String.valueOf(2 * i + 2)), TopKOperator.class.getSimpleName());
+      Operator child =
+          new TsBlockSourceOperator(
+              fragmentInstanceContext.getOperatorContexts().get(2 * i),
+              input.subList(splitPoints[i], splitPoints[i + 1]));
+      partialTopKOperators.add(
+          new TopKOperator(
+              fragmentInstanceContext.getOperatorContexts().get(2 * i + 1),
+              child,
+              DATA_TYPES,
+              comparator,
+              25));
+    }
+    fragmentInstanceContext.addOperatorContext(
+        7, new PlanNodeId("7"), TopKOperator.class.getSimpleName());
+    TopKOperator topKOperator =
+        new TopKOperator(
+            fragmentInstanceContext.getOperatorContexts().get(6),
+            partialTopKOperators,
+            DATA_TYPES,
+            comparator,
+            25);
+
+    List<Long> times = collectTimes(topKOperator);
+    assertEquals(25, times.size());
+    // the same rows as the ones of topKDescTest, although no split holds all of them
+    for (int i = 0; i < times.size(); i++) {
+      assertEquals(ROW_COUNT - 1 - 100 * i, (long) times.get(i));
+    }
+    topKOperator.close();
+  }
+
+  private FragmentInstanceContext createFragmentInstanceContext() {
+    QueryId queryId = new QueryId("stub_query");
+    FragmentInstanceId instanceId =
+        new FragmentInstanceId(new PlanFragmentId(queryId, 0), "stub-instance");
+    FragmentInstanceStateMachine stateMachine =
+        new FragmentInstanceStateMachine(instanceId, instanceNotificationExecutor);
+    return FragmentInstanceContext.createFragmentInstanceContext(instanceId, stateMachine);
+  }
+
+  private TopKOperator createTopKOperator(SortKeyComparator comparator, int topValue) {
+    FragmentInstanceContext fragmentInstanceContext = createFragmentInstanceContext();
+    fragmentInstanceContext.addOperatorContext(1, new PlanNodeId("1"), "TsBlockSourceOperator");
+    fragmentInstanceContext.addOperatorContext(
+        2, new PlanNodeId("2"), TopKOperator.class.getSimpleName());
+    Operator child =
+        new TsBlockSourceOperator(
+            fragmentInstanceContext.getOperatorContexts().get(0), buildInput());
+    return new TopKOperator(
+        fragmentInstanceContext.getOperatorContexts().get(1),
+        child,
+        DATA_TYPES,
+        comparator,
+        topValue);
+  }
+
+  /**
+   * Time is from 0 to ROW_COUNT - 1, s0 is time % 100, and s1 is time / 10.0, which is null if time
+   * % 3 == 0.
+   */
+  private List<TsBlock> buildInput() {
+    List<TsBlock> tsBlocks = new ArrayList<>();
+    TsBlockBuilder builder = new TsBlockBuilder(DATA_TYPES);
+    for (int time = 0; time < ROW_COUNT; time++) {
+      builder.getTimeColumnBuilder().writeLong(time);
+      builder.getColumnBuilder(0).writeLong(time % 100);
+      if (time % 3 == 0) {
+        builder.getColumnBuilder(1).appendNull();
+      } else {
+        builder.getColumnBuilder(1).writeDouble(time / 10.0);
+      }
+      builder.declarePosition();
+      if (builder.getPositionCount() == ROWS_PER_BLOCK) {
+        tsBlocks.add(builder.build());
+        builder.reset();
+      }
+    }
+    return tsBlocks;
+  }
+
+  private List<Long> collectTimes(TopKOperator topKOperator) {
+    List<Long> times = new ArrayList<>();
+    while (topKOperator.hasNext()) {
+      TsBlock tsBlock = topKOperator.next();
+      for (int i = 0; i < tsBlock.getPositionCount(); i++) {
+        long time = tsBlock.getTimeByIndex(i);
+        assertEquals(time % 100, tsBlock.getColumn(0).getLong(i));
+        if (time % 3 == 0) {
+          assertTrue(tsBlock.getColumn(1).isNull(i));
+        } else {
+          assertEquals(time / 10.0, tsBlock.getColumn(1).getDouble(i), 0.0);
+        }
+        times.add(time);
+      }
+    }
+    assertTrue(topKOperator.isFinished());
+    assertFalse(topKOperator.hasNext());
+    return times;
+  }
+
+  /** Return the given TsBlocks one by one. */
+  private static class TsBlockSourceOperator implements Operator {
+
+    private final OperatorContext operatorContext;
+    private final Iterator<TsBlock> iterator;
+
+    private TsBlockSourceOperator(OperatorContext operatorContext, List<TsBlock> tsBlocks) {
+      this.operatorContext = operatorContext;
+      this.iterator = tsBlocks.iterator();
+    }
+
+    @Override
+    public OperatorContext getOperatorContext() {
+      return operatorContext;
+    }
+
+    @Override
+    public TsBlock next() {
+      return iterator.next();
+    }
+
+    @Override
+    public boolean hasNext() {
+      return iterator.hasNext();
+    }
+
+    @Override
+    public boolean isFinished() {
+      return !iterator.hasNext();
+    }
+  }
+}
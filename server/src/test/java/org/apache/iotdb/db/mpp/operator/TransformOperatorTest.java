@@ -0,0 +1,253 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.mpp.operator;
+
+import org.apache.iotdb.commons.concurrent.IoTDBThreadPoolFactory;
+import org.apache.iotdb.db.exception.metadata.IllegalPathException;
+import org.apache.iotdb.db.metadata.path.PartialPath;
+import org.apache.iotdb.db.mpp.common.FragmentInstanceId;
+import org.apache.iotdb.db.mpp.common.PlanFragmentId;
+import org.apache.iotdb.db.mpp.common.QueryId;
+import org.apache.iotdb.db.mpp.execution.FragmentInstanceContext;
+import org.apache.iotdb.db.mpp.execution.FragmentInstanceStateMachine;
+import org.apache.iotdb.db.mpp.operator.process.FilterOperator;
+import org.apache.iotdb.db.mpp.operator.process.TransformOperator;
+import org.apache.iotdb.db.mpp.sql.planner.plan.node.PlanNodeId;
+import org.apache.iotdb.db.query.expression.Expression;
+import org.apache.iotdb.db.query.expression.binary.AdditionExpression;
+import org.apache.iotdb.db.query.expression.binary.DivisionExpression;
+import org.apache.iotdb.db.query.expression.binary.GreaterThanExpression;
+import org.apache.iotdb.db.query.expression.binary.LessThanExpression;
+import org.apache.iotdb.db.query.expression.binary.LogicAndExpression;
+import org.apache.iotdb.db.query.expression.binary.MultiplicationExpression;
+import org.apache.iotdb.db.query.expression.leaf.ConstantOperand;
+import org.apache.iotdb.db.query.expression.leaf.TimeSeriesOperand;
+import org.apache.iotdb.db.query.expression.unary.LogicNotExpression;
+import org.apache.iotdb.db.query.expression.unary.NegationExpression;
+import org.apache.iotdb.db.query.udf.core.executor.UDTFContext;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.read.common.block.TsBlock;
+import org.apache.iotdb.tsfile.read.common.block.TsBlockBuilder;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+
+import static org.apache.iotdb.db.mpp.execution.FragmentInstanceContext.createFragmentInstanceContext;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TransformOperatorTest {
+
+  private static final List<TSDataType> DATA_TYPES =
+      Arrays.asList(TSDataType.INT32, TSDataType.DOUBLE);
+  private static final int ROW_COUNT = 1000;
+  private static final int ROWS_PER_BLOCK = 100;
+
+  private ExecutorService instanceNotificationExecutor;
+
+  @Before
+  public void setUp() {
+    instanceNotificationExecutor =
+        IoTDBThreadPoolFactory.newFixedThreadPool(1, "test-instance-notification");
+  }
+
+  @After
+  public void tearDown() {
+    instanceNotificationExecutor.shutdown();
+  }
+
+  @Test
+  public void transformTest() throws Exception {
+    // s1 * 1.8 + 32, s1 / s2, -s1
+    Expression[] expressions =
+        new Expression[] {
+          new AdditionExpression(
+              new MultiplicationExpression(s1(), new ConstantOperand(TSDataType.DOUBLE, "1.8")),
+              new ConstantOperand(TSDataType.INT32, "32")),
+          new DivisionExpression(s1(), s2()),
+          new NegationExpression(s1())
+        };
+    OperatorContext operatorContext = createOperatorContext();
+    TransformOperator transformOperator =
+        new TransformOperator(
+            operatorContext,
+            new TsBlockSourceOperator(operatorContext, buildInput()),
+            DATA_TYPES,
+            expressions,
+            new UDTFContext(ZoneId.systemDefault()),
+            false);
+
+    int rowCount = 0;
+    while (transformOperator.hasNext()) {
+      TsBlock tsBlock = transformOperator.next();
+      assertEquals(3, tsBlock.getValueColumnCount());
+      for (int i = 0; i < tsBlock.getPositionCount(); i++, rowCount++) {
+        long time = tsBlock.getTimeByIndex(i);
+        // rows whose s1 is null are skipped because all of the result columns are null
+        assertTrue(time % 5 != 0);
+        assertEquals(time * 1.8 + 32, tsBlock.getColumn(0).getDouble(i), 1e-9);
+        if (time % 3 == 0) {
+          assertTrue(tsBlock.getColumn(1).isNull(i));
+        } else {
+          assertEquals(time / (time / 10.0), tsBlock.getColumn(1).getDouble(i), 1e-9);
+        }
+        assertEquals(-time, tsBlock.getColumn(2).getInt(i));
+      }
+    }
+    assertTrue(transformOperator.isFinished());
+    assertEquals(ROW_COUNT - ROW_COUNT / 5, rowCount);
+    transformOperator.close();
+  }
+
+  @Test
+  public void filterTest() throws Exception {
+    // select s1, s2 where s1 > 100 & !(s2 < 80)
+    Expression filterExpression =
+        new LogicAndExpression(
+            new GreaterThanExpression(s1(), new ConstantOperand(TSDataType.INT64, "100")),
+            new LogicNotExpression(
+                new LessThanExpression(s2(), new ConstantOperand(TSDataType.DOUBLE, "80"))));
+    OperatorContext operatorContext = createOperatorContext();
+    FilterOperator filterOperator =
+        new FilterOperator(
+            operatorContext,
+            new TsBlockSourceOperator(operatorContext, buildInput()),
+            DATA_TYPES,
+            filterExpression,
+            new Expression[] {s1(), s2()},
+            new UDTFContext(ZoneId.systemDefault()));
+
+    List<Long> times = new ArrayList<>();
+    while (filterOperator.hasNext()) {
+      TsBlock tsBlock = filterOperator.next();
+      assertEquals(2, tsBlock.getValueColumnCount());
+      for (int i = 0; i < tsBlock.getPositionCount(); i++) {
+        long time = tsBlock.getTimeByIndex(i);
+        assertEquals(time, tsBlock.getColumn(0).getInt(i));
+        assertEquals(time / 10.0, tsBlock.getColumn(1).getDouble(i), 1e-9);
+        times.add(time);
+      }
+    }
+    assertTrue(filterOperator.isFinished());
+    assertFalse(filterOperator.hasNext());
+
+    List<Long> expected = new ArrayList<>();
+    for (long time = 800; time < ROW_COUNT; time++) {
+      if (time % 5 != 0 && time % 3 != 0) {
+        expected.add(time);
+      }
+    }
+    assertEquals(expected, times);
+    filterOperator.close();
+  }
+
+  private static Expression s1() throws IllegalPathException {
+    Expression expression = new TimeSeriesOperand(new PartialPath("root.sg.d1.s1"));
+    expression.setInputColumnIndex(0);
+    return expression;
+  }
+
+  private static Expression s2() throws IllegalPathException {
+    Expression expression = new TimeSeriesOperand(new PartialPath("root.sg.d1.s2"));
+    expression.setInputColumnIndex(1);
+    return expression;
+  }
+
+  private OperatorContext createOperatorContext() {
+    QueryId queryId = new QueryId("stub_query");
+    FragmentInstanceId instanceId =
+        new FragmentInstanceId(new PlanFragmentId(queryId, 0), "stub-instance");
+    FragmentInstanceStateMachine stateMachine =
+        new FragmentInstanceStateMachine(instanceId, instanceNotificationExecutor);
+    FragmentInstanceContext fragmentInstanceContext =
+        createFragmentInstanceContext(instanceId, stateMachine);
+    fragmentInstanceContext.addOperatorContext(
+        1, new PlanNodeId("1"), TransformOperator.class.getSimpleName());
+    return fragmentInstanceContext.getOperatorContexts().get(0);
+  }
+
+  /**
+   * Time is from 0 to ROW_COUNT - 1, s1 is time, which is null if time % 5 == 0, and s2 is time /
+   * 10.0, which is null if time % 3 == 0.
+   */
+  private List<TsBlock> buildInput() {
+    List<TsBlock> tsBlocks = new ArrayList<>();
+    TsBlockBuilder builder = new TsBlockBuilder(DATA_TYPES);
+    for (int time = 0; time < ROW_COUNT; time++) {
+      builder.getTimeColumnBuilder().writeLong(time);
+      if (time % 5 == 0) {
+        builder.getColumnBuilder(0).appendNull();
+      } else {
+        builder.getColumnBuilder(0).writeInt(time);
+      }
+      if (time % 3 == 0) {
+        builder.getColumnBuilder(1).appendNull();
+      } else {
+        builder.getColumnBuilder(1).writeDouble(time / 10.0);
+      }
+      builder.declarePosition();
+      if (builder.getPositionCount() == ROWS_PER_BLOCK) {
+        tsBlocks.add(builder.build());
+        builder.reset();
+      }
+    }
+    return tsBlocks;
+  }
+
+  /** Return the given TsBlocks one by one. */
+  private static class TsBlockSourceOperator implements Operator {
+
+    private final OperatorContext operatorContext;
+    private final Iterator<TsBlock> iterator;
+
+    private TsBlockSourceOperator(OperatorContext operatorContext, List<TsBlock> tsBlocks) {
+      this.operatorContext = operatorContext;
+      this.iterator = tsBlocks.iterator();
+    }
+
+    @Override
+    public OperatorContext getOperatorContext() {
+      return operatorContext;
+    }
+
+    @Override
+    public TsBlock next() {
+      return iterator.next();
+    }
+
+    @Override
+    public boolean hasNext() {
+      return iterator.hasNext();
+    }
+
+    @Override
+    public boolean isFinished() {
+      return !iterator.hasNext();
+    }
+  }
+}
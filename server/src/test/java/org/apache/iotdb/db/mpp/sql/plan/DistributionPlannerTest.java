@@ -48,6 +48,7 @@ import org.apache.iotdb.db.mpp.sql.planner.plan.node.metedata.read.TimeSeriesSch
 import org.apache.iotdb.db.mpp.sql.planner.plan.node.process.ExchangeNode;
 import org.apache.iotdb.db.mpp.sql.planner.plan.node.process.LimitNode;
 import org.apache.iotdb.db.mpp.sql.planner.plan.node.process.TimeJoinNode;
+import org.apache.iotdb.db.mpp.sql.planner.plan.node.process.TopKNode;
 import org.apache.iotdb.db.mpp.sql.planner.plan.node.source.SeriesScanNode;
 import org.apache.iotdb.db.mpp.sql.planner.plan.node.write.InsertRowNode;
 import org.apache.iotdb.db.mpp.sql.planner.plan.node.write.InsertRowsNode;
@@ -60,11 +61,13 @@ import org.junit.Test;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 public class DistributionPlannerTest {
 
@@ -191,6 +194,47 @@ public class DistributionPlannerTest {
     assertEquals(newRoot2.getChildren().get(0).getChildren().size(), 2);
   }
 
+  @Test
+  public void testPushDownTopK() throws IllegalPathException {
+    QueryId queryId = new QueryId("test_query");
+    SeriesScanNode seriesScanNode =
+        new SeriesScanNode(
+            queryId.genPlanNodeId(),
+            new MeasurementPath("root.sg.d1.s1", TSDataType.INT32),
+            Sets.newHashSet("s1"),
+            OrderBy.TIMESTAMP_ASC);
+    TopKNode root =
+        new TopKNode(
+            queryId.genPlanNodeId(),
+            seriesScanNode,
+            Collections.singletonList("root.sg.d1.s1"),
+            OrderBy.TIMESTAMP_DESC,
+            10);
+
+    Analysis analysis = constructAnalysis();
+
+    DistributionPlanner planner =
+        new DistributionPlanner(analysis, new LogicalQueryPlan(new MPPQueryContext(queryId), root));
+    PlanNode rootAfterRewrite = planner.rewriteSource();
+    PlanNode rootWithExchange = planner.addExchangeNode(rootAfterRewrite);
+
+    // root.sg.d1.s1 is in 2 DataRegions, a partial TopKNode is pushed down to each of them, and the
+    // final TopKNode takes them as its children without a TimeJoinNode
+    assertTrue(rootWithExchange instanceof TopKNode);
+    assertEquals(2, rootWithExchange.getChildren().size());
+    int exchangeNodeCount = 0;
+    for (PlanNode child : rootWithExchange.getChildren()) {
+      if (child instanceof ExchangeNode) {
+        exchangeNodeCount++;
+        child = child.getChildren().get(0);
+      }
+      assertTrue(child instanceof TopKNode);
+      assertEquals(10, ((TopKNode) child).getTopValue());
+      assertTrue(child.getChildren().get(0) instanceof SeriesScanNode);
+    }
+    assertEquals(1, exchangeNodeCount);
+  }
+
   @Test
   public void testAddExchangeNode() throws IllegalPathException {
     QueryId queryId = new QueryId("test_query");
@@ -31,6 +31,7 @@ import org.apache.iotdb.db.mpp.sql.planner.plan.node.process.LimitNode;
 import org.apache.iotdb.db.mpp.sql.planner.plan.node.process.OffsetNode;
 import org.apache.iotdb.db.mpp.sql.planner.plan.node.process.SortNode;
 import org.apache.iotdb.db.mpp.sql.planner.plan.node.process.TimeJoinNode;
+import org.apache.iotdb.db.mpp.sql.planner.plan.node.process.TopKNode;
 import org.apache.iotdb.db.mpp.sql.planner.plan.node.source.SeriesAggregateScanNode;
 import org.apache.iotdb.db.mpp.sql.planner.plan.node.source.SeriesScanNode;
 import org.apache.iotdb.tsfile.utils.Pair;
@@ -157,6 +158,20 @@ public class LogicalPlanPrinter {
       return null;
     }
 
+    @Override
+    public Void visitTopK(TopKNode node, PrinterContext context) {
+      print(context.getIndentLevel(), context.isShowCorner(), node.print());
+      context.incIndentLevel();
+      context.setShowCorner(true);
+      for (int i = 0; i < node.getChildren().size(); i++) {
+        if (i > 0) {
+          context.setShowCorner(false);
+        }
+        process(node.getChildren().get(i), context);
+      }
+      return null;
+    }
+
     @Override
     public Void visitTimeJoin(TimeJoinNode node, PrinterContext context) {
       print(context.getIndentLevel(), context.isShowCorner(), node.print());
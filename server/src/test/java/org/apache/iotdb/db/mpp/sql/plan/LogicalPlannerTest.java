@@ -40,7 +40,10 @@ import org.apache.iotdb.db.mpp.sql.planner.plan.node.metedata.write.CreateAligne
 import org.apache.iotdb.db.mpp.sql.planner.plan.node.metedata.write.CreateTimeSeriesNode;
 import org.apache.iotdb.db.mpp.sql.planner.plan.node.process.LimitNode;
 import org.apache.iotdb.db.mpp.sql.planner.plan.node.process.OffsetNode;
+import org.apache.iotdb.db.mpp.sql.planner.plan.node.process.TimeJoinNode;
+import org.apache.iotdb.db.mpp.sql.planner.plan.node.process.TopKNode;
 import org.apache.iotdb.db.mpp.sql.statement.Statement;
+import org.apache.iotdb.db.mpp.sql.statement.component.OrderBy;
 import org.apache.iotdb.db.mpp.sql.statement.metadata.AlterTimeSeriesStatement;
 import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
@@ -53,6 +56,7 @@ import org.junit.Test;
 import java.nio.ByteBuffer;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -70,6 +74,19 @@ public class LogicalPlannerTest {
     }
   }
 
+  @Test
+  public void testOrderBySeriesPlan() {
+    String sql = "SELECT s1, s2 FROM root.sg.d1 ORDER BY s1 DESC LIMIT 10";
+    PlanNode planNode = parseSQLToPlanNode(sql);
+    // the sort followed by the limit is planned as a top-k
+    Assert.assertTrue(planNode instanceof TopKNode);
+    TopKNode topKNode = (TopKNode) planNode;
+    Assert.assertEquals(10, topKNode.getTopValue());
+    Assert.assertEquals(Collections.singletonList("root.sg.d1.s1"), topKNode.getOrderBy());
+    Assert.assertEquals(OrderBy.TIMESTAMP_DESC, topKNode.getSortOrder());
+    Assert.assertTrue(topKNode.getChildren().get(0) instanceof TimeJoinNode);
+  }
+
   @Test
   public void testCreateTimeseriesPlan() {
     String sql =
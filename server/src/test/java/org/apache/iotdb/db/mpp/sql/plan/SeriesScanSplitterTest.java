@@ -0,0 +1,126 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.mpp.sql.plan;
+
+import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
+import org.apache.iotdb.db.engine.storagegroup.TsFileResourceStatus;
+import org.apache.iotdb.db.mpp.sql.planner.SeriesScanSplitter;
+import org.apache.iotdb.db.mpp.sql.planner.plan.parameter.GroupByTimeParameter;
+import org.apache.iotdb.tsfile.read.filter.TimeFilter;
+import org.apache.iotdb.tsfile.read.filter.basic.Filter;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SeriesScanSplitterTest {
+
+  private static final String DEVICE = "root.sg.d1";
+
+  /** sequence files of DEVICE over [0, 100), [100, 200), ..., the last one is unsealed */
+  private List<TsFileResource> createSeqResources(int fileNum) {
+    List<TsFileResource> resources = new ArrayList<>();
+    for (int i = 0; i < fileNum; i++) {
+      TsFileResource resource = new TsFileResource(new File(i + "-" + i + "-0-0.tsfile"));
+      resource.updateStartTime(DEVICE, i * 100L);
+      resource.updateEndTime(DEVICE, i * 100L + 99);
+      resource.setStatus(
+          i == fileNum - 1 ? TsFileResourceStatus.UNCLOSED : TsFileResourceStatus.CLOSED);
+      resources.add(resource);
+    }
+    return resources;
+  }
+
+  @Test
+  public void getSplitPointsTest() {
+    List<TsFileResource> resources = createSeqResources(8);
+
+    assertEquals(
+        ImmutableList.of(200L, 400L, 600L),
+        SeriesScanSplitter.getSplitPoints(resources, DEVICE, null, 4));
+    // no more split points than files
+    assertEquals(
+        ImmutableList.of(100L, 200L, 300L, 400L, 500L, 600L, 700L),
+        SeriesScanSplitter.getSplitPoints(resources, DEVICE, null, 16));
+    // files out of the time filter are not counted
+    assertEquals(
+        ImmutableList.of(600L, 700L),
+        SeriesScanSplitter.getSplitPoints(resources, DEVICE, TimeFilter.gtEq(550L), 4));
+    assertTrue(SeriesScanSplitter.getSplitPoints(resources, DEVICE, null, 1).isEmpty());
+    assertTrue(SeriesScanSplitter.getSplitPoints(resources, "root.sg.d2", null, 4).isEmpty());
+    assertTrue(SeriesScanSplitter.getSplitPoints(createSeqResources(1), DEVICE, null, 4).isEmpty());
+  }
+
+  @Test
+  public void alignToTimeWindowsTest() {
+    List<Long> splitPoints = ImmutableList.of(200L, 400L, 600L);
+
+    assertEquals(
+        ImmutableList.of(180L, 390L, 600L),
+        SeriesScanSplitter.alignToTimeWindows(
+            splitPoints, new GroupByTimeParameter(0, 1000, 30, 30, true)));
+    // split points out of [startTime, endTime) are removed
+    assertEquals(
+        ImmutableList.of(200L, 350L),
+        SeriesScanSplitter.alignToTimeWindows(
+            splitPoints, new GroupByTimeParameter(50, 500, 150, 150, true)));
+    // sliding windows can't be split
+    assertTrue(
+        SeriesScanSplitter.alignToTimeWindows(
+                splitPoints, new GroupByTimeParameter(0, 1000, 30, 10, true))
+            .isEmpty());
+    assertTrue(
+        SeriesScanSplitter.alignToTimeWindows(
+                splitPoints, new GroupByTimeParameter(0, 1000, 30, 30, false))
+            .isEmpty());
+    assertTrue(
+        SeriesScanSplitter.alignToTimeWindows(
+                Collections.emptyList(), new GroupByTimeParameter(0, 1000, 30, 30, true))
+            .isEmpty());
+  }
+
+  @Test
+  public void getTimeRangeFiltersTest() {
+    List<Filter> filters = SeriesScanSplitter.getTimeRangeFilters(ImmutableList.of(100L, 300L));
+    assertEquals(3, filters.size());
+
+    long[] times = {Long.MIN_VALUE, 0, 99, 100, 299, 300, Long.MAX_VALUE};
+    int[] expectedRanges = {0, 0, 0, 1, 1, 2, 2};
+    for (int i = 0; i < times.length; i++) {
+      for (int range = 0; range < filters.size(); range++) {
+        assertEquals(range == expectedRanges[i], filters.get(range).satisfy(times[i], null));
+      }
+    }
+
+    GroupByTimeParameter groupByTimeParameter =
+        SeriesScanSplitter.restrict(new GroupByTimeParameter(0, 1000, 30, 30, true), 90, 300);
+    assertEquals(90, groupByTimeParameter.getStartTime());
+    assertEquals(300, groupByTimeParameter.getEndTime());
+    assertEquals(30, groupByTimeParameter.getInterval());
+    assertFalse(groupByTimeParameter.isIntervalByMonth());
+  }
+}
@@ -0,0 +1,122 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.rescon;
+
+import org.apache.iotdb.common.rpc.thrift.TSStatus;
+import org.apache.iotdb.db.conf.IoTDBConfig;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.engine.storagegroup.DataRegion;
+import org.apache.iotdb.db.engine.storagegroup.StorageGroupInfo;
+import org.apache.iotdb.db.exception.WriteProcessRejectException;
+import org.apache.iotdb.rpc.RpcUtils;
+import org.apache.iotdb.rpc.TSStatusCode;
+
+import org.junit.After;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class WriteThrottlerTest {
+
+  private static final IoTDBConfig CONFIG = IoTDBDescriptor.getInstance().getConfig();
+
+  private static final double DELTA = 1e-6;
+
+  @After
+  public void tearDown() {
+    SystemInfo.getInstance().close();
+    CONFIG.setEnableWriteThrottle(false);
+  }
+
+  @Test
+  public void testPressureThresholds() {
+    assertEquals(0, WriteThrottler.getPressure(-1, 10, 20), DELTA);
+    assertEquals(0, WriteThrottler.getPressure(10, 10, 20), DELTA);
+    assertEquals(0.25, WriteThrottler.getPressure(12.5, 10, 20), DELTA);
+    assertEquals(0.5, WriteThrottler.getPressure(15, 10, 20), DELTA);
+    assertEquals(1, WriteThrottler.getPressure(20, 10, 20), DELTA);
+    assertEquals(1, WriteThrottler.getPressure(100, 10, 20), DELTA);
+  }
+
+  @Test
+  public void testThrottleTime() {
+    assertEquals(0, WriteThrottler.getThrottleTimeInMs(0, 200));
+    assertEquals(50, WriteThrottler.getThrottleTimeInMs(0.25, 200));
+    assertEquals(200, WriteThrottler.getThrottleTimeInMs(1, 200));
+    // out of range pressure is clamped
+    assertEquals(0, WriteThrottler.getThrottleTimeInMs(-1, 200));
+    assertEquals(200, WriteThrottler.getThrottleTimeInMs(2, 200));
+  }
+
+  @Test
+  public void testWriteMemoryPressure() throws WriteProcessRejectException {
+    double flushThreshold = CONFIG.getAllocateMemoryForWrite() * CONFIG.getFlushProportion();
+    double rejectThreshold = CONFIG.getAllocateMemoryForWrite() * CONFIG.getRejectProportion();
+    assertEquals(0, SystemInfo.getInstance().getWriteMemoryPressure(), DELTA);
+
+    StorageGroupInfo storageGroupInfo = Mockito.mock(StorageGroupInfo.class);
+    Mockito.when(storageGroupInfo.getDataRegion()).thenReturn(Mockito.mock(DataRegion.class));
+
+    reportMemCost(storageGroupInfo, (long) flushThreshold);
+    assertEquals(0, SystemInfo.getInstance().getWriteMemoryPressure(), DELTA);
+
+    long halfPressureCost = (long) ((flushThreshold + rejectThreshold) / 2);
+    reportMemCost(storageGroupInfo, halfPressureCost);
+    assertEquals(
+        (halfPressureCost - flushThreshold) / (rejectThreshold - flushThreshold),
+        SystemInfo.getInstance().getWriteMemoryPressure(),
+        DELTA);
+    assertFalse(SystemInfo.getInstance().isRejected());
+
+    reportMemCost(storageGroupInfo, (long) rejectThreshold + 1);
+    assertEquals(1, SystemInfo.getInstance().getWriteMemoryPressure(), DELTA);
+    assertTrue(SystemInfo.getInstance().isRejected());
+  }
+
+  @Test
+  public void testAttachWritePressure() throws WriteProcessRejectException {
+    TSStatus status = RpcUtils.getStatus(TSStatusCode.SUCCESS_STATUS);
+
+    StorageGroupInfo storageGroupInfo = Mockito.mock(StorageGroupInfo.class);
+    double flushThreshold = CONFIG.getAllocateMemoryForWrite() * CONFIG.getFlushProportion();
+    double rejectThreshold = CONFIG.getAllocateMemoryForWrite() * CONFIG.getRejectProportion();
+    reportMemCost(storageGroupInfo, (long) ((flushThreshold + rejectThreshold) / 2));
+
+    // nothing is attached when write throttle is disabled
+    assertSame(status, WriteThrottler.getInstance().attachWritePressure(status));
+
+    CONFIG.setEnableWriteThrottle(true);
+    TSStatus statusWithPressure = WriteThrottler.getInstance().attachWritePressure(status);
+    assertTrue(statusWithPressure.isSetWritePressure());
+    assertTrue(statusWithPressure.getWritePressure() >= 0.5 - DELTA);
+    assertEquals(status.getCode(), statusWithPressure.getCode());
+    // the original status may be shared, so it is not modified
+    assertFalse(status.isSetWritePressure());
+  }
+
+  private void reportMemCost(StorageGroupInfo storageGroupInfo, long memCost)
+      throws WriteProcessRejectException {
+    Mockito.when(storageGroupInfo.getMemCost()).thenReturn(memCost);
+    SystemInfo.getInstance().reportStorageGroupStatus(storageGroupInfo, null);
+  }
+}
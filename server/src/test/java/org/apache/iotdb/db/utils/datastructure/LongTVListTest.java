@@ -77,6 +77,47 @@ public class LongTVListTest {
     }
   }
 
+  @Test
+  public void testSortWithSortedRuns() {
+    Random random = new Random();
+    LongTVList tvList = new LongTVList();
+    List<TimeValuePair> inputs = new ArrayList<>();
+    // a sorted head followed by sorted batches of late points
+    for (long i = 0; i < 5000; i++) {
+      tvList.putLong(i * 2, i);
+      inputs.add(new TimeValuePair(i * 2, new TsLong(i)));
+    }
+    for (int batch = 0; batch < 20; batch++) {
+      long batchStart = random.nextInt(10000);
+      int batchSize = random.nextInt(200) + 1;
+      for (long i = 0; i < batchSize; i++) {
+        long value = random.nextInt(10000);
+        tvList.putLong(batchStart + i, value);
+        inputs.add(new TimeValuePair(batchStart + i, new TsLong(value)));
+      }
+    }
+    tvList.sort();
+    // stable sort keeps points with the same time in arrival order
+    inputs.sort(TimeValuePair::compareTo);
+    Assert.assertEquals(inputs.size(), tvList.rowCount);
+    for (int i = 0; i < tvList.rowCount; i++) {
+      Assert.assertEquals(inputs.get(i).getTimestamp(), tvList.getTime(i));
+      Assert.assertEquals(inputs.get(i).getValue().getLong(), tvList.getLong(i));
+    }
+
+    // append another batch to the sorted list and sort again
+    for (long i = 100; i > 0; i--) {
+      tvList.putLong(i, -i);
+      inputs.add(new TimeValuePair(i, new TsLong(-i)));
+    }
+    tvList.sort();
+    inputs.sort(TimeValuePair::compareTo);
+    for (int i = 0; i < tvList.rowCount; i++) {
+      Assert.assertEquals(inputs.get(i).getTimestamp(), tvList.getTime(i));
+      Assert.assertEquals(inputs.get(i).getValue().getLong(), tvList.getLong(i));
+    }
+  }
+
   @Test
   public void testPutLongsWithoutBitMap() {
     LongTVList tvList = new LongTVList();
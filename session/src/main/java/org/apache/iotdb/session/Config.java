@@ -29,6 +29,7 @@ public class Config {
   public static final int DEFAULT_FETCH_SIZE = 5000;
   public static final int DEFAULT_CONNECTION_TIMEOUT_MS = 0;
   public static final boolean DEFAULT_CACHE_LEADER_MODE = true;
+  public static final boolean DEFAULT_WRITE_BACKOFF_MODE = false;
 
   public static final int CPU_CORES = Runtime.getRuntime().availableProcessors();
   public static final int DEFAULT_SESSION_EXECUTOR_THREAD_NUM = 2 * CPU_CORES;
@@ -37,6 +38,14 @@ public class Config {
   public static final int RETRY_NUM = 3;
   public static final long RETRY_INTERVAL_MS = 1000;
 
+  /** backoff time range of insertions after the server rejected writing, doubled each rejection */
+  public static final long MIN_WRITE_BACKOFF_MS = 10;
+
+  public static final long MAX_WRITE_BACKOFF_MS = 5000;
+
+  /** backoff time of insertions when the server reports the top write pressure */
+  public static final long MAX_WRITE_BACKOFF_UNDER_PRESSURE_MS = 1000;
+
   /** thrift init buffer size, 1KB by default */
   public static final int DEFAULT_INITIAL_BUFFER_CAPACITY = 1024;
 
@@ -127,6 +127,8 @@ public class Session {
 
   // Cluster version cache
   protected boolean enableCacheLeader;
+  // slow down insertions adaptively when the server is under write pressure or rejects writing
+  protected boolean enableWriteBackoff = Config.DEFAULT_WRITE_BACKOFF_MODE;
   protected SessionConnection metaSessionConnection;
   protected volatile Map<String, TEndPoint> deviceIdToEndpoint;
   protected volatile Map<TEndPoint, SessionConnection> endPointToSessionConnection;
@@ -2510,6 +2512,14 @@ public class Session {
     this.enableCacheLeader = enableCacheLeader;
   }
 
+  public boolean isEnableWriteBackoff() {
+    return enableWriteBackoff;
+  }
+
+  public void setEnableWriteBackoff(boolean enableWriteBackoff) {
+    this.enableWriteBackoff = enableWriteBackoff;
+  }
+
   public static class Builder {
     private String host = Config.DEFAULT_HOST;
     private int rpcPort = Config.DEFAULT_PORT;
@@ -2520,6 +2530,7 @@ public class Session {
     private int thriftDefaultBufferSize = Config.DEFAULT_INITIAL_BUFFER_CAPACITY;
     private int thriftMaxFrameSize = Config.DEFAULT_MAX_FRAME_SIZE;
     private boolean enableCacheLeader = Config.DEFAULT_CACHE_LEADER_MODE;
+    private boolean enableWriteBackoff = Config.DEFAULT_WRITE_BACKOFF_MODE;
     private Version version = Config.DEFAULT_VERSION;
 
     private List<String> nodeUrls = null;
@@ -2569,6 +2580,11 @@ public class Session {
       return this;
     }
 
+    public Builder enableWriteBackoff(boolean enableWriteBackoff) {
+      this.enableWriteBackoff = enableWriteBackoff;
+      return this;
+    }
+
     public Builder nodeUrls(List<String> nodeUrls) {
       this.nodeUrls = nodeUrls;
       return this;
@@ -2599,20 +2615,24 @@ public class Session {
                 enableCacheLeader,
                 version);
         newSession.setEnableQueryRedirection(true);
+        newSession.setEnableWriteBackoff(enableWriteBackoff);
         return newSession;
       }
 
-      return new Session(
-          host,
-          rpcPort,
-          username,
-          password,
-          fetchSize,
-          zoneId,
-          thriftDefaultBufferSize,
-          thriftMaxFrameSize,
-          enableCacheLeader,
-          version);
+      Session newSession =
+          new Session(
+              host,
+              rpcPort,
+              username,
+              password,
+              fetchSize,
+              zoneId,
+              thriftDefaultBufferSize,
+              thriftMaxFrameSize,
+              enableCacheLeader,
+              version);
+      newSession.setEnableWriteBackoff(enableWriteBackoff);
+      return newSession;
     }
   }
 }
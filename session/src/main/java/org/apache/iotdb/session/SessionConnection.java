@@ -84,6 +84,8 @@ public class SessionConnection {
   private TEndPoint endPoint;
   private List<TEndPoint> endPointList = new ArrayList<>();
   private boolean enableRedirect = false;
+  /** decides the time to wait before the next insertion */
+  private final WriteBackoff writeBackoff = new WriteBackoff();
 
   // TestOnly
   public SessionConnection() {}
@@ -468,14 +470,15 @@ public class SessionConnection {
 
   protected void insertRecord(TSInsertRecordReq request)
       throws IoTDBConnectionException, StatementExecutionException, RedirectException {
+    waitForWriteBackoff();
     request.setSessionId(sessionId);
     try {
-      RpcUtils.verifySuccessWithRedirection(client.insertRecord(request));
+      RpcUtils.verifySuccessWithRedirection(recordWriteStatus(client.insertRecord(request)));
     } catch (TException e) {
       if (reconnect()) {
         try {
           request.setSessionId(sessionId);
-          RpcUtils.verifySuccess(client.insertRecord(request));
+          RpcUtils.verifySuccess(recordWriteStatus(client.insertRecord(request)));
         } catch (TException tException) {
           throw new IoTDBConnectionException(tException);
         }
@@ -487,14 +490,15 @@ public class SessionConnection {
 
   protected void insertRecord(TSInsertStringRecordReq request)
       throws IoTDBConnectionException, StatementExecutionException, RedirectException {
+    waitForWriteBackoff();
     request.setSessionId(sessionId);
     try {
-      RpcUtils.verifySuccessWithRedirection(client.insertStringRecord(request));
+      RpcUtils.verifySuccessWithRedirection(recordWriteStatus(client.insertStringRecord(request)));
     } catch (TException e) {
       if (reconnect()) {
         try {
           request.setSessionId(sessionId);
-          RpcUtils.verifySuccess(client.insertStringRecord(request));
+          RpcUtils.verifySuccess(recordWriteStatus(client.insertStringRecord(request)));
         } catch (TException tException) {
           throw new IoTDBConnectionException(tException);
         }
@@ -506,15 +510,16 @@ public class SessionConnection {
 
   protected void insertRecords(TSInsertRecordsReq request)
       throws IoTDBConnectionException, StatementExecutionException, RedirectException {
+    waitForWriteBackoff();
     request.setSessionId(sessionId);
     try {
       RpcUtils.verifySuccessWithRedirectionForMultiDevices(
-          client.insertRecords(request), request.getPrefixPaths());
+          recordWriteStatus(client.insertRecords(request)), request.getPrefixPaths());
     } catch (TException e) {
       if (reconnect()) {
         try {
           request.setSessionId(sessionId);
-          RpcUtils.verifySuccess(client.insertRecords(request));
+          RpcUtils.verifySuccess(recordWriteStatus(client.insertRecords(request)));
         } catch (TException tException) {
           throw new IoTDBConnectionException(tException);
         }
@@ -526,15 +531,16 @@ public class SessionConnection {
 
   protected void insertRecords(TSInsertStringRecordsReq request)
       throws IoTDBConnectionException, StatementExecutionException, RedirectException {
+    waitForWriteBackoff();
     request.setSessionId(sessionId);
     try {
       RpcUtils.verifySuccessWithRedirectionForMultiDevices(
-          client.insertStringRecords(request), request.getPrefixPaths());
+          recordWriteStatus(client.insertStringRecords(request)), request.getPrefixPaths());
     } catch (TException e) {
       if (reconnect()) {
         try {
           request.setSessionId(sessionId);
-          RpcUtils.verifySuccess(client.insertStringRecords(request));
+          RpcUtils.verifySuccess(recordWriteStatus(client.insertStringRecords(request)));
         } catch (TException tException) {
           throw new IoTDBConnectionException(tException);
         }
@@ -546,14 +552,16 @@ public class SessionConnection {
 
   protected void insertRecordsOfOneDevice(TSInsertRecordsOfOneDeviceReq request)
       throws IoTDBConnectionException, StatementExecutionException, RedirectException {
+    waitForWriteBackoff();
     request.setSessionId(sessionId);
     try {
-      RpcUtils.verifySuccessWithRedirection(client.insertRecordsOfOneDevice(request));
+      RpcUtils.verifySuccessWithRedirection(
+          recordWriteStatus(client.insertRecordsOfOneDevice(request)));
     } catch (TException e) {
       if (reconnect()) {
         try {
           request.setSessionId(sessionId);
-          RpcUtils.verifySuccess(client.insertRecordsOfOneDevice(request));
+          RpcUtils.verifySuccess(recordWriteStatus(client.insertRecordsOfOneDevice(request)));
         } catch (TException tException) {
           throw new IoTDBConnectionException(tException);
         }
@@ -565,14 +573,16 @@ public class SessionConnection {
 
   protected void insertStringRecordsOfOneDevice(TSInsertStringRecordsOfOneDeviceReq request)
       throws IoTDBConnectionException, StatementExecutionException, RedirectException {
+    waitForWriteBackoff();
     request.setSessionId(sessionId);
     try {
-      RpcUtils.verifySuccessWithRedirection(client.insertStringRecordsOfOneDevice(request));
+      RpcUtils.verifySuccessWithRedirection(
+          recordWriteStatus(client.insertStringRecordsOfOneDevice(request)));
     } catch (TException e) {
       if (reconnect()) {
         try {
           request.setSessionId(sessionId);
-          RpcUtils.verifySuccess(client.insertStringRecordsOfOneDevice(request));
+          RpcUtils.verifySuccess(recordWriteStatus(client.insertStringRecordsOfOneDevice(request)));
         } catch (TException tException) {
           throw new IoTDBConnectionException(tException);
         }
@@ -584,14 +594,15 @@ public class SessionConnection {
 
   protected void insertTablet(TSInsertTabletReq request)
       throws IoTDBConnectionException, StatementExecutionException, RedirectException {
+    waitForWriteBackoff();
     request.setSessionId(sessionId);
     try {
-      RpcUtils.verifySuccessWithRedirection(client.insertTablet(request));
+      RpcUtils.verifySuccessWithRedirection(recordWriteStatus(client.insertTablet(request)));
     } catch (TException e) {
       if (reconnect()) {
         try {
           request.setSessionId(sessionId);
-          RpcUtils.verifySuccess(client.insertTablet(request));
+          RpcUtils.verifySuccess(recordWriteStatus(client.insertTablet(request)));
         } catch (TException tException) {
           throw new IoTDBConnectionException(tException);
         }
@@ -603,15 +614,16 @@ public class SessionConnection {
 
   protected void insertTablets(TSInsertTabletsReq request)
       throws IoTDBConnectionException, StatementExecutionException, RedirectException {
+    waitForWriteBackoff();
     request.setSessionId(sessionId);
     try {
       RpcUtils.verifySuccessWithRedirectionForMultiDevices(
-          client.insertTablets(request), request.getPrefixPaths());
+          recordWriteStatus(client.insertTablets(request)), request.getPrefixPaths());
     } catch (TException e) {
       if (reconnect()) {
         try {
           request.setSessionId(sessionId);
-          RpcUtils.verifySuccess(client.insertTablets(request));
+          RpcUtils.verifySuccess(recordWriteStatus(client.insertTablets(request)));
         } catch (TException tException) {
           throw new IoTDBConnectionException(tException);
         }
@@ -621,6 +633,37 @@ public class SessionConnection {
     }
   }
 
+  /**
+   * If write backoff is enabled and the server is under write pressure or rejected recent
+   * insertions, wait before sending the next insertion instead of writing at full speed.
+   */
+  private void waitForWriteBackoff() {
+    if (session == null || !session.enableWriteBackoff) {
+      return;
+    }
+    long backoffTime = writeBackoff.getBackoffTimeInMs();
+    if (backoffTime <= 0) {
+      return;
+    }
+    try {
+      Thread.sleep(backoffTime);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /** Adjust the write backoff time according to the status of an insertion */
+  private TSStatus recordWriteStatus(TSStatus status) {
+    if (session == null || !session.enableWriteBackoff) {
+      return status;
+    }
+    long backoffTime = writeBackoff.onWriteStatus(status);
+    if (backoffTime > 0) {
+      logger.debug("Write pressure of {} is high, back off {}ms", endPoint, backoffTime);
+    }
+    return status;
+  }
+
   protected void deleteTimeseries(List<String> paths)
       throws IoTDBConnectionException, StatementExecutionException {
     try {
@@ -0,0 +1,71 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.session;
+
+import org.apache.iotdb.common.rpc.thrift.TSStatus;
+import org.apache.iotdb.rpc.TSStatusCode;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * WriteBackoff decides how long a SessionConnection waits before sending the next insertion,
+ * according to the status of the previous insertions. The backoff time doubles each time the server
+ * rejects writing, is kept at least proportional to the write pressure reported by the server, and
+ * halves when the server is not under pressure.
+ */
+class WriteBackoff {
+
+  private final AtomicLong backoffTimeInMs = new AtomicLong();
+
+  long getBackoffTimeInMs() {
+    return backoffTimeInMs.get();
+  }
+
+  /** @return the backoff time after the status is recorded */
+  long onWriteStatus(TSStatus status) {
+    if (isWriteRejected(status)) {
+      return backoffTimeInMs.updateAndGet(
+          time ->
+              Math.min(
+                  Math.max(time * 2, Config.MIN_WRITE_BACKOFF_MS), Config.MAX_WRITE_BACKOFF_MS));
+    }
+    long pressureBackoffTime =
+        status.isSetWritePressure()
+            ? (long)
+                (Math.max(0, Math.min(1, status.getWritePressure()))
+                    * Config.MAX_WRITE_BACKOFF_UNDER_PRESSURE_MS)
+            : 0;
+    return backoffTimeInMs.updateAndGet(time -> Math.max(time / 2, pressureBackoffTime));
+  }
+
+  private static boolean isWriteRejected(TSStatus status) {
+    if (status.getCode() == TSStatusCode.WRITE_PROCESS_REJECT.getStatusCode()) {
+      return true;
+    }
+    if (status.getCode() == TSStatusCode.MULTIPLE_ERROR.getStatusCode()
+        && status.isSetSubStatus()) {
+      for (TSStatus subStatus : status.getSubStatus()) {
+        if (subStatus.getCode() == TSStatusCode.WRITE_PROCESS_REJECT.getStatusCode()) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+}
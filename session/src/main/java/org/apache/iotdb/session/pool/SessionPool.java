@@ -85,6 +85,8 @@ public class SessionPool {
   private final int fetchSize;
   private final ZoneId zoneId;
   private final boolean enableCacheLeader;
+  // slow down insertions adaptively when the server is under write pressure or rejects writing
+  private boolean enableWriteBackoff = Config.DEFAULT_WRITE_BACKOFF_MODE;
 
   // parameters for Session#open()
   private final int connectionTimeoutInMs;
@@ -294,6 +296,7 @@ public class SessionPool {
               .fetchSize(fetchSize)
               .zoneId(zoneId)
               .enableCacheLeader(enableCacheLeader)
+              .enableWriteBackoff(enableWriteBackoff)
               .build();
     } else {
       // Construct redirect-able Session
@@ -305,6 +308,7 @@ public class SessionPool {
               .fetchSize(fetchSize)
               .zoneId(zoneId)
               .enableCacheLeader(enableCacheLeader)
+              .enableWriteBackoff(enableWriteBackoff)
               .build();
     }
     return session;
@@ -2301,6 +2305,15 @@ public class SessionPool {
     return connectionTimeoutInMs;
   }
 
+  public boolean isEnableWriteBackoff() {
+    return enableWriteBackoff;
+  }
+
+  /** only affects sessions created afterwards */
+  public void setEnableWriteBackoff(boolean enableWriteBackoff) {
+    this.enableWriteBackoff = enableWriteBackoff;
+  }
+
   public static class Builder {
 
     private String host = Config.DEFAULT_HOST;
@@ -2314,6 +2327,7 @@ public class SessionPool {
     private boolean enableCompression = false;
     private ZoneId zoneId = null;
     private boolean enableCacheLeader = Config.DEFAULT_CACHE_LEADER_MODE;
+    private boolean enableWriteBackoff = Config.DEFAULT_WRITE_BACKOFF_MODE;
     private int connectionTimeoutInMs = Config.DEFAULT_CONNECTION_TIMEOUT_MS;
 
     public Builder host(String host) {
@@ -2376,33 +2390,43 @@ public class SessionPool {
       return this;
     }
 
+    public Builder enableWriteBackoff(boolean enableWriteBackoff) {
+      this.enableWriteBackoff = enableWriteBackoff;
+      return this;
+    }
+
     public SessionPool build() {
+      SessionPool sessionPool;
       if (nodeUrls == null) {
-        return new SessionPool(
-            host,
-            port,
-            user,
-            password,
-            maxSize,
-            fetchSize,
-            waitToGetSessionTimeoutInMs,
-            enableCompression,
-            zoneId,
-            enableCacheLeader,
-            connectionTimeoutInMs);
+        sessionPool =
+            new SessionPool(
+                host,
+                port,
+                user,
+                password,
+                maxSize,
+                fetchSize,
+                waitToGetSessionTimeoutInMs,
+                enableCompression,
+                zoneId,
+                enableCacheLeader,
+                connectionTimeoutInMs);
       } else {
-        return new SessionPool(
-            nodeUrls,
-            user,
-            password,
-            maxSize,
-            fetchSize,
-            waitToGetSessionTimeoutInMs,
-            enableCompression,
-            zoneId,
-            enableCacheLeader,
-            connectionTimeoutInMs);
-      }
+        sessionPool =
+            new SessionPool(
+                nodeUrls,
+                user,
+                password,
+                maxSize,
+                fetchSize,
+                waitToGetSessionTimeoutInMs,
+                enableCompression,
+                zoneId,
+                enableCacheLeader,
+                connectionTimeoutInMs);
+      }
+      sessionPool.setEnableWriteBackoff(enableWriteBackoff);
+      return sessionPool;
     }
   }
 }
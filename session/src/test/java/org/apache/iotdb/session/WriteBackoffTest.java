@@ -0,0 +1,104 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.session;
+
+import org.apache.iotdb.common.rpc.thrift.TSStatus;
+import org.apache.iotdb.rpc.RpcUtils;
+import org.apache.iotdb.rpc.TSStatusCode;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+
+public class WriteBackoffTest {
+
+  private static final TSStatus REJECT_STATUS =
+      RpcUtils.getStatus(TSStatusCode.WRITE_PROCESS_REJECT);
+
+  @Test
+  public void testGrowAndDecay() {
+    WriteBackoff writeBackoff = new WriteBackoff();
+    assertEquals(0, writeBackoff.getBackoffTimeInMs());
+
+    // doubled on each rejection, starting from the min backoff time
+    long expected = Config.MIN_WRITE_BACKOFF_MS;
+    for (int i = 0; i < 5; i++) {
+      assertEquals(expected, writeBackoff.onWriteStatus(REJECT_STATUS));
+      expected *= 2;
+    }
+    assertEquals(Config.MIN_WRITE_BACKOFF_MS * 16, writeBackoff.getBackoffTimeInMs());
+
+    // halved on each success without pressure
+    TSStatus success = RpcUtils.getStatus(TSStatusCode.SUCCESS_STATUS);
+    assertEquals(Config.MIN_WRITE_BACKOFF_MS * 8, writeBackoff.onWriteStatus(success));
+    assertEquals(Config.MIN_WRITE_BACKOFF_MS * 4, writeBackoff.onWriteStatus(success));
+    while (writeBackoff.getBackoffTimeInMs() > 0) {
+      writeBackoff.onWriteStatus(success);
+    }
+    assertEquals(0, writeBackoff.onWriteStatus(success));
+  }
+
+  @Test
+  public void testMaxBackoff() {
+    WriteBackoff writeBackoff = new WriteBackoff();
+    for (int i = 0; i < 64; i++) {
+      writeBackoff.onWriteStatus(REJECT_STATUS);
+    }
+    assertEquals(Config.MAX_WRITE_BACKOFF_MS, writeBackoff.getBackoffTimeInMs());
+  }
+
+  @Test
+  public void testRejectedSubStatus() {
+    WriteBackoff writeBackoff = new WriteBackoff();
+    TSStatus status =
+        RpcUtils.getStatus(
+            Arrays.asList(RpcUtils.getStatus(TSStatusCode.SUCCESS_STATUS), REJECT_STATUS));
+    assertEquals(Config.MIN_WRITE_BACKOFF_MS, writeBackoff.onWriteStatus(status));
+  }
+
+  @Test
+  public void testWritePressure() {
+    WriteBackoff writeBackoff = new WriteBackoff();
+    TSStatus status = RpcUtils.getStatus(TSStatusCode.SUCCESS_STATUS);
+    status.setWritePressure(0.5);
+    assertEquals(
+        Config.MAX_WRITE_BACKOFF_UNDER_PRESSURE_MS / 2, writeBackoff.onWriteStatus(status));
+
+    // higher pressure raises the backoff time at once
+    status.setWritePressure(1);
+    assertEquals(Config.MAX_WRITE_BACKOFF_UNDER_PRESSURE_MS, writeBackoff.onWriteStatus(status));
+
+    // lower pressure lets it decay, but not below the pressure level
+    status.setWritePressure(0.1);
+    assertEquals(
+        Config.MAX_WRITE_BACKOFF_UNDER_PRESSURE_MS / 2, writeBackoff.onWriteStatus(status));
+    assertEquals(
+        Config.MAX_WRITE_BACKOFF_UNDER_PRESSURE_MS / 4, writeBackoff.onWriteStatus(status));
+    assertEquals(
+        Config.MAX_WRITE_BACKOFF_UNDER_PRESSURE_MS / 8, writeBackoff.onWriteStatus(status));
+    assertEquals(
+        (long) (0.1 * Config.MAX_WRITE_BACKOFF_UNDER_PRESSURE_MS),
+        writeBackoff.onWriteStatus(status));
+    assertEquals(
+        (long) (0.1 * Config.MAX_WRITE_BACKOFF_UNDER_PRESSURE_MS),
+        writeBackoff.onWriteStatus(status));
+  }
+}
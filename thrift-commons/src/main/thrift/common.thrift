@@ -31,6 +31,8 @@ struct TSStatus {
   2: optional string message
   3: optional list<TSStatus> subStatus
   4: optional TEndPoint redirectNode
+  // write pressure of the server between 0 and 1, set on insertions when write throttle is enabled
+  5: optional double writePressure
 }
 
 enum TConsensusGroupType {
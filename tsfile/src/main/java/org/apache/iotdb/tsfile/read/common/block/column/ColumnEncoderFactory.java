@@ -31,6 +31,8 @@ public class ColumnEncoderFactory {
     encodingToEncoder.put(ColumnEncoding.INT64_ARRAY, new Int64ArrayColumnEncoder());
     encodingToEncoder.put(ColumnEncoding.BYTE_ARRAY, new ByteArrayColumnEncoder());
     encodingToEncoder.put(ColumnEncoding.BINARY_ARRAY, new BinaryArrayColumnEncoder());
+    encodingToEncoder.put(ColumnEncoding.RLE, new RunLengthColumnEncoder());
+    encodingToEncoder.put(ColumnEncoding.DELTA_INT64_ARRAY, new DeltaInt64ArrayColumnEncoder());
   }
 
   public static ColumnEncoder get(ColumnEncoding columnEncoding) {
@@ -31,7 +31,11 @@ public enum ColumnEncoding {
   /** INT64, DOUBLE. */
   INT64_ARRAY((byte) 2),
   /** TEXT. */
-  BINARY_ARRAY((byte) 3);
+  BINARY_ARRAY((byte) 3),
+  /** All data types, a single value repeated by the position count. */
+  RLE((byte) 4),
+  /** INT64, deltas between adjacent values as zigzag varints. */
+  DELTA_INT64_ARRAY((byte) 5);
 
   private final byte value;
 
@@ -57,6 +61,10 @@ public enum ColumnEncoding {
         return INT64_ARRAY;
       case 3:
         return BINARY_ARRAY;
+      case 4:
+        return RLE;
+      case 5:
+        return DELTA_INT64_ARRAY;
       default:
         throw new IllegalArgumentException("Invalid value: " + value);
     }
@@ -0,0 +1,101 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.tsfile.read.common.block.column;
+
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Encode an INT64 column, typically the time column, by the deltas between adjacent non-null
+ * values. Each delta is written as a zigzag varint, so the values of a regular time series take one
+ * or two bytes each instead of eight.
+ */
+public class DeltaInt64ArrayColumnEncoder implements ColumnEncoder {
+
+  @Override
+  public void readColumn(ColumnBuilder columnBuilder, ByteBuffer input, int positionCount) {
+
+    // Serialized data layout:
+    //    +---------------+-----------------+-------------------+
+    //    | may have null | null indicators |   deltas          |
+    //    +---------------+-----------------+-------------------+
+    //    | byte          | list[byte]      | list[varint64]    |
+    //    +---------------+-----------------+-------------------+
+
+    boolean[] nullIndicators = ColumnEncoder.deserializeNullIndicators(input, positionCount);
+
+    TSDataType dataType = columnBuilder.getDataType();
+    if (!TSDataType.INT64.equals(dataType)) {
+      throw new IllegalArgumentException("Invalid data type: " + dataType);
+    }
+    long previous = 0;
+    for (int i = 0; i < positionCount; i++) {
+      if (nullIndicators == null || !nullIndicators[i]) {
+        previous += readZigzagVarLong(input);
+        columnBuilder.writeLong(previous);
+      } else {
+        columnBuilder.appendNull();
+      }
+    }
+  }
+
+  @Override
+  public void writeColumn(DataOutputStream output, Column column) throws IOException {
+
+    ColumnEncoder.serializeNullIndicators(output, column);
+
+    TSDataType dataType = column.getDataType();
+    if (!TSDataType.INT64.equals(dataType)) {
+      throw new IllegalArgumentException("Invalid data type: " + dataType);
+    }
+    int positionCount = column.getPositionCount();
+    long previous = 0;
+    for (int i = 0; i < positionCount; i++) {
+      if (!column.isNull(i)) {
+        long value = column.getLong(i);
+        writeZigzagVarLong(output, value - previous);
+        previous = value;
+      }
+    }
+  }
+
+  private static void writeZigzagVarLong(DataOutputStream output, long value) throws IOException {
+    long unsigned = (value << 1) ^ (value >> 63);
+    while ((unsigned & ~0x7FL) != 0) {
+      output.writeByte((int) ((unsigned & 0x7F) | 0x80));
+      unsigned >>>= 7;
+    }
+    output.writeByte((int) unsigned);
+  }
+
+  private static long readZigzagVarLong(ByteBuffer input) {
+    long unsigned = 0;
+    int shift = 0;
+    byte b;
+    do {
+      b = input.get();
+      unsigned |= (long) (b & 0x7F) << shift;
+      shift += 7;
+    } while ((b & 0x80) != 0);
+    return (unsigned >>> 1) ^ -(unsigned & 1);
+  }
+}
@@ -0,0 +1,60 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.tsfile.read.common.block.column;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+public class RunLengthColumnEncoder implements ColumnEncoder {
+
+  @Override
+  public void readColumn(ColumnBuilder columnBuilder, ByteBuffer input, int positionCount) {
+
+    // Serialized data layout:
+    //    +-----------------------+--------------------------+
+    //    | value column encoding | value column             |
+    //    +-----------------------+--------------------------+
+    //    | byte                  | bytes of one position    |
+    //    +-----------------------+--------------------------+
+
+    ColumnEncoding valueEncoding = ColumnEncoding.deserializeFrom(input);
+    ColumnBuilder valueBuilder = columnBuilder.newColumnBuilderLike(null);
+    ColumnEncoderFactory.get(valueEncoding).readColumn(valueBuilder, input, 1);
+    Column value = valueBuilder.build();
+
+    if (value.isNull(0)) {
+      columnBuilder.appendNull(positionCount);
+    } else {
+      for (int i = 0; i < positionCount; i++) {
+        columnBuilder.write(value, 0);
+      }
+    }
+  }
+
+  @Override
+  public void writeColumn(DataOutputStream output, Column column) throws IOException {
+    if (!(column instanceof RunLengthEncodedColumn)) {
+      throw new IllegalArgumentException("Not a run length encoded column: " + column);
+    }
+    Column value = ((RunLengthEncodedColumn) column).getValue();
+    value.getEncoding().serializeTo(output);
+    ColumnEncoderFactory.get(value.getEncoding()).writeColumn(output, value);
+  }
+}
@@ -19,6 +19,9 @@
 
 package org.apache.iotdb.tsfile.read.common.block.column;
 
+import org.apache.iotdb.tsfile.compress.ICompressor;
+import org.apache.iotdb.tsfile.compress.IUnCompressor;
+import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.read.common.block.TsBlock;
 import org.apache.iotdb.tsfile.read.common.block.TsBlockBuilder;
@@ -30,8 +33,30 @@ import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
 
+/**
+ * Serialize and deserialize {@link TsBlock}s.
+ *
+ * <p>Every serialized tsblock starts with the compression type of its payload, so the deserializer
+ * doesn't need to know how the serializer is configured. A serializer with adaptive encoding writes
+ * the time column by deltas and run length encoded columns as a single value. A serializer with a
+ * compression type compresses the payload, and falls back to an uncompressed payload when
+ * compression doesn't make it smaller.
+ */
 public class TsBlockSerde {
 
+  private final CompressionType compressionType;
+  private final boolean adaptiveEncoding;
+
+  /** Create a serde that writes plain encodings without compression. */
+  public TsBlockSerde() {
+    this(CompressionType.UNCOMPRESSED, false);
+  }
+
+  public TsBlockSerde(CompressionType compressionType, boolean adaptiveEncoding) {
+    this.compressionType = compressionType;
+    this.adaptiveEncoding = adaptiveEncoding;
+  }
+
   /**
    * Deserialize a tsblock.
    *
@@ -41,6 +66,18 @@ public class TsBlockSerde {
   public TsBlock deserialize(ByteBuffer byteBuffer) {
 
     // Serialized tsblock:
+    //    +------------------+-----------------------------------+----------+
+    //    | compression type | uncompressed size (if compressed) | payload  |
+    //    +------------------+-----------------------------------+----------+
+    //    | byte             | int32                             | bytes    |
+    //    +------------------+-----------------------------------+----------+
+
+    CompressionType payloadCompressionType = CompressionType.deserialize(byteBuffer.get());
+    if (payloadCompressionType != CompressionType.UNCOMPRESSED) {
+      byteBuffer = uncompress(byteBuffer, payloadCompressionType);
+    }
+
+    // Payload:
     //    +-------------+---------------+---------+------------+-----------+----------+
     //    | val col cnt | val col types | pos cnt | encodings  | time col  | val col  |
     //    +-------------+---------------+---------+------------+-----------+----------+
@@ -83,6 +120,20 @@ public class TsBlockSerde {
     return builder.build();
   }
 
+  private static ByteBuffer uncompress(ByteBuffer byteBuffer, CompressionType compressionType) {
+    int uncompressedSize = byteBuffer.getInt();
+    byte[] compressed = new byte[byteBuffer.remaining()];
+    byteBuffer.get(compressed);
+    byte[] uncompressed = new byte[uncompressedSize];
+    try {
+      IUnCompressor.getUnCompressor(compressionType)
+          .uncompress(compressed, 0, compressed.length, uncompressed, 0);
+    } catch (IOException e) {
+      throw new IllegalArgumentException("Failed to uncompress the tsblock", e);
+    }
+    return ByteBuffer.wrap(uncompressed);
+  }
+
   /**
    * Serialize a tsblock.
    *
@@ -93,6 +144,13 @@ public class TsBlockSerde {
     ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
     DataOutputStream dataOutputStream = new DataOutputStream(byteArrayOutputStream);
 
+    // Compression type, and a placeholder for the uncompressed size.
+    dataOutputStream.writeByte(CompressionType.UNCOMPRESSED.serialize());
+    if (compressionType != CompressionType.UNCOMPRESSED) {
+      dataOutputStream.writeInt(0);
+    }
+    int payloadOffset = dataOutputStream.size();
+
     // Value column count.
     dataOutputStream.writeInt(tsBlock.getValueColumnCount());
 
@@ -105,21 +163,63 @@ public class TsBlockSerde {
     dataOutputStream.writeInt(tsBlock.getPositionCount());
 
     // Column encodings.
-    tsBlock.getTimeColumn().getEncoding().serializeTo(dataOutputStream);
+    ColumnEncoding timeColumnEncoding = getTimeColumnEncoding(tsBlock.getTimeColumn());
+    timeColumnEncoding.serializeTo(dataOutputStream);
+    List<ColumnEncoding> valueColumnEncodings = new ArrayList<>(tsBlock.getValueColumnCount());
     for (int i = 0; i < tsBlock.getValueColumnCount(); i++) {
-      tsBlock.getColumn(i).getEncoding().serializeTo(dataOutputStream);
+      ColumnEncoding valueColumnEncoding = getValueColumnEncoding(tsBlock.getColumn(i));
+      valueColumnEncoding.serializeTo(dataOutputStream);
+      valueColumnEncodings.add(valueColumnEncoding);
     }
 
     // Time column.
-    ColumnEncoder columnEncoder = ColumnEncoderFactory.get(tsBlock.getTimeColumn().getEncoding());
+    ColumnEncoder columnEncoder = ColumnEncoderFactory.get(timeColumnEncoding);
     columnEncoder.writeColumn(dataOutputStream, tsBlock.getTimeColumn());
 
     for (int i = 0; i < tsBlock.getValueColumnCount(); i++) {
       // Value column.
-      columnEncoder = ColumnEncoderFactory.get(tsBlock.getColumn(i).getEncoding());
+      columnEncoder = ColumnEncoderFactory.get(valueColumnEncodings.get(i));
       columnEncoder.writeColumn(dataOutputStream, tsBlock.getColumn(i));
     }
 
-    return ByteBuffer.wrap(byteArrayOutputStream.toByteArray());
+    byte[] serialized = byteArrayOutputStream.toByteArray();
+    if (compressionType == CompressionType.UNCOMPRESSED) {
+      return ByteBuffer.wrap(serialized);
+    }
+    return compress(serialized, payloadOffset);
+  }
+
+  private ColumnEncoding getTimeColumnEncoding(Column timeColumn) {
+    return adaptiveEncoding ? ColumnEncoding.DELTA_INT64_ARRAY : timeColumn.getEncoding();
+  }
+
+  private ColumnEncoding getValueColumnEncoding(Column valueColumn) {
+    return adaptiveEncoding && valueColumn instanceof RunLengthEncodedColumn
+        ? ColumnEncoding.RLE
+        : valueColumn.getEncoding();
+  }
+
+  /**
+   * Compress the payload of a serialized tsblock. The uncompressed one is returned if compression
+   * doesn't make it smaller.
+   */
+  private ByteBuffer compress(byte[] serialized, int payloadOffset) throws IOException {
+    int payloadSize = serialized.length - payloadOffset;
+    byte[] compressed =
+        ICompressor.getCompressor(compressionType).compress(serialized, payloadOffset, payloadSize);
+    if (compressed.length >= payloadSize) {
+      // Keep the payload uncompressed, and drop the placeholder of the uncompressed size.
+      ByteBuffer byteBuffer = ByteBuffer.allocate(1 + payloadSize);
+      byteBuffer.put(CompressionType.UNCOMPRESSED.serialize());
+      byteBuffer.put(serialized, payloadOffset, payloadSize);
+      byteBuffer.flip();
+      return byteBuffer;
+    }
+    ByteBuffer byteBuffer = ByteBuffer.allocate(1 + Integer.BYTES + compressed.length);
+    byteBuffer.put(compressionType.serialize());
+    byteBuffer.putInt(payloadSize);
+    byteBuffer.put(compressed);
+    byteBuffer.flip();
+    return byteBuffer;
   }
 }
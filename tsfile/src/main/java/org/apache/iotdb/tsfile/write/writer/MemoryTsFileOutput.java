@@ -0,0 +1,94 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.tsfile.write.writer;
+
+import org.apache.iotdb.tsfile.utils.PublicBAOS;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * a TsFileOutput implementation which keeps the written bytes in memory, so that they can be
+ * appended to another TsFileOutput later, e.g. the chunk groups compacted by the sub tasks of a
+ * compaction.
+ */
+public class MemoryTsFileOutput implements TsFileOutput {
+
+  private final PublicBAOS buffer;
+
+  public MemoryTsFileOutput() {
+    this.buffer = new PublicBAOS();
+  }
+
+  public MemoryTsFileOutput(int initialSize) {
+    this.buffer = new PublicBAOS(initialSize);
+  }
+
+  @Override
+  public void write(byte[] b) throws IOException {
+    buffer.write(b);
+  }
+
+  @Override
+  public void write(byte b) {
+    buffer.write(b);
+  }
+
+  /** write the whole backing array of the ByteBuffer, which is the same as LocalTsFileOutput */
+  @Override
+  public void write(ByteBuffer b) throws IOException {
+    buffer.write(b.array());
+  }
+
+  @Override
+  public long getPosition() {
+    return buffer.size();
+  }
+
+  @Override
+  public void close() throws IOException {
+    buffer.close();
+  }
+
+  @Override
+  public OutputStream wrapAsStream() {
+    return buffer;
+  }
+
+  @Override
+  public void flush() {
+    // nothing to flush
+  }
+
+  @Override
+  public void truncate(long size) {
+    buffer.truncate((int) size);
+  }
+
+  /** write all the bytes kept in memory to the given stream */
+  public void writeTo(OutputStream outputStream) throws IOException {
+    buffer.writeTo(outputStream);
+  }
+
+  /** @return the number of bytes kept in memory */
+  public int size() {
+    return buffer.size();
+  }
+}
@@ -121,7 +121,10 @@ public class TsFileIOWriter implements AutoCloseable {
     startFile();
   }
 
-  /** for test only */
+  /**
+   * for test, or for writing chunk groups into a {@link MemoryTsFileOutput} which will be appended
+   * to another file by {@link #appendChunkGroups(TsFileIOWriter)}. The magic string is not written.
+   */
   public TsFileIOWriter(TsFileOutput output, boolean test) {
     this.out = output;
   }
@@ -234,6 +237,34 @@ public class TsFileIOWriter implements AutoCloseable {
     }
   }
 
+  /**
+   * Append the chunk groups written by another writer into this file as they are. The other writer
+   * must write into a {@link MemoryTsFileOutput} without the magic string, and the offsets of the
+   * chunk metadata are moved to the positions in this file.
+   */
+  public void appendChunkGroups(TsFileIOWriter bufferWriter) throws IOException {
+    if (!(bufferWriter.out instanceof MemoryTsFileOutput)) {
+      throw new IOException("Only the chunk groups kept in memory can be appended");
+    }
+    long offset = out.getPosition();
+    ((MemoryTsFileOutput) bufferWriter.out).writeTo(out.wrapAsStream());
+    for (ChunkGroupMetadata chunkGroupMetadata : bufferWriter.chunkGroupMetadataList) {
+      List<ChunkMetadata> movedChunkMetadataList = new ArrayList<>();
+      for (ChunkMetadata chunkMetadata : chunkGroupMetadata.getChunkMetadataList()) {
+        ChunkMetadata movedChunkMetadata =
+            new ChunkMetadata(
+                chunkMetadata.getMeasurementUid(),
+                chunkMetadata.getDataType(),
+                chunkMetadata.getOffsetOfChunkHeader() + offset,
+                chunkMetadata.getStatistics());
+        movedChunkMetadata.setMask(chunkMetadata.getMask());
+        movedChunkMetadataList.add(movedChunkMetadata);
+      }
+      chunkGroupMetadataList.add(
+          new ChunkGroupMetadata(chunkGroupMetadata.getDevice(), movedChunkMetadataList));
+    }
+  }
+
   /** end chunk and write some log. */
   public void endCurrentChunk() {
     chunkMetadataList.add(currentChunkMetadata);
@@ -19,11 +19,14 @@
 
 package org.apache.iotdb.tsfile.common.block;
 
+import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.read.common.block.TsBlock;
 import org.apache.iotdb.tsfile.read.common.block.TsBlockBuilder;
 import org.apache.iotdb.tsfile.read.common.block.column.ColumnBuilder;
 import org.apache.iotdb.tsfile.read.common.block.column.ColumnEncoding;
+import org.apache.iotdb.tsfile.read.common.block.column.IntColumn;
+import org.apache.iotdb.tsfile.read.common.block.column.RunLengthEncodedColumn;
 import org.apache.iotdb.tsfile.read.common.block.column.TsBlockSerde;
 import org.apache.iotdb.tsfile.utils.Binary;
 
@@ -34,6 +37,7 @@ import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 
 public class TsBlockSerdeTest {
   @Test
@@ -71,6 +75,7 @@ public class TsBlockSerdeTest {
     try {
       ByteBuffer output = tsBlockSerde.serialize(tsBlockBuilder.build());
       output.rewind();
+      Assert.assertEquals(CompressionType.UNCOMPRESSED, CompressionType.deserialize(output.get()));
       int valueColumnCount = output.getInt();
       Assert.assertEquals(6, valueColumnCount);
       Assert.assertEquals(TSDataType.INT32, TSDataType.deserialize(output.get()));
@@ -109,4 +114,61 @@ public class TsBlockSerdeTest {
       Assert.fail();
     }
   }
+
+  @Test
+  public void testAdaptiveEncodingAndCompression() {
+    final int positionCount = 1000;
+
+    List<TSDataType> dataTypes = new ArrayList<>();
+    dataTypes.add(TSDataType.INT64);
+    dataTypes.add(TSDataType.DOUBLE);
+    dataTypes.add(TSDataType.TEXT);
+    TsBlockBuilder tsBlockBuilder = new TsBlockBuilder(dataTypes);
+    for (int i = 0; i < positionCount; i++) {
+      tsBlockBuilder.getTimeColumnBuilder().writeLong(1_600_000_000_000L + i * 1000L);
+      if (i % 7 == 0) {
+        tsBlockBuilder.getColumnBuilder(0).appendNull();
+      } else {
+        tsBlockBuilder.getColumnBuilder(0).writeLong(i % 3 == 0 ? -i : i);
+      }
+      tsBlockBuilder.getColumnBuilder(1).appendNull();
+      tsBlockBuilder.getColumnBuilder(2).writeBinary(new Binary("value" + i % 10));
+      tsBlockBuilder.declarePosition();
+    }
+    TsBlock tsBlock =
+        tsBlockBuilder
+            .build()
+            .appendValueColumn(
+                new RunLengthEncodedColumn(
+                    new IntColumn(1, Optional.empty(), new int[] {42}), positionCount));
+
+    try {
+      ByteBuffer plain = new TsBlockSerde().serialize(tsBlock);
+      ByteBuffer encoded = new TsBlockSerde(CompressionType.UNCOMPRESSED, true).serialize(tsBlock);
+      ByteBuffer compressed = new TsBlockSerde(CompressionType.LZ4, true).serialize(tsBlock);
+      Assert.assertTrue(encoded.remaining() < plain.remaining());
+      Assert.assertTrue(compressed.remaining() < encoded.remaining());
+      Assert.assertEquals(CompressionType.LZ4, CompressionType.deserialize(compressed.get(0)));
+
+      for (ByteBuffer output : new ByteBuffer[] {plain, encoded, compressed}) {
+        // Any serde can deserialize tsblocks serialized by the others.
+        TsBlock result = new TsBlockSerde().deserialize(output);
+        Assert.assertEquals(positionCount, result.getPositionCount());
+        Assert.assertEquals(4, result.getValueColumnCount());
+        for (int i = 0; i < positionCount; i++) {
+          Assert.assertEquals(tsBlock.getTimeByIndex(i), result.getTimeByIndex(i));
+          for (int j = 0; j < 4; j++) {
+            Assert.assertEquals(tsBlock.getColumn(j).isNull(i), result.getColumn(j).isNull(i));
+            if (!tsBlock.getColumn(j).isNull(i)) {
+              Assert.assertEquals(
+                  tsBlock.getColumn(j).getObject(i), result.getColumn(j).getObject(i));
+            }
+          }
+        }
+      }
+    } catch (IOException e) {
+      e.printStackTrace();
+      Assert.fail();
+    }
+  }
 }